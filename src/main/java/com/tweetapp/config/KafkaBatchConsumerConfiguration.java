@@ -0,0 +1,64 @@
+package com.tweetapp.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.RecoveringBatchErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+@Configuration
+public class KafkaBatchConsumerConfiguration {
+
+    public static final String BATCH_LISTENER_CONTAINER_FACTORY = "batchKafkaListenerContainerFactory";
+
+    @Value("${tweet.consumer.batch.max-size:500}")
+    private int maxBatchSize = 500;
+    @Value("${tweet.consumer.batch.poll-timeout:1s}")
+    private Duration pollTimeout = Duration.ofSeconds(1);
+    @Value("${tweet.consumer.batch.retry-interval:1s}")
+    private Duration retryInterval = Duration.ofSeconds(1);
+    @Value("${tweet.consumer.batch.retry-attempts:3}")
+    private long retryAttempts = 3;
+
+    /**
+     * Container factory for listeners receiving a whole poll as one List, at most
+     * tweet.consumer.batch.max-size records. Offsets are committed once the listener returned.
+     * When it throws BatchListenerFailedException the records before the failed one are
+     * committed and the rest are delivered again, up to tweet.consumer.batch.retry-attempts times
+     *
+     * @param configurer
+     * @param kafkaProperties
+     * @param virtualThreadExecutor
+     * @return ConcurrentKafkaListenerContainerFactory
+     */
+    @Bean(name = BATCH_LISTENER_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            KafkaProperties kafkaProperties,
+            @Qualifier("virtualThreadExecutor") ObjectProvider<ExecutorService> virtualThreadExecutor) {
+        Map<String, Object> consumerProperties = kafkaProperties.buildConsumerProperties();
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxBatchSize);
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, new DefaultKafkaConsumerFactory<>(consumerProperties));
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.getContainerProperties().setPollTimeout(pollTimeout.toMillis());
+        factory.setBatchErrorHandler(new RecoveringBatchErrorHandler(new FixedBackOff(retryInterval.toMillis(), retryAttempts)));
+        virtualThreadExecutor.ifAvailable(executor ->
+                factory.getContainerProperties().setConsumerTaskExecutor(new TaskExecutorAdapter(executor)));
+        return factory;
+    }
+}
@@ -0,0 +1,53 @@
+package com.tweetapp.config;
+
+import com.tweetapp.utils.ServiceConstants;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+import java.time.Duration;
+
+@Configuration
+public class KafkaTopicConfiguration {
+
+    @Value("${tweet.topic.partitions:6}")
+    private int partitions = 6;
+    @Value("${tweet.topic.replicas:1}")
+    private short replicas = 1;
+    @Value("${tweet.change-topic.retention:1d}")
+    private Duration changeRetention = Duration.ofDays(1);
+
+    /**
+     * The tweet topic, created on startup by Spring Boot's KafkaAdmin if missing. The partition
+     * count bounds how many listener threads can consume in parallel; an existing topic with
+     * fewer partitions is grown to this count, never shrunk
+     *
+     * @return NewTopic
+     */
+    @Bean
+    public NewTopic tweetTopic() {
+        return TopicBuilder.name(ServiceConstants.TOPIC_NAME)
+                .partitions(partitions)
+                .replicas(replicas)
+                .build();
+    }
+
+    /**
+     * The topic every instance reads whole to keep its in-memory views of the tweets up to date.
+     * One partition, as each instance has a single consumer on it anyway; changes are only read
+     * from the start of an instance on, so they are kept for a short time
+     *
+     * @return NewTopic
+     */
+    @Bean
+    public NewTopic tweetChangeTopic() {
+        return TopicBuilder.name(ServiceConstants.CHANGE_TOPIC_NAME)
+                .partitions(1)
+                .replicas(replicas)
+                .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(changeRetention.toMillis()))
+                .build();
+    }
+}
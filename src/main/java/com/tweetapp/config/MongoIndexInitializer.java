@@ -0,0 +1,122 @@
+package com.tweetapp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the indexes declared with @Indexed and @CompoundIndex on the documents once the
+ * application is ready, then checks that every one of them exists. Declared indexes are
+ * built with the background option. A missing index, e.g. a unique one that could not be
+ * built over duplicate data, is logged, or stops the application when
+ * tweet.mongo.indexes.fail-on-missing is set
+ */
+@Component
+@Slf4j
+public class MongoIndexInitializer {
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Value("${tweet.mongo.indexes.create:true}")
+    private boolean createIndexes = true;
+    @Value("${tweet.mongo.indexes.fail-on-missing:false}")
+    private boolean failOnMissing = false;
+
+    /**
+     * To create and verify the declared indexes of every document
+     *
+     * @return names of the declared indexes that do not exist
+     * @throws IllegalStateException if an index is missing and tweet.mongo.indexes.fail-on-missing is set
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public List<String> initIndexes() {
+        MongoPersistentEntityIndexResolver indexResolver =
+                new MongoPersistentEntityIndexResolver(mongoOperations.getConverter().getMappingContext());
+        List<String> missingIndexes = new ArrayList<>();
+        for (MongoPersistentEntity<?> entity : mongoOperations.getConverter().getMappingContext().getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                continue;
+            }
+            List<IndexDefinition> indexDefinitions = new ArrayList<>();
+            indexResolver.resolveIndexFor(entity.getTypeInformation()).forEach(indexDefinitions::add);
+            if (indexDefinitions.isEmpty()) {
+                continue;
+            }
+            IndexOperations indexOperations = mongoOperations.indexOps(entity.getType());
+            try {
+                if (createIndexes) {
+                    for (IndexDefinition indexDefinition : indexDefinitions) {
+                        ensureIndex(entity, indexOperations, indexDefinition);
+                    }
+                }
+                List<IndexInfo> indexInfoList = indexOperations.getIndexInfo();
+                for (IndexDefinition indexDefinition : indexDefinitions) {
+                    if (indexInfoList.stream().noneMatch(indexInfo -> matches(indexDefinition, indexInfo))) {
+                        missingIndexes.add(entity.getCollection() + "." + indexName(indexDefinition));
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Error while reading indexes of {} {}", entity.getCollection(), e.getMessage());
+                indexDefinitions.forEach(indexDefinition -> missingIndexes.add(entity.getCollection() + "." + indexName(indexDefinition)));
+            }
+        }
+        if (missingIndexes.isEmpty()) {
+            log.info("All declared Mongo indexes exist");
+        } else if (failOnMissing) {
+            throw new IllegalStateException("Missing Mongo indexes " + missingIndexes);
+        } else {
+            log.warn("Missing Mongo indexes {}, the queries using them scan the collection", missingIndexes);
+        }
+        return missingIndexes;
+    }
+
+    private static void ensureIndex(MongoPersistentEntity<?> entity, IndexOperations indexOperations, IndexDefinition indexDefinition) {
+        try {
+            indexOperations.ensureIndex(indexDefinition);
+        } catch (Exception e) {
+            log.error("Error while creating index {} on {} {}", indexName(indexDefinition), entity.getCollection(), e.getMessage());
+        }
+    }
+
+    /** same keys in the same order and directions, and unique if declared unique */
+    static boolean matches(IndexDefinition indexDefinition, IndexInfo indexInfo) {
+        List<String> declaredKeys = indexDefinition.getIndexKeys().entrySet().stream()
+                .map(key -> key.getKey() + ":" + key.getValue())
+                .collect(Collectors.toList());
+        List<String> existingKeys = indexInfo.getIndexFields().stream()
+                .map(MongoIndexInitializer::keyOf)
+                .collect(Collectors.toList());
+        boolean unique = Boolean.TRUE.equals(indexDefinition.getIndexOptions().get("unique"));
+        return declaredKeys.equals(existingKeys) && (!unique || indexInfo.isUnique());
+    }
+
+    private static String keyOf(IndexField indexField) {
+        if (indexField.getDirection() == null) {
+            return indexField.getKey() + ":" + (indexField.isText() ? "text" : "geo");
+        }
+        return indexField.getKey() + ":" + (indexField.getDirection() == Sort.Direction.ASC ? 1 : -1);
+    }
+
+    private static String indexName(IndexDefinition indexDefinition) {
+        Document indexOptions = indexDefinition.getIndexOptions();
+        return indexOptions.containsKey("name") ? indexOptions.getString("name")
+                : indexDefinition.getIndexKeys().keySet().stream().collect(Collectors.joining("_"));
+    }
+}
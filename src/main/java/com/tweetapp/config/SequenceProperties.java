@@ -0,0 +1,36 @@
+package com.tweetapp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("sequence")
+public class SequenceProperties {
+
+    /**
+     * Number of ids reserved per round trip when a sequence has no own block size
+     */
+    private int defaultBlockSize = 1000;
+
+    /**
+     * Block size per sequence name
+     */
+    private Map<String, Integer> blockSize = new HashMap<>();
+
+    /**
+     * To get the block size of a sequence
+     *
+     * @param sequenceName
+     * @return int
+     */
+    public int blockSizeOf(String sequenceName) {
+        return Math.max(1, blockSize.getOrDefault(sequenceName, defaultBlockSize));
+    }
+}
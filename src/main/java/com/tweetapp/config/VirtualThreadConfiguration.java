@@ -0,0 +1,90 @@
+package com.tweetapp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "tweet.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfiguration {
+
+    /**
+     * One virtual thread per task, shared by Tomcat and the Kafka listener containers.
+     * Looked up reflectively so the code still compiles for Java 11
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        log.info("Running request handling and Kafka listeners on virtual threads");
+        return newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Replaces Boot's pooled applicationTaskExecutor, so async MVC requests such as
+     * the tweet stream and any @Async work also run on virtual threads
+     *
+     * @param virtualThreadExecutor
+     * @return AsyncListenableTaskExecutor
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncListenableTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    /**
+     * To make Tomcat hand every request to a new virtual thread instead of its bounded worker pool
+     *
+     * @param virtualThreadExecutor
+     * @return TomcatProtocolHandlerCustomizer
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(
+            ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * Same container factory Spring Boot would create, with the consumer threads
+     * started on virtual threads
+     *
+     * @param configurer
+     * @param kafkaConsumerFactory
+     * @param applicationTaskExecutor
+     * @return ConcurrentKafkaListenerContainerFactory
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> kafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            AsyncListenableTaskExecutor applicationTaskExecutor) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.getContainerProperties().setConsumerTaskExecutor(applicationTaskExecutor);
+        return factory;
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("tweet.threads.virtual.enabled requires Java 21 or later, running on "
+                    + Runtime.version());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create virtual thread executor", e);
+        }
+    }
+}
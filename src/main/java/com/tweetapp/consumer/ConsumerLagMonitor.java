@@ -0,0 +1,149 @@
+package com.tweetapp.consumer;
+
+import com.tweetapp.utils.ServiceConstants;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks how far the tweet consumer group is behind the end of the tweet topic. The lag of
+ * every partition is published as the tweet.consumer.lag gauge, and once the total goes over
+ * tweet.producer.backpressure.max-lag new tweets are refused until the consumers caught up.
+ * While the lag cannot be read, nothing is refused
+ */
+@Service
+@Slf4j
+public class ConsumerLagMonitor {
+
+    private static final long UNKNOWN = -1;
+
+    @Autowired
+    private KafkaAdmin kafkaAdmin;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tweet.producer.backpressure.enabled:true}")
+    private boolean backpressureEnabled = true;
+    @Value("${tweet.producer.backpressure.max-lag:10000}")
+    private long maxLag = 10000;
+    @Value("${tweet.producer.backpressure.retry-after:5s}")
+    private Duration retryAfter = Duration.ofSeconds(5);
+    @Value("${tweet.consumer.lag.timeout:2s}")
+    private Duration timeout = Duration.ofSeconds(2);
+
+    private AdminClient adminClient;
+    private final Map<Integer, AtomicLong> partitionLags = new ConcurrentHashMap<>();
+    private final AtomicLong totalLag = new AtomicLong(UNKNOWN);
+
+    @PostConstruct
+    void initMonitor() {
+        if (Objects.isNull(adminClient)) {
+            adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        }
+        Gauge.builder("tweet.consumer.lag.total", totalLag, lag -> Math.max(lag.get(), 0))
+                .description("Tweets produced but not yet consumed, over all partitions")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void closeMonitor() {
+        adminClient.close(Duration.ofSeconds(1));
+    }
+
+    /**
+     * To read the committed offsets of the consumer group and the end offsets of the tweet topic
+     *
+     * @return total lag, or -1 if it could not be read
+     */
+    @Scheduled(fixedDelayString = "${tweet.consumer.lag.refresh-interval:5000}")
+    public long refreshLag() {
+        try {
+            Map<TopicPartition, OffsetAndMetadata> committedOffsets = adminClient
+                    .listConsumerGroupOffsets(ServiceConstants.GROUP_ID)
+                    .partitionsToOffsetAndMetadata().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            TopicDescription topicDescription = adminClient
+                    .describeTopics(Collections.singletonList(ServiceConstants.TOPIC_NAME))
+                    .all().get(timeout.toMillis(), TimeUnit.MILLISECONDS).get(ServiceConstants.TOPIC_NAME);
+            Map<TopicPartition, OffsetSpec> latest = topicDescription.partitions().stream()
+                    .map(partitionInfo -> new TopicPartition(ServiceConstants.TOPIC_NAME, partitionInfo.partition()))
+                    .collect(Collectors.toMap(Function.identity(), topicPartition -> OffsetSpec.latest()));
+            // partitions the group never committed on are read from their first retained offset
+            Map<TopicPartition, OffsetSpec> earliest = latest.keySet().stream()
+                    .filter(topicPartition -> Objects.isNull(committedOffsets.get(topicPartition)))
+                    .collect(Collectors.toMap(Function.identity(), topicPartition -> OffsetSpec.earliest()));
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets = adminClient.listOffsets(latest)
+                    .all().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> startOffsets = earliest.isEmpty()
+                    ? Collections.emptyMap()
+                    : adminClient.listOffsets(earliest).all().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            long total = 0;
+            for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffset : endOffsets.entrySet()) {
+                OffsetAndMetadata committedOffset = committedOffsets.get(endOffset.getKey());
+                long consumedOffset = Objects.nonNull(committedOffset) ? committedOffset.offset()
+                        : startOffsets.get(endOffset.getKey()).offset();
+                long lag = Math.max(endOffset.getValue().offset() - consumedOffset, 0);
+                partitionLag(endOffset.getKey().partition()).set(lag);
+                total += lag;
+            }
+            totalLag.set(total);
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            totalLag.set(UNKNOWN);
+        } catch (Exception e) {
+            log.error("Error while reading consumer lag {}", e.getMessage());
+            totalLag.set(UNKNOWN);
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * To tell whether new tweets should be refused because the consumers fell too far behind
+     *
+     * @return true when the last known total lag is over the configured maximum
+     */
+    public boolean isBackpressured() {
+        return backpressureEnabled && totalLag.get() > maxLag;
+    }
+
+    /**
+     * @return how long clients are asked to wait before posting again
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    private AtomicLong partitionLag(int partition) {
+        return partitionLags.computeIfAbsent(partition, key -> {
+            AtomicLong lag = new AtomicLong();
+            Gauge.builder("tweet.consumer.lag", lag, AtomicLong::get)
+                    .description("Tweets produced but not yet consumed on one partition")
+                    .tag("partition", String.valueOf(partition))
+                    .register(meterRegistry);
+            return lag;
+        });
+    }
+}
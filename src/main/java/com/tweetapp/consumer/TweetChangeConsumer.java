@@ -0,0 +1,100 @@
+package com.tweetapp.consumer;
+
+import com.tweetapp.entity.TweetChange;
+import com.tweetapp.producer.TweetChangeProducer;
+import com.tweetapp.service.RecentTweetBuffer;
+import com.tweetapp.service.TrendingHashtags;
+import com.tweetapp.service.TweetSearchIndex;
+import com.tweetapp.service.TweetThreadCache;
+import com.tweetapp.utils.ServiceConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies the tweet changes made on other instances to the in-memory views of this one. Every
+ * instance reads the whole change topic in a consumer group of its own, from the time it was
+ * started on, so the changes made while its views were loaded from Mongo are not missed
+ */
+@Service
+@Slf4j
+public class TweetChangeConsumer implements ConsumerSeekAware {
+
+    @Autowired
+    private TweetChangeProducer tweetChangeProducer;
+    @Autowired
+    private RecentTweetBuffer recentTweetBuffer;
+    @Autowired
+    private TweetThreadCache tweetThreadCache;
+    @Autowired
+    private TweetSearchIndex tweetSearchIndex;
+    @Autowired
+    private TrendingHashtags trendingHashtags;
+
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicBoolean seeked = new AtomicBoolean();
+
+    /**
+     * To consume a change of the tweets, skipping the ones this instance made and applied itself
+     *
+     * @param tweetChange
+     * @param timestamp   epoch millis the change was sent at
+     */
+    @KafkaListener(id = "tweetChangeConsumer", topics = ServiceConstants.CHANGE_TOPIC_NAME,
+            groupId = "#{__listener.groupId}", properties = "auto.offset.reset=latest")
+    public void consume(TweetChange tweetChange, @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp) {
+        log.debug("Kafka Topic Consume Change: {}", tweetChange);
+        if (Objects.equals(tweetChange.getOrigin(), tweetChangeProducer.getOrigin())) {
+            return;
+        }
+        switch (tweetChange.getType()) {
+            case CREATED:
+                recentTweetBuffer.append(tweetChange.getTweetEntity());
+                tweetSearchIndex.add(tweetChange.getTweetEntity());
+                trendingHashtags.add(tweetChange.getTweetEntity());
+                tweetThreadCache.invalidate(tweetChange.getParentTweetId());
+                break;
+            case UPDATED:
+                recentTweetBuffer.updateTweetDesc(tweetChange.getTweetId(), tweetChange.getTweetDesc());
+                tweetSearchIndex.update(tweetChange.getTweetId(), tweetChange.getOldTweetDesc(), tweetChange.getTweetDesc());
+                tweetThreadCache.invalidate(tweetChange.getTweetId());
+                tweetThreadCache.invalidate(tweetChange.getParentTweetId());
+                break;
+            case DELETED:
+                recentTweetBuffer.remove(tweetChange.getTweetId());
+                tweetSearchIndex.remove(tweetChange.getTweetId(), tweetChange.getOldTweetDesc());
+                tweetThreadCache.invalidate(tweetChange.getTweetId());
+                tweetThreadCache.invalidate(tweetChange.getParentTweetId());
+                break;
+            case LIKED:
+                recentTweetBuffer.incrementLikeCounts(tweetChange.getLikeDeltas(), timestamp);
+                break;
+            default:
+                log.warn("Unknown tweet change {}", tweetChange.getType());
+        }
+    }
+
+    /**
+     * @return a consumer group of this instance only, so it gets every change
+     */
+    public String getGroupId() {
+        return ServiceConstants.GROUP_ID + "-" + tweetChangeProducer.getOrigin();
+    }
+
+    /** only on the first assignment, later ones resume from the offsets committed */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        if (seeked.compareAndSet(false, true)) {
+            callback.seekToTimestamp(assignments.keySet(), startedAt);
+        }
+    }
+}
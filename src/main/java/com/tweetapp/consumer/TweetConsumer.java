@@ -1,32 +1,213 @@
 package com.tweetapp.consumer;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.tweetapp.config.KafkaBatchConsumerConfiguration;
+import com.tweetapp.entity.TweetChange;
 import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.producer.TweetChangeProducer;
 import com.tweetapp.repository.TweetRepository;
+import com.tweetapp.service.RecentTweetBuffer;
+import com.tweetapp.service.TimelineService;
+import com.tweetapp.service.TrendingHashtags;
+import com.tweetapp.service.TweetSearchIndex;
+import com.tweetapp.service.TweetThreadCache;
 import com.tweetapp.utils.ServiceConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Redelivered tweets are skipped: ids consumed recently are remembered in memory, and
+ * anything older is only inserted if Mongo does not have it yet. Only newly inserted tweets
+ * are pushed to the timelines, the recent tweet buffer, the search index and the trends,
+ * and sent on to the other instances, as each consumes only its share of the partitions
+ */
 @Service
 @Slf4j
 public class TweetConsumer {
     @Autowired
     private TweetRepository tweetRepository;
+    @Autowired
+    private TimelineService timelineService;
+    @Autowired
+    private RecentTweetBuffer recentTweetBuffer;
+    @Autowired
+    private TweetThreadCache tweetThreadCache;
+    @Autowired
+    private TweetSearchIndex tweetSearchIndex;
+    @Autowired
+    private TrendingHashtags trendingHashtags;
+    @Autowired
+    private TweetChangeProducer tweetChangeProducer;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tweet.consumer.dedupe.max-size:10000}")
+    private long dedupeMaxSize = 10000;
+
+    private Cache<Long, Boolean> consumedTweetIds;
+    private Timer persistLatency;
 
     static final String TOPIC_NAME = ServiceConstants.TOPIC_NAME;
     static final String GROUP_ID_NAME = ServiceConstants.GROUP_ID;
+    /** one consumer thread per partition of the tweet topic unless set otherwise */
+    static final String CONCURRENCY = "${tweet.consumer.concurrency:${tweet.topic.partitions:6}}";
+
+    @PostConstruct
+    void initConsumer() {
+        // eviction is cheap here, so it runs on the listener thread instead of the common pool
+        consumedTweetIds = Caffeine.newBuilder().maximumSize(dedupeMaxSize).executor(Runnable::run).build();
+        persistLatency = Timer.builder("tweet.consumer.persist.latency")
+                .description("Time from posting a tweet until it is saved")
+                .register(meterRegistry);
+    }
 
-    @KafkaListener(topics = TOPIC_NAME, groupId = GROUP_ID_NAME)
+    @KafkaListener(id = "tweetConsumer", topics = TOPIC_NAME, groupId = GROUP_ID_NAME, concurrency = CONCURRENCY,
+            autoStartup = "#{!${tweet.consumer.batch.enabled:false}}")
 
     /**
-     * To consume message from Kafka Topic and save it to Database
+     * To consume message from Kafka Topic, save it to Database and push it to the home timelines
+     * and the recent tweet buffer
      */
     public void consume(TweetEntity tweetEntity) {
         log.info("Kafka Topic Consume Message: {}", tweetEntity.toString());
-        tweetEntity.setCreatedDate(LocalDateTime.now());
-        tweetRepository.save(tweetEntity);
+        if (isRecentlyConsumed(tweetEntity)) {
+            return;
+        }
+        setCreatedDateIfMissing(tweetEntity, LocalDateTime.now());
+        if (tweetRepository.insertIfAbsent(tweetEntity)) {
+            afterInsert(tweetEntity);
+        } else {
+            duplicate("mongo");
+        }
+        consumedTweetIds.put(tweetEntity.getTweetId(), Boolean.TRUE);
+    }
+
+    /**
+     * To consume all messages of one poll with a single bulk write. Tweets the bulk write
+     * rejected are saved again one by one; if one still fails, the poll is committed up to
+     * that tweet and the rest is delivered again
+     *
+     * @param tweetEntityList
+     * @throws BatchListenerFailedException for the first tweet that could not be saved
+     */
+    @KafkaListener(id = "tweetBatchConsumer", topics = TOPIC_NAME, groupId = GROUP_ID_NAME, concurrency = CONCURRENCY,
+            containerFactory = KafkaBatchConsumerConfiguration.BATCH_LISTENER_CONTAINER_FACTORY,
+            autoStartup = "${tweet.consumer.batch.enabled:false}")
+    public void consumeBatch(List<TweetEntity> tweetEntityList) {
+        log.debug("Kafka Topic Consume {} Messages", tweetEntityList.size());
+        Map<Long, TweetEntity> tweetEntityMap = new LinkedHashMap<>();
+        LocalDateTime createdDate = LocalDateTime.now();
+        for (TweetEntity tweetEntity : tweetEntityList) {
+            if (!isRecentlyConsumed(tweetEntity) && tweetEntityMap.putIfAbsent(tweetEntity.getTweetId(), tweetEntity) == null) {
+                setCreatedDateIfMissing(tweetEntity, createdDate);
+            }
+        }
+        if (tweetEntityMap.isEmpty()) {
+            return;
+        }
+        List<TweetEntity> newTweetEntityList = new ArrayList<>(tweetEntityMap.values());
+        // null until known, for tweets whose write failed
+        Boolean[] inserted = new Boolean[newTweetEntityList.size()];
+        List<BulkWriteError> bulkWriteErrors = new ArrayList<>();
+        try {
+            markInserted(tweetRepository.insertAllIfAbsent(newTweetEntityList), inserted, Collections.emptyList());
+        } catch (BulkOperationException e) {
+            log.error("Error while bulk saving {} of {} tweets, retrying them one by one",
+                    e.getErrors().size(), newTweetEntityList.size());
+            bulkWriteErrors.addAll(e.getErrors());
+            markInserted(e.getResult(), inserted, bulkWriteErrors);
+            bulkWriteErrors.sort(Comparator.comparingInt(BulkWriteError::getIndex));
+        }
+        try {
+            for (BulkWriteError bulkWriteError : bulkWriteErrors) {
+                int failedIndex = bulkWriteError.getIndex();
+                try {
+                    inserted[failedIndex] = tweetRepository.insertIfAbsent(newTweetEntityList.get(failedIndex));
+                } catch (Exception e) {
+                    TweetEntity failedTweetEntity = newTweetEntityList.get(failedIndex);
+                    throw new BatchListenerFailedException("Error while saving tweet " + failedTweetEntity.getTweetId(),
+                            e, tweetEntityList.indexOf(failedTweetEntity));
+                }
+            }
+        } finally {
+            for (int i = 0; i < inserted.length; i++) {
+                if (inserted[i] == null) {
+                    continue;
+                }
+                if (inserted[i]) {
+                    afterInsert(newTweetEntityList.get(i));
+                } else {
+                    duplicate("mongo");
+                }
+                consumedTweetIds.put(newTweetEntityList.get(i).getTweetId(), Boolean.TRUE);
+            }
+        }
+    }
+
+    private boolean isRecentlyConsumed(TweetEntity tweetEntity) {
+        if (consumedTweetIds.getIfPresent(tweetEntity.getTweetId()) != null) {
+            duplicate("memory");
+            return true;
+        }
+        return false;
+    }
+
+    /** tweets produced before createdDate was set on posting */
+    private static void setCreatedDateIfMissing(TweetEntity tweetEntity, LocalDateTime createdDate) {
+        if (tweetEntity.getCreatedDate() == null) {
+            tweetEntity.setCreatedDate(createdDate);
+        }
+    }
+
+    private static void markInserted(BulkWriteResult bulkWriteResult, Boolean[] inserted, List<BulkWriteError> bulkWriteErrors) {
+        Arrays.fill(inserted, Boolean.FALSE);
+        for (BulkWriteUpsert bulkWriteUpsert : bulkWriteResult.getUpserts()) {
+            inserted[bulkWriteUpsert.getIndex()] = Boolean.TRUE;
+        }
+        for (BulkWriteError bulkWriteError : bulkWriteErrors) {
+            inserted[bulkWriteError.getIndex()] = null;
+        }
+    }
+
+    private void duplicate(String detectedBy) {
+        meterRegistry.counter("tweet.consumer.duplicates", "detected", detectedBy).increment();
+    }
+
+    private void afterInsert(TweetEntity tweetEntity) {
+        Duration latency = Duration.between(tweetEntity.getCreatedDate(), LocalDateTime.now());
+        // clocks of other producers may be slightly ahead
+        persistLatency.record(latency.isNegative() ? Duration.ZERO : latency);
+        recentTweetBuffer.append(tweetEntity);
+        tweetSearchIndex.add(tweetEntity);
+        trendingHashtags.add(tweetEntity);
+        tweetThreadCache.invalidate(tweetEntity.getParentTweetId());
+        tweetChangeProducer.sendChange(TweetChange.created(tweetEntity));
+        try {
+            timelineService.fanOut(tweetEntity);
+        } catch (Exception e) {
+            log.error("Error while fanning out tweet {}", e.getMessage());
+        }
     }
 }
@@ -0,0 +1,326 @@
+package com.tweetapp.controller;
+
+import com.tweetapp.model.*;
+import com.tweetapp.service.ReactiveTweetService;
+import com.tweetapp.service.ReactiveUserService;
+import com.tweetapp.service.TweetService;
+import com.tweetapp.service.UserService;
+import com.tweetapp.utils.ServiceConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.validation.Valid;
+
+/**
+ * WebFlux variant of {@link TweetAppController}, serving the same API on Netty
+ * when the reactive profile is active
+ */
+@RestController
+@RequestMapping("/api/v1.0/tweets")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+@Profile("reactive")
+@Slf4j
+public class ReactiveTweetAppController {
+
+    @Autowired
+    private ReactiveTweetService tweetService;
+    @Autowired
+    private ReactiveUserService userService;
+    @Autowired
+    private TweetService blockingTweetService;
+    @Autowired
+    private UserService blockingUserService;
+
+    /**
+     * API to register user
+     *
+     * @param user
+     * @return UserResponse
+     */
+    @PostMapping("/register")
+    public Mono<ResponseEntity<UserResponse>> registerUser(@RequestBody @Valid User user) {
+        log.info("Register User");
+        return userService.registerUser(user);
+    }
+
+    /**
+     * API for user to login
+     *
+     * @param loginId
+     * @param password
+     * @return UserResponse
+     */
+    @PostMapping("/login")
+    public Mono<ResponseEntity<UserResponse>> login(@RequestParam String loginId,
+                                                    @RequestParam String password) {
+        return userService.login(loginId, password);
+    }
+
+    /**
+     * API for forgot password
+     *
+     * @param userName
+     * @return UserResponse
+     */
+    @GetMapping("/{username}/forgot")
+    public Mono<ResponseEntity<UserResponse>> forgotPassword(@PathVariable("username") String userName) {
+        return userService.forgotPassword(userName);
+    }
+
+    /**
+     * API to reset Password
+     *
+     * @param userName
+     * @param user
+     * @return UserResponse
+     */
+    @PostMapping("/{username}/resetpassword")
+    public Mono<ResponseEntity<UserResponse>> resetPassword(@PathVariable("username") String userName, @RequestBody User user) {
+        return userService.resetPassword(userName, user);
+    }
+
+    /**
+     * API to get all tweets, one page at a time
+     *
+     * @param limit
+     * @param before nextCursor of the previous page
+     * @return TweetResponse
+     */
+    @GetMapping("/all")
+    public Mono<ResponseEntity<TweetResponse>> getAllTweets(@RequestHeader("Authorization") final String token,
+                                                            @RequestParam(value = "limit", required = false) Integer limit,
+                                                            @RequestParam(value = "before", required = false) String before) {
+        return tweetService.getAllTweets(token, limit, before);
+    }
+
+    /**
+     * API to stream every tweet as newline delimited JSON
+     *
+     * @return one Tweet per line
+     */
+    @GetMapping(value = "/all/stream", produces = ServiceConstants.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<String>> streamAllTweets(@RequestHeader("Authorization") final String token) {
+        return tweetService.streamAllTweets(token);
+    }
+
+    /**
+     * API to get all users
+     *
+     * @return UserResponse
+     */
+    @GetMapping("/users/all")
+    public Mono<ResponseEntity<UserResponse>> getAllUsers(@RequestHeader("Authorization") final String token) {
+        return userService.getAllUsers(token);
+    }
+
+    /**
+     * API to search user based on Username
+     *
+     * @param userName
+     * @return UserResponse
+     */
+    @GetMapping("/user/search/{username}")
+    public Mono<ResponseEntity<UserResponse>> searchByUserName(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName) {
+        return userService.searchByUserName(token, userName);
+    }
+
+    /**
+     * API to suggest login ids as a user types. Suggestions are answered from memory by the
+     * blocking service, without a worker thread
+     *
+     * @param prefix
+     * @param limit
+     * @return UserResponse
+     */
+    @GetMapping("/user/suggest")
+    public Mono<ResponseEntity<UserResponse>> suggestUsers(@RequestHeader("Authorization") final String token, @RequestParam("prefix") String prefix,
+                                                           @RequestParam(value = "limit", required = false) Integer limit) {
+        return Mono.fromCallable(() -> blockingUserService.suggestUsers(token, prefix, limit));
+    }
+
+    /**
+     * API to search user based on Username
+     *
+     * @param userName
+     * @return UserResponse
+     */
+    @GetMapping("/user/{username}")
+    public Mono<ResponseEntity<UserResponse>> getByUserName(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName) {
+        return userService.getByUserName(token, userName);
+    }
+
+    /**
+     * API to get all tweet based on Username, one page at a time
+     *
+     * @param userName
+     * @param limit
+     * @param before nextCursor of the previous page
+     * @return TweetResponse
+     */
+    @GetMapping("/{username}")
+    public Mono<ResponseEntity<TweetResponse>> getAllTweetsOfUser(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName,
+                                                                  @RequestParam(value = "limit", required = false) Integer limit,
+                                                                  @RequestParam(value = "before", required = false) String before) {
+        return tweetService.getAllTweetsOfUser(token, userName, limit, before);
+    }
+
+    /**
+     * API to get the home timeline of a user. Timelines are only kept in the blocking
+     * repositories, so the lookup runs on the bounded elastic scheduler
+     *
+     * @param userName
+     * @param limit
+     * @return TweetResponse
+     */
+    @GetMapping("/{username}/timeline")
+    public Mono<ResponseEntity<TweetResponse>> getHomeTimeline(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName,
+                                                               @RequestParam(value = "limit", required = false) Integer limit) {
+        return Mono.fromCallable(() -> blockingTweetService.getHomeTimeline(token, userName, limit))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * API to get a tweet with its nested replies. Threads are cached in front of the blocking
+     * repositories, so the lookup runs on the bounded elastic scheduler
+     *
+     * @param id
+     * @param depth levels of replies to include
+     * @param limit replies per level
+     * @param after nextCursor of the previous page of direct replies
+     * @return TweetResponse
+     */
+    @GetMapping("/{id}/thread")
+    public Mono<ResponseEntity<TweetResponse>> getThread(@RequestHeader("Authorization") final String token, @PathVariable("id") Long id,
+                                                         @RequestParam(value = "depth", required = false) Integer depth,
+                                                         @RequestParam(value = "limit", required = false) Integer limit,
+                                                         @RequestParam(value = "after", required = false) String after) {
+        return Mono.fromCallable(() -> blockingTweetService.getThread(token, id, depth, limit, after))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * API to search tweets holding every word of a query, newest first. Matches are loaded
+     * by the blocking service, so on a worker thread
+     *
+     * @param query
+     * @param limit
+     * @param before nextCursor of the previous page
+     * @return TweetResponse
+     */
+    @GetMapping("/search")
+    public Mono<ResponseEntity<TweetResponse>> searchTweets(@RequestHeader("Authorization") final String token, @RequestParam("q") String query,
+                                                            @RequestParam(value = "limit", required = false) Integer limit,
+                                                            @RequestParam(value = "before", required = false) String before) {
+        return Mono.fromCallable(() -> blockingTweetService.searchTweets(token, query, limit, before))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * API to get the most used hashtags of the last hour, or of another window. Trends are
+     * answered from memory by the blocking service, without a worker thread
+     *
+     * @param window e.g. 1h
+     * @param limit
+     * @return TrendResponse
+     */
+    @GetMapping("/trends")
+    public Mono<ResponseEntity<TrendResponse>> getTrends(@RequestHeader("Authorization") final String token,
+                                                         @RequestParam(value = "window", defaultValue = "1h") String window,
+                                                         @RequestParam(value = "limit", required = false) Integer limit) {
+        return Mono.fromCallable(() -> blockingTweetService.getTrends(token, window, limit));
+    }
+
+    /**
+     * API to follow a user
+     *
+     * @param userName
+     * @param followeeName
+     * @return UserResponse
+     */
+    @PutMapping("/{username}/follow/{followee}")
+    public Mono<ResponseEntity<UserResponse>> followUser(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName, @PathVariable("followee") String followeeName) {
+        return Mono.fromCallable(() -> blockingUserService.followUser(token, userName, followeeName))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * API to unfollow a user
+     *
+     * @param userName
+     * @param followeeName
+     * @return UserResponse
+     */
+    @DeleteMapping("/{username}/follow/{followee}")
+    public Mono<ResponseEntity<UserResponse>> unfollowUser(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName, @PathVariable("followee") String followeeName) {
+        return Mono.fromCallable(() -> blockingUserService.unfollowUser(token, userName, followeeName))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * API to Post new tweet
+     *
+     * @param userName
+     * @param tweet
+     * @return TweetResponse
+     */
+    @PostMapping("/{username}/add")
+    public Mono<ResponseEntity<TweetResponse>> postNewTweet(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName, @RequestBody @Valid Tweet tweet) {
+        return tweetService.postNewTweet(token, userName, tweet);
+    }
+
+    /**
+     * API to update Tweet
+     *
+     * @param userName
+     * @param id
+     * @param tweet
+     * @return TweetResponse
+     */
+    @PutMapping("/{username}/update/{id}")
+    public Mono<ResponseEntity<TweetResponse>> updateTweet(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName, @PathVariable("id") Long id, @RequestBody Tweet tweet) {
+        return tweetService.updateTweet(token, userName, id, tweet);
+    }
+
+    /**
+     * API to delete Tweet
+     *
+     * @param userName
+     * @param id
+     * @return TweetResponse
+     */
+    @DeleteMapping("/{username}/delete/{id}")
+    public Mono<ResponseEntity<TweetResponse>> deleteTweet(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName, @PathVariable("id") Long id) {
+        return tweetService.deleteTweet(token, userName, id);
+    }
+
+    /**
+     * API to Like/Unlike a Tweet
+     *
+     * @param userName
+     * @param id
+     * @return TweetResponse
+     */
+    @PutMapping("/{username}/like/{id}")
+    public Mono<ResponseEntity<TweetResponse>> likeTweet(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName, @PathVariable("id") Long id) {
+        return tweetService.likeTweet(token, userName, id);
+    }
+
+    /**
+     * API to reply to a Tweet
+     *
+     * @param userName
+     * @param id
+     * @param tweet
+     * @return TweetResponse
+     */
+    @PostMapping("/{username}/reply/{id}")
+    public Mono<ResponseEntity<TweetResponse>> replyToTweet(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName, @PathVariable("id") Long id, @RequestBody @Valid Tweet tweet) {
+        return tweetService.replyToTweet(token, userName, id, tweet);
+    }
+}
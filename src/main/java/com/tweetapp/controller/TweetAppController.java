@@ -3,16 +3,20 @@ package com.tweetapp.controller;
 import com.tweetapp.model.*;
 import com.tweetapp.service.TweetService;
 import com.tweetapp.service.UserService;
+import com.tweetapp.utils.ServiceConstants;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 
 @RestController
 @RequestMapping("/api/v1.0/tweets")
 @CrossOrigin(origins = "*", allowedHeaders = "*")
+@Profile("!reactive")
 @Slf4j
 public class TweetAppController {
 
@@ -70,13 +74,27 @@ public class TweetAppController {
     }
 
     /**
-     * API to get all tweets
+     * API to get all tweets, one page at a time
      *
+     * @param limit
+     * @param before nextCursor of the previous page
      * @return TweetResponse
      */
     @GetMapping("/all")
-    public ResponseEntity<TweetResponse> getAllTweets(@RequestHeader("Authorization") final String token) {
-        return tweetService.getAllTweets(token);
+    public ResponseEntity<TweetResponse> getAllTweets(@RequestHeader("Authorization") final String token,
+                                                      @RequestParam(value = "limit", required = false) Integer limit,
+                                                      @RequestParam(value = "before", required = false) String before) {
+        return tweetService.getAllTweets(token, limit, before);
+    }
+
+    /**
+     * API to stream every tweet as newline delimited JSON
+     *
+     * @return one Tweet per line
+     */
+    @GetMapping(value = "/all/stream", produces = ServiceConstants.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTweets(@RequestHeader("Authorization") final String token) {
+        return tweetService.streamAllTweets(token);
     }
 
     /**
@@ -100,6 +118,19 @@ public class TweetAppController {
         return userService.searchByUserName(token, userName);
     }
 
+    /**
+     * API to suggest login ids as a user types
+     *
+     * @param prefix
+     * @param limit
+     * @return UserResponse
+     */
+    @GetMapping("/user/suggest")
+    public ResponseEntity<UserResponse> suggestUsers(@RequestHeader("Authorization") final String token, @RequestParam("prefix") String prefix,
+                                                     @RequestParam(value = "limit", required = false) Integer limit) {
+        return userService.suggestUsers(token, prefix, limit);
+    }
+
     /**
      * API to search user based on Username
      *
@@ -112,14 +143,101 @@ public class TweetAppController {
     }
 
     /**
-     * API to get all tweet based on Username
+     * API to get all tweet based on Username, one page at a time
      *
      * @param userName
+     * @param limit
+     * @param before nextCursor of the previous page
      * @return TweetResponse
      */
     @GetMapping("/{username}")
-    public ResponseEntity<TweetResponse> getAllTweetsOfUser(@RequestHeader("Authorization") final String token,@PathVariable("username") String userName) {
-        return tweetService.getAllTweetsOfUser(token, userName);
+    public ResponseEntity<TweetResponse> getAllTweetsOfUser(@RequestHeader("Authorization") final String token,@PathVariable("username") String userName,
+                                                            @RequestParam(value = "limit", required = false) Integer limit,
+                                                            @RequestParam(value = "before", required = false) String before) {
+        return tweetService.getAllTweetsOfUser(token, userName, limit, before);
+    }
+
+    /**
+     * API to get the home timeline of a user
+     *
+     * @param userName
+     * @param limit
+     * @return TweetResponse
+     */
+    @GetMapping("/{username}/timeline")
+    public ResponseEntity<TweetResponse> getHomeTimeline(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName,
+                                                         @RequestParam(value = "limit", required = false) Integer limit) {
+        return tweetService.getHomeTimeline(token, userName, limit);
+    }
+
+    /**
+     * API to get a tweet with its nested replies
+     *
+     * @param id
+     * @param depth levels of replies to include
+     * @param limit replies per level
+     * @param after nextCursor of the previous page of direct replies
+     * @return TweetResponse
+     */
+    @GetMapping("/{id}/thread")
+    public ResponseEntity<TweetResponse> getThread(@RequestHeader("Authorization") final String token, @PathVariable("id") Long id,
+                                                   @RequestParam(value = "depth", required = false) Integer depth,
+                                                   @RequestParam(value = "limit", required = false) Integer limit,
+                                                   @RequestParam(value = "after", required = false) String after) {
+        return tweetService.getThread(token, id, depth, limit, after);
+    }
+
+    /**
+     * API to search tweets holding every word of a query, newest first.
+     *
+     * @param query
+     * @param limit
+     * @param before nextCursor of the previous page
+     * @return TweetResponse
+     */
+    @GetMapping("/search")
+    public ResponseEntity<TweetResponse> searchTweets(@RequestHeader("Authorization") final String token, @RequestParam("q") String query,
+                                                      @RequestParam(value = "limit", required = false) Integer limit,
+                                                      @RequestParam(value = "before", required = false) String before) {
+        return tweetService.searchTweets(token, query, limit, before);
+    }
+
+    /**
+     * API to get the most used hashtags of the last hour, or of another window
+     *
+     * @param window e.g. 1h
+     * @param limit
+     * @return TrendResponse
+     */
+    @GetMapping("/trends")
+    public ResponseEntity<TrendResponse> getTrends(@RequestHeader("Authorization") final String token,
+                                                   @RequestParam(value = "window", defaultValue = "1h") String window,
+                                                   @RequestParam(value = "limit", required = false) Integer limit) {
+        return tweetService.getTrends(token, window, limit);
+    }
+
+    /**
+     * API to follow a user
+     *
+     * @param userName
+     * @param followeeName
+     * @return UserResponse
+     */
+    @PutMapping("/{username}/follow/{followee}")
+    public ResponseEntity<UserResponse> followUser(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName, @PathVariable("followee") String followeeName) {
+        return userService.followUser(token, userName, followeeName);
+    }
+
+    /**
+     * API to unfollow a user
+     *
+     * @param userName
+     * @param followeeName
+     * @return UserResponse
+     */
+    @DeleteMapping("/{username}/follow/{followee}")
+    public ResponseEntity<UserResponse> unfollowUser(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName, @PathVariable("followee") String followeeName) {
+        return userService.unfollowUser(token, userName, followeeName);
     }
 
     /**
@@ -143,7 +261,7 @@ public class TweetAppController {
      * @return TweetResponse
      */
     @PutMapping("/{username}/update/{id}")
-    public ResponseEntity<TweetResponse> updateTweet(@RequestHeader("Authorization") final String token,@PathVariable("username") String userName, @PathVariable("id") Integer id, @RequestBody Tweet tweet) {
+    public ResponseEntity<TweetResponse> updateTweet(@RequestHeader("Authorization") final String token,@PathVariable("username") String userName, @PathVariable("id") Long id, @RequestBody Tweet tweet) {
         return tweetService.updateTweet(token, userName, id, tweet);
     }
 
@@ -155,7 +273,7 @@ public class TweetAppController {
      * @return TweetResponse
      */
     @DeleteMapping("/{username}/delete/{id}")
-    public ResponseEntity<TweetResponse> deleteTweet(@RequestHeader("Authorization") final String token,@PathVariable("username") String userName, @PathVariable("id") Integer id) {
+    public ResponseEntity<TweetResponse> deleteTweet(@RequestHeader("Authorization") final String token,@PathVariable("username") String userName, @PathVariable("id") Long id) {
         return tweetService.deleteTweet(token, userName, id);
     }
 
@@ -167,7 +285,7 @@ public class TweetAppController {
      * @return TweetResponse
      */
     @PutMapping("/{username}/like/{id}")
-    public ResponseEntity<TweetResponse> likeTweet(@RequestHeader("Authorization") final String token,@PathVariable("username") String userName, @PathVariable("id") Integer id) {
+    public ResponseEntity<TweetResponse> likeTweet(@RequestHeader("Authorization") final String token,@PathVariable("username") String userName, @PathVariable("id") Long id) {
         return tweetService.likeTweet(token, userName, id);
     }
 
@@ -180,7 +298,7 @@ public class TweetAppController {
      * @return TweetResponse
      */
     @PostMapping("/{username}/reply/{id}")
-    public ResponseEntity<TweetResponse> replyToTweet(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName, @PathVariable("id") Integer id, @RequestBody @Valid Tweet tweet) {
+    public ResponseEntity<TweetResponse> replyToTweet(@RequestHeader("Authorization") final String token, @PathVariable("username") String userName, @PathVariable("id") Long id, @RequestBody @Valid Tweet tweet) {
         return tweetService.replyToTweet(token, userName, id, tweet);
     }
 }
@@ -0,0 +1,42 @@
+package com.tweetapp.entity;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Builder
+@Document(collection = "follow")
+@CompoundIndexes({
+        @CompoundIndex(name = "followeeId_followerId", def = "{'followeeId': 1, 'followerId': 1}", background = true),
+        @CompoundIndex(name = "followerId_followeeId", def = "{'followerId': 1, 'followeeId': 1}", background = true)
+})
+public class FollowEntity implements Serializable {
+
+    private static final long serialVersionUID = 955728933773177564L;
+    @Id
+    private String followId;
+    private Long followerId;
+    private Long followeeId;
+    private LocalDateTime createdDate;
+
+    /**
+     * One follow edge per pair, so following twice keeps a single document
+     *
+     * @param followerId
+     * @param followeeId
+     * @return followId
+     */
+    public static String followIdOf(Long followerId, Long followeeId) {
+        return followerId + ":" + followeeId;
+    }
+}
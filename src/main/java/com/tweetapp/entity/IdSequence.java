@@ -14,5 +14,5 @@ public class IdSequence {
 
     @Id
     private String id;
-    private Integer sequence;
+    private Long sequence;
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.tweetapp.entity;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Builder
+@Document(collection = "timeline")
+public class TimelineEntity implements Serializable {
+
+    private static final long serialVersionUID = 955728933773177564L;
+    @Id
+    private Long userId;
+    /**
+     * Ids of the tweets pushed to this user, newest first and capped at timeline.max-size
+     */
+    private List<Long> tweetIds;
+}
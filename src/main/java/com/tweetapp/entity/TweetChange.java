@@ -0,0 +1,55 @@
+package com.tweetapp.entity;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * A change to the tweets, sent to every instance so their in-memory views follow it. A creation
+ * carries the saved tweet, an edit or deletion the tweet id, its parent and the descriptions
+ * before and after, and likes the deltas flushed to the stored like counts
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Builder
+public class TweetChange implements Serializable {
+
+    private static final long serialVersionUID = 955728933773177564L;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, LIKED
+    }
+
+    private Type type;
+    /** the instance that made the change, which applied it before sending it */
+    private String origin;
+    private Long tweetId;
+    private Long parentTweetId;
+    private TweetEntity tweetEntity;
+    private String oldTweetDesc;
+    private String tweetDesc;
+    private Map<Long, Integer> likeDeltas;
+
+    public static TweetChange created(TweetEntity tweetEntity) {
+        return TweetChange.builder().type(Type.CREATED).tweetId(tweetEntity.getTweetId())
+                .parentTweetId(tweetEntity.getParentTweetId()).tweetEntity(tweetEntity).build();
+    }
+
+    public static TweetChange updated(Long tweetId, Long parentTweetId, String oldTweetDesc, String tweetDesc) {
+        return TweetChange.builder().type(Type.UPDATED).tweetId(tweetId).parentTweetId(parentTweetId)
+                .oldTweetDesc(oldTweetDesc).tweetDesc(tweetDesc).build();
+    }
+
+    public static TweetChange deleted(Long tweetId, Long parentTweetId, String oldTweetDesc) {
+        return TweetChange.builder().type(Type.DELETED).tweetId(tweetId).parentTweetId(parentTweetId)
+                .oldTweetDesc(oldTweetDesc).build();
+    }
+
+    public static TweetChange liked(Map<Long, Integer> likeDeltas) {
+        return TweetChange.builder().type(Type.LIKED).likeDeltas(likeDeltas).build();
+    }
+}
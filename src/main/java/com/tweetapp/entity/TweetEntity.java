@@ -3,6 +3,8 @@ package com.tweetapp.entity;
 import lombok.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.io.Serializable;
@@ -15,15 +17,21 @@ import java.time.LocalDateTime;
 @ToString
 @Builder
 @Document(collection = "tweet")
+@CompoundIndexes({
+        @CompoundIndex(name = "createdDate_tweetId", def = "{'createdDate': -1, '_id': -1}", background = true),
+        @CompoundIndex(name = "userId_createdDate_tweetId", def = "{'userId': 1, 'createdDate': -1, '_id': -1}", background = true),
+        @CompoundIndex(name = "parentTweetId_createdDate_tweetId", def = "{'parentTweetId': 1, 'createdDate': 1, '_id': 1}", background = true)
+})
 public class TweetEntity implements Serializable {
 
     @Transient
     public static final String SEQUENCE_NAME = "tweet";
     private static final long serialVersionUID = 955728933773177564L;
     @Id
-    private Integer tweetId;
-    private Integer userId;
+    private Long tweetId;
+    private Long userId;
     private String tweetDesc;
     private LocalDateTime createdDate;
-    private Integer parentTweetId;
+    private Long parentTweetId;
+    private Integer likeCount;
 }
@@ -0,0 +1,21 @@
+package com.tweetapp.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+
+/**
+ * Result of grouping tweetlike documents by tweetId
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TweetLikeCount {
+
+    @Id
+    private Long tweetId;
+    private Integer likeCount;
+}
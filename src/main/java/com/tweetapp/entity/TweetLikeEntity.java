@@ -3,6 +3,7 @@ package com.tweetapp.entity;
 import lombok.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.io.Serializable;
@@ -14,6 +15,7 @@ import java.io.Serializable;
 @ToString
 @Builder
 @Document(collection = "tweetlike")
+@CompoundIndex(name = "tweetId_userId", def = "{'tweetId': 1, 'userId': 1}", unique = true, background = true)
 public class TweetLikeEntity implements Serializable {
 
 
@@ -21,7 +23,7 @@ public class TweetLikeEntity implements Serializable {
     public static final String SEQUENCE_NAME = "tweetlike";
     private static final long serialVersionUID = 955728933773177564L;
     @Id
-    private Integer tweetLikeId;
-    private Integer userId;
-    private Integer tweetId;
+    private Long tweetLikeId;
+    private Long userId;
+    private Long tweetId;
 }
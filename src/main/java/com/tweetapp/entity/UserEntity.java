@@ -3,6 +3,7 @@ package com.tweetapp.entity;
 import lombok.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.io.Serializable;
@@ -20,11 +21,14 @@ public class UserEntity implements Serializable {
     public static final String SEQUENCE_NAME = "user";
     private static final long serialVersionUID = 955728933773177564L;
     @Id
-    private Integer userId;
+    private Long userId;
     private String firstName;
     private String lastName;
+    @Indexed(name = "email", unique = true, background = true)
     private String email;
+    @Indexed(name = "loginId", unique = true, background = true)
     private String loginId;
     private String password;
     private long contactNumber;
+    private Integer followerCount;
 }
@@ -0,0 +1,48 @@
+package com.tweetapp.filter;
+
+import com.tweetapp.service.JwtUtil;
+import com.tweetapp.utils.ServiceConstants;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Verifies the bearer token once per request and keeps its claims in the
+ * {@link ServiceConstants#JWT_CLAIMS_ATTRIBUTE} request attribute. Requests are never
+ * rejected here, the services still decide how to answer an invalid token
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Autowired
+    private JwtUtil jwtutil;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.length() > BEARER_PREFIX.length()) {
+            try {
+                request.setAttribute(ServiceConstants.JWT_CLAIMS_ATTRIBUTE,
+                        jwtutil.verifyToken(authorization.substring(BEARER_PREFIX.length())));
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Token not verified {}", e.getMessage());
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,15 @@
+package com.tweetapp.model;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Trend {
+
+    private String hashtag;
+    private Long tweetCount;
+
+}
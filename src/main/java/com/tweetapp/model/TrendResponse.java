@@ -0,0 +1,23 @@
+package com.tweetapp.model;
+
+import lombok.*;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+
+public class TrendResponse {
+
+    private List<Trend> trendList;
+    private String window;
+    private String messageType;
+    private HttpStatus messageCode;
+    private String message;
+
+
+}
@@ -1,10 +1,13 @@
 package com.tweetapp.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.*;
 import org.hibernate.validator.constraints.Length;
 
 import javax.validation.constraints.NotEmpty;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Getter
 @Setter
@@ -13,13 +16,19 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Tweet {
 
-    private Integer userId;
-    private Integer tweetId;
+    // ids are written as strings, Snowflake ids exceed the 2^53 JavaScript numbers hold exactly
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long userId;
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long tweetId;
     @Length(max = 144, message = "Tweet should not exceed the length of 144")
     @NotEmpty(message = "Tweet should not be empty")
     private String tweetDesc;
     private LocalDateTime createdDate;
-    private Integer parentTweetId;
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long parentTweetId;
     private Integer likeCount;
+    private Integer replyCount;
+    private List<Tweet> replies;
 
 }
@@ -17,6 +17,7 @@ public class TweetResponse {
     private String messageType;
     private HttpStatus messageCode;
     private String message;
+    private String nextCursor;
 
 
 }
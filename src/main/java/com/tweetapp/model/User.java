@@ -1,5 +1,7 @@
 package com.tweetapp.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.*;
 
 import javax.validation.constraints.Email;
@@ -13,7 +15,9 @@ import javax.validation.constraints.NotEmpty;
 @AllArgsConstructor
 public class User {
 
-    private Integer userId;
+    // written as a string, Snowflake ids exceed the 2^53 JavaScript numbers hold exactly
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long userId;
     @NotEmpty(message = "First Name should not be empty")
     private String firstName;
     @NotEmpty(message = "Last Name should not be empty")
@@ -0,0 +1,48 @@
+package com.tweetapp.producer;
+
+import com.tweetapp.entity.TweetChange;
+import com.tweetapp.utils.ServiceConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+import java.util.UUID;
+
+@Service
+@Slf4j
+public class TweetChangeProducer {
+
+    @Autowired
+    private KafkaTemplate<String, TweetChange> kafkaTemplate;
+
+    /** tells the changes of this instance apart, as it applied them itself */
+    private final String origin = UUID.randomUUID().toString();
+
+    /**
+     * To send a change already applied on this instance to all the others. Changes of one tweet
+     * are keyed by its id, so they are applied in order; a change that cannot be sent is only logged
+     *
+     * @param tweetChange
+     */
+    public void sendChange(TweetChange tweetChange) {
+        tweetChange.setOrigin(origin);
+        String key = Objects.isNull(tweetChange.getTweetId()) ? null : String.valueOf(tweetChange.getTweetId());
+        try {
+            kafkaTemplate.send(ServiceConstants.CHANGE_TOPIC_NAME, key, tweetChange).addCallback(
+                    sendResult -> {
+                    },
+                    e -> log.error("Error while sending {} change of tweet {} {}", tweetChange.getType(), key, e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error while sending {} change of tweet {} {}", tweetChange.getType(), key, e.getMessage());
+        }
+    }
+
+    /**
+     * @return id of this instance in the changes it sends
+     */
+    public String getOrigin() {
+        return origin;
+    }
+}
@@ -2,10 +2,16 @@ package com.tweetapp.producer;
 
 import com.tweetapp.entity.TweetEntity;
 import com.tweetapp.utils.ServiceConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.util.Objects;
 
 @Service
 @Slf4j
@@ -13,15 +19,30 @@ public class TweetProducer {
 
     @Autowired
     private KafkaTemplate<String, TweetEntity> kafkaTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     /**
-     * To send message to Kafka Topic
+     * To send message to Kafka Topic. Messages are keyed by userId, so the tweets of one user
+     * stay in order on one partition while different users spread over all of them.
+     * The outcome is recorded by the tweet.producer.send timer, tagged with the result
      *
      * @param tweetEntity
+     * @return future completed once the broker acknowledged the message
      */
-    public void sendMessage(TweetEntity tweetEntity) {
-        log.info("Kafka Topic Produce Message: {}", tweetEntity.toString());
-        this.kafkaTemplate.send(ServiceConstants.TOPIC_NAME, tweetEntity);
+    public ListenableFuture<SendResult<String, TweetEntity>> sendMessage(TweetEntity tweetEntity) {
+        log.debug("Kafka Topic Produce Message: {}", tweetEntity.getTweetId());
+        String key = Objects.isNull(tweetEntity.getUserId()) ? null : String.valueOf(tweetEntity.getUserId());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        ListenableFuture<SendResult<String, TweetEntity>> future =
+                kafkaTemplate.send(ServiceConstants.TOPIC_NAME, key, tweetEntity);
+        future.addCallback(
+                sendResult -> sample.stop(meterRegistry.timer("tweet.producer.send", "result", "success")),
+                e -> {
+                    sample.stop(meterRegistry.timer("tweet.producer.send", "result", "failure"));
+                    log.error("Error while sending tweet {} {}", tweetEntity.getTweetId(), e.getMessage());
+                });
+        return future;
     }
 
 }
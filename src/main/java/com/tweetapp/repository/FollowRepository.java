@@ -0,0 +1,18 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.entity.FollowEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FollowRepository extends MongoRepository<FollowEntity, String>, FollowRepositoryCustom {
+
+    List<FollowEntity> findByFolloweeId(Long followeeId, Pageable pageable);
+
+    List<FollowEntity> findByFollowerId(Long followerId);
+
+    Long deleteByFollowId(String followId);
+}
@@ -0,0 +1,14 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.entity.FollowEntity;
+
+public interface FollowRepositoryCustom {
+
+    /**
+     * Stores the follow edge unless it already exists
+     *
+     * @param followEntity
+     * @return true if the edge was created by this call
+     */
+    boolean insertIfAbsent(FollowEntity followEntity);
+}
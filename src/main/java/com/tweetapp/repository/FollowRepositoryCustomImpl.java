@@ -0,0 +1,24 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.entity.FollowEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class FollowRepositoryCustomImpl implements FollowRepositoryCustom {
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Override
+    public boolean insertIfAbsent(FollowEntity followEntity) {
+        Query query = new Query(Criteria.where("_id").is(followEntity.getFollowId()));
+        Update update = new Update()
+                .setOnInsert("followerId", followEntity.getFollowerId())
+                .setOnInsert("followeeId", followEntity.getFolloweeId())
+                .setOnInsert("createdDate", followEntity.getCreatedDate());
+        return mongoOperations.upsert(query, update, FollowEntity.class).getUpsertedId() != null;
+    }
+}
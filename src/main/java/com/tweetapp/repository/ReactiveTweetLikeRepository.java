@@ -0,0 +1,31 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.entity.TweetLikeCount;
+import com.tweetapp.entity.TweetLikeEntity;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+@Repository
+public interface ReactiveTweetLikeRepository extends ReactiveMongoRepository<TweetLikeEntity, Long> {
+
+    Mono<TweetLikeEntity> findByUserIdAndTweetId(Long userId, Long tweetId);
+
+    Mono<Long> deleteByTweetLikeId(Long tweetLikeId);
+
+    /**
+     * Counts likes of all given tweets in a single aggregation
+     *
+     * @param tweetIds
+     * @return TweetLikeCount for every tweet having at least one like
+     */
+    @Aggregation(pipeline = {
+            "{ '$match': { 'tweetId': { '$in': ?0 } } }",
+            "{ '$group': { '_id': '$tweetId', 'likeCount': { '$sum': 1 } } }"
+    })
+    Flux<TweetLikeCount> aggregateLikeCounts(Collection<Long> tweetIds);
+}
@@ -0,0 +1,9 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.entity.TweetEntity;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveTweetRepository extends ReactiveMongoRepository<TweetEntity, Long>, ReactiveTweetRepositoryCustom {
+}
@@ -0,0 +1,27 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.utils.TweetPageCursor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveTweetRepositoryCustom {
+
+    /**
+     * Fetches one page of tweets ordered by createdDate and tweetId, newest first
+     *
+     * @param userId only tweets of this user, or all tweets if null
+     * @param before only tweets after this position, or from the newest if null
+     * @param limit
+     * @return Flux of TweetEntity
+     */
+    Flux<TweetEntity> findPage(Long userId, TweetPageCursor before, int limit);
+
+    /**
+     * Updates only the description of a tweet, leaving the counters untouched
+     *
+     * @param tweetId
+     * @param tweetDesc
+     */
+    Mono<Void> updateTweetDesc(Long tweetId, String tweetDesc);
+}
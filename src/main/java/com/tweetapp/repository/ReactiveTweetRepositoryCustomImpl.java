@@ -0,0 +1,35 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.utils.TweetPageCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class ReactiveTweetRepositoryCustomImpl implements ReactiveTweetRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoOperations reactiveMongoOperations;
+
+    @Override
+    public Flux<TweetEntity> findPage(Long userId, TweetPageCursor before, int limit) {
+        Criteria criteria = userId == null ? new Criteria() : Criteria.where("userId").is(userId);
+        if (before != null) {
+            criteria.orOperator(Criteria.where("createdDate").lt(before.getCreatedDate()),
+                    Criteria.where("createdDate").is(before.getCreatedDate()).and("_id").lt(before.getTweetId()));
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "createdDate", "_id")).limit(limit);
+        return reactiveMongoOperations.find(query, TweetEntity.class);
+    }
+
+    @Override
+    public Mono<Void> updateTweetDesc(Long tweetId, String tweetDesc) {
+        Query query = new Query(Criteria.where("_id").is(tweetId));
+        return reactiveMongoOperations.updateFirst(query, new Update().set("tweetDesc", tweetDesc), TweetEntity.class).then();
+    }
+}
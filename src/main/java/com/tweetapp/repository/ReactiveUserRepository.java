@@ -0,0 +1,17 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.entity.UserEntity;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveUserRepository extends ReactiveMongoRepository<UserEntity, Long>, ReactiveUserRepositoryCustom {
+
+    Mono<UserEntity> findByLoginId(String loginId);
+
+    Mono<UserEntity> findByEmail(String email);
+
+    Flux<UserEntity> findByLoginIdLike(String loginId);
+}
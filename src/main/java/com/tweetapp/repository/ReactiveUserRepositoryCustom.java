@@ -0,0 +1,14 @@
+package com.tweetapp.repository;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserRepositoryCustom {
+
+    /**
+     * Updates only the password of a user, leaving the counters untouched
+     *
+     * @param userId
+     * @param password
+     */
+    Mono<Void> updatePassword(Long userId, String password);
+}
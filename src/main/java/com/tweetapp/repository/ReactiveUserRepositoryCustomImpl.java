@@ -0,0 +1,21 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.entity.UserEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+public class ReactiveUserRepositoryCustomImpl implements ReactiveUserRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoOperations reactiveMongoOperations;
+
+    @Override
+    public Mono<Void> updatePassword(Long userId, String password) {
+        Query query = new Query(Criteria.where("_id").is(userId));
+        return reactiveMongoOperations.updateFirst(query, new Update().set("password", password), UserEntity.class).then();
+    }
+}
@@ -0,0 +1,9 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.entity.TimelineEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TimelineRepository extends MongoRepository<TimelineEntity, Long>, TimelineRepositoryCustom {
+}
@@ -0,0 +1,16 @@
+package com.tweetapp.repository;
+
+import java.util.Collection;
+
+public interface TimelineRepositoryCustom {
+
+    /**
+     * Prepends a tweet to the timeline of every given user in one unordered bulk write,
+     * creating missing timelines and dropping the oldest ids beyond maxSize
+     *
+     * @param userIds
+     * @param tweetId
+     * @param maxSize
+     */
+    void pushTweet(Collection<Long> userIds, Long tweetId, int maxSize);
+}
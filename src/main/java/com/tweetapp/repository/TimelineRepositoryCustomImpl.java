@@ -0,0 +1,31 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.entity.TimelineEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+
+public class TimelineRepositoryCustomImpl implements TimelineRepositoryCustom {
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Override
+    public void pushTweet(Collection<Long> userIds, Long tweetId, int maxSize) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Update update = new Update();
+        update.push("tweetIds").atPosition(Update.Position.FIRST).slice(maxSize).each(tweetId);
+        BulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, TimelineEntity.class);
+        for (Long userId : userIds) {
+            bulkOperations.upsert(new Query(Criteria.where("_id").is(userId)), update);
+        }
+        bulkOperations.execute();
+    }
+}
@@ -1,18 +1,34 @@
 package com.tweetapp.repository;
 
+import com.tweetapp.entity.TweetLikeCount;
 import com.tweetapp.entity.TweetLikeEntity;
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TweetLikeRepository extends MongoRepository<TweetLikeEntity, Integer> {
+public interface TweetLikeRepository extends MongoRepository<TweetLikeEntity, Long> {
 
-    Optional<TweetLikeEntity> findByUserIdAndTweetId(Integer userId, Integer tweetId);
+    Optional<TweetLikeEntity> findByUserIdAndTweetId(Long userId, Long tweetId);
 
-    List<TweetLikeEntity> findByTweetId(Integer tweetId);
+    List<TweetLikeEntity> findByTweetId(Long tweetId);
 
+    Long deleteByTweetLikeId(Long tweetLikeId);
 
-}
\ No newline at end of file
+    /**
+     * Counts likes of all given tweets in a single aggregation
+     *
+     * @param tweetIds
+     * @return TweetLikeCount for every tweet having at least one like
+     */
+    @Aggregation(pipeline = {
+            "{ '$match': { 'tweetId': { '$in': ?0 } } }",
+            "{ '$group': { '_id': '$tweetId', 'likeCount': { '$sum': 1 } } }"
+    })
+    List<TweetLikeCount> aggregateLikeCounts(Collection<Long> tweetIds);
+
+}
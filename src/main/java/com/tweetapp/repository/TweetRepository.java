@@ -5,9 +5,24 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface TweetRepository extends MongoRepository<TweetEntity, Integer> {
+public interface TweetRepository extends MongoRepository<TweetEntity, Long>, TweetRepositoryCustom {
 
-    List<TweetEntity> findByUserId(Integer userId);
-}
\ No newline at end of file
+    List<TweetEntity> findByUserId(Long userId);
+
+    /**
+     * Reads every tweet through a server side cursor, must be closed after use
+     *
+     * @return Stream of TweetEntity
+     */
+    Stream<TweetEntity> streamAllBy();
+
+    /**
+     * Reads every tweet in tweetId order through a server side cursor, must be closed after use
+     *
+     * @return Stream of TweetEntity
+     */
+    Stream<TweetEntity> streamAllByOrderByTweetIdAsc();
+}
@@ -0,0 +1,78 @@
+package com.tweetapp.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.utils.TweetPageCursor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface TweetRepositoryCustom {
+
+    /**
+     * Fetches one page of tweets ordered by createdDate and tweetId, newest first
+     *
+     * @param userId only tweets of this user, or all tweets if null
+     * @param before only tweets after this position, or from the newest if null
+     * @param limit
+     * @return List of TweetEntity
+     */
+    List<TweetEntity> findPage(Long userId, TweetPageCursor before, int limit);
+
+    /**
+     * Fetches the newest tweets written by any of the given users
+     *
+     * @param userIds
+     * @param limit
+     * @return List of TweetEntity, newest first
+     */
+    List<TweetEntity> findRecentByUserIds(Collection<Long> userIds, int limit);
+
+    /**
+     * Inserts the tweet unless a tweet with its id exists, which is left untouched
+     *
+     * @param tweetEntity
+     * @return true if the tweet was inserted
+     */
+    boolean insertIfAbsent(TweetEntity tweetEntity);
+
+    /**
+     * Inserts the tweets whose id does not exist yet in one unordered bulk write
+     *
+     * @param tweetEntityList
+     * @return BulkWriteResult, whose upserts are the indexes of the inserted tweets
+     * @throws org.springframework.data.mongodb.BulkOperationException listing the tweets that failed,
+     *                                                                  all others are written
+     */
+    BulkWriteResult insertAllIfAbsent(List<TweetEntity> tweetEntityList);
+
+    /**
+     * Fetches a tweet and the replies below it, down to maxDepth levels, in one $graphLookup
+     *
+     * @param tweetId
+     * @param maxDepth 1 for the direct replies only
+     * @return the tweet followed by its replies in no particular order, or empty if it does not exist
+     */
+    List<TweetEntity> findThread(Long tweetId, int maxDepth);
+
+    /**
+     * Adds deltas to the stored like counts of many tweets with one bulk write. Tweets saved
+     * before the counter existed are left without one, so they keep being counted from tweetlike
+     * until reconciliation fills it in
+     *
+     * @param deltas by tweetId
+     * @return BulkWriteResult
+     * @throws org.springframework.data.mongodb.BulkOperationException listing the tweets that failed by
+     *                                                                  their position in deltas, all others are written
+     */
+    BulkWriteResult incrementLikeCounts(Map<Long, Integer> deltas);
+
+    /**
+     * Updates only the description of a tweet, leaving the counters untouched
+     *
+     * @param tweetId
+     * @param tweetDesc
+     */
+    void updateTweetDesc(Long tweetId, String tweetDesc);
+}
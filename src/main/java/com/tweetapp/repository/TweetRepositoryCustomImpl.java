@@ -0,0 +1,121 @@
+package com.tweetapp.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.utils.TweetPageCursor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.MatchOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class TweetRepositoryCustomImpl implements TweetRepositoryCustom {
+
+    private static final String REPLIES = "replies";
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Override
+    public List<TweetEntity> findPage(Long userId, TweetPageCursor before, int limit) {
+        Criteria criteria = userId == null ? new Criteria() : Criteria.where("userId").is(userId);
+        if (before != null) {
+            criteria.orOperator(Criteria.where("createdDate").lt(before.getCreatedDate()),
+                    Criteria.where("createdDate").is(before.getCreatedDate()).and("_id").lt(before.getTweetId()));
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "createdDate", "_id")).limit(limit);
+        return mongoOperations.find(query, TweetEntity.class);
+    }
+
+    @Override
+    public List<TweetEntity> findRecentByUserIds(Collection<Long> userIds, int limit) {
+        Query query = new Query(Criteria.where("userId").in(userIds))
+                .with(Sort.by(Sort.Direction.DESC, "createdDate", "_id")).limit(limit);
+        return mongoOperations.find(query, TweetEntity.class);
+    }
+
+    @Override
+    public List<TweetEntity> findThread(Long tweetId, int maxDepth) {
+        MatchOperation matchRoot = Aggregation.match(Criteria.where("_id").is(tweetId));
+        Aggregation aggregation = maxDepth < 1 ? Aggregation.newAggregation(matchRoot)
+                : Aggregation.newAggregation(matchRoot,
+                Aggregation.graphLookup(mongoOperations.getCollectionName(TweetEntity.class))
+                        .startWith("$_id")
+                        .connectFrom("_id")
+                        .connectTo("parentTweetId")
+                        .maxDepth(maxDepth - 1L)
+                        .as(REPLIES));
+        Document thread = mongoOperations.aggregate(aggregation, TweetEntity.class, Document.class).getUniqueMappedResult();
+        if (thread == null) {
+            return Collections.emptyList();
+        }
+        List<TweetEntity> tweetEntityList = new ArrayList<>();
+        tweetEntityList.add(mongoOperations.getConverter().read(TweetEntity.class, thread));
+        for (Document reply : thread.getList(REPLIES, Document.class, Collections.emptyList())) {
+            tweetEntityList.add(mongoOperations.getConverter().read(TweetEntity.class, reply));
+        }
+        return tweetEntityList;
+    }
+
+    @Override
+    public boolean insertIfAbsent(TweetEntity tweetEntity) {
+        return mongoOperations.upsert(byId(tweetEntity), insertOnly(tweetEntity), TweetEntity.class).getUpsertedId() != null;
+    }
+
+    @Override
+    public BulkWriteResult insertAllIfAbsent(List<TweetEntity> tweetEntityList) {
+        BulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, TweetEntity.class);
+        for (TweetEntity tweetEntity : tweetEntityList) {
+            bulkOperations.upsert(byId(tweetEntity), insertOnly(tweetEntity));
+        }
+        return bulkOperations.execute();
+    }
+
+    @Override
+    public BulkWriteResult incrementLikeCounts(Map<Long, Integer> deltas) {
+        BulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, TweetEntity.class);
+        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+            Query query = new Query(Criteria.where("_id").is(delta.getKey()).and("likeCount").exists(true));
+            bulkOperations.updateOne(query, new Update().inc("likeCount", delta.getValue()));
+        }
+        return bulkOperations.execute();
+    }
+
+    @Override
+    public void updateTweetDesc(Long tweetId, String tweetDesc) {
+        Query query = new Query(Criteria.where("_id").is(tweetId));
+        mongoOperations.updateFirst(query, new Update().set("tweetDesc", tweetDesc), TweetEntity.class);
+    }
+
+    private static Query byId(TweetEntity tweetEntity) {
+        return new Query(Criteria.where("_id").is(tweetEntity.getTweetId()));
+    }
+
+    /** every field as $setOnInsert, leaving out nulls like save does */
+    private static Update insertOnly(TweetEntity tweetEntity) {
+        Update update = new Update();
+        setOnInsertIfPresent(update, "userId", tweetEntity.getUserId());
+        setOnInsertIfPresent(update, "tweetDesc", tweetEntity.getTweetDesc());
+        setOnInsertIfPresent(update, "createdDate", tweetEntity.getCreatedDate());
+        setOnInsertIfPresent(update, "parentTweetId", tweetEntity.getParentTweetId());
+        setOnInsertIfPresent(update, "likeCount", tweetEntity.getLikeCount());
+        return update;
+    }
+
+    private static void setOnInsertIfPresent(Update update, String key, Object value) {
+        if (value != null) {
+            update.setOnInsert(key, value);
+        }
+    }
+}
@@ -4,15 +4,22 @@ import com.tweetapp.entity.UserEntity;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends MongoRepository<UserEntity, Integer> {
+public interface UserRepository extends MongoRepository<UserEntity, Long>, UserRepositoryCustom {
 
     Optional<UserEntity> findByLoginId(String loginId);
 
     Optional<UserEntity> findByEmail(String email);
 
     List<UserEntity> findByLoginIdLike(String loginId);
+
+    Optional<UserEntity> findFirstByOrderByUserIdAsc();
+
+    Optional<UserEntity> findFirstByOrderByUserIdDesc();
+
+    List<UserEntity> findByUserIdInAndFollowerCountGreaterThan(Collection<Long> userIds, Integer followerCount);
 }
\ No newline at end of file
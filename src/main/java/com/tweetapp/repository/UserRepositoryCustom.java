@@ -0,0 +1,33 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.entity.UserEntity;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Atomically adds delta to the stored follower count of a user
+     *
+     * @param userId
+     * @param delta
+     */
+    void incrementFollowerCount(Long userId, int delta);
+
+    /**
+     * Updates only the password of a user, leaving the counters untouched
+     *
+     * @param userId
+     * @param password
+     */
+    void updatePassword(Long userId, String password);
+
+    /**
+     * Reads the login ids of a range of users, served by the _id index
+     *
+     * @param fromUserId inclusive
+     * @param toUserId   exclusive
+     * @return List of UserEntity holding only userId and loginId
+     */
+    List<UserEntity> findLoginIds(long fromUserId, long toUserId);
+}
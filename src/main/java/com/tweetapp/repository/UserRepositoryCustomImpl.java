@@ -0,0 +1,35 @@
+package com.tweetapp.repository;
+
+import com.tweetapp.entity.UserEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Override
+    public void incrementFollowerCount(Long userId, int delta) {
+        Query query = new Query(Criteria.where("_id").is(userId));
+        mongoOperations.updateFirst(query, new Update().inc("followerCount", delta), UserEntity.class);
+    }
+
+    @Override
+    public void updatePassword(Long userId, String password) {
+        Query query = new Query(Criteria.where("_id").is(userId));
+        mongoOperations.updateFirst(query, new Update().set("password", password), UserEntity.class);
+    }
+
+    @Override
+    public List<UserEntity> findLoginIds(long fromUserId, long toUserId) {
+        Query query = new Query(Criteria.where("_id").gte(fromUserId).lt(toUserId));
+        query.fields().include("loginId");
+        return mongoOperations.find(query, UserEntity.class);
+    }
+}
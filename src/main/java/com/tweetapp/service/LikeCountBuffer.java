@@ -0,0 +1,175 @@
+package com.tweetapp.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.tweetapp.entity.TweetChange;
+import com.tweetapp.producer.TweetChangeProducer;
+import com.tweetapp.repository.TweetRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Likes and unlikes waiting to be added to the stored like counts. Every tweet liked lately
+ * has a LongAdder, whose cells are striped over the threads liking it, so a viral tweet
+ * does not turn into one Mongo document updated by every request. The deltas are written
+ * with one bulk $inc every tweet.like-count.flush-interval milliseconds and once more on
+ * shutdown, so a crash loses at most one interval of them; the tweetlike collection still
+ * holds every like and LikeCountReconciler corrects the counters from it
+ */
+@Service
+@Slf4j
+public class LikeCountBuffer {
+
+    @Autowired
+    private TweetRepository tweetRepository;
+    @Autowired
+    private RecentTweetBuffer recentTweetBuffer;
+    @Autowired
+    private TweetChangeProducer tweetChangeProducer;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, PendingDelta> pendingDeltas = new ConcurrentHashMap<>();
+    /**
+     * Deltas taken out of pendingDeltas and being written. Each is added here before it
+     * leaves its adder and removed right after it reached RecentTweetBuffer, so a read may
+     * count it twice for that instant but never misses it. A read whose count came from Mongo
+     * just before the bulk write committed can still miss one flush's delta until the next read
+     */
+    private final Map<Long, Integer> flushingDeltas = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void initBuffer() {
+        Gauge.builder("tweet.like.count.pending", pendingDeltas, Map::size)
+                .description("Tweets whose likes are not yet added to the stored like count")
+                .register(meterRegistry);
+    }
+
+    /**
+     * To like (1) or unlike (-1) a tweet whose like was already saved or deleted
+     *
+     * @param tweetId
+     * @param delta
+     */
+    public void increment(Long tweetId, int delta) {
+        PendingDelta pendingDelta = pendingDeltas.get(tweetId);
+        if (pendingDelta == null) {
+            pendingDelta = pendingDeltas.computeIfAbsent(tweetId, id -> new PendingDelta());
+        }
+        pendingDelta.add(delta);
+        if (pendingDelta.retired) {
+            // dropped by a flush meanwhile, which may have drained it before this add
+            long leftover = pendingDelta.sumThenReset();
+            if (leftover != 0) {
+                increment(tweetId, Math.toIntExact(leftover));
+            }
+        }
+    }
+
+    /**
+     * To get the likes of a tweet not yet in its stored like count, to add to it when read
+     *
+     * @param tweetId
+     * @return delta
+     */
+    public int pendingDelta(Long tweetId) {
+        // the adder first: a delta leaving it is already in flushingDeltas
+        LongAdder pendingDelta = pendingDeltas.get(tweetId);
+        int delta = pendingDelta == null ? 0 : pendingDelta.intValue();
+        return delta + flushingDeltas.getOrDefault(tweetId, 0);
+    }
+
+    /**
+     * To add the pending deltas to the stored like counts and the recent tweet buffer.
+     * Deltas that could not be written are kept for the next flush
+     *
+     * @return number of tweets written
+     */
+    @Scheduled(fixedDelayString = "${tweet.like-count.flush-interval:1000}")
+    public synchronized int flush() {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        for (Map.Entry<Long, PendingDelta> pendingDelta : pendingDeltas.entrySet()) {
+            Long tweetId = pendingDelta.getKey();
+            PendingDelta adder = pendingDelta.getValue();
+            long delta = adder.sum();
+            if (delta != 0) {
+                collect(deltas, tweetId, delta);
+                // taken out by subtracting, so likes added meanwhile stay in the adder
+                adder.add(-delta);
+            } else if (pendingDeltas.remove(tweetId, adder)) {
+                // unused for a whole interval; increments still reaching it are drained here or by themselves,
+                // and go unseen by pendingDelta only while they race this removal
+                adder.retired = true;
+                collect(deltas, tweetId, adder.sumThenReset());
+            }
+        }
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        List<Long> tweetIds = new ArrayList<>(deltas.keySet());
+        List<Long> failedTweetIds = new ArrayList<>();
+        try {
+            tweetRepository.incrementLikeCounts(deltas);
+        } catch (BulkOperationException e) {
+            log.error("Error while flushing {} of {} like counts, retrying at the next flush",
+                    e.getErrors().size(), deltas.size());
+            for (BulkWriteError bulkWriteError : e.getErrors()) {
+                failedTweetIds.add(tweetIds.get(bulkWriteError.getIndex()));
+            }
+        } catch (Exception e) {
+            log.error("Error while flushing like counts, retrying at the next flush {}", e.getMessage());
+            failedTweetIds = tweetIds;
+        }
+        Set<Long> failed = new HashSet<>(failedTweetIds);
+        Map<Long, Integer> writtenDeltas = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+            // back in its adder or in RecentTweetBuffer before it stops being counted as flushing
+            if (failed.contains(delta.getKey())) {
+                increment(delta.getKey(), delta.getValue());
+            } else {
+                recentTweetBuffer.incrementLikeCount(delta.getKey(), delta.getValue());
+                writtenDeltas.put(delta.getKey(), delta.getValue());
+            }
+            flushingDeltas.remove(delta.getKey());
+        }
+        if (!writtenDeltas.isEmpty()) {
+            tweetChangeProducer.sendChange(TweetChange.liked(writtenDeltas));
+        }
+        return writtenDeltas.size();
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        log.info("Flushed like counts of {} tweets on shutdown", flush());
+    }
+
+    private void collect(Map<Long, Integer> deltas, Long tweetId, long delta) {
+        if (delta != 0) {
+            deltas.merge(tweetId, Math.toIntExact(delta), Integer::sum);
+            flushingDeltas.merge(tweetId, Math.toIntExact(delta), Integer::sum);
+        }
+    }
+
+    /**
+     * Retired once removed from pendingDeltas. It is set after the removal, so an increment
+     * that still finds it unset added its delta before the flush drains the adder a last time
+     */
+    private static final class PendingDelta extends LongAdder {
+        private volatile boolean retired;
+    }
+}
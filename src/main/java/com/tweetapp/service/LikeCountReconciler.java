@@ -0,0 +1,131 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.entity.TweetLikeCount;
+import com.tweetapp.repository.TweetLikeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class LikeCountReconciler {
+
+    @Autowired
+    private MongoOperations mongoOperations;
+    @Autowired
+    private TweetLikeRepository tweetLikeRepository;
+    @Autowired
+    private LikeCountBuffer likeCountBuffer;
+
+    @Value("${tweet.like-count.reconcile.batch-size:1000}")
+    private int batchSize = 1000;
+    /** longer than a flush interval, so a like delta pending on any instance has reached Mongo by then */
+    @Value("${tweet.like-count.reconcile.settle:10s}")
+    private Duration settle = Duration.ofSeconds(10);
+
+    /**
+     * Recomputes the stored like count of every tweet from the tweetlike collection
+     * and rewrites the counters that drifted. A drifted tweet is counted again after the settle
+     * time and only rewritten if neither its likes nor its counter changed meanwhile: a like
+     * whose delta was still pending on some instance would have been flushed to the counter by
+     * then, and a like made later is not in the count written, so its flush adds it on top.
+     * Each rewrite only applies if the counter is still the one read, and a delta held back longer
+     * than the settle time by failing flushes can still be counted twice
+     *
+     * @return number of counters corrected
+     */
+    @Scheduled(cron = "${tweet.like-count.reconcile.cron:0 0 3 * * *}")
+    public int reconcileLikeCounts() {
+        Query query = new Query().with(Sort.by("_id"));
+        query.fields().include("likeCount");
+        int corrected = 0;
+        List<TweetEntity> batch = new ArrayList<>(batchSize);
+        try (CloseableIterator<TweetEntity> tweetIterator = mongoOperations.stream(query, TweetEntity.class)) {
+            while (tweetIterator.hasNext()) {
+                batch.add(tweetIterator.next());
+                if (batch.size() == batchSize) {
+                    corrected += reconcileBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            corrected += reconcileBatch(batch);
+        }
+        log.info("Like count reconciliation corrected {} tweets", corrected);
+        return corrected;
+    }
+
+    private int reconcileBatch(List<TweetEntity> batch) {
+        Map<Long, Integer> likeCountMap = countLikes(batch);
+        List<TweetEntity> drifted = batch.stream().filter(tweetEntity -> isDrifted(tweetEntity, likeCountMap))
+                .collect(Collectors.toList());
+        if (drifted.isEmpty()) {
+            return 0;
+        }
+        try {
+            Thread.sleep(settle.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        Query query = new Query(Criteria.where("_id").in(drifted.stream().map(TweetEntity::getTweetId).collect(Collectors.toList())));
+        query.fields().include("likeCount");
+        Map<Long, Integer> settledLikeCountMap = new HashMap<>();
+        for (TweetEntity tweetEntity : mongoOperations.find(query, TweetEntity.class)) {
+            settledLikeCountMap.put(tweetEntity.getTweetId(), tweetEntity.getLikeCount());
+        }
+        Map<Long, Integer> settledCountMap = countLikes(drifted);
+        BulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, TweetEntity.class);
+        int corrected = 0;
+        for (TweetEntity tweetEntity : drifted) {
+            Long tweetId = tweetEntity.getTweetId();
+            Integer likeCount = likeCountMap.getOrDefault(tweetId, 0);
+            boolean settled = settledLikeCountMap.containsKey(tweetId)
+                    && Objects.equals(tweetEntity.getLikeCount(), settledLikeCountMap.get(tweetId))
+                    && likeCount.equals(settledCountMap.getOrDefault(tweetId, 0))
+                    && likeCountBuffer.pendingDelta(tweetId) == 0;
+            if (!settled) {
+                // liked, unliked or deleted meanwhile, left for the next run
+                continue;
+            }
+            bulkOperations.updateOne(new Query(Criteria.where("_id").is(tweetId)
+                            .and("likeCount").is(tweetEntity.getLikeCount())),
+                    new Update().set("likeCount", likeCount));
+            corrected++;
+        }
+        if (corrected > 0) {
+            bulkOperations.execute();
+        }
+        return corrected;
+    }
+
+    private boolean isDrifted(TweetEntity tweetEntity, Map<Long, Integer> likeCountMap) {
+        return !likeCountMap.getOrDefault(tweetEntity.getTweetId(), 0).equals(tweetEntity.getLikeCount())
+                && likeCountBuffer.pendingDelta(tweetEntity.getTweetId()) == 0;
+    }
+
+    private Map<Long, Integer> countLikes(List<TweetEntity> tweetEntityList) {
+        List<Long> tweetIds = tweetEntityList.stream().map(TweetEntity::getTweetId).collect(Collectors.toList());
+        return tweetLikeRepository.aggregateLikeCounts(tweetIds).stream()
+                .collect(Collectors.toMap(TweetLikeCount::getTweetId, TweetLikeCount::getLikeCount));
+    }
+}
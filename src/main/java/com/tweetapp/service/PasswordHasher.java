@@ -0,0 +1,192 @@
+package com.tweetapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Hashes and checks passwords with BCrypt of cost user.password.bcrypt-cost. Every hash takes
+ * tens of milliseconds of CPU, so they run on their own user.password.hash-threads threads
+ * with at most user.password.queue-size waiting, and a storm of logins cannot take the CPU
+ * of the other endpoints. A hash that cannot be queued, or is not done within
+ * user.password.timeout, is given up with a RejectedExecutionException, to be answered
+ * with a 503. Passwords saved before hashing are still checked as they are, and
+ * needsUpgrade tells which ones to hash again after a successful login
+ */
+@Service
+@Slf4j
+public class PasswordHasher {
+
+    private static final String BCRYPT_PREFIX = "$2";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${user.password.bcrypt-cost:10}")
+    private int bcryptCost = 10;
+    @Value("${user.password.hash-threads:2}")
+    private int hashThreads = 2;
+    @Value("${user.password.queue-size:32}")
+    private int queueSize = 32;
+    @Value("${user.password.timeout:2s}")
+    private Duration timeout = Duration.ofSeconds(2);
+    @Value("${user.password.retry-after:1s}")
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    private BCryptPasswordEncoder passwordEncoder;
+    private ThreadPoolExecutor executor;
+    private Counter rejected;
+
+    @PostConstruct
+    void initHasher() {
+        passwordEncoder = new BCryptPasswordEncoder(bcryptCost);
+        executor = new ThreadPoolExecutor(hashThreads, hashThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new CustomizableThreadFactory("password-hasher-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("user.password.hash.queued", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a hasher thread")
+                .register(meterRegistry);
+        Gauge.builder("user.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashes being computed")
+                .register(meterRegistry);
+        rejected = Counter.builder("user.password.hash.rejected")
+                .description("Password hashes given up as the hasher was busy")
+                .register(meterRegistry);
+        log.info("Hashing passwords with BCrypt cost {} on {} threads, queueing at most {}", bcryptCost, hashThreads, queueSize);
+    }
+
+    @PreDestroy
+    void shutdownHasher() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * To hash a password to be saved, waiting at most user.password.timeout
+     *
+     * @param rawPassword
+     * @return BCrypt hash
+     * @throws RejectedExecutionException if the hasher is too busy
+     */
+    public String hash(String rawPassword) {
+        return await(hashAsync(rawPassword));
+    }
+
+    /**
+     * To check a password against the saved one, waiting at most user.password.timeout
+     *
+     * @param rawPassword
+     * @param savedPassword BCrypt hash, or a password saved before hashing
+     * @return true if they match
+     * @throws RejectedExecutionException if the hasher is too busy
+     */
+    public boolean matches(String rawPassword, String savedPassword) {
+        return await(matchesAsync(rawPassword, savedPassword));
+    }
+
+    /**
+     * To hash a password on the hasher threads, for callers that must not block. The future
+     * fails with a RejectedExecutionException if not done within user.password.timeout
+     *
+     * @param rawPassword
+     * @return BCrypt hash
+     * @throws RejectedExecutionException if no more hashes can be queued
+     */
+    public CompletableFuture<String> hashAsync(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * To check a password on the hasher threads, for callers that must not block. Passwords
+     * saved before hashing are compared right away. The future fails with a
+     * RejectedExecutionException if not done within user.password.timeout
+     *
+     * @param rawPassword
+     * @param savedPassword BCrypt hash, or a password saved before hashing
+     * @return true if they match
+     * @throws RejectedExecutionException if no more hashes can be queued
+     */
+    public CompletableFuture<Boolean> matchesAsync(String rawPassword, String savedPassword) {
+        if (rawPassword == null || savedPassword == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (!isHashed(savedPassword)) {
+            return CompletableFuture.completedFuture(MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                    savedPassword.getBytes(StandardCharsets.UTF_8)));
+        }
+        return submit(() -> passwordEncoder.matches(rawPassword, savedPassword));
+    }
+
+    /**
+     * To tell if a saved password is to be hashed again, as it was saved before hashing or
+     * with a lower cost than user.password.bcrypt-cost
+     *
+     * @param savedPassword
+     * @return true if it is to be hashed again
+     */
+    public boolean needsUpgrade(String savedPassword) {
+        return savedPassword != null && (!isHashed(savedPassword) || passwordEncoder.upgradeEncoding(savedPassword));
+    }
+
+    /**
+     * To get how long callers turned away are asked to wait
+     *
+     * @return Duration
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    private static boolean isHashed(String savedPassword) {
+        return savedPassword.startsWith(BCRYPT_PREFIX);
+    }
+
+    /** a hash still queued after user.password.timeout is given up, so no thread is spent on it */
+    private <T> CompletableFuture<T> submit(Supplier<T> hashing) {
+        CompletableFuture<T> hashed;
+        try {
+            hashed = CompletableFuture.supplyAsync(hashing, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+        return hashed.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                rejected.increment();
+                throw new RejectedExecutionException("Password hash not done within " + timeout);
+            }
+            throw new CompletionException(cause);
+        });
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                throw (RejectedExecutionException) e.getCause();
+            }
+            throw new IllegalStateException("Error while hashing a password", e.getCause());
+        }
+    }
+}
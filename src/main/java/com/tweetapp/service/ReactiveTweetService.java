@@ -0,0 +1,94 @@
+package com.tweetapp.service;
+
+import com.tweetapp.model.Tweet;
+import com.tweetapp.model.TweetResponse;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non blocking counterpart of {@link TweetService} used by the reactive profile
+ */
+public interface ReactiveTweetService {
+
+    /**
+     * To get one page of all tweets, newest first
+     *
+     * @param token
+     * @param limit
+     * @param before
+     * @return TweetResponse
+     */
+    Mono<ResponseEntity<TweetResponse>> getAllTweets(String token, Integer limit, String before);
+
+    /**
+     * To stream every tweet as newline delimited JSON
+     *
+     * @param token
+     * @return one Tweet per line
+     */
+    ResponseEntity<Flux<String>> streamAllTweets(String token);
+
+    /**
+     * To get one page of tweets based on Username, newest first
+     *
+     * @param token
+     * @param userName
+     * @param limit
+     * @param before
+     * @return TweetResponse
+     */
+    Mono<ResponseEntity<TweetResponse>> getAllTweetsOfUser(String token, String userName, Integer limit, String before);
+
+    /**
+     * To update Tweet
+     *
+     * @param token
+     * @param userName
+     * @param id
+     * @param tweet
+     * @return TweetResponse
+     */
+    Mono<ResponseEntity<TweetResponse>> updateTweet(String token, String userName, Long id, Tweet tweet);
+
+    /**
+     * To Post new tweet
+     *
+     * @param token
+     * @param userName
+     * @param tweet
+     * @return TweetResponse
+     */
+    Mono<ResponseEntity<TweetResponse>> postNewTweet(String token, String userName, Tweet tweet);
+
+    /**
+     * To delete Tweet
+     *
+     * @param token
+     * @param userName
+     * @param id
+     * @return TweetResponse
+     */
+    Mono<ResponseEntity<TweetResponse>> deleteTweet(String token, String userName, Long id);
+
+    /**
+     * To Like/Unlike a Tweet
+     *
+     * @param token
+     * @param userName
+     * @param id
+     * @return TweetResponse
+     */
+    Mono<ResponseEntity<TweetResponse>> likeTweet(String token, String userName, Long id);
+
+    /**
+     * To reply to a Tweet
+     *
+     * @param token
+     * @param userName
+     * @param id
+     * @param tweet
+     * @return TweetResponse
+     */
+    Mono<ResponseEntity<TweetResponse>> replyToTweet(String token, String userName, Long id, Tweet tweet);
+}
@@ -0,0 +1,381 @@
+package com.tweetapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tweetapp.consumer.ConsumerLagMonitor;
+import com.tweetapp.entity.TweetChange;
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.entity.TweetLikeCount;
+import com.tweetapp.entity.TweetLikeEntity;
+import com.tweetapp.model.Tweet;
+import com.tweetapp.model.TweetResponse;
+import com.tweetapp.producer.TweetChangeProducer;
+import com.tweetapp.producer.TweetProducer;
+import com.tweetapp.repository.ReactiveTweetLikeRepository;
+import com.tweetapp.repository.ReactiveTweetRepository;
+import com.tweetapp.repository.ReactiveUserRepository;
+import com.tweetapp.utils.EntityModelMapper;
+import com.tweetapp.utils.ServiceConstants;
+import com.tweetapp.utils.TweetPageCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveTweetServiceImpl implements ReactiveTweetService {
+
+    @Autowired
+    private ReactiveTweetRepository tweetRepository;
+    @Autowired
+    private ReactiveUserRepository userRepository;
+    @Autowired
+    private ReactiveTweetLikeRepository tweetLikeRepository;
+    @Autowired
+    private SequenceService sequenceService;
+    @Autowired
+    private TweetProducer tweetProducer;
+    @Autowired
+    private ReactiveUserService userService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ConsumerLagMonitor consumerLagMonitor;
+    @Autowired
+    private TweetSearchIndex tweetSearchIndex;
+    @Autowired
+    private LikeCountBuffer likeCountBuffer;
+    @Autowired
+    private TweetChangeProducer tweetChangeProducer;
+
+    @Value("${tweet.page.default-limit:50}")
+    private int defaultPageLimit = 50;
+    @Value("${tweet.page.max-limit:200}")
+    private int maxPageLimit = 200;
+    @Value("${tweet.producer.await-ack:false}")
+    private boolean awaitProducerAck = false;
+    @Value("${tweet.producer.ack-timeout:5s}")
+    private Duration producerAckTimeout = Duration.ofSeconds(5);
+
+    /**
+     * To get one page of all tweets, newest first
+     *
+     * @param token
+     * @param limit
+     * @param before
+     * @return TweetResponse
+     */
+    @Override
+    public Mono<ResponseEntity<TweetResponse>> getAllTweets(String token, Integer limit, String before) {
+        return Mono.defer(() -> userService.validateToken(token) ? tweetPage(null, limit, before) : Mono.just(failure()))
+                .onErrorResume(e -> {
+                    log.error("Error while Getting all tweets {}", e.getMessage());
+                    return Mono.just(failure());
+                });
+    }
+
+    /**
+     * To stream every tweet as newline delimited JSON, with backpressure from the client
+     *
+     * @param token
+     * @return one Tweet per line
+     */
+    @Override
+    public ResponseEntity<Flux<String>> streamAllTweets(String token) {
+        if (!userService.validateToken(token)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        Flux<String> body = tweetRepository.findAll().map(tweetEntity -> {
+            try {
+                return objectMapper.writeValueAsString(EntityModelMapper.tweetEntityToTweet(tweetEntity)) + "\n";
+            } catch (JsonProcessingException e) {
+                throw Exceptions.propagate(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(ServiceConstants.APPLICATION_NDJSON_VALUE)).body(body);
+    }
+
+    /**
+     * To get one page of tweets based on Username, newest first
+     *
+     * @param token
+     * @param userName
+     * @param limit
+     * @param before
+     * @return TweetResponse
+     */
+    @Override
+    public Mono<ResponseEntity<TweetResponse>> getAllTweetsOfUser(String token, String userName, Integer limit, String before) {
+        return Mono.defer(() -> {
+            if (!userService.validateToken(token)) {
+                return Mono.just(failure());
+            }
+            return userRepository.findByLoginId(userName)
+                    .flatMap(userEntity -> tweetPage(userEntity.getUserId(), limit, before))
+                    .defaultIfEmpty(userNotExist());
+        }).onErrorResume(e -> {
+            log.error("Error while Getting all tweets Of User{}", e.getMessage());
+            return Mono.just(failure());
+        });
+    }
+
+    /**
+     * To update Tweet
+     *
+     * @param token
+     * @param userName
+     * @param id
+     * @param tweet
+     * @return TweetResponse
+     */
+    @Override
+    public Mono<ResponseEntity<TweetResponse>> updateTweet(String token, String userName, Long id, Tweet tweet) {
+        return Mono.defer(() -> {
+            if (!userService.validateToken(token)) {
+                return Mono.just(failure());
+            }
+            return userRepository.findByLoginId(userName)
+                    .flatMap(userEntity -> tweetRepository.findById(id)
+                            .flatMap(tweetEntity -> tweetRepository.updateTweetDesc(id, tweet.getTweetDesc())
+                                    .then(Mono.fromRunnable(() -> {
+                                        tweetSearchIndex.update(id, tweetEntity.getTweetDesc(), tweet.getTweetDesc());
+                                        tweetChangeProducer.sendChange(TweetChange.updated(id, tweetEntity.getParentTweetId(),
+                                                tweetEntity.getTweetDesc(), tweet.getTweetDesc()));
+                                    }))
+                                    .thenReturn(tweetResponse(ServiceConstants.SUCCESS, HttpStatus.OK)))
+                            .defaultIfEmpty(noTweet()))
+                    .defaultIfEmpty(userNotExist());
+        }).onErrorResume(e -> {
+            log.error("Error while Getting update tweet{}", e.getMessage());
+            return Mono.just(failure());
+        });
+    }
+
+    /**
+     * To Post new tweet. With tweet.producer.await-ack the response waits until the broker
+     * acknowledged the tweet, so a failed send is reported to the caller
+     *
+     * @param token
+     * @param userName
+     * @param tweet
+     * @return TweetResponse
+     */
+    @Override
+    public Mono<ResponseEntity<TweetResponse>> postNewTweet(String token, String userName, Tweet tweet) {
+        return Mono.defer(() -> {
+            if (!userService.validateToken(token)) {
+                return Mono.just(failure());
+            }
+            if (consumerLagMonitor.isBackpressured()) {
+                return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(consumerLagMonitor.getRetryAfter().getSeconds()))
+                        .body(TweetResponse.builder().message(ServiceConstants.TWEET_BACKLOG)
+                                .messageCode(HttpStatus.SERVICE_UNAVAILABLE)
+                                .messageType(ServiceConstants.FAILURE)
+                                .build()));
+            }
+            return userRepository.findByLoginId(userName)
+                    .flatMap(userEntity -> Mono.fromCallable(() -> {
+                        tweet.setUserId(userEntity.getUserId());
+                        TweetEntity tweetEntity = EntityModelMapper.tweetToTweetEntity(tweet);
+                        tweetEntity.setTweetId(sequenceService.getNextSequence(TweetEntity.SEQUENCE_NAME));
+                        tweetEntity.setLikeCount(0);
+                        tweetEntity.setCreatedDate(LocalDateTime.now());
+                        return tweetProducer.sendMessage(tweetEntity);
+                    }).subscribeOn(Schedulers.boundedElastic())
+                            .flatMap(sendResult -> (awaitProducerAck
+                                    ? Mono.fromFuture(sendResult.completable()).timeout(producerAckTimeout).then()
+                                    : Mono.<Void>empty())
+                                    .thenReturn(tweetResponse(ServiceConstants.SUCCESS, HttpStatus.OK))))
+                    .defaultIfEmpty(userNotExist());
+        }).onErrorResume(e -> {
+            log.error("Error while post New Tweet{}", e.getMessage());
+            return Mono.just(failure());
+        });
+    }
+
+    /**
+     * To delete Tweet
+     *
+     * @param token
+     * @param userName
+     * @param id
+     * @return TweetResponse
+     */
+    @Override
+    public Mono<ResponseEntity<TweetResponse>> deleteTweet(String token, String userName, Long id) {
+        return Mono.defer(() -> {
+            if (!userService.validateToken(token)) {
+                return Mono.just(failure());
+            }
+            return userRepository.findByLoginId(userName)
+                    .flatMap(userEntity -> tweetRepository.findById(id)
+                            .flatMap(tweetEntity -> tweetRepository.deleteById(id)
+                                    .then(Mono.fromRunnable(() -> {
+                                        tweetSearchIndex.remove(id, tweetEntity.getTweetDesc());
+                                        tweetChangeProducer.sendChange(TweetChange.deleted(id, tweetEntity.getParentTweetId(),
+                                                tweetEntity.getTweetDesc()));
+                                    }))
+                                    .thenReturn(tweetResponse(ServiceConstants.SUCCESS, HttpStatus.OK)))
+                            .defaultIfEmpty(noTweet()))
+                    .defaultIfEmpty(userNotExist());
+        }).onErrorResume(e -> {
+            log.error("Error while Deleting Tweet{}", e.getMessage());
+            return Mono.just(failure());
+        });
+    }
+
+    /**
+     * To Like/Unlike a Tweet
+     *
+     * @param token
+     * @param userName
+     * @param id
+     * @return TweetResponse
+     */
+    @Override
+    public Mono<ResponseEntity<TweetResponse>> likeTweet(String token, String userName, Long id) {
+        return Mono.defer(() -> {
+            if (!userService.validateToken(token)) {
+                return Mono.just(failure());
+            }
+            return userRepository.findByLoginId(userName)
+                    .flatMap(userEntity -> tweetRepository.findById(id)
+                            .flatMap(tweetEntity -> tweetLikeRepository.findByUserIdAndTweetId(userEntity.getUserId(), id)
+                                    .flatMap(tweetLikeEntity -> tweetLikeRepository.deleteByTweetLikeId(tweetLikeEntity.getTweetLikeId())
+                                            .flatMap(deleted -> deleted > 0 ? Mono.<Void>fromRunnable(() -> likeCountBuffer.increment(id, -1)) : Mono.<Void>empty())
+                                            .thenReturn(tweetResponse(ServiceConstants.UNLIKE_TWEET, HttpStatus.OK)))
+                                    .switchIfEmpty(Mono.defer(() -> Mono.fromCallable(() -> sequenceService.getNextSequence(TweetLikeEntity.SEQUENCE_NAME))
+                                            .subscribeOn(Schedulers.boundedElastic())
+                                            .flatMap(tweetLikeId -> tweetLikeRepository.save(TweetLikeEntity.builder()
+                                                    .tweetLikeId(tweetLikeId)
+                                                    .tweetId(tweetEntity.getTweetId())
+                                                    .userId(userEntity.getUserId())
+                                                    .build()))
+                                            .then(Mono.fromRunnable(() -> likeCountBuffer.increment(id, 1)))
+                                            .thenReturn(tweetResponse(ServiceConstants.LIKE_TWEET, HttpStatus.OK)))))
+                            .defaultIfEmpty(noTweet()))
+                    .defaultIfEmpty(userNotExist());
+        }).onErrorResume(e -> {
+            log.error("Error while Liking Tweet{}", e.getMessage());
+            return Mono.just(failure());
+        });
+    }
+
+    /**
+     * To reply to a Tweet
+     *
+     * @param token
+     * @param userName
+     * @param id
+     * @param tweet
+     * @return TweetResponse
+     */
+    @Override
+    public Mono<ResponseEntity<TweetResponse>> replyToTweet(String token, String userName, Long id, Tweet tweet) {
+        return Mono.defer(() -> {
+            if (!userService.validateToken(token)) {
+                return Mono.just(failure());
+            }
+            return tweetRepository.findById(id)
+                    .flatMap(tweetEntity -> {
+                        tweet.setParentTweetId(id);
+                        return postNewTweet(token, userName, tweet);
+                    })
+                    .defaultIfEmpty(noTweet());
+        }).onErrorResume(e -> {
+            log.error("Error while Replying to Tweet{}", e.getMessage());
+            return Mono.just(failure());
+        });
+    }
+
+    private Mono<ResponseEntity<TweetResponse>> tweetPage(Long userId, Integer limit, String before) {
+        TweetPageCursor cursor;
+        try {
+            cursor = before == null ? null : TweetPageCursor.decode(before);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(tweetResponse(ServiceConstants.INVALID_CURSOR, HttpStatus.BAD_REQUEST));
+        }
+        int pageLimit = limit == null ? defaultPageLimit : Math.max(1, Math.min(limit, maxPageLimit));
+        return tweetRepository.findPage(userId, cursor, pageLimit + 1)
+                .collectList()
+                .flatMap(tweetEntityList -> {
+                    if (tweetEntityList.isEmpty()) {
+                        return Mono.just(noTweet());
+                    }
+                    String nextCursor = null;
+                    List<TweetEntity> page = tweetEntityList;
+                    if (page.size() > pageLimit) {
+                        page = page.subList(0, pageLimit);
+                        nextCursor = TweetPageCursor.encode(page.get(pageLimit - 1));
+                    }
+                    String pageNextCursor = nextCursor;
+                    return toTweetListWithLikeCount(page).map(tweetList -> new ResponseEntity<>(TweetResponse.builder()
+                            .message(ServiceConstants.SUCCESS)
+                            .tweetList(tweetList)
+                            .nextCursor(pageNextCursor)
+                            .messageCode(HttpStatus.OK)
+                            .messageType(ServiceConstants.SUCCESS)
+                            .build(), HttpStatus.OK));
+                });
+    }
+
+    private Mono<List<Tweet>> toTweetListWithLikeCount(List<TweetEntity> tweetEntityList) {
+        List<Long> uncountedTweetIds = tweetEntityList.stream().filter(tweetEntity -> tweetEntity.getLikeCount() == null)
+                .map(TweetEntity::getTweetId).collect(Collectors.toList());
+        Mono<Map<Long, Integer>> likeCountMap = uncountedTweetIds.isEmpty() ? Mono.just(Collections.emptyMap())
+                : tweetLikeRepository.aggregateLikeCounts(uncountedTweetIds)
+                .collectMap(TweetLikeCount::getTweetId, TweetLikeCount::getLikeCount);
+        return likeCountMap.map(likeCounts -> {
+            List<Tweet> tweetList = new ArrayList<>();
+            for (TweetEntity tweetEntity : tweetEntityList) {
+                Tweet tweet = EntityModelMapper.tweetEntityToTweet(tweetEntity);
+                if (tweet.getLikeCount() == null) {
+                    tweet.setLikeCount(likeCounts.getOrDefault(tweet.getTweetId(), 0));
+                } else {
+                    tweet.setLikeCount(tweet.getLikeCount() + likeCountBuffer.pendingDelta(tweet.getTweetId()));
+                }
+                tweetList.add(tweet);
+            }
+            return tweetList;
+        });
+    }
+
+    private static ResponseEntity<TweetResponse> tweetResponse(String message, HttpStatus httpStatus) {
+        return new ResponseEntity<>(TweetResponse.builder().message(message)
+                .messageCode(httpStatus)
+                .messageType(httpStatus == HttpStatus.OK ? ServiceConstants.SUCCESS : ServiceConstants.FAILURE)
+                .build(), httpStatus);
+    }
+
+    private static ResponseEntity<TweetResponse> noTweet() {
+        return tweetResponse(ServiceConstants.NO_TWEET, HttpStatus.NOT_FOUND);
+    }
+
+    private static ResponseEntity<TweetResponse> userNotExist() {
+        return tweetResponse(ServiceConstants.USER_NOT_EXIST, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    private static ResponseEntity<TweetResponse> failure() {
+        return tweetResponse(ServiceConstants.FAILURE, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
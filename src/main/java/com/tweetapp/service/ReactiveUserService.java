@@ -0,0 +1,67 @@
+package com.tweetapp.service;
+
+import com.tweetapp.model.User;
+import com.tweetapp.model.UserResponse;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non blocking counterpart of {@link UserService} used by the reactive profile
+ */
+public interface ReactiveUserService {
+
+    /**
+     * To register user
+     *
+     * @param user
+     * @return UserResponse
+     */
+    Mono<ResponseEntity<UserResponse>> registerUser(User user);
+
+    /**
+     * For forgot password
+     *
+     * @param userName
+     * @return UserResponse
+     */
+    Mono<ResponseEntity<UserResponse>> forgotPassword(String userName);
+
+    /**
+     * To get all users
+     *
+     * @param token
+     * @return UserResponse
+     */
+    Mono<ResponseEntity<UserResponse>> getAllUsers(String token);
+
+    /**
+     * To search user based on Username
+     *
+     * @param token
+     * @param userName
+     * @return UserResponse
+     */
+    Mono<ResponseEntity<UserResponse>> searchByUserName(String token, String userName);
+
+    /**
+     * To reset Password
+     *
+     * @param userName
+     * @param user
+     * @return UserResponse
+     */
+    Mono<ResponseEntity<UserResponse>> resetPassword(String userName, User user);
+
+    /**
+     * To user to login
+     *
+     * @param loginId
+     * @param password
+     * @return UserResponse
+     */
+    Mono<ResponseEntity<UserResponse>> login(String loginId, String password);
+
+    Mono<ResponseEntity<UserResponse>> getByUserName(String token, String userName);
+
+    boolean validateToken(String token);
+}
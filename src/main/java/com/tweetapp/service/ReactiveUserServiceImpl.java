@@ -0,0 +1,278 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.model.AuthResponse;
+import com.tweetapp.model.User;
+import com.tweetapp.model.UserResponse;
+import com.tweetapp.repository.ReactiveUserRepository;
+import com.tweetapp.utils.EntityModelMapper;
+import com.tweetapp.utils.ServiceConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    @Autowired
+    private ReactiveUserRepository userRepository;
+    @Autowired
+    private SequenceService sequenceService;
+    @Autowired
+    private JwtUtil jwtutil;
+    @Autowired
+    private UserPrefixIndex userPrefixIndex;
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    /**
+     * To register user
+     *
+     * @param user
+     * @return UserResponse
+     */
+    @Override
+    public Mono<ResponseEntity<UserResponse>> registerUser(User user) {
+        return Mono.defer(() -> {
+            if (!user.getConfirmPassword().equals(user.getPassword())) {
+                return Mono.just(userResponse(ServiceConstants.PASSWORD_NOT_MATCHED, HttpStatus.CONFLICT));
+            }
+            return userRepository.findByLoginId(user.getLoginId())
+                    .map(existing -> userResponse(ServiceConstants.LOGIN_USED, HttpStatus.CONFLICT))
+                    .switchIfEmpty(Mono.defer(() -> userRepository.findByEmail(user.getEmail())
+                            .map(existing -> userResponse(ServiceConstants.EMAIL_USED, HttpStatus.CONFLICT))))
+                    .switchIfEmpty(Mono.defer(() -> Mono.fromCallable(() -> sequenceService.getNextSequence(UserEntity.SEQUENCE_NAME))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .zipWith(Mono.defer(() -> Mono.fromFuture(passwordHasher.hashAsync(user.getPassword()))))
+                            .flatMap(userIdAndPassword -> {
+                                UserEntity userEntity = EntityModelMapper.userToUserEntity(user);
+                                userEntity.setUserId(userIdAndPassword.getT1());
+                                userEntity.setPassword(userIdAndPassword.getT2());
+                                return userRepository.save(userEntity);
+                            })
+                            .doOnNext(userPrefixIndex::add)
+                            .thenReturn(userResponse(ServiceConstants.ID_CREATED, HttpStatus.OK))));
+        }).onErrorResume(RejectedExecutionException.class, e -> Mono.just(passwordHasherBusy())
+        ).onErrorResume(e -> {
+            log.error("Error while creating user {}", e.getMessage());
+            return Mono.just(failure());
+        });
+    }
+
+    /**
+     * Used for login. A password saved before hashing, or with a lower cost, is hashed again
+     * once it matched
+     *
+     * @param loginId
+     * @param password
+     * @return UserResponse
+     */
+    @Override
+    public Mono<ResponseEntity<UserResponse>> login(String loginId, String password) {
+        return Mono.defer(() -> userRepository.findByLoginId(loginId)
+                .flatMap(userEntity -> Mono.fromFuture(passwordHasher.matchesAsync(password, userEntity.getPassword()))
+                        .flatMap(matched -> {
+                            if (!matched) {
+                                return Mono.just(userResponse(ServiceConstants.PASSWORD_WRONG, HttpStatus.CONFLICT));
+                            }
+                            String generateToken = jwtutil.generateToken(userEntity.getLoginId());
+                            return upgradePassword(userEntity, password)
+                                    .thenReturn(new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.LOGIN_SUCCESS)
+                                            .authResponse(AuthResponse.builder().authToken(generateToken).userName(loginId).isValid(true).build())
+                                            .messageCode(HttpStatus.OK)
+                                            .messageType(ServiceConstants.SUCCESS)
+                                            .build(), HttpStatus.OK));
+                        }))
+                .defaultIfEmpty(userResponse(ServiceConstants.USER_NOT_EXIST, HttpStatus.CONFLICT))
+        ).onErrorResume(RejectedExecutionException.class, e -> Mono.just(passwordHasherBusy())
+        ).onErrorResume(e -> {
+            log.error("Error while login {}", e.getMessage());
+            return Mono.just(failure());
+        });
+    }
+
+    /**
+     * For forgot password
+     *
+     * @param userName
+     * @return UserResponse
+     */
+    @Override
+    public Mono<ResponseEntity<UserResponse>> forgotPassword(String userName) {
+        return Mono.defer(() -> userRepository.findByLoginId(userName)
+                .map(userEntity -> userResponse(ServiceConstants.SUCCESS, HttpStatus.OK))
+                .defaultIfEmpty(userResponse(ServiceConstants.USER_NOT_EXIST, HttpStatus.CONFLICT))
+        ).onErrorResume(e -> {
+            log.error("Error while forgotPassword {}", e.getMessage());
+            return Mono.just(failure());
+        });
+    }
+
+    /**
+     * To reset Password
+     *
+     * @param userName
+     * @param user
+     * @return UserResponse
+     */
+    @Override
+    public Mono<ResponseEntity<UserResponse>> resetPassword(String userName, User user) {
+        return Mono.defer(() -> userRepository.findByLoginId(userName)
+                .flatMap(userEntity -> {
+                    if (!user.getConfirmPassword().equals(user.getPassword())) {
+                        return Mono.just(userResponse(ServiceConstants.PASSWORD_NOT_MATCHED, HttpStatus.CONFLICT));
+                    }
+                    if (userEntity.getEmail().equals(user.getEmail()) && userEntity.getContactNumber() == user.getContactNumber()) {
+                        return Mono.fromFuture(passwordHasher.hashAsync(user.getPassword()))
+                                .flatMap(hashedPassword -> userRepository.updatePassword(userEntity.getUserId(), hashedPassword))
+                                .thenReturn(userResponse(ServiceConstants.PASSWORD_CHANGED, HttpStatus.OK));
+                    }
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(userResponse(ServiceConstants.PHONE_EMAIL_NOT_MATCH, HttpStatus.CONFLICT))
+        ).onErrorResume(RejectedExecutionException.class, e -> Mono.just(passwordHasherBusy())
+        ).onErrorResume(e -> {
+            log.error("Error while Reset Password {}", e.getMessage());
+            return Mono.just(failure());
+        });
+    }
+
+    /**
+     * To get all users
+     *
+     * @param token
+     * @return UserResponse
+     */
+    @Override
+    public Mono<ResponseEntity<UserResponse>> getAllUsers(String token) {
+        return userList(token, userRepository::findAll)
+                .onErrorResume(e -> {
+                    log.error("Error while get all User {}", e.getMessage());
+                    return Mono.just(failure());
+                });
+    }
+
+    /**
+     * To search user based on Username
+     *
+     * @param token
+     * @param userName
+     * @return UserResponse
+     */
+    @Override
+    public Mono<ResponseEntity<UserResponse>> searchByUserName(String token, String userName) {
+        return userList(token, () -> userRepository.findByLoginIdLike(userName))
+                .onErrorResume(e -> {
+                    log.error("Error while search by user Name {}", e.getMessage());
+                    return Mono.just(failure());
+                });
+    }
+
+    /**
+     * To search user based on Username
+     *
+     * @param token
+     * @param userName
+     * @return UserResponse
+     */
+    @Override
+    public Mono<ResponseEntity<UserResponse>> getByUserName(String token, String userName) {
+        return userList(token, () -> userRepository.findByLoginId(userName).flux())
+                .onErrorResume(e -> {
+                    log.error("Error while get by user Name {}", e.getMessage());
+                    return Mono.just(failure());
+                });
+    }
+
+    /**
+     * To validate token
+     *
+     * @param token
+     * @return AuthResponse
+     */
+    @Override
+    public boolean validateToken(String token) {
+        boolean res;
+        try {
+            String token1 = token.substring(7);
+            res = jwtutil.validateToken(token1);
+        } catch (Exception e) {
+            res = false;
+            log.error("Token Expired {}", e.getMessage());
+        }
+        return res;
+    }
+
+    private Mono<ResponseEntity<UserResponse>> userList(String token, Supplier<Flux<UserEntity>> userEntitySupplier) {
+        return Mono.defer(() -> {
+            if (!validateToken(token)) {
+                return Mono.just(failure());
+            }
+            return userEntitySupplier.get()
+                    .map(EntityModelMapper::userEntityToUser)
+                    .collectList()
+                    .map(userList -> userList.isEmpty()
+                            ? userResponse(ServiceConstants.USER_NOT_EXIST, HttpStatus.NOT_FOUND)
+                            : new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.SUCCESS)
+                            .userList(userList)
+                            .messageCode(HttpStatus.OK)
+                            .messageType(ServiceConstants.SUCCESS)
+                            .build(), HttpStatus.OK));
+        });
+    }
+
+    /**
+     * To rehash the password of a user logged in with an outdated hash. The login goes on
+     * if the hasher is too busy, the password is upgraded at a later one
+     *
+     * @param userEntity
+     * @param password
+     * @return Mono of the upgraded UserEntity, empty if not upgraded
+     */
+    private Mono<UserEntity> upgradePassword(UserEntity userEntity, String password) {
+        if (!passwordHasher.needsUpgrade(userEntity.getPassword())) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> Mono.fromFuture(passwordHasher.hashAsync(password)))
+                .flatMap(hashedPassword -> {
+                    userEntity.setPassword(hashedPassword);
+                    return userRepository.updatePassword(userEntity.getUserId(), hashedPassword).thenReturn(userEntity);
+                })
+                .onErrorResume(RejectedExecutionException.class, e -> {
+                    log.debug("Password of {} not upgraded as the hasher is busy", userEntity.getLoginId());
+                    return Mono.empty();
+                });
+    }
+
+    private ResponseEntity<UserResponse> passwordHasherBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(passwordHasher.getRetryAfter().getSeconds()))
+                .body(UserResponse.builder().message(ServiceConstants.PASSWORD_HASHER_BUSY)
+                        .messageCode(HttpStatus.SERVICE_UNAVAILABLE)
+                        .messageType(ServiceConstants.FAILURE)
+                        .build());
+    }
+
+    private static ResponseEntity<UserResponse> userResponse(String message, HttpStatus httpStatus) {
+        return new ResponseEntity<>(UserResponse.builder().message(message)
+                .messageCode(httpStatus)
+                .messageType(httpStatus == HttpStatus.OK ? ServiceConstants.SUCCESS : ServiceConstants.FAILURE)
+                .build(), httpStatus);
+    }
+
+    private static ResponseEntity<UserResponse> failure() {
+        return userResponse(ServiceConstants.FAILURE, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
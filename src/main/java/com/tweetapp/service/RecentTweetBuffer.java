@@ -0,0 +1,388 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.repository.TweetRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The newest tweets kept in memory, so the first page of the global feed is served without
+ * a Mongo query. Tweets are stored column by column in primitive arrays used as a ring,
+ * ordered by (createdDate, tweetId) like the feed; descriptions go through a reference
+ * counted pool so repeated texts share one String. Filled by TweetConsumer and rebuilt
+ * from Mongo when the application starts; the tweets saved, edited, deleted and liked on other
+ * instances come through TweetChangeConsumer
+ */
+@Service
+@Slf4j
+public class RecentTweetBuffer {
+
+    private static final long NONE = Long.MIN_VALUE;
+    private static final int UNKNOWN_LIKE_COUNT = -1;
+    /** four long columns, one int column and one compressed reference per slot */
+    private static final int SLOT_BYTES = 4 * Long.BYTES + Integer.BYTES + 4;
+    /** String, its byte[] header, the PooledString, its map node and table slot */
+    private static final int POOLED_STRING_OVERHEAD_BYTES = 24 + 16 + 32 + 32 + 8;
+
+    @Autowired
+    private TweetRepository tweetRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tweet.recent-buffer.capacity:1000}")
+    private int capacity = 1000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PooledString> stringPool = new HashMap<>();
+
+    private long[] tweetIds;
+    private long[] userIds;
+    private long[] createdMillis;
+    private long[] parentTweetIds;
+    private int[] likeCounts;
+    private String[] tweetDescs;
+
+    /** slot the next tweet is written to, which is the oldest slot once the ring is full */
+    private int head;
+    /** used slots, deleted tweets included */
+    private int size;
+    private int liveCount;
+    private long pooledStringBytes;
+    /** true while no tweet was evicted, i.e. the buffer holds every tweet there is */
+    private boolean complete = true;
+    private boolean ready;
+    /** epoch millis the rebuild read Mongo at, likes flushed before are in the counts it read */
+    private long loadedAt = Long.MAX_VALUE;
+
+    @PostConstruct
+    void initBuffer() {
+        tweetIds = new long[capacity];
+        userIds = new long[capacity];
+        createdMillis = new long[capacity];
+        parentTweetIds = new long[capacity];
+        likeCounts = new int[capacity];
+        tweetDescs = new String[capacity];
+        Gauge.builder("tweet.recent.buffer.size", this, RecentTweetBuffer::size)
+                .description("Tweets held by the recent tweet buffer")
+                .register(meterRegistry);
+        Gauge.builder("tweet.recent.buffer.bytes", this, RecentTweetBuffer::footprintBytes)
+                .description("Estimated heap used by the recent tweet buffer")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * To load the newest tweets from Mongo. Until this succeeds the buffer serves nothing
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            long loadStartedAt = System.currentTimeMillis();
+            List<TweetEntity> tweetEntityList = tweetRepository.findPage(null, null, capacity);
+            lock.writeLock().lock();
+            try {
+                loadedAt = loadStartedAt;
+                for (int i = tweetEntityList.size() - 1; i >= 0; i--) {
+                    insert(tweetEntityList.get(i));
+                }
+                if (tweetEntityList.size() == capacity) {
+                    complete = false;
+                }
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Recent tweet buffer rebuilt with {} tweets", size());
+        } catch (Exception e) {
+            log.error("Error while rebuilding recent tweet buffer {}", e.getMessage());
+        }
+    }
+
+    /**
+     * To add a persisted tweet, evicting the oldest one once the buffer is full
+     *
+     * @param tweetEntity
+     */
+    public void append(TweetEntity tweetEntity) {
+        lock.writeLock().lock();
+        try {
+            insert(tweetEntity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * To get the newest tweets, ordered like TweetRepositoryCustom.findPage
+     *
+     * @param limit
+     * @return List of TweetEntity, or empty if the buffer cannot answer for that many tweets
+     */
+    public Optional<List<TweetEntity>> newest(int limit) {
+        lock.readLock().lock();
+        try {
+            if (!ready || (liveCount < limit && !complete)) {
+                return Optional.empty();
+            }
+            List<TweetEntity> tweetEntityList = new ArrayList<>(Math.min(limit, liveCount));
+            for (int i = 0; i < size && tweetEntityList.size() < limit; i++) {
+                int slot = Math.floorMod(head - 1 - i, capacity);
+                if (tweetIds[slot] != NONE) {
+                    tweetEntityList.add(toTweetEntity(slot));
+                }
+            }
+            return Optional.of(tweetEntityList);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * To apply a like or unlike to a buffered tweet
+     *
+     * @param tweetId
+     * @param delta
+     */
+    public void incrementLikeCount(Long tweetId, int delta) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(tweetId);
+            if (slot >= 0 && likeCounts[slot] != UNKNOWN_LIKE_COUNT) {
+                likeCounts[slot] += delta;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * To apply the likes another instance flushed to the stored like counts. Those flushed
+     * before the buffer was loaded are skipped, the counts read from Mongo hold them already
+     *
+     * @param deltas    by tweetId
+     * @param flushedAt epoch millis
+     */
+    public void incrementLikeCounts(Map<Long, Integer> deltas, long flushedAt) {
+        lock.writeLock().lock();
+        try {
+            if (flushedAt < loadedAt) {
+                return;
+            }
+            for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+                int slot = slotOf(delta.getKey());
+                if (slot >= 0 && likeCounts[slot] != UNKNOWN_LIKE_COUNT) {
+                    likeCounts[slot] += delta.getValue();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * To change the description of a buffered tweet
+     *
+     * @param tweetId
+     * @param tweetDesc
+     */
+    public void updateTweetDesc(Long tweetId, String tweetDesc) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(tweetId);
+            if (slot >= 0) {
+                release(tweetDescs[slot]);
+                tweetDescs[slot] = pool(tweetDesc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * To drop a deleted tweet. Its slot stays used until it is evicted
+     *
+     * @param tweetId
+     */
+    public void remove(Long tweetId) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(tweetId);
+            if (slot >= 0) {
+                release(tweetDescs[slot]);
+                tweetDescs[slot] = null;
+                tweetIds[slot] = NONE;
+                liveCount--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of tweets held
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * To estimate the heap used by the columns and the pooled descriptions,
+     * assuming compressed references
+     *
+     * @return bytes
+     */
+    public long footprintBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) capacity * SLOT_BYTES + pooledStringBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(TweetEntity tweetEntity) {
+        if (tweetEntity.getTweetId() == null || slotOf(tweetEntity.getTweetId()) >= 0) {
+            return;
+        }
+        long created = toMillis(tweetEntity.getCreatedDate());
+        if (size == capacity) {
+            complete = false;
+            if (compare(created, tweetEntity.getTweetId(), createdMillis[head], tweetIds[head]) < 0) {
+                return;
+            }
+            if (tweetIds[head] != NONE) {
+                release(tweetDescs[head]);
+                liveCount--;
+            }
+            size--;
+        }
+        int slot = head;
+        tweetIds[slot] = tweetEntity.getTweetId();
+        userIds[slot] = tweetEntity.getUserId() == null ? NONE : tweetEntity.getUserId();
+        createdMillis[slot] = created;
+        parentTweetIds[slot] = tweetEntity.getParentTweetId() == null ? NONE : tweetEntity.getParentTweetId();
+        likeCounts[slot] = tweetEntity.getLikeCount() == null ? UNKNOWN_LIKE_COUNT : tweetEntity.getLikeCount();
+        tweetDescs[slot] = pool(tweetEntity.getTweetDesc());
+        head = (head + 1) % capacity;
+        size++;
+        liveCount++;
+        // tweets almost always arrive newest last, so this rarely moves anything
+        for (int moved = 1; moved < size; moved++) {
+            int previous = Math.floorMod(slot - 1, capacity);
+            if (compare(createdMillis[previous], tweetIds[previous], createdMillis[slot], tweetIds[slot]) <= 0) {
+                break;
+            }
+            swap(previous, slot);
+            slot = previous;
+        }
+    }
+
+    /** a linear scan, which for a few thousand primitive ids is cheaper than keeping an index */
+    private int slotOf(long tweetId) {
+        for (int i = 0; i < size; i++) {
+            int slot = Math.floorMod(head - 1 - i, capacity);
+            if (tweetIds[slot] == tweetId) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private TweetEntity toTweetEntity(int slot) {
+        return TweetEntity.builder()
+                .tweetId(tweetIds[slot])
+                .userId(userIds[slot] == NONE ? null : userIds[slot])
+                .tweetDesc(tweetDescs[slot])
+                .createdDate(createdMillis[slot] == NONE ? null
+                        : LocalDateTime.ofInstant(Instant.ofEpochMilli(createdMillis[slot]), ZoneOffset.UTC))
+                .parentTweetId(parentTweetIds[slot] == NONE ? null : parentTweetIds[slot])
+                .likeCount(likeCounts[slot] == UNKNOWN_LIKE_COUNT ? null : likeCounts[slot])
+                .build();
+    }
+
+    private void swap(int i, int j) {
+        swap(tweetIds, i, j);
+        swap(userIds, i, j);
+        swap(createdMillis, i, j);
+        swap(parentTweetIds, i, j);
+        int likeCount = likeCounts[i];
+        likeCounts[i] = likeCounts[j];
+        likeCounts[j] = likeCount;
+        String tweetDesc = tweetDescs[i];
+        tweetDescs[i] = tweetDescs[j];
+        tweetDescs[j] = tweetDesc;
+    }
+
+    private static void swap(long[] column, int i, int j) {
+        long value = column[i];
+        column[i] = column[j];
+        column[j] = value;
+    }
+
+    private String pool(String value) {
+        if (value == null) {
+            return null;
+        }
+        PooledString pooledString = stringPool.computeIfAbsent(value, PooledString::new);
+        if (pooledString.references++ == 0) {
+            pooledStringBytes += pooledString.bytes;
+        }
+        return pooledString.value;
+    }
+
+    private void release(String value) {
+        if (value == null) {
+            return;
+        }
+        PooledString pooledString = stringPool.get(value);
+        if (pooledString != null && --pooledString.references == 0) {
+            stringPool.remove(value);
+            pooledStringBytes -= pooledString.bytes;
+        }
+    }
+
+    /** Mongo keeps dates to the millisecond, so the buffer does too */
+    private static long toMillis(LocalDateTime createdDate) {
+        return createdDate == null ? NONE : createdDate.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static int compare(long createdMillis1, long tweetId1, long createdMillis2, long tweetId2) {
+        int byCreatedDate = Long.compare(createdMillis1, createdMillis2);
+        return byCreatedDate != 0 ? byCreatedDate : Long.compare(tweetId1, tweetId2);
+    }
+
+    private static final class PooledString {
+        private final String value;
+        private final long bytes;
+        private int references;
+
+        private PooledString(String value) {
+            this.value = value;
+            boolean latin1 = value.chars().allMatch(c -> c < 256);
+            this.bytes = POOLED_STRING_OVERHEAD_BYTES + (long) value.length() * (latin1 ? 1 : 2);
+        }
+    }
+}
@@ -6,7 +6,7 @@ public interface SequenceService {
      * Generates custom sequences
      *
      * @param sequenceName
-     * @return Integer
+     * @return Long
      */
-    Integer getNextSequence(String sequenceName);
+    Long getNextSequence(String sequenceName);
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package com.tweetapp.service;
 
 
+import com.tweetapp.config.SequenceProperties;
 import com.tweetapp.entity.IdSequence;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -11,24 +13,68 @@ import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
+@ConditionalOnProperty(name = "sequence.generator", havingValue = "hilo", matchIfMissing = true)
 public class SequenceServiceImpl implements SequenceService {
 
     @Autowired
     private MongoOperations mongoOperations;
+    @Autowired
+    private SequenceProperties sequenceProperties;
+
+    private final ConcurrentMap<String, IdBlock> idBlocks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> reserveLocks = new ConcurrentHashMap<>();
 
     /**
-     * Generates custom sequences
+     * Generates custom sequences. Ids are handed out from a block reserved in memory,
+     * and a new block is only fetched from the database once the current one is used up
      *
      * @param sequenceName
-     * @return Integer
+     * @return Long
      */
-    public Integer getNextSequence(String sequenceName) {
+    public Long getNextSequence(String sequenceName) {
+        while (true) {
+            IdBlock idBlock = idBlocks.get(sequenceName);
+            if (Objects.nonNull(idBlock)) {
+                long id = idBlock.next.getAndIncrement();
+                if (id <= idBlock.last) {
+                    return id;
+                }
+            }
+            synchronized (reserveLocks.computeIfAbsent(sequenceName, name -> new Object())) {
+                if (idBlocks.get(sequenceName) == idBlock) {
+                    idBlocks.put(sequenceName, reserveBlock(sequenceName));
+                }
+            }
+        }
+    }
+
+    /**
+     * The stored sequence is the highest id reserved by any instance, so one atomic
+     * $inc claims the next block for this instance alone. Ids left in a block at
+     * shutdown are skipped, never reused
+     */
+    private IdBlock reserveBlock(String sequenceName) {
+        int blockSize = sequenceProperties.blockSizeOf(sequenceName);
         Query query = new Query(Criteria.where("id").is(sequenceName));
-        Update update = new Update().inc("sequence", 1);
+        Update update = new Update().inc("sequence", blockSize);
         IdSequence sequenceCounter = mongoOperations.findAndModify(query, update,
                 FindAndModifyOptions.options().returnNew(true).upsert(true), IdSequence.class);
-        return Objects.nonNull(sequenceCounter) ? sequenceCounter.getSequence() : 1;
+        long last = Objects.nonNull(sequenceCounter) ? sequenceCounter.getSequence() : blockSize;
+        return new IdBlock(last - blockSize + 1, last);
+    }
+
+    private static final class IdBlock {
+        private final AtomicLong next;
+        private final long last;
+
+        private IdBlock(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
     }
-}
\ No newline at end of file
+}
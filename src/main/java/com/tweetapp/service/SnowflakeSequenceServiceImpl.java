@@ -0,0 +1,83 @@
+package com.tweetapp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds 64 bit ids locally from 41 bits of milliseconds since {@link #EPOCH},
+ * 10 bits of node id and a 12 bit counter per millisecond, so no database round trip
+ * is needed. Ids of one node are strictly increasing; ids of different nodes never
+ * collide as long as every running instance has its own sequence.snowflake.node-id
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "sequence.generator", havingValue = "snowflake")
+public class SnowflakeSequenceServiceImpl implements SequenceService {
+
+    static final long EPOCH = Instant.parse("2021-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_ID_BITS = 10;
+    static final int COUNTER_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_ID_BITS) - 1;
+    static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    @Value("${sequence.snowflake.node-id:0}")
+    private long nodeId = 0;
+    @Value("${sequence.snowflake.max-clock-drift-ms:5000}")
+    private long maxClockDriftMillis = 5000;
+
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * Last handed out (timestamp, counter) pair packed as timestamp << COUNTER_BITS | counter
+     */
+    private final AtomicLong lastState = new AtomicLong();
+
+    @PostConstruct
+    void validateNodeId() {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("sequence.snowflake.node-id must be between 0 and " + MAX_NODE_ID
+                    + " but was " + nodeId);
+        }
+        log.info("Generating snowflake ids for node {}", nodeId);
+    }
+
+    /**
+     * Generates a time ordered id. The sequence name is not needed since ids are unique
+     * across all sequences
+     *
+     * @param sequenceName
+     * @return Long
+     */
+    public Long getNextSequence(String sequenceName) {
+        while (true) {
+            long last = lastState.get();
+            long lastTimestamp = last >>> COUNTER_BITS;
+            long now = clock.millis() - EPOCH;
+            long next;
+            if (now > lastTimestamp) {
+                next = now << COUNTER_BITS;
+            } else if (lastTimestamp - now > maxClockDriftMillis) {
+                throw new IllegalStateException("Clock moved back by " + (lastTimestamp - now)
+                        + " ms, refusing to generate ids");
+            } else if ((last & COUNTER_MASK) < COUNTER_MASK) {
+                // same millisecond, or the clock stepped back a little: keep counting on the last timestamp
+                next = last + 1;
+            } else {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (lastState.compareAndSet(last, next)) {
+                return (next >>> COUNTER_BITS) << (NODE_ID_BITS + COUNTER_BITS)
+                        | nodeId << COUNTER_BITS
+                        | next & COUNTER_MASK;
+            }
+        }
+    }
+}
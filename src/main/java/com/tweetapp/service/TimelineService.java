@@ -0,0 +1,128 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.FollowEntity;
+import com.tweetapp.entity.TimelineEntity;
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.repository.FollowRepository;
+import com.tweetapp.repository.TimelineRepository;
+import com.tweetapp.repository.TweetRepository;
+import com.tweetapp.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Home timelines built by fan-out-on-write: a new tweet is pushed into the stored timeline
+ * of its author and every follower. Authors with more than timeline.celebrity-threshold
+ * followers are skipped on write and their tweets are merged in when a timeline is read.
+ * Pushed tweets of users no longer followed stay stored and are dropped when read
+ */
+@Service
+@Slf4j
+public class TimelineService {
+
+    @Autowired
+    private FollowRepository followRepository;
+    @Autowired
+    private TimelineRepository timelineRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TweetRepository tweetRepository;
+    @Autowired
+    private UserCache userCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${timeline.celebrity-threshold:10000}")
+    private int celebrityThreshold = 10000;
+    @Value("${timeline.max-size:800}")
+    private int maxSize = 800;
+    @Value("${timeline.fan-out-batch-size:1000}")
+    private int fanOutBatchSize = 1000;
+
+    /**
+     * To push a new tweet into the timelines of its author and followers
+     *
+     * @param tweetEntity
+     * @return number of timelines written
+     */
+    public int fanOut(TweetEntity tweetEntity) {
+        Long authorId = tweetEntity.getUserId();
+        List<Long> timelineOwners = new ArrayList<>();
+        timelineOwners.add(authorId);
+        if (isCelebrity(userCache.findById(authorId).orElse(null))) {
+            meterRegistry.counter("timeline.fanout.deferred").increment();
+        } else {
+            followRepository.findByFolloweeId(authorId, PageRequest.of(0, celebrityThreshold)).stream()
+                    .map(FollowEntity::getFollowerId)
+                    .forEach(timelineOwners::add);
+        }
+        for (int from = 0; from < timelineOwners.size(); from += fanOutBatchSize) {
+            timelineRepository.pushTweet(timelineOwners.subList(from, Math.min(from + fanOutBatchSize,
+                    timelineOwners.size())), tweetEntity.getTweetId(), maxSize);
+        }
+        meterRegistry.counter("timeline.fanout.writes").increment(timelineOwners.size());
+        meterRegistry.summary("timeline.fanout.size").record(timelineOwners.size());
+        return timelineOwners.size();
+    }
+
+    /**
+     * To read the newest tweets of a home timeline: the pushed tweets of the user and the
+     * users still followed, merged with the latest tweets of followed celebrities
+     *
+     * @param userId
+     * @param limit
+     * @return List of TweetEntity, newest first
+     */
+    public List<TweetEntity> homeTimeline(Long userId, int limit) {
+        List<Long> pushedTweetIds = timelineRepository.findById(userId).map(TimelineEntity::getTweetIds)
+                .orElse(Collections.emptyList());
+        List<Long> followeeIds = followRepository.findByFollowerId(userId).stream()
+                .map(FollowEntity::getFolloweeId).collect(Collectors.toList());
+        Set<Long> authorIds = new HashSet<>(followeeIds);
+        authorIds.add(userId);
+        Map<Long, TweetEntity> tweets = new LinkedHashMap<>();
+        for (int from = 0; from < pushedTweetIds.size() && tweets.size() < limit; from += limit) {
+            tweetRepository.findAllById(pushedTweetIds.subList(from, Math.min(from + limit, pushedTweetIds.size())))
+                    .forEach(tweetEntity -> {
+                        if (authorIds.contains(tweetEntity.getUserId())) {
+                            tweets.put(tweetEntity.getTweetId(), tweetEntity);
+                        }
+                    });
+        }
+        if (!followeeIds.isEmpty()) {
+            List<Long> celebrityIds = userRepository.findByUserIdInAndFollowerCountGreaterThan(followeeIds,
+                    celebrityThreshold).stream().map(UserEntity::getUserId).collect(Collectors.toList());
+            if (!celebrityIds.isEmpty()) {
+                tweetRepository.findRecentByUserIds(celebrityIds, limit)
+                        .forEach(tweetEntity -> tweets.putIfAbsent(tweetEntity.getTweetId(), tweetEntity));
+            }
+        }
+        return tweets.values().stream()
+                .sorted(Comparator.comparing(TweetEntity::getCreatedDate, Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(TweetEntity::getTweetId, Comparator.reverseOrder()))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private boolean isCelebrity(UserEntity userEntity) {
+        return Objects.nonNull(userEntity) && Objects.nonNull(userEntity.getFollowerCount())
+                && userEntity.getFollowerCount() > celebrityThreshold;
+    }
+}
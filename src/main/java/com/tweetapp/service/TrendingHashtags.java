@@ -0,0 +1,353 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.model.Trend;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Hashtags of the tweets consumed lately, counted with count-min sketches so the memory used
+ * stays the same however many distinct hashtags show up. Time is cut into buckets of
+ * tweet.trends.bucket, each counted in its own sketch and kept in a ring as long as the
+ * longest window. Every window of tweet.trends.windows keeps the sum of the sketches of its
+ * buckets and a heap of its tweet.trends.top-k most used hashtags, so reading the trends
+ * only sorts that heap. Counts may be slightly too high, never too low. Edits and deletions
+ * are not taken back, and counting starts over when the application restarts. Tweets consumed
+ * on other instances come through TweetChangeConsumer, so every instance counts all of them
+ */
+@Service
+@Slf4j
+public class TrendingHashtags {
+
+    private static final Pattern HASHTAG = Pattern.compile("(?<![\\p{L}\\p{N}_])#([\\p{L}\\p{N}_]+)");
+    private static final Pattern DIGITS = Pattern.compile("\\p{N}+");
+    private static final int MAX_HASHTAG_LENGTH = 64;
+    /** String, its byte[] header, the Candidate, its cells, map node, table slot and heap slot */
+    private static final int CANDIDATE_OVERHEAD_BYTES = 24 + 16 + 24 + 16 + 32 + 4 + 4;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tweet.trends.bucket:5m}")
+    private Duration bucket = Duration.ofMinutes(5);
+    @Value("${tweet.trends.windows:1h,6h,24h}")
+    private Duration[] windows = {Duration.ofHours(1), Duration.ofHours(6), Duration.ofHours(24)};
+    @Value("${tweet.trends.sketch.width:2048}")
+    private int width = 2048;
+    @Value("${tweet.trends.sketch.depth:4}")
+    private int depth = 4;
+    @Value("${tweet.trends.top-k:50}")
+    private int topK = 50;
+
+    /** in the zone of the host, which created dates are local to as they come from LocalDateTime.now() */
+    private Clock clock = Clock.systemDefaultZone();
+
+    /** every call moves the buckets along with the clock, so there is nothing only to read */
+    private final Lock lock = new ReentrantLock();
+    private final Map<Duration, Window> windowsByDuration = new LinkedHashMap<>();
+
+    private long bucketMillis;
+    /** count-min sketches of the buckets, rows of width cells one after the other */
+    private int[][] buckets;
+    /** number of the newest bucket since the epoch */
+    private long newestBucket;
+
+    @PostConstruct
+    void initTrends() {
+        bucketMillis = bucket.toMillis();
+        int ringSize = 0;
+        for (Duration window : windows) {
+            if (bucketMillis <= 0 || window.toMillis() <= 0 || window.toMillis() % bucketMillis != 0) {
+                throw new IllegalStateException("tweet.trends.windows must be multiples of tweet.trends.bucket "
+                        + bucket + " but " + window + " is not");
+            }
+            int bucketCount = (int) (window.toMillis() / bucketMillis);
+            windowsByDuration.put(window, new Window(bucketCount));
+            ringSize = Math.max(ringSize, bucketCount);
+        }
+        buckets = new int[ringSize][depth * width];
+        newestBucket = currentBucket();
+        Gauge.builder("tweet.trends.bytes", this, TrendingHashtags::footprintBytes)
+                .description("Estimated heap used by the trending hashtag sketches")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        log.info("Counting trending hashtags over {} in buckets of {}", windowsByDuration.keySet(), bucket);
+    }
+
+    /**
+     * To count the hashtags of a consumed tweet in the bucket it was created in. Tweets older
+     * than the longest window are left out
+     *
+     * @param tweetEntity
+     */
+    public void add(TweetEntity tweetEntity) {
+        Set<String> hashtags = extractHashtags(tweetEntity.getTweetDesc());
+        if (hashtags.isEmpty()) {
+            return;
+        }
+        long now = currentBucket();
+        // clocks of other producers may be slightly ahead
+        long tweetBucket = tweetEntity.getCreatedDate() == null ? now
+                : Math.min(now, Math.floorDiv(tweetEntity.getCreatedDate().atZone(clock.getZone()).toInstant().toEpochMilli(), bucketMillis));
+        int[] cells = new int[depth];
+        lock.lock();
+        try {
+            advance(now);
+            long age = newestBucket - tweetBucket;
+            if (age >= buckets.length) {
+                return;
+            }
+            int[] sketch = buckets[slot(tweetBucket)];
+            for (String hashtag : hashtags) {
+                cells(hashtag, cells);
+                for (int cell : cells) {
+                    sketch[cell]++;
+                }
+                for (Window window : windowsByDuration.values()) {
+                    if (age < window.bucketCount) {
+                        window.add(hashtag, cells);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * To get the most used hashtags of a window, most used first
+     *
+     * @param window one of tweet.trends.windows
+     * @param limit at most tweet.trends.top-k are kept
+     * @return List of Trend
+     * @throws IllegalArgumentException if no trends are kept for the window
+     */
+    public List<Trend> trends(Duration window, int limit) {
+        Window state = windowsByDuration.get(window);
+        if (state == null) {
+            throw new IllegalArgumentException("No trends are kept for a window of " + window);
+        }
+        long now = currentBucket();
+        lock.lock();
+        try {
+            advance(now);
+            return state.top(limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * To estimate the heap used by the sketches and the hashtags on the heaps, assuming
+     * compressed references
+     *
+     * @return bytes
+     */
+    public long footprintBytes() {
+        lock.lock();
+        try {
+            long bytes = (long) (buckets.length + windowsByDuration.size()) * depth * width * Integer.BYTES;
+            for (Window window : windowsByDuration.values()) {
+                bytes += window.candidateBytes;
+            }
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * To find the distinct hashtags of a text, lower cased and without the #. Hashtags made
+     * of digits only, like #1, are left out
+     *
+     * @param text
+     * @return hashtags in the order they first appear
+     */
+    public static Set<String> extractHashtags(String text) {
+        Set<String> hashtags = new LinkedHashSet<>();
+        if (text == null || text.indexOf('#') < 0) {
+            return hashtags;
+        }
+        Matcher matcher = HASHTAG.matcher(text);
+        while (matcher.find()) {
+            String hashtag = matcher.group(1);
+            if (hashtag.length() <= MAX_HASHTAG_LENGTH && !DIGITS.matcher(hashtag).matches()) {
+                hashtags.add(hashtag.toLowerCase(Locale.ROOT));
+            }
+        }
+        return hashtags;
+    }
+
+    /** moves the ring on to the bucket now, taking the buckets that fall out of each window off its sketch */
+    private void advance(long now) {
+        if (now <= newestBucket) {
+            return;
+        }
+        if (now - newestBucket >= buckets.length) {
+            for (int[] sketch : buckets) {
+                Arrays.fill(sketch, 0);
+            }
+            for (Window window : windowsByDuration.values()) {
+                window.clear();
+            }
+        } else {
+            for (long next = newestBucket + 1; next <= now; next++) {
+                for (Window window : windowsByDuration.values()) {
+                    // for the longest window this is the slot next reuses
+                    window.subtract(buckets[slot(next - window.bucketCount)]);
+                }
+                Arrays.fill(buckets[slot(next)], 0);
+            }
+            for (Window window : windowsByDuration.values()) {
+                window.reestimate();
+            }
+        }
+        newestBucket = now;
+    }
+
+    private long currentBucket() {
+        return Math.floorDiv(clock.millis(), bucketMillis);
+    }
+
+    private int slot(long bucketNumber) {
+        return (int) Math.floorMod(bucketNumber, (long) buckets.length);
+    }
+
+    /** one cell per row, from two halves of a 64 bit hash */
+    private void cells(String hashtag, int[] cells) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < hashtag.length(); i++) {
+            hash ^= hashtag.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            cells[row] = row * width + Math.floorMod(hash1 + row * hash2, width);
+        }
+    }
+
+    private final class Window {
+        private final int bucketCount;
+        private final int[] sketch = new int[depth * width];
+        private final Map<String, Candidate> candidates = new HashMap<>();
+        /** least used candidate first, so it is the one to make room */
+        private final PriorityQueue<Candidate> heap = new PriorityQueue<>(Comparator.comparingInt(candidate -> candidate.count));
+        private long candidateBytes;
+
+        private Window(int bucketCount) {
+            this.bucketCount = bucketCount;
+        }
+
+        private void add(String hashtag, int[] cells) {
+            int count = Integer.MAX_VALUE;
+            for (int cell : cells) {
+                count = Math.min(count, ++sketch[cell]);
+            }
+            Candidate candidate = candidates.get(hashtag);
+            if (candidate != null) {
+                heap.remove(candidate);
+                candidate.count = count;
+                heap.add(candidate);
+                return;
+            }
+            if (candidates.size() >= topK) {
+                if (heap.peek().count >= count) {
+                    return;
+                }
+                Candidate evicted = heap.poll();
+                candidates.remove(evicted.hashtag);
+                candidateBytes -= evicted.bytes;
+            }
+            candidate = new Candidate(hashtag, cells.clone(), count);
+            candidates.put(hashtag, candidate);
+            heap.add(candidate);
+            candidateBytes += candidate.bytes;
+        }
+
+        private void subtract(int[] bucketSketch) {
+            for (int i = 0; i < sketch.length; i++) {
+                sketch[i] -= bucketSketch[i];
+            }
+        }
+
+        /** counts only go down here, hashtags no longer used at all leave the heap */
+        private void reestimate() {
+            heap.clear();
+            Iterator<Candidate> iterator = candidates.values().iterator();
+            while (iterator.hasNext()) {
+                Candidate candidate = iterator.next();
+                candidate.count = Integer.MAX_VALUE;
+                for (int cell : candidate.cells) {
+                    candidate.count = Math.min(candidate.count, sketch[cell]);
+                }
+                if (candidate.count > 0) {
+                    heap.add(candidate);
+                } else {
+                    iterator.remove();
+                    candidateBytes -= candidate.bytes;
+                }
+            }
+        }
+
+        private void clear() {
+            Arrays.fill(sketch, 0);
+            candidates.clear();
+            heap.clear();
+            candidateBytes = 0;
+        }
+
+        private List<Trend> top(int limit) {
+            List<Candidate> sorted = new ArrayList<>(candidates.values());
+            sorted.sort(Comparator.comparingInt((Candidate candidate) -> candidate.count).reversed()
+                    .thenComparing(candidate -> candidate.hashtag));
+            return sorted.stream().limit(limit)
+                    .map(candidate -> Trend.builder().hashtag(candidate.hashtag).tweetCount((long) candidate.count).build())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static final class Candidate {
+        private final String hashtag;
+        private final int[] cells;
+        private final long bytes;
+        private int count;
+
+        private Candidate(String hashtag, int[] cells, int count) {
+            this.hashtag = hashtag;
+            this.cells = cells;
+            this.count = count;
+            boolean latin1 = hashtag.chars().allMatch(c -> c < 256);
+            this.bytes = CANDIDATE_OVERHEAD_BYTES + (long) cells.length * Integer.BYTES
+                    + (long) hashtag.length() * (latin1 ? 1 : 2);
+        }
+    }
+}
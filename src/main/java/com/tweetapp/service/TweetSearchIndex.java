@@ -0,0 +1,617 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.repository.TweetRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.backoff.BackOffExecution;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index over tweetDesc. Descriptions are split on anything but letters, digits and
+ * underscores and lower cased. Each indexed tweet gets the next int document number, and
+ * every term keeps the sorted document numbers of the tweets holding it. Document numbers
+ * follow the order tweets were indexed in, tweetId order at startup and arrival order
+ * after, so the highest ones are the newest tweets. Deleted tweets are only marked; the
+ * index is renumbered without them once tweet.search.compact-ratio of the documents are
+ * deleted. Rebuilt from Mongo when the application starts; changes made meanwhile are
+ * applied once the rebuild finished. A failed rebuild is retried with exponential backoff,
+ * and one that saw more than tweet.search.max-pending changes is redone from scratch.
+ * Tweets saved, edited and deleted on other instances come through TweetChangeConsumer
+ */
+@Service
+@Slf4j
+public class TweetSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}_]+");
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final int MIN_COMPACTED_DELETES = 1024;
+    private static final String CURSOR_SEPARATOR = "|";
+
+    @Autowired
+    private TweetRepository tweetRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tweet.search.compact-ratio:0.2}")
+    private double compactRatio = 0.2;
+    @Value("${tweet.search.max-pending:100000}")
+    private int maxPending = 100_000;
+    @Value("${tweet.search.rebuild-retry.initial-interval:1s}")
+    private Duration retryInitialInterval = Duration.ofSeconds(1);
+    @Value("${tweet.search.rebuild-retry.max-interval:5m}")
+    private Duration retryMaxInterval = Duration.ofMinutes(5);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** changes made while the index is rebuilt, replayed on the rebuilt index */
+    private final List<Runnable> pending = new ArrayList<>();
+    /** set when pending outgrew maxPending and was dropped, so the running rebuild is incomplete */
+    private boolean pendingOverflowed;
+    private BackOffExecution retryBackOff;
+    /** epoch millis of the next rebuild attempt, 0 when none is due */
+    private volatile long retryAt;
+
+    private Index index = new Index();
+    /** highest tweetId the rebuild read, tweets above it cannot be indexed yet */
+    private long rebuiltMaxTweetId = Long.MIN_VALUE;
+    /** changes whenever document numbers do, so older cursors are refused */
+    private long epoch;
+    private boolean ready;
+
+    @PostConstruct
+    void initIndex() {
+        Gauge.builder("tweet.search.index.size", this, TweetSearchIndex::size)
+                .description("Tweets held by the search index")
+                .register(meterRegistry);
+        Gauge.builder("tweet.search.index.bytes", this, TweetSearchIndex::footprintBytes)
+                .description("Estimated heap used by the search index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * To index every tweet in Mongo. Until this succeeds searches are refused
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            // changes dropped before now are in Mongo already, so this rebuild reads them
+            pendingOverflowed = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Index rebuilt = new Index();
+        try (Stream<TweetEntity> tweetEntityStream = tweetRepository.streamAllByOrderByTweetIdAsc()) {
+            tweetEntityStream.forEach(tweetEntity -> rebuilt.append(tweetEntity.getTweetId(), tokenize(tweetEntity.getTweetDesc())));
+        } catch (Exception e) {
+            if (retryBackOff == null) {
+                ExponentialBackOff backOff = new ExponentialBackOff(retryInitialInterval.toMillis(), ExponentialBackOff.DEFAULT_MULTIPLIER);
+                backOff.setMaxInterval(retryMaxInterval.toMillis());
+                retryBackOff = backOff.start();
+            }
+            long retryIn = retryBackOff.nextBackOff();
+            lock.writeLock().lock();
+            try {
+                // the retry reads everything changed until then
+                pending.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            retryAt = System.currentTimeMillis() + retryIn;
+            log.error("Error while rebuilding tweet search index, retrying in {} ms {}", retryIn, e.getMessage());
+            return;
+        }
+        rebuilt.trim();
+        lock.writeLock().lock();
+        try {
+            if (pendingOverflowed) {
+                pending.clear();
+                retryAt = System.currentTimeMillis();
+                log.warn("More than {} tweets changed while rebuilding the tweet search index, rebuilding again", maxPending);
+                return;
+            }
+            retryBackOff = null;
+            retryAt = 0;
+            index = rebuilt;
+            rebuiltMaxTweetId = rebuilt.docCount == 0 ? Long.MIN_VALUE : rebuilt.tweetIds[rebuilt.docCount - 1];
+            epoch = nextEpoch();
+            ready = true;
+            pending.forEach(Runnable::run);
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Tweet search index rebuilt with {} tweets in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * To run the rebuild retry once its backoff elapsed
+     */
+    @Scheduled(fixedDelayString = "${tweet.search.rebuild-retry.check-interval:1000}")
+    public void retryRebuild() {
+        long due = retryAt;
+        if (due > 0 && System.currentTimeMillis() >= due) {
+            rebuild();
+        }
+    }
+
+    /**
+     * To index a persisted tweet, unless it is indexed already
+     *
+     * @param tweetEntity
+     */
+    public void add(TweetEntity tweetEntity) {
+        long tweetId = tweetEntity.getTweetId();
+        Set<String> terms = tokenize(tweetEntity.getTweetDesc());
+        lock.writeLock().lock();
+        try {
+            if (ready && tweetId > rebuiltMaxTweetId) {
+                // newer than anything the rebuild read, as ids grow with time
+                index.append(tweetId, terms);
+            } else if (ready) {
+                // a change replayed after the rebuild may be in it already
+                if (index.find(tweetId, terms) < 0) {
+                    index.append(tweetId, terms);
+                }
+            } else {
+                // the rebuild may already have read this tweet
+                enqueue(() -> {
+                    if (index.find(tweetId, terms) < 0) {
+                        index.append(tweetId, terms);
+                    }
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * To reindex a tweet whose description changed, keeping its place in the ranking
+     *
+     * @param tweetId
+     * @param oldTweetDesc
+     * @param newTweetDesc
+     */
+    public void update(Long tweetId, String oldTweetDesc, String newTweetDesc) {
+        Set<String> oldTerms = tokenize(oldTweetDesc);
+        Set<String> newTerms = tokenize(newTweetDesc);
+        Runnable update = () -> {
+            int doc = index.find(tweetId, oldTerms);
+            if (doc >= 0) {
+                index.replaceTerms(doc, oldTerms, newTerms);
+            } else if (index.find(tweetId, newTerms) < 0) {
+                // the rebuild may already have read the new description
+                index.append(tweetId, newTerms);
+            }
+        };
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                update.run();
+            } else {
+                enqueue(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * To drop a deleted tweet from search results
+     *
+     * @param tweetId
+     * @param tweetDesc description the tweet was indexed with
+     */
+    public void remove(Long tweetId, String tweetDesc) {
+        Set<String> terms = tokenize(tweetDesc);
+        Runnable remove = () -> {
+            int doc = index.find(tweetId, terms);
+            if (doc >= 0) {
+                index.delete(doc);
+                if (index.deletedCount >= MIN_COMPACTED_DELETES && index.deletedCount > index.docCount * compactRatio) {
+                    index = index.compact();
+                    epoch = nextEpoch();
+                }
+            }
+        };
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                remove.run();
+            } else {
+                enqueue(remove);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * To find the tweets holding every term of a query, newest first
+     *
+     * @param query
+     * @param limit
+     * @param before nextCursor of the previous page
+     * @return SearchPage, or empty if the index is not loaded
+     * @throws IllegalArgumentException if the cursor is malformed or from an older index
+     */
+    public Optional<SearchPage> search(String query, int limit, String before) {
+        Set<String> terms = tokenize(query);
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            int beforeDoc = before == null ? index.docCount : decodeCursor(before);
+            if (terms.isEmpty()) {
+                return Optional.of(new SearchPage(Collections.emptyList(), null));
+            }
+            int[] docs = index.search(terms, beforeDoc, limit + 1);
+            List<Long> tweetIds = new ArrayList<>(Math.min(docs.length, limit));
+            for (int i = 0; i < docs.length && i < limit; i++) {
+                tweetIds.add(index.tweetIds[docs[i]]);
+            }
+            return Optional.of(new SearchPage(tweetIds, docs.length > limit ? encodeCursor(docs[limit - 1]) : null));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of tweets held, deleted ones excluded
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.docCount - index.deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * To estimate the heap used by the postings, the terms and the document column,
+     * assuming compressed references
+     *
+     * @return bytes
+     */
+    public long footprintBytes() {
+        lock.readLock().lock();
+        try {
+            return index.footprintBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * To split a text into the distinct terms it is indexed by
+     *
+     * @param text
+     * @return lower cased terms in order of appearance
+     */
+    public static Set<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptySet();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty() && token.length() <= MAX_TERM_LENGTH) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    /** to be called holding the write lock while the index is not ready */
+    private void enqueue(Runnable change) {
+        if (pendingOverflowed) {
+            return;
+        }
+        if (pending.size() >= maxPending) {
+            pending.clear();
+            pendingOverflowed = true;
+            return;
+        }
+        pending.add(change);
+    }
+
+    private long nextEpoch() {
+        return Math.max(epoch + 1, System.currentTimeMillis());
+    }
+
+    private String encodeCursor(int doc) {
+        String cursor = epoch + CURSOR_SEPARATOR + doc;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int decodeCursor(String cursor) {
+        long cursorEpoch;
+        int doc;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = decoded.indexOf(CURSOR_SEPARATOR);
+            cursorEpoch = Long.parseLong(decoded.substring(0, separatorIndex));
+            doc = Integer.parseInt(decoded.substring(separatorIndex + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor, e);
+        }
+        if (cursorEpoch != epoch || doc < 0) {
+            throw new IllegalArgumentException("Expired cursor " + cursor);
+        }
+        return doc;
+    }
+
+    /**
+     * One page of search results
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SearchPage {
+        private final List<Long> tweetIds;
+        private final String nextCursor;
+    }
+
+    /** the index itself, guarded by the lock of TweetSearchIndex */
+    private static final class Index {
+        /** String, its byte[], the Postings, its int[] header, the map node and table slot */
+        private static final int TERM_OVERHEAD_BYTES = 24 + 16 + 24 + 16 + 32 + 8;
+
+        private final Map<String, Postings> postingsByTerm = new HashMap<>();
+        private long[] tweetIds = new long[1024];
+        private int docCount;
+        private final BitSet deleted = new BitSet();
+        private int deletedCount;
+        private long termBytes;
+        private long postingBytes;
+
+        private void append(long tweetId, Set<String> terms) {
+            if (terms.isEmpty()) {
+                return;
+            }
+            if (docCount == tweetIds.length) {
+                tweetIds = Arrays.copyOf(tweetIds, tweetIds.length + (tweetIds.length >> 1));
+            }
+            int doc = docCount++;
+            tweetIds[doc] = tweetId;
+            for (String term : terms) {
+                postingBytes += (long) postingsOf(term).add(doc) * Integer.BYTES;
+            }
+        }
+
+        /** the live document of a tweet, looked up in the shortest postings of its terms */
+        private int find(long tweetId, Set<String> terms) {
+            Postings shortest = null;
+            for (String term : terms) {
+                Postings postings = postingsByTerm.get(term);
+                if (postings == null) {
+                    return -1;
+                }
+                if (shortest == null || postings.size < shortest.size) {
+                    shortest = postings;
+                }
+            }
+            if (shortest != null) {
+                for (int i = shortest.size - 1; i >= 0; i--) {
+                    int doc = shortest.docs[i];
+                    if (tweetIds[doc] == tweetId && !deleted.get(doc)) {
+                        return doc;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private void replaceTerms(int doc, Set<String> oldTerms, Set<String> newTerms) {
+            for (String term : oldTerms) {
+                if (!newTerms.contains(term)) {
+                    Postings postings = postingsByTerm.get(term);
+                    postings.remove(doc);
+                    if (postings.size == 0) {
+                        postingsByTerm.remove(term);
+                        termBytes -= termBytes(term);
+                        postingBytes -= (long) postings.docs.length * Integer.BYTES;
+                    }
+                }
+            }
+            for (String term : newTerms) {
+                if (!oldTerms.contains(term)) {
+                    postingBytes += (long) postingsOf(term).add(doc) * Integer.BYTES;
+                }
+            }
+        }
+
+        private void delete(int doc) {
+            deleted.set(doc);
+            deletedCount++;
+        }
+
+        /** the same index numbered without the deleted documents */
+        private Index compact() {
+            int[] renumbered = new int[docCount];
+            Index compacted = new Index();
+            compacted.tweetIds = new long[Math.max(1024, docCount - deletedCount)];
+            for (int doc = 0; doc < docCount; doc++) {
+                if (deleted.get(doc)) {
+                    renumbered[doc] = -1;
+                } else {
+                    renumbered[doc] = compacted.docCount;
+                    compacted.tweetIds[compacted.docCount++] = tweetIds[doc];
+                }
+            }
+            for (Map.Entry<String, Postings> entry : postingsByTerm.entrySet()) {
+                Postings postings = entry.getValue();
+                Postings kept = new Postings(postings.size);
+                for (int i = 0; i < postings.size; i++) {
+                    int doc = renumbered[postings.docs[i]];
+                    if (doc >= 0) {
+                        kept.docs[kept.size++] = doc;
+                    }
+                }
+                if (kept.size > 0) {
+                    kept.trim();
+                    compacted.postingsByTerm.put(entry.getKey(), kept);
+                    compacted.termBytes += termBytes(entry.getKey());
+                    compacted.postingBytes += (long) kept.docs.length * Integer.BYTES;
+                }
+            }
+            return compacted;
+        }
+
+        /**
+         * Walks the shortest postings from the newest document down, keeping the documents
+         * every other postings holds. As documents only decrease, each other postings is
+         * binary searched below the position found for the previous document, which holds
+         * that document or a newer one
+         */
+        private int[] search(Set<String> terms, int beforeDoc, int limit) {
+            Postings[] postingsList = new Postings[terms.size()];
+            int p = 0;
+            for (String term : terms) {
+                Postings postings = postingsByTerm.get(term);
+                if (postings == null) {
+                    return new int[0];
+                }
+                postingsList[p++] = postings;
+            }
+            Arrays.sort(postingsList, Comparator.comparingInt(postings -> postings.size));
+            int[] upperBounds = new int[postingsList.length];
+            for (int i = 0; i < postingsList.length; i++) {
+                upperBounds[i] = postingsList[i].size;
+            }
+            int[] docs = new int[limit];
+            int found = 0;
+            Postings lead = postingsList[0];
+            for (int i = lead.lowerBound(beforeDoc, lead.size) - 1; i >= 0 && found < limit; i--) {
+                int doc = lead.docs[i];
+                if (deleted.get(doc)) {
+                    continue;
+                }
+                boolean matches = true;
+                for (int j = 1; j < postingsList.length && matches; j++) {
+                    int position = postingsList[j].lowerBound(doc, upperBounds[j]);
+                    matches = position < upperBounds[j] && postingsList[j].docs[position] == doc;
+                    upperBounds[j] = position;
+                }
+                if (matches) {
+                    docs[found++] = doc;
+                }
+            }
+            return Arrays.copyOf(docs, found);
+        }
+
+        private Postings postingsOf(String term) {
+            Postings postings = postingsByTerm.get(term);
+            if (postings == null) {
+                postings = new Postings(2);
+                postingsByTerm.put(term, postings);
+                termBytes += termBytes(term);
+                postingBytes += 2 * Integer.BYTES;
+            }
+            return postings;
+        }
+
+        private void trim() {
+            tweetIds = Arrays.copyOf(tweetIds, Math.max(1024, docCount));
+            postingBytes = 0;
+            for (Postings postings : postingsByTerm.values()) {
+                postings.trim();
+                postingBytes += (long) postings.docs.length * Integer.BYTES;
+            }
+        }
+
+        private long footprintBytes() {
+            return (long) tweetIds.length * Long.BYTES + deleted.size() / 8 + termBytes + postingBytes;
+        }
+
+        private static long termBytes(String term) {
+            boolean latin1 = term.chars().allMatch(c -> c < 256);
+            return TERM_OVERHEAD_BYTES + (long) term.length() * (latin1 ? 1 : 2);
+        }
+    }
+
+    /** sorted document numbers of one term */
+    private static final class Postings {
+        private int[] docs;
+        private int size;
+
+        private Postings(int capacity) {
+            docs = new int[capacity];
+        }
+
+        /** @return number of slots the array grew by */
+        private int add(int doc) {
+            int grown = 0;
+            if (size == docs.length) {
+                grown = Math.max(2, docs.length >> 1);
+                docs = Arrays.copyOf(docs, docs.length + grown);
+            }
+            // appends unless a reindexed tweet gains a term
+            int position = size > 0 && docs[size - 1] > doc ? lowerBound(doc, size) : size;
+            System.arraycopy(docs, position, docs, position + 1, size - position);
+            docs[position] = doc;
+            size++;
+            return grown;
+        }
+
+        private void remove(int doc) {
+            int position = lowerBound(doc, size);
+            if (position < size && docs[position] == doc) {
+                System.arraycopy(docs, position + 1, docs, position, size - position - 1);
+                size--;
+            }
+        }
+
+        /** first position below limit holding a document not less than doc */
+        private int lowerBound(int doc, int limit) {
+            int low = 0;
+            int high = limit;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (docs[middle] < doc) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private void trim() {
+            docs = Arrays.copyOf(docs, size);
+        }
+    }
+}
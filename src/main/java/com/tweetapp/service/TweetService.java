@@ -1,27 +1,84 @@
 package com.tweetapp.service;
 
+import com.tweetapp.model.TrendResponse;
 import com.tweetapp.model.Tweet;
 import com.tweetapp.model.TweetResponse;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 public interface TweetService {
     /**
-     * To get all tweets
+     * To get one page of all tweets, newest first
      *
      * @return TweetResponse
      * @param token
+     * @param limit
+     * @param before
      */
-    ResponseEntity<TweetResponse> getAllTweets(String token);
+    ResponseEntity<TweetResponse> getAllTweets(String token, Integer limit, String before);
 
     /**
-     * To get all tweet based on Username
+     * To stream every tweet as newline delimited JSON
+     *
+     * @param token
+     * @return body writing one Tweet per line
+     */
+    ResponseEntity<StreamingResponseBody> streamAllTweets(String token);
+
+    /**
+     * To get one page of tweets based on Username, newest first
      *
      *
      * @param token
      * @param userName
+     * @param limit
+     * @param before
+     * @return TweetResponse
+     */
+    ResponseEntity<TweetResponse> getAllTweetsOfUser(String token, String userName, Integer limit, String before);
+
+    /**
+     * To get the home timeline of a user: the newest tweets of the user and everyone they follow
+     *
+     * @param token
+     * @param userName
+     * @param limit
+     * @return TweetResponse
+     */
+    ResponseEntity<TweetResponse> getHomeTimeline(String token, String userName, Integer limit);
+
+    /**
+     * To get a tweet and its nested replies, one page of replies per level
+     *
+     * @param token
+     * @param id
+     * @param depth
+     * @param limit
+     * @param after
      * @return TweetResponse
      */
-    ResponseEntity<TweetResponse> getAllTweetsOfUser(String token, String userName);
+    ResponseEntity<TweetResponse> getThread(String token, Long id, Integer depth, Integer limit, String after);
+
+    /**
+     * To search tweets holding every word of a query, newest first
+     *
+     * @param token
+     * @param query
+     * @param limit
+     * @param before
+     * @return TweetResponse
+     */
+    ResponseEntity<TweetResponse> searchTweets(String token, String query, Integer limit, String before);
+
+    /**
+     * To get the most used hashtags of a window, most used first
+     *
+     * @param token
+     * @param window
+     * @param limit
+     * @return TrendResponse
+     */
+    ResponseEntity<TrendResponse> getTrends(String token, String window, Integer limit);
 
     /**
      * To update Tweet
@@ -33,7 +90,7 @@ public interface TweetService {
      * @param tweet
      * @return TweetResponse
      */
-    ResponseEntity<TweetResponse> updateTweet(String token, String userName, Integer id, Tweet tweet);
+    ResponseEntity<TweetResponse> updateTweet(String token, String userName, Long id, Tweet tweet);
 
     /**
      * To Post new tweet
@@ -55,7 +112,7 @@ public interface TweetService {
      * @param id
      * @return TweetResponse
      */
-    ResponseEntity<TweetResponse> deleteTweet(String token, String userName, Integer id);
+    ResponseEntity<TweetResponse> deleteTweet(String token, String userName, Long id);
 
     /**
      * To Like/Unlike a Tweet
@@ -66,7 +123,7 @@ public interface TweetService {
      * @param id
      * @return TweetResponse
      */
-    ResponseEntity<TweetResponse> likeTweet(String token, String userName, Integer id);
+    ResponseEntity<TweetResponse> likeTweet(String token, String userName, Long id);
 
     /**
      * To reply to a Tweet
@@ -78,5 +135,5 @@ public interface TweetService {
      * @param tweet
      * @return TweetResponse
      */
-    ResponseEntity<TweetResponse> replyToTweet(String token, String userName, Integer id, Tweet tweet);
+    ResponseEntity<TweetResponse> replyToTweet(String token, String userName, Long id, Tweet tweet);
 }
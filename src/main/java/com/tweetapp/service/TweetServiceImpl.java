@@ -1,35 +1,64 @@
 package com.tweetapp.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tweetapp.consumer.ConsumerLagMonitor;
+import com.tweetapp.entity.TweetChange;
 import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.entity.TweetLikeCount;
 import com.tweetapp.entity.TweetLikeEntity;
 import com.tweetapp.entity.UserEntity;
+import com.tweetapp.model.Trend;
+import com.tweetapp.model.TrendResponse;
 import com.tweetapp.model.Tweet;
 import com.tweetapp.model.TweetResponse;
 import com.tweetapp.model.UserResponse;
+import com.tweetapp.producer.TweetChangeProducer;
 import com.tweetapp.producer.TweetProducer;
 import com.tweetapp.repository.TweetLikeRepository;
 import com.tweetapp.repository.TweetRepository;
-import com.tweetapp.repository.UserRepository;
 import com.tweetapp.utils.EntityModelMapper;
 import com.tweetapp.utils.ServiceConstants;
+import com.tweetapp.utils.TweetPageCursor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class TweetServiceImpl implements TweetService {
 
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
     @Autowired
     private TweetRepository tweetRepository;
     @Autowired
-    private UserRepository userRepository;
+    private UserCache userCache;
     @Autowired
     private TweetLikeRepository tweetLikeRepository;
     @Autowired
@@ -38,36 +67,51 @@ public class TweetServiceImpl implements TweetService {
     private TweetProducer tweetProducer;
     @Autowired
     private UserService userService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private TimelineService timelineService;
+    @Autowired
+    private RecentTweetBuffer recentTweetBuffer;
+    @Autowired
+    private ConsumerLagMonitor consumerLagMonitor;
+    @Autowired
+    private TweetThreadCache tweetThreadCache;
+    @Autowired
+    private TweetSearchIndex tweetSearchIndex;
+    @Autowired
+    private TrendingHashtags trendingHashtags;
+    @Autowired
+    private LikeCountBuffer likeCountBuffer;
+    @Autowired
+    private TweetChangeProducer tweetChangeProducer;
+
+    @Value("${tweet.page.default-limit:50}")
+    private int defaultPageLimit = 50;
+    @Value("${tweet.page.max-limit:200}")
+    private int maxPageLimit = 200;
+    @Value("${tweet.trends.default-limit:10}")
+    private int defaultTrendLimit = 10;
+    @Value("${tweet.thread.default-depth:3}")
+    private int defaultThreadDepth = 3;
+    @Value("${tweet.producer.await-ack:false}")
+    private boolean awaitProducerAck = false;
+    @Value("${tweet.producer.ack-timeout:5s}")
+    private Duration producerAckTimeout = Duration.ofSeconds(5);
 
     /**
-     * To get all tweets
+     * To get one page of all tweets, newest first
      *
      * @param token
+     * @param limit
+     * @param before
      * @return TweetResponse
      */
     @Override
-    public ResponseEntity<TweetResponse> getAllTweets(String token) {
+    public ResponseEntity<TweetResponse> getAllTweets(String token, Integer limit, String before) {
         try {
             if (userService.validateToken(token)) {
-                List<TweetEntity> tweetEntityList = tweetRepository.findAll();
-                if (tweetEntityList.isEmpty()) {
-                    return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.NO_TWEET)
-                            .messageCode(HttpStatus.NOT_FOUND)
-                            .messageType(ServiceConstants.FAILURE)
-                            .build(), HttpStatus.NOT_FOUND);
-                }
-                List<Tweet> tweetList = new ArrayList<>();
-                for (TweetEntity tweetEntity : tweetEntityList) {
-                    Tweet tweet = EntityModelMapper.tweetEntityToTweet(tweetEntity);
-                    List<TweetLikeEntity> tweetLikeEntityList = tweetLikeRepository.findByTweetId(tweet.getTweetId());
-                    tweet.setLikeCount(tweetLikeEntityList.size());
-                    tweetList.add(tweet);
-                }
-                return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.SUCCESS)
-                        .tweetList(tweetList)
-                        .messageCode(HttpStatus.OK)
-                        .messageType(ServiceConstants.SUCCESS)
-                        .build(), HttpStatus.OK);
+                return tweetPage(null, limit, before);
             } else {
                 new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.FAILURE)
                         .messageCode(HttpStatus.FORBIDDEN)
@@ -84,37 +128,48 @@ public class TweetServiceImpl implements TweetService {
     }
 
     /**
-     * To get all tweet based on Username
+     * To stream every tweet as newline delimited JSON. Tweets are read from a Mongo
+     * cursor and written one by one, so memory use does not grow with the collection
+     *
+     * @param token
+     * @return body writing one Tweet per line
+     */
+    @Override
+    public ResponseEntity<StreamingResponseBody> streamAllTweets(String token) {
+        if (!userService.validateToken(token)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        StreamingResponseBody body = outputStream -> {
+            OutputStream bufferedOutputStream = new BufferedOutputStream(outputStream, STREAM_BUFFER_SIZE);
+            try (Stream<TweetEntity> tweetEntityStream = tweetRepository.streamAllBy()) {
+                Iterator<TweetEntity> tweetEntityIterator = tweetEntityStream.iterator();
+                while (tweetEntityIterator.hasNext()) {
+                    bufferedOutputStream.write(objectMapper.writeValueAsBytes(
+                            EntityModelMapper.tweetEntityToTweet(tweetEntityIterator.next())));
+                    bufferedOutputStream.write('\n');
+                }
+            }
+            bufferedOutputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(ServiceConstants.APPLICATION_NDJSON_VALUE)).body(body);
+    }
+
+    /**
+     * To get one page of tweets based on Username, newest first
      *
      * @param token
      * @param userName
+     * @param limit
+     * @param before
      * @return TweetResponse
      */
     @Override
-    public ResponseEntity<TweetResponse> getAllTweetsOfUser(String token, String userName) {
+    public ResponseEntity<TweetResponse> getAllTweetsOfUser(String token, String userName, Integer limit, String before) {
         try {
             if (userService.validateToken(token)) {
-                Optional<UserEntity> optionalUserLoginCheck = userRepository.findByLoginId(userName);
+                Optional<UserEntity> optionalUserLoginCheck = userCache.findByLoginId(userName);
                 if (optionalUserLoginCheck.isPresent()) {
-                    List<TweetEntity> tweetEntityList = tweetRepository.findByUserId(optionalUserLoginCheck.get().getUserId());
-                    if (tweetEntityList.isEmpty()) {
-                        return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.NO_TWEET)
-                                .messageCode(HttpStatus.NOT_FOUND)
-                                .messageType(ServiceConstants.FAILURE)
-                                .build(), HttpStatus.NOT_FOUND);
-                    }
-                    List<Tweet> tweetList = new ArrayList<>();
-                    for (TweetEntity tweetEntity : tweetEntityList) {
-                        Tweet tweet = EntityModelMapper.tweetEntityToTweet(tweetEntity);
-                        List<TweetLikeEntity> tweetLikeEntityList = tweetLikeRepository.findByTweetId(tweet.getTweetId());
-                        tweet.setLikeCount(tweetLikeEntityList.size());
-                        tweetList.add(tweet);
-                    }
-                    return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.SUCCESS)
-                            .tweetList(tweetList)
-                            .messageCode(HttpStatus.OK)
-                            .messageType(ServiceConstants.SUCCESS)
-                            .build(), HttpStatus.OK);
+                    return tweetPage(optionalUserLoginCheck.get().getUserId(), limit, before);
                 }
                 return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.USER_NOT_EXIST)
                         .messageCode(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -135,6 +190,187 @@ public class TweetServiceImpl implements TweetService {
                 .build(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    /**
+     * To get the home timeline of a user: the newest tweets of the user and everyone they follow
+     *
+     * @param token
+     * @param userName
+     * @param limit
+     * @return TweetResponse
+     */
+    @Override
+    public ResponseEntity<TweetResponse> getHomeTimeline(String token, String userName, Integer limit) {
+        try {
+            if (userService.validateToken(token)) {
+                Optional<UserEntity> optionalUserLoginCheck = userCache.findByLoginId(userName);
+                if (optionalUserLoginCheck.isEmpty()) {
+                    return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.USER_NOT_EXIST)
+                            .messageCode(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .messageType(ServiceConstants.FAILURE)
+                            .build(), HttpStatus.INTERNAL_SERVER_ERROR);
+                }
+                int pageLimit = limit == null ? defaultPageLimit : Math.max(1, Math.min(limit, maxPageLimit));
+                List<TweetEntity> tweetEntityList = timelineService.homeTimeline(optionalUserLoginCheck.get().getUserId(), pageLimit);
+                if (tweetEntityList.isEmpty()) {
+                    return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.NO_TWEET)
+                            .messageCode(HttpStatus.NOT_FOUND)
+                            .messageType(ServiceConstants.FAILURE)
+                            .build(), HttpStatus.NOT_FOUND);
+                }
+                return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.SUCCESS)
+                        .tweetList(toTweetListWithLikeCount(tweetEntityList))
+                        .messageCode(HttpStatus.OK)
+                        .messageType(ServiceConstants.SUCCESS)
+                        .build(), HttpStatus.OK);
+            }
+        } catch (Exception e) {
+            log.error("Error while Getting home timeline {}", e.getMessage());
+        }
+        return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.FAILURE)
+                .messageCode(HttpStatus.INTERNAL_SERVER_ERROR)
+                .messageType(ServiceConstants.FAILURE)
+                .build(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * To get a tweet with its nested replies, each level oldest first and cut to limit replies
+     *
+     * @param token
+     * @param id
+     * @param depth
+     * @param limit
+     * @param after nextCursor of the previous page of direct replies
+     * @return TweetResponse
+     */
+    @Override
+    public ResponseEntity<TweetResponse> getThread(String token, Long id, Integer depth, Integer limit, String after) {
+        try {
+            if (userService.validateToken(token)) {
+                TweetPageCursor cursor;
+                try {
+                    cursor = after == null ? null : TweetPageCursor.decode(after);
+                } catch (IllegalArgumentException e) {
+                    return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.INVALID_CURSOR)
+                            .messageCode(HttpStatus.BAD_REQUEST)
+                            .messageType(ServiceConstants.FAILURE)
+                            .build(), HttpStatus.BAD_REQUEST);
+                }
+                List<TweetEntity> thread = tweetThreadCache.findThread(id);
+                if (thread.isEmpty()) {
+                    return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.NO_TWEET)
+                            .messageCode(HttpStatus.NOT_FOUND)
+                            .messageType(ServiceConstants.FAILURE)
+                            .build(), HttpStatus.NOT_FOUND);
+                }
+                int maxDepth = tweetThreadCache.getMaxDepth();
+                int threadDepth = depth == null ? Math.min(defaultThreadDepth, maxDepth) : Math.max(0, Math.min(depth, maxDepth));
+                int pageLimit = limit == null ? defaultPageLimit : Math.max(1, Math.min(limit, maxPageLimit));
+                return threadPage(thread, threadDepth, pageLimit, cursor);
+            }
+        } catch (Exception e) {
+            log.error("Error while Getting thread {}", e.getMessage());
+        }
+        return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.FAILURE)
+                .messageCode(HttpStatus.INTERNAL_SERVER_ERROR)
+                .messageType(ServiceConstants.FAILURE)
+                .build(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * To search tweets holding every word of a query, newest first, one page at a time
+     *
+     * @param token
+     * @param query
+     * @param limit
+     * @param before nextCursor of the previous page
+     * @return TweetResponse
+     */
+    @Override
+    public ResponseEntity<TweetResponse> searchTweets(String token, String query, Integer limit, String before) {
+        try {
+            if (userService.validateToken(token)) {
+                int pageLimit = limit == null ? defaultPageLimit : Math.max(1, Math.min(limit, maxPageLimit));
+                Optional<TweetSearchIndex.SearchPage> searchPage;
+                try {
+                    searchPage = tweetSearchIndex.search(query, pageLimit, before);
+                } catch (IllegalArgumentException e) {
+                    return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.INVALID_CURSOR)
+                            .messageCode(HttpStatus.BAD_REQUEST)
+                            .messageType(ServiceConstants.FAILURE)
+                            .build(), HttpStatus.BAD_REQUEST);
+                }
+                if (searchPage.isEmpty()) {
+                    return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.SEARCH_NOT_READY)
+                            .messageCode(HttpStatus.SERVICE_UNAVAILABLE)
+                            .messageType(ServiceConstants.FAILURE)
+                            .build(), HttpStatus.SERVICE_UNAVAILABLE);
+                }
+                Map<Long, TweetEntity> tweetsById = new HashMap<>();
+                tweetRepository.findAllById(searchPage.get().getTweetIds())
+                        .forEach(tweetEntity -> tweetsById.put(tweetEntity.getTweetId(), tweetEntity));
+                List<TweetEntity> tweetEntityList = searchPage.get().getTweetIds().stream()
+                        .filter(tweetsById::containsKey).map(tweetsById::get).collect(Collectors.toList());
+                if (tweetEntityList.isEmpty()) {
+                    return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.NO_TWEET)
+                            .messageCode(HttpStatus.NOT_FOUND)
+                            .messageType(ServiceConstants.FAILURE)
+                            .build(), HttpStatus.NOT_FOUND);
+                }
+                return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.SUCCESS)
+                        .tweetList(toTweetListWithLikeCount(tweetEntityList))
+                        .nextCursor(searchPage.get().getNextCursor())
+                        .messageCode(HttpStatus.OK)
+                        .messageType(ServiceConstants.SUCCESS)
+                        .build(), HttpStatus.OK);
+            }
+        } catch (Exception e) {
+            log.error("Error while searching tweets {}", e.getMessage());
+        }
+        return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.FAILURE)
+                .messageCode(HttpStatus.INTERNAL_SERVER_ERROR)
+                .messageType(ServiceConstants.FAILURE)
+                .build(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * To get the most used hashtags of a window, most used first
+     *
+     * @param token
+     * @param window e.g. 1h, one of tweet.trends.windows
+     * @param limit
+     * @return TrendResponse
+     */
+    @Override
+    public ResponseEntity<TrendResponse> getTrends(String token, String window, Integer limit) {
+        try {
+            if (userService.validateToken(token)) {
+                int trendLimit = limit == null ? defaultTrendLimit : Math.max(1, limit);
+                List<Trend> trendList;
+                try {
+                    trendList = trendingHashtags.trends(DurationStyle.detectAndParse(window), trendLimit);
+                } catch (IllegalArgumentException e) {
+                    return new ResponseEntity<>(TrendResponse.builder().message(ServiceConstants.INVALID_TREND_WINDOW)
+                            .window(window)
+                            .messageCode(HttpStatus.BAD_REQUEST)
+                            .messageType(ServiceConstants.FAILURE)
+                            .build(), HttpStatus.BAD_REQUEST);
+                }
+                return new ResponseEntity<>(TrendResponse.builder().message(ServiceConstants.SUCCESS)
+                        .trendList(trendList)
+                        .window(window)
+                        .messageCode(HttpStatus.OK)
+                        .messageType(ServiceConstants.SUCCESS)
+                        .build(), HttpStatus.OK);
+            }
+        } catch (Exception e) {
+            log.error("Error while getting trends {}", e.getMessage());
+        }
+        return new ResponseEntity<>(TrendResponse.builder().message(ServiceConstants.FAILURE)
+                .messageCode(HttpStatus.INTERNAL_SERVER_ERROR)
+                .messageType(ServiceConstants.FAILURE)
+                .build(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
     /**
      * To update Tweet
      *
@@ -145,21 +381,20 @@ public class TweetServiceImpl implements TweetService {
      * @return TweetResponse
      */
     @Override
-    public ResponseEntity<TweetResponse> updateTweet(String token, String userName, Integer id, Tweet tweet) {
+    public ResponseEntity<TweetResponse> updateTweet(String token, String userName, Long id, Tweet tweet) {
         try {
             if (userService.validateToken(token)) {
-                Optional<UserEntity> optionalUserLoginCheck = userRepository.findByLoginId(userName);
+                Optional<UserEntity> optionalUserLoginCheck = userCache.findByLoginId(userName);
                 if (optionalUserLoginCheck.isPresent()) {
                     Optional<TweetEntity> optionalTweetEntity = tweetRepository.findById(id);
                     if (optionalTweetEntity.isPresent()) {
-                        tweet.setTweetId(id);
-                        tweet.setCreatedDate(optionalTweetEntity.get().getCreatedDate());
-                        tweet.setTweetDesc(tweet.getTweetDesc());
-                        tweet.setParentTweetId(optionalTweetEntity.get().getParentTweetId());
-                        tweet.setUserId(optionalUserLoginCheck.get().getUserId());
-
-                        TweetEntity tweetEntity = EntityModelMapper.tweetToTweetEntity(tweet);
-                        tweetRepository.save(tweetEntity);
+                        tweetRepository.updateTweetDesc(id, tweet.getTweetDesc());
+                        recentTweetBuffer.updateTweetDesc(id, tweet.getTweetDesc());
+                        tweetSearchIndex.update(id, optionalTweetEntity.get().getTweetDesc(), tweet.getTweetDesc());
+                        tweetThreadCache.invalidate(id);
+                        tweetThreadCache.invalidate(optionalTweetEntity.get().getParentTweetId());
+                        tweetChangeProducer.sendChange(TweetChange.updated(id, optionalTweetEntity.get().getParentTweetId(),
+                                optionalTweetEntity.get().getTweetDesc(), tweet.getTweetDesc()));
                         return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.SUCCESS)
                                 .messageCode(HttpStatus.OK)
                                 .messageType(ServiceConstants.SUCCESS)
@@ -191,7 +426,8 @@ public class TweetServiceImpl implements TweetService {
     }
 
     /**
-     * To Post new tweet
+     * To Post new tweet. With tweet.producer.await-ack the response waits until the broker
+     * acknowledged the tweet, so a failed send is reported to the caller
      *
      * @param token
      * @param userName
@@ -202,12 +438,25 @@ public class TweetServiceImpl implements TweetService {
     public ResponseEntity<TweetResponse> postNewTweet(String token, String userName, Tweet tweet) {
         try {
             if (userService.validateToken(token)) {
-                Optional<UserEntity> optionalUserLoginCheck = userRepository.findByLoginId(userName);
+                if (consumerLagMonitor.isBackpressured()) {
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, String.valueOf(consumerLagMonitor.getRetryAfter().getSeconds()))
+                            .body(TweetResponse.builder().message(ServiceConstants.TWEET_BACKLOG)
+                                    .messageCode(HttpStatus.SERVICE_UNAVAILABLE)
+                                    .messageType(ServiceConstants.FAILURE)
+                                    .build());
+                }
+                Optional<UserEntity> optionalUserLoginCheck = userCache.findByLoginId(userName);
                 if (optionalUserLoginCheck.isPresent()) {
                     tweet.setUserId(optionalUserLoginCheck.get().getUserId());
                     TweetEntity tweetEntity = EntityModelMapper.tweetToTweetEntity(tweet);
                     tweetEntity.setTweetId(sequenceService.getNextSequence(TweetEntity.SEQUENCE_NAME));
-                    tweetProducer.sendMessage(tweetEntity);
+                    tweetEntity.setLikeCount(0);
+                    tweetEntity.setCreatedDate(LocalDateTime.now());
+                    ListenableFuture<SendResult<String, TweetEntity>> sendResult = tweetProducer.sendMessage(tweetEntity);
+                    if (awaitProducerAck) {
+                        sendResult.get(producerAckTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                    }
 
                     return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.SUCCESS)
                             .messageCode(HttpStatus.OK)
@@ -243,14 +492,20 @@ public class TweetServiceImpl implements TweetService {
      * @return TweetResponse
      */
     @Override
-    public ResponseEntity<TweetResponse> deleteTweet(String token, String userName, Integer id) {
+    public ResponseEntity<TweetResponse> deleteTweet(String token, String userName, Long id) {
         try {
             if (userService.validateToken(token)) {
-                Optional<UserEntity> optionalUserLoginCheck = userRepository.findByLoginId(userName);
+                Optional<UserEntity> optionalUserLoginCheck = userCache.findByLoginId(userName);
                 if (optionalUserLoginCheck.isPresent()) {
                     Optional<TweetEntity> optionalTweetEntity = tweetRepository.findById(id);
                     if (optionalTweetEntity.isPresent()) {
                         tweetRepository.deleteById(id);
+                        recentTweetBuffer.remove(id);
+                        tweetSearchIndex.remove(id, optionalTweetEntity.get().getTweetDesc());
+                        tweetThreadCache.invalidate(id);
+                        tweetThreadCache.invalidate(optionalTweetEntity.get().getParentTweetId());
+                        tweetChangeProducer.sendChange(TweetChange.deleted(id, optionalTweetEntity.get().getParentTweetId(),
+                                optionalTweetEntity.get().getTweetDesc()));
                         return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.SUCCESS)
                                 .messageCode(HttpStatus.OK)
                                 .messageType(ServiceConstants.SUCCESS)
@@ -290,17 +545,19 @@ public class TweetServiceImpl implements TweetService {
      * @return TweetResponse
      */
     @Override
-    public ResponseEntity<TweetResponse> likeTweet(String token, String userName, Integer id) {
+    public ResponseEntity<TweetResponse> likeTweet(String token, String userName, Long id) {
         try {
             if (userService.validateToken(token)) {
-                Optional<UserEntity> optionalUserLoginCheck = userRepository.findByLoginId(userName);
+                Optional<UserEntity> optionalUserLoginCheck = userCache.findByLoginId(userName);
                 if (optionalUserLoginCheck.isPresent()) {
                     Optional<TweetEntity> optionalTweetEntity = tweetRepository.findById(id);
                     if (optionalTweetEntity.isPresent()) {
                         Optional<TweetLikeEntity> optionalTweetLikeEntity = tweetLikeRepository.findByUserIdAndTweetId
                                 (optionalUserLoginCheck.get().getUserId(), id);
                         if (optionalTweetLikeEntity.isPresent()) {
-                            tweetLikeRepository.deleteById(optionalTweetLikeEntity.get().getTweetLikeId());
+                            if (tweetLikeRepository.deleteByTweetLikeId(optionalTweetLikeEntity.get().getTweetLikeId()) > 0) {
+                                likeCountBuffer.increment(id, -1);
+                            }
                             return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.UNLIKE_TWEET)
                                     .messageCode(HttpStatus.OK)
                                     .messageType(ServiceConstants.SUCCESS)
@@ -312,6 +569,7 @@ public class TweetServiceImpl implements TweetService {
                                 .tweetId(optionalTweetEntity.get().getTweetId())
                                 .userId(optionalUserLoginCheck.get().getUserId())
                                 .build());
+                        likeCountBuffer.increment(id, 1);
                         return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.LIKE_TWEET)
                                 .messageCode(HttpStatus.OK)
                                 .messageType(ServiceConstants.SUCCESS)
@@ -352,7 +610,7 @@ public class TweetServiceImpl implements TweetService {
      * @return TweetResponse
      */
     @Override
-    public ResponseEntity<TweetResponse> replyToTweet(String token, String userName, Integer id, Tweet tweet) {
+    public ResponseEntity<TweetResponse> replyToTweet(String token, String userName, Long id, Tweet tweet) {
         try {
             if (userService.validateToken(token)) {
                 Optional<TweetEntity> optionalTweetEntity = tweetRepository.findById(id);
@@ -379,4 +637,142 @@ public class TweetServiceImpl implements TweetService {
                 .messageType(ServiceConstants.FAILURE)
                 .build(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    /**
+     * To build the thread response: the root tweet with its replies nested threadDepth levels deep,
+     * each level oldest first and cut to pageLimit replies. The first tweet of thread is the
+     * root, the others are its replies in any order. Only the root's direct replies are paged
+     *
+     * @param thread
+     * @param threadDepth
+     * @param pageLimit
+     * @param cursor
+     * @return TweetResponse
+     */
+    private ResponseEntity<TweetResponse> threadPage(List<TweetEntity> thread, int threadDepth, int pageLimit, TweetPageCursor cursor) {
+        Map<Long, List<TweetEntity>> repliesByParent = thread.subList(1, thread.size()).stream()
+                .filter(reply -> reply.getParentTweetId() != null)
+                .sorted(Comparator.comparing(TweetEntity::getCreatedDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(TweetEntity::getTweetId))
+                .collect(Collectors.groupingBy(TweetEntity::getParentTweetId));
+        TweetEntity root = thread.get(0);
+        List<TweetEntity> rootReplies = repliesByParent.getOrDefault(root.getTweetId(), Collections.emptyList());
+        if (cursor != null) {
+            rootReplies = rootReplies.stream().filter(reply -> isAfter(reply, cursor)).collect(Collectors.toList());
+        }
+        String nextCursor = null;
+        if (threadDepth > 0 && rootReplies.size() > pageLimit) {
+            nextCursor = TweetPageCursor.encode(rootReplies.get(pageLimit - 1));
+        }
+        // the tweets shown, level by level, so their like counts are looked up in one query
+        List<TweetEntity> shown = new ArrayList<>();
+        Map<Long, List<TweetEntity>> shownReplies = new HashMap<>();
+        shown.add(root);
+        List<TweetEntity> level = Collections.singletonList(root);
+        for (int d = 0; d < threadDepth && !level.isEmpty(); d++) {
+            List<TweetEntity> nextLevel = new ArrayList<>();
+            for (TweetEntity parent : level) {
+                List<TweetEntity> replies = parent == root ? rootReplies
+                        : repliesByParent.getOrDefault(parent.getTweetId(), Collections.emptyList());
+                replies = replies.subList(0, Math.min(replies.size(), pageLimit));
+                shownReplies.put(parent.getTweetId(), replies);
+                nextLevel.addAll(replies);
+            }
+            shown.addAll(nextLevel);
+            level = nextLevel;
+        }
+        Map<Long, Tweet> tweetMap = toTweetListWithLikeCount(shown).stream()
+                .collect(Collectors.toMap(Tweet::getTweetId, tweet -> tweet, (first, second) -> first));
+        for (Tweet tweet : tweetMap.values()) {
+            tweet.setReplyCount(repliesByParent.getOrDefault(tweet.getTweetId(), Collections.emptyList()).size());
+            List<TweetEntity> replies = shownReplies.get(tweet.getTweetId());
+            if (replies != null) {
+                tweet.setReplies(replies.stream().map(reply -> tweetMap.get(reply.getTweetId())).collect(Collectors.toList()));
+            }
+        }
+        return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.SUCCESS)
+                .tweetList(Collections.singletonList(tweetMap.get(root.getTweetId())))
+                .nextCursor(nextCursor)
+                .messageCode(HttpStatus.OK)
+                .messageType(ServiceConstants.SUCCESS)
+                .build(), HttpStatus.OK);
+    }
+
+    /** replies are listed oldest first, so the page after a cursor holds the later ones */
+    private static boolean isAfter(TweetEntity tweetEntity, TweetPageCursor cursor) {
+        int byCreatedDate = tweetEntity.getCreatedDate() == null ? -1 : tweetEntity.getCreatedDate().compareTo(cursor.getCreatedDate());
+        return byCreatedDate > 0 || (byCreatedDate == 0 && tweetEntity.getTweetId() > cursor.getTweetId());
+    }
+
+    /**
+     * To build the response for one page of tweets. One extra tweet is fetched
+     * to know whether a next page exists. The first page of all tweets comes from
+     * the recent tweet buffer when it holds enough of them
+     *
+     * @param userId
+     * @param limit
+     * @param before
+     * @return TweetResponse
+     */
+    private ResponseEntity<TweetResponse> tweetPage(Long userId, Integer limit, String before) {
+        TweetPageCursor cursor;
+        try {
+            cursor = before == null ? null : TweetPageCursor.decode(before);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.INVALID_CURSOR)
+                    .messageCode(HttpStatus.BAD_REQUEST)
+                    .messageType(ServiceConstants.FAILURE)
+                    .build(), HttpStatus.BAD_REQUEST);
+        }
+        int pageLimit = limit == null ? defaultPageLimit : Math.max(1, Math.min(limit, maxPageLimit));
+        Optional<List<TweetEntity>> recentTweets = userId == null && cursor == null
+                ? recentTweetBuffer.newest(pageLimit + 1) : Optional.empty();
+        List<TweetEntity> tweetEntityList = recentTweets.isPresent() ? recentTweets.get()
+                : tweetRepository.findPage(userId, cursor, pageLimit + 1);
+        if (tweetEntityList.isEmpty()) {
+            return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.NO_TWEET)
+                    .messageCode(HttpStatus.NOT_FOUND)
+                    .messageType(ServiceConstants.FAILURE)
+                    .build(), HttpStatus.NOT_FOUND);
+        }
+        String nextCursor = null;
+        if (tweetEntityList.size() > pageLimit) {
+            tweetEntityList = tweetEntityList.subList(0, pageLimit);
+            nextCursor = TweetPageCursor.encode(tweetEntityList.get(pageLimit - 1));
+        }
+        return new ResponseEntity<>(TweetResponse.builder().message(ServiceConstants.SUCCESS)
+                .tweetList(toTweetListWithLikeCount(tweetEntityList))
+                .nextCursor(nextCursor)
+                .messageCode(HttpStatus.OK)
+                .messageType(ServiceConstants.SUCCESS)
+                .build(), HttpStatus.OK);
+    }
+
+    /**
+     * To map tweets to the response model along with their like count.
+     * The stored counter is used when present, plus the likes not yet flushed to it; tweets
+     * written before it existed are counted from tweetlike in one aggregation until
+     * reconciliation fills them in
+     *
+     * @param tweetEntityList
+     * @return List of Tweet
+     */
+    private List<Tweet> toTweetListWithLikeCount(List<TweetEntity> tweetEntityList) {
+        List<Long> uncountedTweetIds = tweetEntityList.stream().filter(tweetEntity -> tweetEntity.getLikeCount() == null)
+                .map(TweetEntity::getTweetId).collect(Collectors.toList());
+        Map<Long, Integer> likeCountMap = uncountedTweetIds.isEmpty() ? Collections.emptyMap()
+                : tweetLikeRepository.aggregateLikeCounts(uncountedTweetIds).stream()
+                .collect(Collectors.toMap(TweetLikeCount::getTweetId, TweetLikeCount::getLikeCount));
+        List<Tweet> tweetList = new ArrayList<>();
+        for (TweetEntity tweetEntity : tweetEntityList) {
+            Tweet tweet = EntityModelMapper.tweetEntityToTweet(tweetEntity);
+            if (tweet.getLikeCount() == null) {
+                tweet.setLikeCount(likeCountMap.getOrDefault(tweet.getTweetId(), 0));
+            } else {
+                tweet.setLikeCount(tweet.getLikeCount() + likeCountBuffer.pendingDelta(tweet.getTweetId()));
+            }
+            tweetList.add(tweet);
+        }
+        return tweetList;
+    }
 }
@@ -0,0 +1,81 @@
+package com.tweetapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.repository.TweetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-through cache of conversation threads, holding a tweet and every reply down to
+ * tweet.thread.max-depth levels. The cache admits by frequency, so it ends up holding the
+ * conversations read most. Entries are dropped when the tweet or one of its direct replies
+ * changes; changes further down, and like counts, show up once the entry expires
+ */
+@Service
+public class TweetThreadCache {
+
+    @Autowired
+    private TweetRepository tweetRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tweet.thread.max-depth:10}")
+    private int maxDepth = 10;
+    @Value("${tweet.thread.cache.max-size:1000}")
+    private long maxSize = 1000;
+    @Value("${tweet.thread.cache.ttl:30s}")
+    private Duration ttl = Duration.ofSeconds(30);
+
+    private Ticker ticker = Ticker.systemTicker();
+
+    private Cache<Long, List<TweetEntity>> threads;
+
+    @PostConstruct
+    void initCache() {
+        threads = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).ticker(ticker).recordStats().build(), "tweetThreads");
+    }
+
+    /**
+     * To find a tweet and its replies down to the configured maximum depth. Unknown tweets are not cached
+     *
+     * @param tweetId
+     * @return the tweet followed by its replies, or empty if it does not exist
+     */
+    public List<TweetEntity> findThread(Long tweetId) {
+        List<TweetEntity> thread = threads.get(tweetId, key -> {
+            List<TweetEntity> tweetEntityList = tweetRepository.findThread(key, maxDepth);
+            return tweetEntityList.isEmpty() ? null : Collections.unmodifiableList(tweetEntityList);
+        });
+        return thread == null ? Collections.emptyList() : thread;
+    }
+
+    /**
+     * To drop the cached thread of a tweet after it or its replies changed
+     *
+     * @param tweetId
+     */
+    public void invalidate(Long tweetId) {
+        if (tweetId != null) {
+            threads.invalidate(tweetId);
+        }
+    }
+
+    /**
+     * @return deepest reply level a thread holds
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+}
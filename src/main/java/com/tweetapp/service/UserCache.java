@@ -0,0 +1,108 @@
+package com.tweetapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Read-through cache in front of the user lookups of the tweet write paths. Unknown users
+ * are cached too, for a shorter time, so repeated requests for them do not reach Mongo.
+ * Hit, miss and eviction counts are published as the cache.* metrics
+ */
+@Service
+public class UserCache {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${user.cache.max-size:10000}")
+    private long maxSize = 10000;
+    @Value("${user.cache.ttl:10m}")
+    private Duration ttl = Duration.ofMinutes(10);
+    @Value("${user.cache.negative-ttl:30s}")
+    private Duration negativeTtl = Duration.ofSeconds(30);
+
+    private Ticker ticker = Ticker.systemTicker();
+
+    private Cache<String, Optional<UserEntity>> usersByLoginId;
+    private Cache<Long, Optional<UserEntity>> usersById;
+
+    @PostConstruct
+    void initCaches() {
+        usersByLoginId = CaffeineCacheMetrics.monitor(meterRegistry, newCache(), "usersByLoginId");
+        usersById = CaffeineCacheMetrics.monitor(meterRegistry, newCache(), "usersById");
+    }
+
+    /**
+     * To find a user by login id
+     *
+     * @param loginId
+     * @return Optional UserEntity
+     */
+    public Optional<UserEntity> findByLoginId(String loginId) {
+        return usersByLoginId.get(loginId, userRepository::findByLoginId);
+    }
+
+    /**
+     * To find a user by user id
+     *
+     * @param userId
+     * @return Optional UserEntity
+     */
+    public Optional<UserEntity> findById(Long userId) {
+        return usersById.get(userId, userRepository::findById);
+    }
+
+    /**
+     * To drop the cached lookups of a user after it was created or changed
+     *
+     * @param userEntity
+     */
+    public void invalidate(UserEntity userEntity) {
+        if (Objects.nonNull(userEntity.getLoginId())) {
+            usersByLoginId.invalidate(userEntity.getLoginId());
+        }
+        if (Objects.nonNull(userEntity.getUserId())) {
+            usersById.invalidate(userEntity.getUserId());
+        }
+    }
+
+    private <K> Cache<K, Optional<UserEntity>> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<K, Optional<UserEntity>>() {
+                    @Override
+                    public long expireAfterCreate(K key, Optional<UserEntity> user, long currentTime) {
+                        return user.isPresent() ? ttl.toNanos() : negativeTtl.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(K key, Optional<UserEntity> user, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, user, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(K key, Optional<UserEntity> user, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,402 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.backoff.BackOffExecution;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Login ids of every user, lower cased and held in a sorted array, so the users whose login
+ * id starts with a prefix are found by binary search instead of a regex over the user
+ * collection. Login ids differing only in case share a key and are both kept. Registrations
+ * go to a small sorted set first and are merged into the array once
+ * user.prefix-index.merge-threshold of them are pending. Loaded from Mongo in parallel
+ * ranges of user ids when the application starts, retried with a backoff until that succeeds,
+ * and reloaded every user.prefix-index.refresh-interval so users registered on other
+ * instances are suggested too
+ */
+@Service
+@Slf4j
+public class UserPrefixIndex {
+
+    /** a reference into each of the three columns */
+    private static final int ENTRY_BYTES = 4 + 4 + Long.BYTES;
+    /** String header and its byte[] header */
+    private static final int STRING_OVERHEAD_BYTES = 24 + 16;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${user.prefix-index.merge-threshold:1024}")
+    private int mergeThreshold = 1024;
+    @Value("${user.prefix-index.rebuild-threads:4}")
+    private int rebuildThreads = 4;
+    @Value("${user.prefix-index.rebuild-retry.initial-interval:1s}")
+    private Duration retryInitialInterval = Duration.ofSeconds(1);
+    @Value("${user.prefix-index.rebuild-retry.max-interval:5m}")
+    private Duration retryMaxInterval = Duration.ofMinutes(5);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeSet<Entry> pending = new TreeSet<>();
+
+    private String[] keys = new String[0];
+    private String[] loginIds = new String[0];
+    private long[] userIds = new long[0];
+    private long stringBytes;
+    private boolean ready;
+    /** set while a rebuild reads Mongo, registrations then stay pending so the swap keeps them */
+    private boolean rebuilding;
+    private BackOffExecution retryBackOff;
+    /** epoch millis of the next rebuild attempt, 0 when none is due */
+    private volatile long retryAt;
+
+    @PostConstruct
+    void initIndex() {
+        Gauge.builder("user.prefix.index.size", this, UserPrefixIndex::size)
+                .description("Login ids held by the user prefix index")
+                .register(meterRegistry);
+        Gauge.builder("user.prefix.index.bytes", this, UserPrefixIndex::footprintBytes)
+                .description("Estimated heap used by the user prefix index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * To load every login id from Mongo. Until this succeeds the index serves nothing
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(rebuildThreads);
+        try {
+            Optional<UserEntity> first = userRepository.findFirstByOrderByUserIdAsc();
+            Optional<UserEntity> last = userRepository.findFirstByOrderByUserIdDesc();
+            List<Future<List<UserEntity>>> ranges = new ArrayList<>();
+            if (first.isPresent() && last.isPresent()) {
+                long from = first.get().getUserId();
+                long to = last.get().getUserId() + 1;
+                long step = Math.max(1, (to - from + rebuildThreads - 1) / rebuildThreads);
+                for (long rangeFrom = from; rangeFrom < to; rangeFrom += step) {
+                    long rangeTo = Math.min(to, rangeFrom + step);
+                    long fromUserId = rangeFrom;
+                    ranges.add(executorService.submit(() -> userRepository.findLoginIds(fromUserId, rangeTo)));
+                }
+            }
+            List<Entry> entries = new ArrayList<>();
+            for (Future<List<UserEntity>> range : ranges) {
+                for (UserEntity userEntity : range.get()) {
+                    if (userEntity.getLoginId() != null) {
+                        entries.add(new Entry(userEntity));
+                    }
+                }
+            }
+            Entry[] sorted = entries.toArray(new Entry[0]);
+            Arrays.parallelSort(sorted);
+            lock.writeLock().lock();
+            try {
+                load(sorted);
+                merge();
+                ready = true;
+                rebuilding = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            retryBackOff = null;
+            retryAt = 0;
+            log.info("User prefix index rebuilt with {} login ids in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                if (ready && pending.size() >= mergeThreshold) {
+                    merge();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (retryBackOff == null) {
+                ExponentialBackOff backOff = new ExponentialBackOff(retryInitialInterval.toMillis(), ExponentialBackOff.DEFAULT_MULTIPLIER);
+                backOff.setMaxInterval(retryMaxInterval.toMillis());
+                retryBackOff = backOff.start();
+            }
+            long retryIn = retryBackOff.nextBackOff();
+            retryAt = System.currentTimeMillis() + retryIn;
+            log.error("Error while rebuilding user prefix index, retrying in {} ms {}", retryIn, e.getMessage());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * To run the rebuild retry once its backoff elapsed
+     */
+    @Scheduled(fixedDelayString = "${user.prefix-index.rebuild-retry.check-interval:1000}")
+    public void retryRebuild() {
+        long due = retryAt;
+        if (due > 0 && System.currentTimeMillis() >= due) {
+            rebuild();
+        }
+    }
+
+    /**
+     * To reload the login ids, picking up users registered on other instances. Left to the
+     * retry while the index is not loaded
+     */
+    @Scheduled(fixedDelayString = "${user.prefix-index.refresh-interval:300000}",
+            initialDelayString = "${user.prefix-index.refresh-interval:300000}")
+    public void refresh() {
+        if (isReady() && retryAt == 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * To add a registered user. Users added while the index is being rebuilt stay pending
+     * until the rebuild finished
+     *
+     * @param userEntity
+     */
+    public void add(UserEntity userEntity) {
+        if (userEntity.getLoginId() == null || userEntity.getUserId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Entry entry = new Entry(userEntity);
+            if (!contains(entry) && pending.add(entry) && ready && !rebuilding && pending.size() >= mergeThreshold) {
+                merge();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * To find the users whose login id starts with a prefix, ignoring case, in login id order
+     * so an exact match comes first
+     *
+     * @param prefix
+     * @param limit
+     * @return List of UserEntity holding only userId and loginId, or empty if the index is not loaded
+     */
+    public Optional<List<UserEntity>> findByPrefix(String prefix, int limit) {
+        String key = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            List<UserEntity> userEntityList = new ArrayList<>(Math.min(limit, 16));
+            int index = lowerBound(key);
+            Iterator<Entry> pendingEntries = pending.tailSet(new Entry(key, "", 0), true).iterator();
+            Entry pendingEntry = next(pendingEntries, key);
+            while (userEntityList.size() < limit) {
+                boolean inArray = index < keys.length && keys[index].startsWith(key);
+                if (!inArray && pendingEntry == null) {
+                    break;
+                }
+                if (inArray && (pendingEntry == null || compare(index, pendingEntry) < 0)) {
+                    userEntityList.add(UserEntity.builder().userId(userIds[index]).loginId(loginIds[index]).build());
+                    index++;
+                } else {
+                    userEntityList.add(UserEntity.builder().userId(pendingEntry.userId).loginId(pendingEntry.loginId).build());
+                    pendingEntry = next(pendingEntries, key);
+                }
+            }
+            return Optional.of(userEntityList);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return true once the index holds every user
+     */
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of login ids held
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return keys.length + pending.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * To estimate the heap used by the sorted columns and their strings, assuming compressed
+     * references. Pending registrations are left out, there are never more than a few of them
+     *
+     * @return bytes
+     */
+    public long footprintBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) keys.length * ENTRY_BYTES + stringBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * To bring a login id or prefix to the form the index is sorted by
+     *
+     * @param loginId
+     * @return lower cased login id
+     */
+    public static String normalize(String loginId) {
+        return loginId.toLowerCase(Locale.ROOT);
+    }
+
+    /** merges the pending registrations into the sorted columns, skipping login ids already there */
+    private void merge() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Entry[] merged = new Entry[keys.length + pending.size()];
+        int size = 0;
+        int index = 0;
+        for (Entry entry : pending) {
+            while (index < keys.length && compare(index, entry) < 0) {
+                merged[size++] = new Entry(keys[index], loginIds[index], userIds[index]);
+                index++;
+            }
+            if (index >= keys.length || compare(index, entry) != 0) {
+                merged[size++] = entry;
+            }
+        }
+        while (index < keys.length) {
+            merged[size++] = new Entry(keys[index], loginIds[index], userIds[index]);
+            index++;
+        }
+        pending.clear();
+        load(Arrays.copyOf(merged, size));
+    }
+
+    private void load(Entry[] sorted) {
+        String[] newKeys = new String[sorted.length];
+        String[] newLoginIds = new String[sorted.length];
+        long[] newUserIds = new long[sorted.length];
+        long newStringBytes = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            newKeys[i] = sorted[i].key;
+            newLoginIds[i] = sorted[i].loginId;
+            newUserIds[i] = sorted[i].userId;
+            newStringBytes += stringBytes(newKeys[i]);
+            if (newLoginIds[i] != newKeys[i]) {
+                newStringBytes += stringBytes(newLoginIds[i]);
+            }
+        }
+        keys = newKeys;
+        loginIds = newLoginIds;
+        userIds = newUserIds;
+        stringBytes = newStringBytes;
+    }
+
+    private boolean contains(Entry entry) {
+        for (int index = lowerBound(entry.key); index < keys.length && keys[index].equals(entry.key); index++) {
+            if (loginIds[index].equals(entry.loginId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int compare(int index, Entry entry) {
+        int byKey = keys[index].compareTo(entry.key);
+        return byKey != 0 ? byKey : loginIds[index].compareTo(entry.loginId);
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static Entry next(Iterator<Entry> entries, String prefix) {
+        if (entries.hasNext()) {
+            Entry entry = entries.next();
+            return entry.key.startsWith(prefix) ? entry : null;
+        }
+        return null;
+    }
+
+    /** compact strings hold one byte per latin-1 character, padded to 8 bytes */
+    private static long stringBytes(String value) {
+        boolean latin1 = value.chars().allMatch(c -> c < 256);
+        long bytes = STRING_OVERHEAD_BYTES + (long) value.length() * (latin1 ? 1 : 2);
+        return (bytes + 7) & ~7L;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final String key;
+        private final String loginId;
+        private final long userId;
+
+        private Entry(UserEntity userEntity) {
+            this(normalize(userEntity.getLoginId()), userEntity.getLoginId(), userEntity.getUserId());
+        }
+
+        private Entry(String key, String loginId, long userId) {
+            this.key = key;
+            this.loginId = loginId;
+            this.userId = userId;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byKey = key.compareTo(other.key);
+            return byKey != 0 ? byKey : loginId.compareTo(other.loginId);
+        }
+    }
+}
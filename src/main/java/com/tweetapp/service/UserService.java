@@ -39,6 +39,16 @@ public interface UserService {
      */
     ResponseEntity<UserResponse> searchByUserName(String token, String userName);
 
+    /**
+     * To suggest login ids starting with a prefix
+     *
+     * @param token
+     * @param prefix
+     * @param limit
+     * @return UserResponse
+     */
+    ResponseEntity<UserResponse> suggestUsers(String token, String prefix, Integer limit);
+
     /**
      * To reset Password
      *
@@ -59,5 +69,25 @@ public interface UserService {
 
     ResponseEntity<UserResponse> getByUserName(String token, String userName);
 
+    /**
+     * To follow another user
+     *
+     * @param token
+     * @param userName
+     * @param followeeName
+     * @return UserResponse
+     */
+    ResponseEntity<UserResponse> followUser(String token, String userName, String followeeName);
+
+    /**
+     * To stop following a user
+     *
+     * @param token
+     * @param userName
+     * @param followeeName
+     * @return UserResponse
+     */
+    ResponseEntity<UserResponse> unfollowUser(String token, String userName, String followeeName);
+
     boolean validateToken(String token);
 }
@@ -1,22 +1,35 @@
 package com.tweetapp.service;
 
+import com.tweetapp.entity.FollowEntity;
 import com.tweetapp.entity.UserEntity;
 import com.tweetapp.model.AuthResponse;
 import com.tweetapp.model.User;
 import com.tweetapp.model.UserResponse;
+import com.tweetapp.repository.FollowRepository;
 import com.tweetapp.repository.UserRepository;
 import com.tweetapp.utils.EntityModelMapper;
 import com.tweetapp.utils.ServiceConstants;
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.protocol.types.Field;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import javax.servlet.http.HttpServletRequest;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 @Slf4j
@@ -29,6 +42,19 @@ public class UserServiceImpl implements UserService {
     private SequenceService sequenceService;
     @Autowired
     private JwtUtil jwtutil;
+    @Autowired
+    private UserCache userCache;
+    @Autowired
+    private FollowRepository followRepository;
+    @Autowired
+    private UserPrefixIndex userPrefixIndex;
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Value("${user.suggest.default-limit:10}")
+    private int defaultSuggestLimit = 10;
+    @Value("${user.suggest.max-limit:50}")
+    private int maxSuggestLimit = 50;
 
     /**
      * To register user
@@ -60,12 +86,17 @@ public class UserServiceImpl implements UserService {
                         .build(), HttpStatus.CONFLICT);
             }
             UserEntity userEntity = EntityModelMapper.userToUserEntity(user);
+            userEntity.setPassword(passwordHasher.hash(user.getPassword()));
             userEntity.setUserId(sequenceService.getNextSequence(UserEntity.SEQUENCE_NAME));
             userRepository.save(userEntity);
+            userCache.invalidate(userEntity);
+            userPrefixIndex.add(userEntity);
             return new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.ID_CREATED)
                     .messageCode(HttpStatus.OK)
                     .messageType(ServiceConstants.SUCCESS)
                     .build(), HttpStatus.OK);
+        } catch (RejectedExecutionException e) {
+            return passwordHasherBusy();
         } catch (Exception e) {
             log.error("Error while creating user {}", e.getMessage());
         }
@@ -76,7 +107,8 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Used for login
+     * Used for login. A password saved before hashing, or with a lower cost, is hashed again
+     * once it matched
      *
      * @param loginId
      * @param password
@@ -89,7 +121,8 @@ public class UserServiceImpl implements UserService {
             String generateToken = "";
             if (optionalUserLoginCheck.isPresent()) {
                 UserEntity userEntity = optionalUserLoginCheck.get();
-                if (userEntity.getPassword().equals(password)) {
+                if (passwordHasher.matches(password, userEntity.getPassword())) {
+                    upgradePassword(userEntity, password);
                     generateToken = jwtutil.generateToken(userEntity.getLoginId());
                     return new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.LOGIN_SUCCESS)
                             .authResponse(AuthResponse.builder().authToken(generateToken).userName(loginId).isValid(true).build())
@@ -106,6 +139,8 @@ public class UserServiceImpl implements UserService {
                     .messageCode(HttpStatus.CONFLICT)
                     .messageType(ServiceConstants.FAILURE)
                     .build(), HttpStatus.CONFLICT);
+        } catch (RejectedExecutionException e) {
+            return passwordHasherBusy();
         } catch (Exception e) {
             log.error("Error while login {}", e.getMessage());
         }
@@ -164,8 +199,9 @@ public class UserServiceImpl implements UserService {
                 }
                 UserEntity userEntity = optionalUserLoginCheck.get();
                 if (userEntity.getEmail().equals(user.getEmail()) && userEntity.getContactNumber() == user.getContactNumber()) {
-                    userEntity.setPassword(user.getPassword());
-                    userRepository.save(userEntity);
+                    userEntity.setPassword(passwordHasher.hash(user.getPassword()));
+                    userRepository.updatePassword(userEntity.getUserId(), userEntity.getPassword());
+                    userCache.invalidate(userEntity);
                     return new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.PASSWORD_CHANGED)
                             .messageCode(HttpStatus.OK)
                             .messageType(ServiceConstants.SUCCESS)
@@ -176,6 +212,8 @@ public class UserServiceImpl implements UserService {
                     .messageCode(HttpStatus.CONFLICT)
                     .messageType(ServiceConstants.FAILURE)
                     .build(), HttpStatus.CONFLICT);
+        } catch (RejectedExecutionException e) {
+            return passwordHasherBusy();
         } catch (Exception e) {
             log.error("Error while Reset Password {}", e.getMessage());
         }
@@ -268,6 +306,45 @@ public class UserServiceImpl implements UserService {
                 .build(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    /**
+     * To suggest login ids starting with a prefix, ignoring case, as a user types
+     *
+     * @param token
+     * @param prefix
+     * @param limit
+     * @return UserResponse holding userId and loginId of each suggestion
+     */
+    @Override
+    public ResponseEntity<UserResponse> suggestUsers(String token, String prefix, Integer limit) {
+        try {
+            if (validateToken(token)) {
+                int suggestLimit = limit == null ? defaultSuggestLimit : Math.max(1, Math.min(limit, maxSuggestLimit));
+                Optional<List<UserEntity>> matches = userPrefixIndex.findByPrefix(prefix, suggestLimit);
+                if (matches.isEmpty()) {
+                    return new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.SUGGEST_NOT_READY)
+                            .messageCode(HttpStatus.SERVICE_UNAVAILABLE)
+                            .messageType(ServiceConstants.FAILURE)
+                            .build(), HttpStatus.SERVICE_UNAVAILABLE);
+                }
+                List<User> userList = new ArrayList<>();
+                for (UserEntity userEntity : matches.get()) {
+                    userList.add(User.builder().userId(userEntity.getUserId()).loginId(userEntity.getLoginId()).build());
+                }
+                return new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.SUCCESS)
+                        .userList(userList)
+                        .messageCode(HttpStatus.OK)
+                        .messageType(ServiceConstants.SUCCESS)
+                        .build(), HttpStatus.OK);
+            }
+        } catch (Exception e) {
+            log.error("Error while suggesting users {}", e.getMessage());
+        }
+        return new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.FAILURE)
+                .messageCode(HttpStatus.INTERNAL_SERVER_ERROR)
+                .messageType(ServiceConstants.FAILURE)
+                .build(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
     /**
      * To search user based on Username
      *
@@ -309,6 +386,95 @@ public class UserServiceImpl implements UserService {
                 .build(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    /**
+     * To follow another user
+     *
+     * @param token
+     * @param userName
+     * @param followeeName
+     * @return UserResponse
+     */
+    @Override
+    public ResponseEntity<UserResponse> followUser(String token, String userName, String followeeName) {
+        try {
+            if (validateToken(token)) {
+                Optional<UserEntity> optionalFollower = userCache.findByLoginId(userName);
+                Optional<UserEntity> optionalFollowee = userCache.findByLoginId(followeeName);
+                if (optionalFollower.isEmpty() || optionalFollowee.isEmpty()) {
+                    return new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.USER_NOT_EXIST)
+                            .messageCode(HttpStatus.NOT_FOUND)
+                            .messageType(ServiceConstants.FAILURE)
+                            .build(), HttpStatus.NOT_FOUND);
+                }
+                Long followerId = optionalFollower.get().getUserId();
+                Long followeeId = optionalFollowee.get().getUserId();
+                if (followerId.equals(followeeId)) {
+                    return new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.FOLLOW_SELF)
+                            .messageCode(HttpStatus.CONFLICT)
+                            .messageType(ServiceConstants.FAILURE)
+                            .build(), HttpStatus.CONFLICT);
+                }
+                boolean created = followRepository.insertIfAbsent(FollowEntity.builder()
+                        .followId(FollowEntity.followIdOf(followerId, followeeId))
+                        .followerId(followerId)
+                        .followeeId(followeeId)
+                        .createdDate(LocalDateTime.now())
+                        .build());
+                if (created) {
+                    userRepository.incrementFollowerCount(followeeId, 1);
+                }
+                return new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.USER_FOLLOWED)
+                        .messageCode(HttpStatus.OK)
+                        .messageType(ServiceConstants.SUCCESS)
+                        .build(), HttpStatus.OK);
+            }
+        } catch (Exception e) {
+            log.error("Error while following user {}", e.getMessage());
+        }
+        return new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.FAILURE)
+                .messageCode(HttpStatus.INTERNAL_SERVER_ERROR)
+                .messageType(ServiceConstants.FAILURE)
+                .build(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * To stop following a user
+     *
+     * @param token
+     * @param userName
+     * @param followeeName
+     * @return UserResponse
+     */
+    @Override
+    public ResponseEntity<UserResponse> unfollowUser(String token, String userName, String followeeName) {
+        try {
+            if (validateToken(token)) {
+                Optional<UserEntity> optionalFollower = userCache.findByLoginId(userName);
+                Optional<UserEntity> optionalFollowee = userCache.findByLoginId(followeeName);
+                if (optionalFollower.isEmpty() || optionalFollowee.isEmpty()) {
+                    return new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.USER_NOT_EXIST)
+                            .messageCode(HttpStatus.NOT_FOUND)
+                            .messageType(ServiceConstants.FAILURE)
+                            .build(), HttpStatus.NOT_FOUND);
+                }
+                Long followeeId = optionalFollowee.get().getUserId();
+                if (followRepository.deleteByFollowId(FollowEntity.followIdOf(optionalFollower.get().getUserId(), followeeId)) > 0) {
+                    userRepository.incrementFollowerCount(followeeId, -1);
+                }
+                return new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.USER_UNFOLLOWED)
+                        .messageCode(HttpStatus.OK)
+                        .messageType(ServiceConstants.SUCCESS)
+                        .build(), HttpStatus.OK);
+            }
+        } catch (Exception e) {
+            log.error("Error while unfollowing user {}", e.getMessage());
+        }
+        return new ResponseEntity<>(UserResponse.builder().message(ServiceConstants.FAILURE)
+                .messageCode(HttpStatus.INTERNAL_SERVER_ERROR)
+                .messageType(ServiceConstants.FAILURE)
+                .build(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
     /**
      * To validate token
      *
@@ -320,11 +486,57 @@ public class UserServiceImpl implements UserService {
         boolean res;
         try {
             String token1 = token.substring(7);
-            res = jwtutil.validateToken(token1);
+            res = isVerifiedForCurrentRequest(token) || jwtutil.validateToken(token1);
         } catch (Exception e) {
             res = false;
             log.error("Token Expired {}", e.getMessage());
         }
         return res;
     }
+
+    /**
+     * To rehash the password of a user logged in with an outdated hash. The login goes on
+     * if the hasher is too busy, the password is upgraded at a later one
+     *
+     * @param userEntity
+     * @param password
+     */
+    private void upgradePassword(UserEntity userEntity, String password) {
+        if (!passwordHasher.needsUpgrade(userEntity.getPassword())) {
+            return;
+        }
+        try {
+            userEntity.setPassword(passwordHasher.hash(password));
+            userRepository.updatePassword(userEntity.getUserId(), userEntity.getPassword());
+            userCache.invalidate(userEntity);
+        } catch (RejectedExecutionException e) {
+            log.debug("Password of {} not upgraded as the hasher is busy", userEntity.getLoginId());
+        }
+    }
+
+    private ResponseEntity<UserResponse> passwordHasherBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(passwordHasher.getRetryAfter().getSeconds()))
+                .body(UserResponse.builder().message(ServiceConstants.PASSWORD_HASHER_BUSY)
+                        .messageCode(HttpStatus.SERVICE_UNAVAILABLE)
+                        .messageType(ServiceConstants.FAILURE)
+                        .build());
+    }
+
+    /**
+     * To reuse the claims JwtAuthenticationFilter verified for the current request
+     *
+     * @param token
+     * @return boolean
+     */
+    private boolean isVerifiedForCurrentRequest(String token) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (!(requestAttributes instanceof ServletRequestAttributes)) {
+            return false;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) requestAttributes).getRequest();
+        Claims claims = (Claims) request.getAttribute(ServiceConstants.JWT_CLAIMS_ATTRIBUTE);
+        return Objects.nonNull(claims) && token.equals(request.getHeader(HttpHeaders.AUTHORIZATION))
+                && claims.getExpiration().after(new Date());
+    }
 }
@@ -24,6 +24,7 @@ public class EntityModelMapper {
                 .tweetDesc(tweet.getTweetDesc())
                 .userId(tweet.getUserId())
                 .parentTweetId(tweet.getParentTweetId())
+                .likeCount(tweet.getLikeCount())
                 .build();
     }
 
@@ -40,6 +41,7 @@ public class EntityModelMapper {
                 .tweetDesc(tweetEntity.getTweetDesc())
                 .userId(tweetEntity.getUserId())
                 .parentTweetId(tweetEntity.getParentTweetId())
+                .likeCount(tweetEntity.getLikeCount())
                 .build();
     }
 
@@ -75,7 +77,6 @@ public class EntityModelMapper {
                 .firstName(userEntity.getFirstName())
                 .lastName(userEntity.getLastName())
                 .loginId(userEntity.getLoginId())
-                .password(userEntity.getPassword())
                 .build();
     }
 
@@ -5,8 +5,11 @@ public class ServiceConstants {
     private ServiceConstants() {
     }
 
+    public static final String JWT_CLAIMS_ATTRIBUTE = "com.tweetapp.jwtClaims";
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
     public static final String TOPIC_NAME = "myKafkaTest";
     public static final String GROUP_ID = "group_id";
+    public static final String CHANGE_TOPIC_NAME = "tweetChanges";
     public static final String FAILURE = "Failure";
     public static final String SUCCESS = "Success";
     public static final String NO_TWEET = "No tweet";
@@ -21,5 +24,14 @@ public class ServiceConstants {
     public static final String PASSWORD_CHANGED = "Password Changed";
     public static final String PHONE_EMAIL_NOT_MATCH = "Phone Number/EmailID does not match";
     public static final String PASSWORD_NOT_MATCHED = "Password and Confirm Password are not same";
+    public static final String INVALID_CURSOR = "Invalid page cursor";
+    public static final String USER_FOLLOWED = "User has been followed";
+    public static final String USER_UNFOLLOWED = "User has been unfollowed";
+    public static final String FOLLOW_SELF = "User cannot follow themselves";
+    public static final String TWEET_BACKLOG = "Too many tweets are waiting to be saved, try again later";
+    public static final String SUGGEST_NOT_READY = "User suggestions are not available yet, try again later";
+    public static final String SEARCH_NOT_READY = "Tweet search is not available yet, try again later";
+    public static final String INVALID_TREND_WINDOW = "Trends are not kept for this window";
+    public static final String PASSWORD_HASHER_BUSY = "Too many passwords are being checked, try again later";
 
 }
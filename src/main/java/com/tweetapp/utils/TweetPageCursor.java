@@ -0,0 +1,52 @@
+package com.tweetapp.utils;
+
+import com.tweetapp.entity.TweetEntity;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a tweet listing ordered by (createdDate desc, tweetId desc),
+ * exchanged with clients as an opaque string
+ */
+@Getter
+@AllArgsConstructor
+public class TweetPageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime createdDate;
+    private final Long tweetId;
+
+    /**
+     * To build the cursor pointing right after the given tweet
+     *
+     * @param tweetEntity
+     * @return encoded cursor
+     */
+    public static String encode(TweetEntity tweetEntity) {
+        String cursor = tweetEntity.getCreatedDate() + SEPARATOR + tweetEntity.getTweetId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * To read a cursor sent by a client
+     *
+     * @param cursor
+     * @return TweetPageCursor
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static TweetPageCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = decoded.lastIndexOf(SEPARATOR);
+            return new TweetPageCursor(LocalDateTime.parse(decoded.substring(0, separatorIndex)),
+                    Long.valueOf(decoded.substring(separatorIndex + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor, e);
+        }
+    }
+}
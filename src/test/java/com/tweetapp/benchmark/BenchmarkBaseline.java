@@ -0,0 +1,92 @@
+package com.tweetapp.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares the JSON results of a JMH run with those of an earlier one. A score is a regression
+ * when it got worse by more than the threshold, a fraction of the baseline score, and by more
+ * than the error margins of both runs together, so noise alone is not reported. Throughput
+ * is worse when lower, every other mode when higher
+ */
+final class BenchmarkBaseline {
+
+    private static final String THROUGHPUT = "thrpt";
+
+    private BenchmarkBaseline() {
+    }
+
+    /**
+     * To compare every score of the results with the same benchmark and params in the baseline,
+     * printing one line per score
+     *
+     * @param baseline JSON results of the earlier run
+     * @param results JSON results of this run
+     * @param threshold fraction of the baseline score, e.g. 0.1
+     * @param out
+     * @return the benchmarks that regressed, empty if none did
+     * @throws IOException if a file cannot be read
+     */
+    static List<String> compare(Path baseline, Path results, double threshold, PrintStream out) throws IOException {
+        Map<String, JsonNode> baselineScores = scores(baseline);
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> result : scores(results).entrySet()) {
+            JsonNode current = result.getValue();
+            JsonNode previous = baselineScores.get(result.getKey());
+            String unit = current.path("primaryMetric").path("scoreUnit").asText();
+            if (previous == null) {
+                out.printf("%-90s %14s -> %14.3f %s (new)%n", result.getKey(), "", score(current), unit);
+                continue;
+            }
+            double before = score(previous);
+            double after = score(current);
+            double worse = THROUGHPUT.equals(current.path("mode").asText()) ? before - after : after - before;
+            boolean regressed = before > 0 && worse / before > threshold && worse > error(previous) + error(current);
+            out.printf("%-90s %14.3f -> %14.3f %s %+7.1f%%%s%n", result.getKey(), before, after, unit,
+                    before > 0 ? (after - before) * 100 / before : 0.0, regressed ? "  REGRESSION" : "");
+            if (regressed) {
+                regressions.add(result.getKey());
+            }
+        }
+        return regressions;
+    }
+
+    /** scores keyed by benchmark, mode and params, e.g. SequenceServiceBenchmark.nextTweetId thrpt generator=hilo */
+    private static Map<String, JsonNode> scores(Path path) throws IOException {
+        Map<String, JsonNode> scores = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(path.toFile())) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                    .replaceFirst("^com\\.tweetapp\\.benchmark\\.", ""))
+                    .append(' ').append(result.path("mode").asText());
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> param = fields.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            scores.put(key.toString(), result);
+        }
+        return scores;
+    }
+
+    private static double score(JsonNode result) {
+        return result.path("primaryMetric").path("score").asDouble();
+    }
+
+    /** JMH writes NaN as a string when a single iteration gives no error margin */
+    private static double error(JsonNode result) {
+        double error = result.path("primaryMetric").path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
@@ -0,0 +1,66 @@
+package com.tweetapp.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BenchmarkBaselineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRegressionsOverThreshold() throws IOException {
+        Path baseline = write("baseline.json",
+                result("JwtUtilBenchmark.validateToken", "avgt", "\"cacheMaxSize\": \"0\"", 1000, 10),
+                result("JwtUtilBenchmark.validateToken", "avgt", "\"cacheMaxSize\": \"10000\"", 100, 1),
+                result("SequenceServiceBenchmark.nextTweetId", "thrpt", "\"generator\": \"hilo\"", 500, 5),
+                result("EntityModelMapperBenchmark.userEntityToUser", "avgt", null, 20, 1));
+        Path results = write("results.json",
+                result("JwtUtilBenchmark.validateToken", "avgt", "\"cacheMaxSize\": \"0\"", 1050, 10),
+                result("JwtUtilBenchmark.validateToken", "avgt", "\"cacheMaxSize\": \"10000\"", 130, 1),
+                result("SequenceServiceBenchmark.nextTweetId", "thrpt", "\"generator\": \"hilo\"", 400, 5),
+                result("EntityModelMapperBenchmark.userEntityToUser", "avgt", null, 10, 1),
+                result("TweetResponseSerializationBenchmark.serialize", "avgt", "\"tweets\": \"1000\"", 900, 9));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        List<String> regressions = BenchmarkBaseline.compare(baseline, results, 0.1,
+                new PrintStream(out, true, StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("JwtUtilBenchmark.validateToken avgt cacheMaxSize=10000",
+                "SequenceServiceBenchmark.nextTweetId thrpt generator=hilo"), regressions);
+        String report = out.toString(StandardCharsets.UTF_8);
+        assertTrue(report.contains("TweetResponseSerializationBenchmark.serialize avgt tweets=1000"));
+        assertTrue(report.contains("(new)"));
+    }
+
+    @Test
+    void testDifferenceWithinErrorNotRegression() throws IOException {
+        Path baseline = write("baseline.json", result("JwtUtilBenchmark.generateToken", "avgt", null, 1000, 150));
+        Path results = write("results.json", result("JwtUtilBenchmark.generateToken", "avgt", null, 1200, 100));
+        assertTrue(BenchmarkBaseline.compare(baseline, results, 0.1, new PrintStream(new ByteArrayOutputStream())).isEmpty());
+        results = write("results.json", result("JwtUtilBenchmark.generateToken", "avgt", null, 1300, 100));
+        assertEquals(1, BenchmarkBaseline.compare(baseline, results, 0.1, new PrintStream(new ByteArrayOutputStream())).size());
+    }
+
+    private Path write(String fileName, String... results) throws IOException {
+        return Files.writeString(tempDir.resolve(fileName), "[" + String.join(",", results) + "]");
+    }
+
+    private static String result(String benchmark, String mode, String params, double score, double scoreError) {
+        return "{\"benchmark\": \"com.tweetapp.benchmark." + benchmark + "\", \"mode\": \"" + mode + "\","
+                + (params == null ? "" : "\"params\": {" + params + "},")
+                + "\"primaryMetric\": {\"score\": " + score + ", \"scoreError\": " + scoreError
+                + ", \"scoreUnit\": \"ns/op\"}}";
+    }
+}
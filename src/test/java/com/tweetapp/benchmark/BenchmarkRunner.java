@@ -0,0 +1,51 @@
+package com.tweetapp.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Runs the JMH suites whose names match -Dbenchmark.include and writes their results as JSON
+ * to -Dbenchmark.result. Given -Dbenchmark.baseline, the JSON results of an earlier run, the
+ * scores are compared with it and the run fails if one regressed by more than
+ * -Dbenchmark.threshold, a fraction (default 0.10). By default the hot path suites run, which
+ * need no servers besides the embedded Mongo of SequenceServiceBenchmark.
+ * Run with mvn -Pbenchmarks test [-Dbenchmark.baseline=path/to/jmh-result.json]
+ */
+public class BenchmarkRunner {
+
+    private static final String HOT_PATHS = "EntityModelMapperBenchmark|JwtUtilBenchmark"
+            + "|TweetResponseSerializationBenchmark|SequenceServiceBenchmark";
+
+    public static void main(String[] args) throws Exception {
+        String include = System.getProperty("benchmark.include", HOT_PATHS);
+        Path result = Paths.get(System.getProperty("benchmark.result", "target/jmh-result.json"));
+        String baseline = System.getProperty("benchmark.baseline", "");
+        double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "0.10"));
+        if (!baseline.isBlank() && !Files.exists(Paths.get(baseline))) {
+            throw new IllegalArgumentException("No benchmark baseline at " + baseline);
+        }
+        Files.createDirectories(result.toAbsolutePath().getParent());
+
+        new Runner(new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.toString())
+                .build()).run();
+        System.out.println("Benchmark results written to " + result);
+        if (baseline.isBlank()) {
+            return;
+        }
+        System.out.printf("Compared with %s, regressions are over %.0f%%:%n", baseline, threshold * 100);
+        List<String> regressions = BenchmarkBaseline.compare(Paths.get(baseline), result, threshold, System.out);
+        if (!regressions.isEmpty()) {
+            System.err.println(regressions.size() + " benchmarks regressed: " + regressions);
+            System.exit(1);
+        }
+    }
+}
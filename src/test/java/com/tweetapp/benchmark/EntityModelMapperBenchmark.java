@@ -0,0 +1,90 @@
+package com.tweetapp.benchmark;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.model.Tweet;
+import com.tweetapp.model.User;
+import com.tweetapp.utils.EntityModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the EntityModelMapper conversions done for every tweet and user read or written
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityModelMapperBenchmark {
+
+    private Tweet tweet;
+    private TweetEntity tweetEntity;
+    private User user;
+    private UserEntity userEntity;
+
+    @Setup
+    public void setUp() {
+        tweet = Tweet.builder()
+                .tweetId(41L)
+                .parentTweetId(21L)
+                .userId(7L)
+                .tweetDesc("Benchmarking the mapper, one more tweet about nothing in particular #java")
+                .createdDate(LocalDateTime.now())
+                .likeCount(10)
+                .build();
+        tweetEntity = EntityModelMapper.tweetToTweetEntity(tweet);
+        user = User.builder()
+                .userId(7L)
+                .loginId("aman")
+                .firstName("Aman")
+                .lastName("Agarwal")
+                .email("aman@testmail.com")
+                .contactNumber(1234567890L)
+                .password("secret")
+                .confirmPassword("secret")
+                .build();
+        userEntity = EntityModelMapper.userToUserEntity(user);
+    }
+
+    @Benchmark
+    public TweetEntity tweetToTweetEntity() {
+        return EntityModelMapper.tweetToTweetEntity(tweet);
+    }
+
+    @Benchmark
+    public Tweet tweetEntityToTweet() {
+        return EntityModelMapper.tweetEntityToTweet(tweetEntity);
+    }
+
+    @Benchmark
+    public UserEntity userToUserEntity() {
+        return EntityModelMapper.userToUserEntity(user);
+    }
+
+    @Benchmark
+    public User userEntityToUser() {
+        return EntityModelMapper.userEntityToUser(userEntity);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EntityModelMapperBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,187 @@
+package com.tweetapp.benchmark;
+
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.model.UserResponse;
+import com.tweetapp.repository.UserRepository;
+import com.tweetapp.service.JwtUtil;
+import com.tweetapp.service.PasswordHasher;
+import com.tweetapp.service.UserCache;
+import com.tweetapp.service.UserPrefixIndex;
+import com.tweetapp.service.UserServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency of logins and of user suggestions while 400 clients log in as fast as they can, with
+ * BCrypt of cost 10. Every call runs on a pool of 200 request threads, like Tomcat's default,
+ * and queues for one like a connection waiting to be accepted. "unbounded" hashes on as many
+ * threads as there are request threads with no limit on waiting, like hashing on the request
+ * threads; "bounded" hashes on one thread per processor with a queue of 8, turning away the
+ * rest with a 503 that clients honour by waiting Retry-After. Suggestions are asked every
+ * 10 ms by one more client and are also measured without the storm. Repositories are mocks,
+ * so only the CPU and the request threads are shared. Only calls answered within the run
+ * are counted.
+ * Run with e.g. java -cp ... com.tweetapp.benchmark.LoginStormBenchmark [seconds]
+ */
+public class LoginStormBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int REQUEST_THREADS = 200;
+    private static final int STORM_CLIENTS = 400;
+    private static final int BCRYPT_COST = 10;
+    private static final String PASSWORD = "secret";
+    private static final String TOKEN = "Bearer benchmark";
+
+    public static void main(String[] args) throws Exception {
+        Duration duration = Duration.ofSeconds(args.length > 0 ? Integer.parseInt(args[0]) : 10);
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d processors, %d clients logging in for %s%n", processors, STORM_CLIENTS, duration);
+        report("no storm", newUserService(1, 1, Duration.ofSeconds(2)), duration, 0);
+        report("unbounded", newUserService(REQUEST_THREADS, 1_000_000, Duration.ofMinutes(10)), duration, STORM_CLIENTS);
+        report("bounded", newUserService(processors, 8, Duration.ofSeconds(2)), duration, STORM_CLIENTS);
+    }
+
+    private static void report(String label, UserServiceImpl userService, Duration duration, int stormClients) throws Exception {
+        ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+        List<long[]> loginNanos = new ArrayList<>();
+        AtomicLong shed = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < stormClients; i++) {
+            long[] latencies = new long[1 << 12];
+            loginNanos.add(latencies);
+            Thread client = new Thread(() -> {
+                int count = 0;
+                while (System.nanoTime() < deadline && count < latencies.length - 1) {
+                    long start = System.nanoTime();
+                    String loginId = "user_" + ThreadLocalRandom.current().nextInt(USERS);
+                    ResponseEntity<UserResponse> response = call(requestThreads, () -> userService.login(loginId, PASSWORD));
+                    long end = System.nanoTime();
+                    if (response.getStatusCode() == HttpStatus.OK) {
+                        if (end < deadline) {
+                            latencies[++count] = end - start;
+                        }
+                    } else if (response.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+                        shed.incrementAndGet();
+                        sleepQuietly(TimeUnit.SECONDS.toMillis(Long.parseLong(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))));
+                    } else {
+                        throw new IllegalStateException("Login failed with " + response.getStatusCode());
+                    }
+                }
+                latencies[0] = count;
+            });
+            client.start();
+            clients.add(client);
+        }
+        List<Long> suggestNanos = new ArrayList<>();
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            if (call(requestThreads, () -> userService.suggestUsers(TOKEN, "user_1", 10)).getStatusCode() != HttpStatus.OK) {
+                throw new IllegalStateException("Suggestions failed");
+            }
+            long end = System.nanoTime();
+            if (end < deadline) {
+                suggestNanos.add(end - start);
+            }
+            sleepQuietly(10);
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        requestThreads.shutdown();
+        ReflectionTestUtils.invokeMethod(ReflectionTestUtils.getField(userService, "passwordHasher"), "shutdownHasher");
+
+        long[] logins = new long[loginNanos.stream().mapToInt(latencies -> (int) latencies[0]).sum()];
+        int offset = 0;
+        for (long[] latencies : loginNanos) {
+            System.arraycopy(latencies, 1, logins, offset, (int) latencies[0]);
+            offset += latencies[0];
+        }
+        Arrays.sort(logins);
+        long[] suggestions = suggestNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%s: %d logins/s, %d turned away; login p50 %s p99 %s; %d suggestions, p50 %s p99 %s max %s%n",
+                label, logins.length / duration.getSeconds(), shed.get(), millis(logins, 0.5), millis(logins, 0.99),
+                suggestions.length, millis(suggestions, 0.5), millis(suggestions, 0.99), millis(suggestions, 1.0));
+    }
+
+    private static ResponseEntity<UserResponse> call(ExecutorService requestThreads, Callable<ResponseEntity<UserResponse>> request) {
+        try {
+            return requestThreads.submit(request).get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static UserServiceImpl newUserService(int hashThreads, int queueSize, Duration timeout) {
+        String hashedPassword = new BCryptPasswordEncoder(BCRYPT_COST).encode(PASSWORD);
+        List<UserEntity> userEntityList = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            userEntityList.add(UserEntity.builder().userId((long) i).loginId("user_" + i).password(hashedPassword).build());
+        }
+        UserRepository userRepository = Mockito.mock(UserRepository.class, Mockito.withSettings().stubOnly());
+        Mockito.when(userRepository.findByLoginId(Mockito.anyString())).thenAnswer(invocation ->
+                Optional.of(userEntityList.get(Integer.parseInt(invocation.<String>getArgument(0).substring(5)))));
+        Mockito.when(userRepository.findFirstByOrderByUserIdAsc()).thenReturn(Optional.of(userEntityList.get(0)));
+        Mockito.when(userRepository.findFirstByOrderByUserIdDesc()).thenReturn(Optional.of(userEntityList.get(USERS - 1)));
+        Mockito.when(userRepository.findLoginIds(Mockito.anyLong(), Mockito.anyLong())).thenAnswer(invocation ->
+                new ArrayList<>(userEntityList.subList((int) (long) invocation.getArgument(0), (int) (long) invocation.getArgument(1))));
+        JwtUtil jwtUtil = Mockito.mock(JwtUtil.class, Mockito.withSettings().stubOnly());
+        Mockito.when(jwtUtil.generateToken(Mockito.anyString())).thenReturn("token");
+        Mockito.when(jwtUtil.validateToken(Mockito.anyString())).thenReturn(true);
+
+        UserPrefixIndex userPrefixIndex = new UserPrefixIndex();
+        ReflectionTestUtils.setField(userPrefixIndex, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userPrefixIndex, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(userPrefixIndex, "initIndex");
+        userPrefixIndex.rebuild();
+
+        PasswordHasher passwordHasher = new PasswordHasher();
+        ReflectionTestUtils.setField(passwordHasher, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(passwordHasher, "bcryptCost", BCRYPT_COST);
+        ReflectionTestUtils.setField(passwordHasher, "hashThreads", hashThreads);
+        ReflectionTestUtils.setField(passwordHasher, "queueSize", queueSize);
+        ReflectionTestUtils.setField(passwordHasher, "timeout", timeout);
+        ReflectionTestUtils.invokeMethod(passwordHasher, "initHasher");
+
+        UserServiceImpl userService = new UserServiceImpl();
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "jwtutil", jwtUtil);
+        ReflectionTestUtils.setField(userService, "userCache", Mockito.mock(UserCache.class, Mockito.withSettings().stubOnly()));
+        ReflectionTestUtils.setField(userService, "userPrefixIndex", userPrefixIndex);
+        ReflectionTestUtils.setField(userService, "passwordHasher", passwordHasher);
+        return userService;
+    }
+
+    private static String millis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return "-";
+        }
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(percentile * sortedNanos.length) - 1);
+        return String.format("%.1f ms", sortedNanos[Math.max(0, index)] / 1e6);
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
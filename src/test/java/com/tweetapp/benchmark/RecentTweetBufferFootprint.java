@@ -0,0 +1,71 @@
+package com.tweetapp.benchmark;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.service.RecentTweetBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.ref.Reference;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reports the heap used by 100k tweets held in RecentTweetBuffer next to the same tweets
+ * held as a List of TweetEntity. Descriptions are all distinct, so pooling saves nothing here.
+ * Run with a fixed heap, e.g. java -Xms1g -Xmx1g -cp ... com.tweetapp.benchmark.RecentTweetBufferFootprint
+ */
+public class RecentTweetBufferFootprint {
+
+    private static final int TWEETS = 100_000;
+    private static final LocalDateTime START = LocalDateTime.of(2021, 1, 1, 0, 0);
+
+    public static void main(String[] args) {
+        long baseline = usedHeap();
+        RecentTweetBuffer recentTweetBuffer = new RecentTweetBuffer();
+        ReflectionTestUtils.setField(recentTweetBuffer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(recentTweetBuffer, "capacity", TWEETS);
+        ReflectionTestUtils.invokeMethod(recentTweetBuffer, "initBuffer");
+        for (int i = 0; i < TWEETS; i++) {
+            recentTweetBuffer.append(newTweet(i));
+        }
+        long bufferBytes = usedHeap() - baseline;
+
+        baseline = usedHeap();
+        List<TweetEntity> tweetEntityList = new ArrayList<>(TWEETS);
+        for (int i = 0; i < TWEETS; i++) {
+            tweetEntityList.add(newTweet(i));
+        }
+        long entityBytes = usedHeap() - baseline;
+
+        System.out.printf("%d tweets: buffer %.1f MiB measured, %.1f MiB estimated; TweetEntity list %.1f MiB%n",
+                recentTweetBuffer.size(), mebibytes(bufferBytes), mebibytes(recentTweetBuffer.footprintBytes()),
+                mebibytes(entityBytes));
+        // keeps both reachable until both were measured
+        Reference.reachabilityFence(tweetEntityList);
+        Reference.reachabilityFence(recentTweetBuffer);
+    }
+
+    private static TweetEntity newTweet(int i) {
+        return TweetEntity.builder()
+                .tweetId(1_000_000L + i)
+                .userId((long) (i % 5000))
+                .tweetDesc("Tweet number " + i + " about nothing in particular, just filling up some space")
+                .createdDate(START.plusSeconds(i))
+                .parentTweetId(i % 10 == 0 ? 1_000_000L + i / 2 : null)
+                .likeCount(i % 100)
+                .build();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double mebibytes(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
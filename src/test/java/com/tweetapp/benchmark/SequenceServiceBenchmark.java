@@ -0,0 +1,106 @@
+package com.tweetapp.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.tweetapp.config.SequenceProperties;
+import com.tweetapp.service.SequenceService;
+import com.tweetapp.service.SequenceServiceImpl;
+import com.tweetapp.service.SnowflakeSequenceServiceImpl;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Id allocation throughput of the sequence generators, with 8 threads contending for the same
+ * sequence. findAndModify is the original one round trip per id behaviour (a Hi/Lo block
+ * of 1). The Mongo backed variants run against the server given by -Dbenchmark.mongo.uri,
+ * or an embedded one started for the trial when it is not given
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class SequenceServiceBenchmark {
+
+    private static final String DATABASE = "tweet-app-benchmark";
+
+    @Param({"findAndModify", "hilo", "snowflake"})
+    private String generator;
+
+    private MongodExecutable mongodExecutable;
+    private MongoClient mongoClient;
+    private SequenceService sequenceService;
+
+    @Setup
+    public void setUp() throws IOException {
+        if ("snowflake".equals(generator)) {
+            sequenceService = new SnowflakeSequenceServiceImpl();
+            return;
+        }
+        String mongoUri = System.getProperty("benchmark.mongo.uri");
+        if (mongoUri == null) {
+            Net net = new Net();
+            mongodExecutable = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder()
+                    .version(Version.Main.PRODUCTION)
+                    .net(net)
+                    .build());
+            mongodExecutable.start();
+            mongoUri = "mongodb://localhost:" + net.getPort();
+        }
+        mongoClient = MongoClients.create(mongoUri);
+        MongoTemplate mongoTemplate = new MongoTemplate(mongoClient, DATABASE);
+        SequenceProperties sequenceProperties = new SequenceProperties();
+        sequenceProperties.setDefaultBlockSize("findAndModify".equals(generator) ? 1 : 1000);
+        sequenceService = new SequenceServiceImpl();
+        ReflectionTestUtils.setField(sequenceService, "mongoOperations", mongoTemplate);
+        ReflectionTestUtils.setField(sequenceService, "sequenceProperties", sequenceProperties);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (mongoClient != null) {
+            mongoClient.getDatabase(DATABASE).drop();
+            mongoClient.close();
+        }
+        if (mongodExecutable != null) {
+            mongodExecutable.stop();
+        }
+    }
+
+    @Benchmark
+    public Long nextTweetId() {
+        return sequenceService.getNextSequence("tweet");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SequenceServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
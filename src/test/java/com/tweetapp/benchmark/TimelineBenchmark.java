@@ -0,0 +1,170 @@
+package com.tweetapp.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.tweetapp.entity.FollowEntity;
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.repository.TweetRepository;
+import com.tweetapp.service.TimelineService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fan-out cost and home timeline read latency as the author's follower count grows.
+ * fanOut reports the timelines written per tweet (the write amplification) as the
+ * timelinesWritten counter; above timeline.celebrity-threshold (default 10000) it drops
+ * to 1 and the author's tweets are merged in by readHomeTimeline instead.
+ * Needs a running Mongo, given by -Dbenchmark.mongo.uri (default mongodb://127.0.0.1:27017)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimelineBenchmark {
+
+    private static final String DATABASE = "tweet-app-benchmark";
+    private static final long AUTHOR_ID = 1L;
+    private static final long READER_ID = 2L;
+    private static final long FIRST_FOLLOWER_ID = 1000L;
+    private static final int SEEDED_TWEETS = 200;
+    private static final int TIMELINE_LIMIT = 50;
+
+    @Param({"100", "1000", "10000", "50000"})
+    private int followerCount;
+
+    private AnnotationConfigApplicationContext context;
+    private MongoTemplate mongoTemplate;
+    private TimelineService timelineService;
+    private long nextTweetId = 1_000_000L;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class FanOutCounters {
+        public long timelinesWritten;
+    }
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(BenchmarkConfiguration.class);
+        mongoTemplate = context.getBean(MongoTemplate.class);
+        timelineService = context.getBean(TimelineService.class);
+        mongoTemplate.getDb().drop();
+        MongoPersistentEntityIndexResolver indexResolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        indexResolver.resolveIndexFor(FollowEntity.class).forEach(mongoTemplate.indexOps(FollowEntity.class)::ensureIndex);
+        indexResolver.resolveIndexFor(TweetEntity.class).forEach(mongoTemplate.indexOps(TweetEntity.class)::ensureIndex);
+
+        mongoTemplate.insert(UserEntity.builder().userId(AUTHOR_ID).loginId("author").followerCount(followerCount).build());
+        mongoTemplate.insert(UserEntity.builder().userId(READER_ID).loginId("reader").followerCount(0).build());
+        List<FollowEntity> follows = new ArrayList<>(followerCount);
+        follows.add(follow(READER_ID));
+        for (long followerId = FIRST_FOLLOWER_ID; follows.size() < followerCount; followerId++) {
+            follows.add(follow(followerId));
+        }
+        mongoTemplate.insert(follows, FollowEntity.class);
+        for (int i = 0; i < SEEDED_TWEETS; i++) {
+            TweetEntity tweetEntity = newTweet();
+            mongoTemplate.insert(tweetEntity);
+            timelineService.fanOut(tweetEntity);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        mongoTemplate.getDb().drop();
+        context.close();
+    }
+
+    @Benchmark
+    public int fanOut(FanOutCounters counters) {
+        int timelinesWritten = timelineService.fanOut(newTweet());
+        counters.timelinesWritten += timelinesWritten;
+        return timelinesWritten;
+    }
+
+    @Benchmark
+    public List<TweetEntity> readHomeTimeline() {
+        return timelineService.homeTimeline(READER_ID, TIMELINE_LIMIT);
+    }
+
+    private TweetEntity newTweet() {
+        return TweetEntity.builder()
+                .tweetId(nextTweetId++)
+                .userId(AUTHOR_ID)
+                .tweetDesc("benchmark tweet")
+                .createdDate(LocalDateTime.now())
+                .likeCount(0)
+                .build();
+    }
+
+    private static FollowEntity follow(long followerId) {
+        return FollowEntity.builder()
+                .followId(FollowEntity.followIdOf(followerId, AUTHOR_ID))
+                .followerId(followerId)
+                .followeeId(AUTHOR_ID)
+                .createdDate(LocalDateTime.now())
+                .build();
+    }
+
+    /** a TestConfiguration, so the component scan of a @SpringBootTest leaves it out */
+    @TestConfiguration
+    @EnableMongoRepositories(basePackageClasses = TweetRepository.class,
+            excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = ".*Reactive.*"))
+    @Import(TimelineService.class)
+    static class BenchmarkConfiguration {
+
+        @Bean(destroyMethod = "close")
+        public MongoClient mongoClient() {
+            return MongoClients.create(System.getProperty("benchmark.mongo.uri", "mongodb://127.0.0.1:27017"));
+        }
+
+        @Bean
+        public MongoTemplate mongoTemplate(MongoClient mongoClient) {
+            return new MongoTemplate(mongoClient, DATABASE);
+        }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TimelineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,128 @@
+package com.tweetapp.benchmark;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.producer.TweetProducer;
+import com.tweetapp.utils.ServiceConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TweetProducer throughput against an embedded single broker Kafka for the producer
+ * batching and compression settings. sendAsync only waits for the send to be queued,
+ * like postNewTweet by default; sendAndAwait waits for the broker ack, like
+ * tweet.producer.await-ack. Records are keyed by one of 10000 users over 6 partitions
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(4)
+public class TweetProducerBenchmark {
+
+    private static final int PARTITIONS = 6;
+    private static final int USERS = 10_000;
+
+    @Param({"none", "lz4", "zstd"})
+    private String compressionType;
+    @Param({"0", "5"})
+    private int lingerMs;
+    @Param({"16384", "65536"})
+    private int batchSize;
+
+    private final AtomicLong nextTweetId = new AtomicLong();
+    private EmbeddedKafkaBroker embeddedKafkaBroker;
+    private DefaultKafkaProducerFactory<String, TweetEntity> producerFactory;
+    private KafkaTemplate<String, TweetEntity> kafkaTemplate;
+    private TweetProducer tweetProducer;
+
+    @Setup
+    public void setUp() {
+        embeddedKafkaBroker = new EmbeddedKafkaBroker(1, true, PARTITIONS, ServiceConstants.TOPIC_NAME);
+        embeddedKafkaBroker.afterPropertiesSet();
+        Map<String, Object> producerProperties = new HashMap<>();
+        producerProperties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafkaBroker.getBrokersAsString());
+        producerProperties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProperties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        producerProperties.put(ProducerConfig.ACKS_CONFIG, "all");
+        producerProperties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        producerProperties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        producerProperties.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        producerProperties.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        producerFactory = new DefaultKafkaProducerFactory<>(producerProperties);
+        kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        tweetProducer = new TweetProducer();
+        ReflectionTestUtils.setField(tweetProducer, "kafkaTemplate", kafkaTemplate);
+        ReflectionTestUtils.setField(tweetProducer, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Iteration)
+    public void flush() {
+        kafkaTemplate.flush();
+    }
+
+    @TearDown
+    public void tearDown() {
+        producerFactory.destroy();
+        embeddedKafkaBroker.destroy();
+    }
+
+    @Benchmark
+    public Object sendAsync() {
+        return tweetProducer.sendMessage(newTweet());
+    }
+
+    @Benchmark
+    public SendResult<String, TweetEntity> sendAndAwait() throws ExecutionException, InterruptedException {
+        return tweetProducer.sendMessage(newTweet()).get();
+    }
+
+    private TweetEntity newTweet() {
+        return TweetEntity.builder()
+                .tweetId(nextTweetId.incrementAndGet())
+                .userId((long) ThreadLocalRandom.current().nextInt(USERS))
+                .tweetDesc("Benchmarking the tweet producer, one more tweet about nothing in particular #kafka")
+                .createdDate(LocalDateTime.now())
+                .likeCount(0)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TweetProducerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package com.tweetapp.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tweetapp.model.Tweet;
+import com.tweetapp.model.TweetResponse;
+import com.tweetapp.utils.ServiceConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a TweetResponse page, with an ObjectMapper set up like Spring Boot's
+ * (dates as ISO strings). serialize goes through the ObjectMapper as the message converters
+ * do; serializeWithWriter reuses an ObjectWriter bound to TweetResponse
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TweetResponseSerializationBenchmark {
+
+    @Param({"1000"})
+    private int tweets;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter tweetResponseWriter;
+    private TweetResponse tweetResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        tweetResponseWriter = objectMapper.writerFor(TweetResponse.class);
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<Tweet> tweetList = new ArrayList<>(tweets);
+        for (int i = 0; i < tweets; i++) {
+            tweetList.add(Tweet.builder()
+                    .tweetId(1_000_000L + i)
+                    .userId((long) random.nextInt(10_000))
+                    .tweetDesc("Tweet number " + i + ", about nothing in particular #java #kafka @aman_" + random.nextInt(100))
+                    .createdDate(now.minusSeconds(i * 7L))
+                    .likeCount(random.nextInt(5000))
+                    .replyCount(random.nextInt(50))
+                    .build());
+        }
+        tweetResponse = TweetResponse.builder()
+                .tweetList(tweetList)
+                .nextCursor("MTAwMDAwMA")
+                .message(ServiceConstants.SUCCESS)
+                .messageCode(HttpStatus.OK)
+                .messageType(ServiceConstants.SUCCESS)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(tweetResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeWithWriter() throws JsonProcessingException {
+        return tweetResponseWriter.writeValueAsBytes(tweetResponse);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TweetResponseSerializationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
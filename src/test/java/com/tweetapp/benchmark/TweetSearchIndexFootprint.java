@@ -0,0 +1,108 @@
+package com.tweetapp.benchmark;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.repository.TweetRepository;
+import com.tweetapp.service.TweetSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Random;
+import java.util.stream.LongStream;
+
+/**
+ * Reports the heap used by TweetSearchIndex holding ten million tweets, how long rebuilding it
+ * takes and how long a 20 result search takes for a common term, a rare term and two terms
+ * together. Tweets are 12 words drawn from a 50,000 word vocabulary with Zipf frequencies,
+ * generated while the index reads them so only the index stays on the heap.
+ * Run with a fixed heap, e.g. java -Xms3g -Xmx3g -cp ... com.tweetapp.benchmark.TweetSearchIndexFootprint
+ */
+public class TweetSearchIndexFootprint {
+
+    private static final int TWEETS = 10_000_000;
+    private static final int VOCABULARY = 50_000;
+    private static final int WORDS_PER_TWEET = 12;
+    private static final int SEARCHES = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        String[] words = new String[VOCABULARY];
+        double[] cumulative = new double[VOCABULARY];
+        double total = 0;
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = "w" + Integer.toString(i, 36);
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+        double sum = total;
+        TweetRepository tweetRepository = Mockito.mock(TweetRepository.class);
+        Mockito.when(tweetRepository.streamAllByOrderByTweetIdAsc()).thenAnswer(invocation -> {
+            Random random = new Random(42);
+            return LongStream.range(0, TWEETS).mapToObj(tweetId -> {
+                StringBuilder tweetDesc = new StringBuilder();
+                for (int i = 0; i < WORDS_PER_TWEET; i++) {
+                    tweetDesc.append(words[zipf(cumulative, random.nextDouble() * sum)]).append(' ');
+                }
+                return TweetEntity.builder().tweetId(tweetId).tweetDesc(tweetDesc.toString()).build();
+            });
+        });
+
+        long baseline = usedHeap();
+        TweetSearchIndex tweetSearchIndex = new TweetSearchIndex();
+        ReflectionTestUtils.setField(tweetSearchIndex, "tweetRepository", tweetRepository);
+        ReflectionTestUtils.setField(tweetSearchIndex, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(tweetSearchIndex, "initIndex");
+        long start = System.nanoTime();
+        tweetSearchIndex.rebuild();
+        long rebuildMillis = (System.nanoTime() - start) / 1_000_000;
+        long indexBytes = usedHeap() - baseline;
+
+        System.out.printf("%d tweets: index %.1f MiB measured, %.1f MiB estimated; rebuilt in %d ms%n",
+                tweetSearchIndex.size(), mebibytes(indexBytes), mebibytes(tweetSearchIndex.footprintBytes()), rebuildMillis);
+        long results = 0;
+        results += report(tweetSearchIndex, "common term", words[0]);
+        results += report(tweetSearchIndex, "rare term", words[VOCABULARY - 1]);
+        results += report(tweetSearchIndex, "two mid terms", words[100] + " " + words[200]);
+        results += report(tweetSearchIndex, "common and rare term", words[0] + " " + words[VOCABULARY / 2]);
+        // keeps the results used
+        System.out.println(results);
+    }
+
+    private static long report(TweetSearchIndex tweetSearchIndex, String label, String query) {
+        long results = 0;
+        for (int i = 0; i < SEARCHES; i++) {
+            results += tweetSearchIndex.search(query, 20, null).get().getTweetIds().size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < SEARCHES; i++) {
+            results += tweetSearchIndex.search(query, 20, null).get().getTweetIds().size();
+        }
+        System.out.printf("top 20 for %s (%s): %.2f us%n", label, query, (System.nanoTime() - start) / 1000.0 / SEARCHES);
+        return results;
+    }
+
+    private static int zipf(double[] cumulative, double target) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulative[middle] < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double mebibytes(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
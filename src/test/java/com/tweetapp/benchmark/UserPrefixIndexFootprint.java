@@ -0,0 +1,87 @@
+package com.tweetapp.benchmark;
+
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.repository.UserRepository;
+import com.tweetapp.service.UserPrefixIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Reports the heap used by UserPrefixIndex holding a million users, how long rebuilding it
+ * takes and how long a 10 result suggestion takes. Login ids are mostly lower case, like
+ * real ones, so most keys share the login id String.
+ * Run with a fixed heap, e.g. java -Xms1g -Xmx1g -cp ... com.tweetapp.benchmark.UserPrefixIndexFootprint
+ */
+public class UserPrefixIndexFootprint {
+
+    private static final int USERS = 1_000_000;
+    private static final int LOOKUPS = 1_000_000;
+    private static final String[] NAMES = {"aman", "akash", "priya", "rahul", "sneha", "vikram", "neha", "arjun", "Kavya", "Rohan"};
+
+    public static void main(String[] args) throws Exception {
+        List<UserEntity> userEntityList = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            userEntityList.add(UserEntity.builder().userId((long) i).loginId(NAMES[i % NAMES.length] + "_" + (i / NAMES.length)).build());
+        }
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findFirstByOrderByUserIdAsc()).thenReturn(Optional.of(userEntityList.get(0)));
+        Mockito.when(userRepository.findFirstByOrderByUserIdDesc()).thenReturn(Optional.of(userEntityList.get(USERS - 1)));
+        Mockito.when(userRepository.findLoginIds(Mockito.anyLong(), Mockito.anyLong())).thenAnswer(invocation -> {
+            long from = invocation.getArgument(0);
+            long to = invocation.getArgument(1);
+            return new ArrayList<>(userEntityList.subList((int) from, (int) to));
+        });
+
+        long baseline = usedHeap();
+        UserPrefixIndex userPrefixIndex = new UserPrefixIndex();
+        ReflectionTestUtils.setField(userPrefixIndex, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userPrefixIndex, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(userPrefixIndex, "initIndex");
+        long start = System.nanoTime();
+        userPrefixIndex.rebuild();
+        long rebuildMillis = (System.nanoTime() - start) / 1_000_000;
+        // the login id Strings are already held by userEntityList, so they are not measured
+        long indexBytes = usedHeap() - baseline;
+
+        Random random = new Random(42);
+        String[] prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            String name = NAMES[random.nextInt(NAMES.length)];
+            prefixes[i] = name.substring(0, 1 + random.nextInt(name.length()));
+        }
+        long results = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            results += userPrefixIndex.findByPrefix(prefixes[i & 1023], 10).get().size();
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            results += userPrefixIndex.findByPrefix(prefixes[i & 1023], 10).get().size();
+        }
+        double lookupMicros = (System.nanoTime() - start) / 1000.0 / LOOKUPS;
+
+        System.out.printf("%d users: index %.1f MiB measured without the login ids, %.1f MiB estimated with them; rebuilt in %d ms; "
+                        + "top 10 suggestion %.2f us%n",
+                userPrefixIndex.size(), mebibytes(indexBytes), mebibytes(userPrefixIndex.footprintBytes()),
+                rebuildMillis, lookupMicros);
+        // keeps the results used
+        System.out.println(results);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double mebibytes(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,120 @@
+package com.tweetapp.config;
+
+import com.tweetapp.entity.TweetLikeEntity;
+import com.tweetapp.entity.UserEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MongoIndexInitializerTest {
+
+    @InjectMocks
+    MongoIndexInitializer mongoIndexInitializer;
+
+    @Mock
+    MongoOperations mongoOperations;
+
+    @Mock
+    IndexOperations userIndexOperations;
+
+    @Mock
+    IndexOperations tweetLikeIndexOperations;
+
+    @BeforeEach
+    void setUp() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setInitialEntitySet(new HashSet<>(Arrays.asList(UserEntity.class, TweetLikeEntity.class)));
+        mappingContext.initialize();
+        when(mongoOperations.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        when(mongoOperations.indexOps(UserEntity.class)).thenReturn(userIndexOperations);
+        when(mongoOperations.indexOps(TweetLikeEntity.class)).thenReturn(tweetLikeIndexOperations);
+    }
+
+    @Test
+    void testInitIndexesCreatesDeclaredIndexes() {
+        List<IndexInfo> userIndexes = createdIndexes(userIndexOperations);
+        List<IndexInfo> tweetLikeIndexes = createdIndexes(tweetLikeIndexOperations);
+        assertTrue(mongoIndexInitializer.initIndexes().isEmpty());
+        assertEquals(Arrays.asList("email", "loginId"),
+                userIndexes.stream().map(IndexInfo::getName).sorted().collect(Collectors.toList()));
+        assertTrue(userIndexes.stream().allMatch(IndexInfo::isUnique));
+        assertEquals(Collections.singletonList("tweetId_userId"),
+                tweetLikeIndexes.stream().map(IndexInfo::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testInitIndexesReportsIndexNotUnique() {
+        ReflectionTestUtils.setField(mongoIndexInitializer, "createIndexes", false);
+        when(userIndexOperations.getIndexInfo()).thenReturn(Arrays.asList(
+                new IndexInfo(Collections.singletonList(IndexField.create("email", Sort.Direction.ASC)), "email", true, false, null),
+                new IndexInfo(Collections.singletonList(IndexField.create("loginId", Sort.Direction.ASC)), "loginId", false, false, null)));
+        when(tweetLikeIndexOperations.getIndexInfo()).thenReturn(Collections.singletonList(
+                new IndexInfo(Arrays.asList(IndexField.create("tweetId", Sort.Direction.ASC), IndexField.create("userId", Sort.Direction.ASC)),
+                        "tweetId_userId", true, false, null)));
+        assertEquals(Collections.singletonList("user.loginId"), mongoIndexInitializer.initIndexes());
+        verify(userIndexOperations, never()).ensureIndex(any(IndexDefinition.class));
+    }
+
+    @Test
+    void testInitIndexesFailOnMissing() {
+        ReflectionTestUtils.setField(mongoIndexInitializer, "failOnMissing", true);
+        createdIndexes(userIndexOperations);
+        when(tweetLikeIndexOperations.ensureIndex(any(IndexDefinition.class)))
+                .thenThrow(new IllegalStateException("E11000 duplicate key error"));
+        when(tweetLikeIndexOperations.getIndexInfo()).thenReturn(Collections.emptyList());
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> mongoIndexInitializer.initIndexes());
+        assertEquals("Missing Mongo indexes [tweetlike.tweetId_userId]", exception.getMessage());
+    }
+
+    @Test
+    void testInitIndexesMongoUnavailable() {
+        when(userIndexOperations.getIndexInfo()).thenThrow(new IllegalStateException("Timed out"));
+        createdIndexes(tweetLikeIndexOperations);
+        assertEquals(Arrays.asList("user.email", "user.loginId"),
+                mongoIndexInitializer.initIndexes().stream().sorted().collect(Collectors.toList()));
+    }
+
+    /** remembers every ensured definition the way Mongo lists it */
+    private static List<IndexInfo> createdIndexes(IndexOperations indexOperations) {
+        List<IndexInfo> indexInfoList = new ArrayList<>();
+        lenient().when(indexOperations.ensureIndex(any(IndexDefinition.class))).thenAnswer(invocation -> {
+            IndexDefinition indexDefinition = invocation.getArgument(0);
+            List<IndexField> indexFields = indexDefinition.getIndexKeys().entrySet().stream()
+                    .map(key -> IndexField.create(key.getKey(),
+                            Integer.valueOf(1).equals(key.getValue()) ? Sort.Direction.ASC : Sort.Direction.DESC))
+                    .collect(Collectors.toList());
+            String name = indexDefinition.getIndexOptions().getString("name");
+            indexInfoList.add(new IndexInfo(indexFields, name,
+                    Boolean.TRUE.equals(indexDefinition.getIndexOptions().get("unique")), false, null));
+            return name;
+        });
+        lenient().when(indexOperations.getIndexInfo()).thenReturn(indexInfoList);
+        return indexInfoList;
+    }
+}
@@ -0,0 +1,15 @@
+package com.tweetapp.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadConfigurationTest {
+
+    @Test
+    void testVirtualThreadsRequireJava21() {
+        assumeTrue(Runtime.version().feature() < 21);
+        assertThrows(IllegalStateException.class, VirtualThreadConfiguration::newVirtualThreadPerTaskExecutor);
+    }
+}
@@ -0,0 +1,119 @@
+package com.tweetapp.config;
+
+import com.tweetapp.controller.TweetAppController;
+import com.tweetapp.model.TweetResponse;
+import com.tweetapp.service.TweetService;
+import com.tweetapp.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Starts Tomcat and the Kafka listener container factory with tweet.threads.virtual.enabled
+ * and checks requests and consumers really run on virtual threads. Only the web layer and
+ * Kafka are configured, the services behind the controller are mocked
+ */
+@SpringBootTest(classes = VirtualThreadWiringTest.WiringConfiguration.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "tweet.threads.virtual.enabled=true")
+@EnabledIfSystemProperty(named = "java.specification.version", matches = "2[1-9]|[3-9][0-9]")
+class VirtualThreadWiringTest {
+
+    private static final int TOMCAT_DEFAULT_MAX_THREADS = 200;
+    private static final int REQUESTS = TOMCAT_DEFAULT_MAX_THREADS + 50;
+
+    @LocalServerPort
+    int port;
+
+    @MockBean
+    TweetService tweetService;
+
+    @MockBean
+    UserService userService;
+
+    @Autowired
+    ConcurrentKafkaListenerContainerFactory<Object, Object> kafkaListenerContainerFactory;
+
+    @Test
+    void testRequestsBeyondTomcatThreadPoolRunOnVirtualThreads() throws Exception {
+        // every request waits until all of them are in flight, which a 200 thread pool never reaches
+        CountDownLatch allInFlight = new CountDownLatch(REQUESTS);
+        Set<Thread> handlerThreads = ConcurrentHashMap.newKeySet();
+        when(tweetService.getAllTweets(Mockito.anyString(), Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+            handlerThreads.add(Thread.currentThread());
+            allInFlight.countDown();
+            HttpStatus status = allInFlight.await(30, TimeUnit.SECONDS) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+            return new ResponseEntity<>(TweetResponse.builder().messageCode(status).build(), status);
+        });
+
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1.0/tweets/all"))
+                .header("Authorization", "token")
+                .build();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            assertEquals(HttpStatus.OK.value(), response.get(60, TimeUnit.SECONDS).statusCode());
+        }
+
+        assertEquals(REQUESTS, handlerThreads.size());
+        for (Thread handlerThread : handlerThreads) {
+            assertTrue(isVirtual(handlerThread), handlerThread.toString());
+        }
+    }
+
+    @Test
+    void testKafkaConsumersRunOnVirtualThreads() throws Exception {
+        ConcurrentMessageListenerContainer<Object, Object> container = kafkaListenerContainerFactory.createContainer("tweets");
+        Thread consumerThread = container.getContainerProperties().getConsumerTaskExecutor()
+                .submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+        assertTrue(isVirtual(consumerThread), consumerThread.toString());
+    }
+
+    private static boolean isVirtual(Thread thread) throws ReflectiveOperationException {
+        return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+
+    @Configuration
+    @ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class,
+            KafkaAutoConfiguration.class})
+    @Import({VirtualThreadConfiguration.class, TweetAppController.class})
+    static class WiringConfiguration {
+    }
+}
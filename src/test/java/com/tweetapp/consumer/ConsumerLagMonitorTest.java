@@ -0,0 +1,127 @@
+package com.tweetapp.consumer;
+
+import com.tweetapp.utils.ServiceConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsumerLagMonitorTest {
+
+    private static EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    private ConsumerLagMonitor consumerLagMonitor;
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void setUp() {
+        embeddedKafkaBroker = new EmbeddedKafkaBroker(1, true, 2, ServiceConstants.TOPIC_NAME);
+        embeddedKafkaBroker.afterPropertiesSet();
+        Map<String, Object> producerProperties = new HashMap<>();
+        producerProperties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafkaBroker.getBrokersAsString());
+        try (KafkaProducer<String, String> producer =
+                     new KafkaProducer<>(producerProperties, new StringSerializer(), new StringSerializer())) {
+            for (int i = 0; i < 10; i++) {
+                producer.send(new ProducerRecord<>(ServiceConstants.TOPIC_NAME, 0, null, "tweet " + i));
+            }
+            for (int i = 0; i < 4; i++) {
+                producer.send(new ProducerRecord<>(ServiceConstants.TOPIC_NAME, 1, null, "tweet " + i));
+            }
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        embeddedKafkaBroker.destroy();
+    }
+
+    @BeforeEach
+    void initMonitor() {
+        meterRegistry = new SimpleMeterRegistry();
+        consumerLagMonitor = new ConsumerLagMonitor();
+        ReflectionTestUtils.setField(consumerLagMonitor, "kafkaAdmin", new KafkaAdmin(Collections.singletonMap(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafkaBroker.getBrokersAsString())));
+        ReflectionTestUtils.setField(consumerLagMonitor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(consumerLagMonitor, "maxLag", 5L);
+        consumerLagMonitor.initMonitor();
+    }
+
+    @AfterEach
+    void closeMonitor() {
+        consumerLagMonitor.closeMonitor();
+    }
+
+    @Test
+    void testRefreshLag() {
+        commit(0, 6);
+        assertEquals(8, consumerLagMonitor.refreshLag());
+        assertEquals(4, meterRegistry.get("tweet.consumer.lag").tag("partition", "0").gauge().value());
+        assertEquals(4, meterRegistry.get("tweet.consumer.lag").tag("partition", "1").gauge().value());
+        assertEquals(8, meterRegistry.get("tweet.consumer.lag.total").gauge().value());
+        assertTrue(consumerLagMonitor.isBackpressured());
+
+        commit(0, 10);
+        assertEquals(4, consumerLagMonitor.refreshLag());
+        assertFalse(consumerLagMonitor.isBackpressured());
+    }
+
+    @Test
+    void testRefreshLagFailureNotBackpressured() {
+        commit(0, 0);
+        assertEquals(14, consumerLagMonitor.refreshLag());
+        assertTrue(consumerLagMonitor.isBackpressured());
+
+        AdminClient adminClient = Mockito.mock(AdminClient.class);
+        Mockito.when(adminClient.listConsumerGroupOffsets(ServiceConstants.GROUP_ID))
+                .thenThrow(new IllegalStateException("broker unavailable"));
+        consumerLagMonitor.closeMonitor();
+        ReflectionTestUtils.setField(consumerLagMonitor, "adminClient", adminClient);
+        assertEquals(-1, consumerLagMonitor.refreshLag());
+        assertFalse(consumerLagMonitor.isBackpressured());
+    }
+
+    @Test
+    void testBackpressureDisabled() {
+        ReflectionTestUtils.setField(consumerLagMonitor, "backpressureEnabled", false);
+        commit(0, 0);
+        assertEquals(14, consumerLagMonitor.refreshLag());
+        assertFalse(consumerLagMonitor.isBackpressured());
+    }
+
+    private static void commit(int partition, long offset) {
+        Map<String, Object> consumerProperties = new HashMap<>();
+        consumerProperties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafkaBroker.getBrokersAsString());
+        consumerProperties.put(ConsumerConfig.GROUP_ID_CONFIG, ServiceConstants.GROUP_ID);
+        try (KafkaConsumer<String, String> consumer =
+                     new KafkaConsumer<>(consumerProperties, new StringDeserializer(), new StringDeserializer())) {
+            consumer.commitSync(Collections.singletonMap(new TopicPartition(ServiceConstants.TOPIC_NAME, partition),
+                    new OffsetAndMetadata(offset)));
+        }
+    }
+}
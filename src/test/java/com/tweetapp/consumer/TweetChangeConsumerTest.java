@@ -0,0 +1,106 @@
+package com.tweetapp.consumer;
+
+import com.tweetapp.entity.TweetChange;
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.producer.TweetChangeProducer;
+import com.tweetapp.service.RecentTweetBuffer;
+import com.tweetapp.service.TrendingHashtags;
+import com.tweetapp.service.TweetSearchIndex;
+import com.tweetapp.service.TweetThreadCache;
+import com.tweetapp.util.TestUtil;
+import com.tweetapp.utils.ServiceConstants;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TweetChangeConsumerTest {
+
+    @InjectMocks
+    TweetChangeConsumer tweetChangeConsumer;
+
+    @Mock
+    TweetChangeProducer tweetChangeProducer;
+
+    @Mock
+    RecentTweetBuffer recentTweetBuffer;
+
+    @Mock
+    TweetThreadCache tweetThreadCache;
+
+    @Mock
+    TweetSearchIndex tweetSearchIndex;
+
+    @Mock
+    TrendingHashtags trendingHashtags;
+
+    @Test
+    void testConsumeCreated() {
+        when(tweetChangeProducer.getOrigin()).thenReturn("this");
+        TweetEntity tweetEntity = TestUtil.sampleTweetEntityList().get(0);
+        tweetChangeConsumer.consume(change(TweetChange.created(tweetEntity), "other"), 1000L);
+        verify(recentTweetBuffer, times(1)).append(tweetEntity);
+        verify(tweetSearchIndex, times(1)).add(tweetEntity);
+        verify(trendingHashtags, times(1)).add(tweetEntity);
+        verify(tweetThreadCache, times(1)).invalidate(20L);
+    }
+
+    @Test
+    void testConsumeUpdatedAndDeleted() {
+        when(tweetChangeProducer.getOrigin()).thenReturn("this");
+        tweetChangeConsumer.consume(change(TweetChange.updated(31L, 20L, "gm", "edited"), "other"), 1000L);
+        tweetChangeConsumer.consume(change(TweetChange.deleted(32L, 22L, "gn"), "other"), 1000L);
+        verify(recentTweetBuffer, times(1)).updateTweetDesc(31L, "edited");
+        verify(recentTweetBuffer, times(1)).remove(32L);
+        verify(tweetSearchIndex, times(1)).update(31L, "gm", "edited");
+        verify(tweetSearchIndex, times(1)).remove(32L, "gn");
+        verify(tweetThreadCache, times(1)).invalidate(31L);
+        verify(tweetThreadCache, times(1)).invalidate(22L);
+    }
+
+    @Test
+    void testConsumeLiked() {
+        when(tweetChangeProducer.getOrigin()).thenReturn("this");
+        Map<Long, Integer> likeDeltas = Collections.singletonMap(31L, 2);
+        tweetChangeConsumer.consume(change(TweetChange.liked(likeDeltas), "other"), 1000L);
+        verify(recentTweetBuffer, times(1)).incrementLikeCounts(likeDeltas, 1000L);
+    }
+
+    @Test
+    void testOwnChangesSkipped() {
+        when(tweetChangeProducer.getOrigin()).thenReturn("this");
+        tweetChangeConsumer.consume(change(TweetChange.deleted(32L, 22L, "gn"), "this"), 1000L);
+        verifyNoInteractions(recentTweetBuffer, tweetThreadCache, tweetSearchIndex, trendingHashtags);
+    }
+
+    @Test
+    void testGroupOfItsOwn() {
+        when(tweetChangeProducer.getOrigin()).thenReturn("this");
+        assertEquals(ServiceConstants.GROUP_ID + "-this", tweetChangeConsumer.getGroupId());
+    }
+
+    @Test
+    void testSeeksToStartOnFirstAssignmentOnly() {
+        ConsumerSeekAware.ConsumerSeekCallback callback = Mockito.mock(ConsumerSeekAware.ConsumerSeekCallback.class);
+        Map<TopicPartition, Long> assignments = Collections.singletonMap(new TopicPartition(ServiceConstants.CHANGE_TOPIC_NAME, 0), 5L);
+        tweetChangeConsumer.onPartitionsAssigned(assignments, callback);
+        tweetChangeConsumer.onPartitionsAssigned(assignments, callback);
+        verify(callback, times(1)).seekToTimestamp(Mockito.eq(assignments.keySet()), Mockito.anyLong());
+    }
+
+    private static TweetChange change(TweetChange tweetChange, String origin) {
+        tweetChange.setOrigin(origin);
+        return tweetChange;
+    }
+}
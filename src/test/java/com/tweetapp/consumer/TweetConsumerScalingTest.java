@@ -0,0 +1,207 @@
+package com.tweetapp.consumer;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.producer.TweetChangeProducer;
+import com.tweetapp.repository.TweetRepository;
+import com.tweetapp.service.RecentTweetBuffer;
+import com.tweetapp.service.TimelineService;
+import com.tweetapp.service.TrendingHashtags;
+import com.tweetapp.service.TweetSearchIndex;
+import com.tweetapp.service.TweetThreadCache;
+import com.tweetapp.utils.ServiceConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ingest throughput of TweetConsumer with one listener thread per partition against an
+ * embedded broker. Saving a tweet is simulated as a fixed 10 ms Mongo round trip
+ */
+class TweetConsumerScalingTest {
+
+    private static final int PARTITIONS = 4;
+    private static final int TWEETS = 1000;
+    private static final int USERS = 50;
+    private static final long SAVE_MILLIS = 10;
+
+    private static EmbeddedKafkaBroker embeddedKafkaBroker;
+    private static DefaultKafkaProducerFactory<String, TweetEntity> producerFactory;
+    private static Level consumerLogLevel;
+
+    @BeforeAll
+    static void setUp() {
+        embeddedKafkaBroker = new EmbeddedKafkaBroker(1, true, PARTITIONS);
+        embeddedKafkaBroker.afterPropertiesSet();
+        Map<String, Object> producerProperties = new HashMap<>();
+        producerProperties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafkaBroker.getBrokersAsString());
+        producerProperties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProperties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        producerFactory = new DefaultKafkaProducerFactory<>(producerProperties);
+        // the per tweet INFO line would otherwise serialize the threads on the console appender
+        Logger consumerLogger = (Logger) LoggerFactory.getLogger(TweetConsumer.class);
+        consumerLogLevel = consumerLogger.getLevel();
+        consumerLogger.setLevel(Level.WARN);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        ((Logger) LoggerFactory.getLogger(TweetConsumer.class)).setLevel(consumerLogLevel);
+        producerFactory.destroy();
+        embeddedKafkaBroker.destroy();
+    }
+
+    @Test
+    void testThroughputScalesWithConcurrency() throws Exception {
+        double singleThreadRate = consumeAll(1);
+        double partitionThreadRate = consumeAll(PARTITIONS);
+        double speedup = partitionThreadRate / singleThreadRate;
+        assertTrue(speedup > PARTITIONS * 0.6, String.format("Tweets per second: %.0f with 1 thread, %.0f with %d threads, speedup %.2f",
+                singleThreadRate, partitionThreadRate, PARTITIONS, speedup));
+    }
+
+    /**
+     * To consume TWEETS tweets from a new topic, published while the container is paused
+     * once every partition was assigned
+     *
+     * @param concurrency
+     * @return tweets consumed per second, from resuming the container to the last tweet
+     */
+    private double consumeAll(int concurrency) throws Exception {
+        String topic = ServiceConstants.TOPIC_NAME + "-" + concurrency;
+        embeddedKafkaBroker.addTopics(new NewTopic(topic, PARTITIONS, (short) 1));
+        TweetRepository tweetRepository = Mockito.mock(TweetRepository.class, Mockito.withSettings().stubOnly());
+        Mockito.when(tweetRepository.insertIfAbsent(Mockito.any(TweetEntity.class))).thenAnswer(invocation -> {
+            Thread.sleep(SAVE_MILLIS);
+            return true;
+        });
+        TweetConsumer tweetConsumer = new TweetConsumer();
+        ReflectionTestUtils.setField(tweetConsumer, "tweetRepository", tweetRepository);
+        ReflectionTestUtils.setField(tweetConsumer, "timelineService",
+                Mockito.mock(TimelineService.class, Mockito.withSettings().stubOnly()));
+        ReflectionTestUtils.setField(tweetConsumer, "recentTweetBuffer",
+                Mockito.mock(RecentTweetBuffer.class, Mockito.withSettings().stubOnly()));
+        ReflectionTestUtils.setField(tweetConsumer, "tweetThreadCache",
+                Mockito.mock(TweetThreadCache.class, Mockito.withSettings().stubOnly()));
+        ReflectionTestUtils.setField(tweetConsumer, "tweetSearchIndex",
+                Mockito.mock(TweetSearchIndex.class, Mockito.withSettings().stubOnly()));
+        ReflectionTestUtils.setField(tweetConsumer, "trendingHashtags",
+                Mockito.mock(TrendingHashtags.class, Mockito.withSettings().stubOnly()));
+        ReflectionTestUtils.setField(tweetConsumer, "tweetChangeProducer",
+                Mockito.mock(TweetChangeProducer.class, Mockito.withSettings().stubOnly()));
+        ReflectionTestUtils.setField(tweetConsumer, "meterRegistry", new SimpleMeterRegistry());
+        tweetConsumer.initConsumer();
+
+        Map<Long, List<Long>> tweetIdsByUser = new ConcurrentHashMap<>();
+        CountDownLatch consumed = new CountDownLatch(TWEETS);
+        ContainerProperties containerProperties = new ContainerProperties(topic);
+        containerProperties.setGroupId("scaling-" + concurrency);
+        // a paused consumer only sees the resume once its current poll returns
+        containerProperties.setPollTimeout(100);
+        containerProperties.setMessageListener((MessageListener<String, TweetEntity>) consumerRecord -> {
+            TweetEntity tweetEntity = consumerRecord.value();
+            tweetConsumer.consume(tweetEntity);
+            tweetIdsByUser.computeIfAbsent(tweetEntity.getUserId(), userId -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(tweetEntity.getTweetId());
+            consumed.countDown();
+        });
+        ConcurrentMessageListenerContainer<String, TweetEntity> container =
+                new ConcurrentMessageListenerContainer<>(consumerFactory(), containerProperties);
+        container.setConcurrency(concurrency);
+        container.start();
+        long startNanos;
+        try {
+            awaitEvenAssignment(container, concurrency);
+            // producing competes with the listeners for the CPU, so it is kept out of the measurement
+            container.pause();
+            long pauseDeadline = System.currentTimeMillis() + 10_000;
+            while (!container.isContainerPaused() && System.currentTimeMillis() < pauseDeadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(container.isContainerPaused());
+            KafkaTemplate<String, TweetEntity> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+            for (long tweetId = 1; tweetId <= TWEETS; tweetId++) {
+                long userId = tweetId % USERS;
+                kafkaTemplate.send(topic, String.valueOf(userId),
+                        TweetEntity.builder().tweetId(tweetId).userId(userId).tweetDesc("tweet " + tweetId).build());
+            }
+            kafkaTemplate.flush();
+            startNanos = System.nanoTime();
+            container.resume();
+            assertTrue(consumed.await(60, TimeUnit.SECONDS));
+        } finally {
+            container.stop();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        assertEquals(USERS, tweetIdsByUser.size());
+        tweetIdsByUser.forEach((userId, tweetIds) -> {
+            List<Long> sorted = new ArrayList<>(tweetIds);
+            Collections.sort(sorted);
+            assertEquals(sorted, tweetIds, "tweets of user " + userId + " consumed out of order");
+        });
+        return TWEETS / seconds;
+    }
+
+    /**
+     * To wait until every listener thread owns its share of the partitions. The total alone is
+     * reached while the first consumer still holds everything, before the group rebalanced
+     *
+     * @param container
+     * @param concurrency
+     */
+    private static void awaitEvenAssignment(ConcurrentMessageListenerContainer<String, TweetEntity> container,
+                                            int concurrency) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            List<KafkaMessageListenerContainer<String, TweetEntity>> containers = container.getContainers();
+            if (containers.size() == concurrency && containers.stream().allMatch(child -> child.getAssignedPartitions() != null
+                    && child.getAssignedPartitions().size() == PARTITIONS / concurrency)) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("partitions were not spread over " + concurrency + " consumers");
+    }
+
+    private static DefaultKafkaConsumerFactory<String, TweetEntity> consumerFactory() {
+        Map<String, Object> consumerProperties = new HashMap<>();
+        consumerProperties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafkaBroker.getBrokersAsString());
+        consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        JsonDeserializer<TweetEntity> valueDeserializer = new JsonDeserializer<>(TweetEntity.class);
+        valueDeserializer.addTrustedPackages("com.tweetapp.entity");
+        return new DefaultKafkaConsumerFactory<>(consumerProperties, new StringDeserializer(), valueDeserializer);
+    }
+}
@@ -1,15 +1,44 @@
 package com.tweetapp.consumer;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.tweetapp.entity.TweetChange;
 import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.producer.TweetChangeProducer;
 import com.tweetapp.repository.TweetRepository;
+import com.tweetapp.service.RecentTweetBuffer;
+import com.tweetapp.service.TimelineService;
+import com.tweetapp.service.TrendingHashtags;
+import com.tweetapp.service.TweetSearchIndex;
+import com.tweetapp.service.TweetThreadCache;
 import com.tweetapp.util.TestUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -21,11 +50,148 @@ class TweetConsumerTest {
     @Mock
     TweetRepository tweetRepository;
 
+    @Mock
+    TimelineService timelineService;
+
+    @Mock
+    RecentTweetBuffer recentTweetBuffer;
+
+    @Mock
+    TweetThreadCache tweetThreadCache;
+
+    @Mock
+    TweetSearchIndex tweetSearchIndex;
+
+    @Mock
+    TrendingHashtags trendingHashtags;
+
+    @Mock
+    TweetChangeProducer tweetChangeProducer;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        tweetConsumer.initConsumer();
+    }
+
     @Test
     void testConsume() {
-        when(tweetRepository.save(Mockito.any(TweetEntity.class))).thenReturn(TestUtil.sampleTweetEntityList().get(0));
+        when(tweetRepository.insertIfAbsent(Mockito.any(TweetEntity.class))).thenReturn(true);
+        tweetConsumer.consume(TestUtil.sampleTweetEntityList().get(0));
+        verify(tweetRepository, times(1)).insertIfAbsent(Mockito.any(TweetEntity.class));
+        verify(timelineService, times(1)).fanOut(Mockito.any(TweetEntity.class));
+        verify(recentTweetBuffer, times(1)).append(Mockito.any(TweetEntity.class));
+        verify(tweetSearchIndex, times(1)).add(Mockito.any(TweetEntity.class));
+        verify(trendingHashtags, times(1)).add(Mockito.any(TweetEntity.class));
+        verify(tweetThreadCache, times(1)).invalidate(20L);
+        verify(tweetChangeProducer, times(1)).sendChange(Mockito.argThat(tweetChange ->
+                tweetChange.getType() == TweetChange.Type.CREATED && tweetChange.getTweetId() == 31L));
+        assertEquals(1, meterRegistry.get("tweet.consumer.persist.latency").timer().count());
+    }
+
+    @Test
+    void testConsumeKeepsProducedCreatedDate() {
+        TweetEntity tweetEntity = TestUtil.sampleTweetEntityList().get(0);
+        LocalDateTime createdDate = tweetEntity.getCreatedDate();
+        when(tweetRepository.insertIfAbsent(tweetEntity)).thenReturn(true);
+        tweetConsumer.consume(tweetEntity);
+        assertEquals(createdDate, tweetEntity.getCreatedDate());
+
+        TweetEntity legacyTweetEntity = TestUtil.sampleTweetEntityList().get(1);
+        legacyTweetEntity.setCreatedDate(null);
+        when(tweetRepository.insertIfAbsent(legacyTweetEntity)).thenReturn(true);
+        tweetConsumer.consume(legacyTweetEntity);
+        assertNotNull(legacyTweetEntity.getCreatedDate());
+    }
+
+    @Test
+    void testConsumeRedeliveredSkippedInMemory() {
+        when(tweetRepository.insertIfAbsent(Mockito.any(TweetEntity.class))).thenReturn(true);
+        tweetConsumer.consume(TestUtil.sampleTweetEntityList().get(0));
         tweetConsumer.consume(TestUtil.sampleTweetEntityList().get(0));
-        verify(tweetRepository, times(1)).save(Mockito.any(TweetEntity.class));
+        verify(tweetRepository, times(1)).insertIfAbsent(Mockito.any(TweetEntity.class));
+        verify(timelineService, times(1)).fanOut(Mockito.any(TweetEntity.class));
+        assertEquals(1, meterRegistry.get("tweet.consumer.duplicates").tag("detected", "memory").counter().count());
+    }
+
+    @Test
+    void testConsumeAlreadyStoredNotFannedOut() {
+        when(tweetRepository.insertIfAbsent(Mockito.any(TweetEntity.class))).thenReturn(false);
+        tweetConsumer.consume(TestUtil.sampleTweetEntityList().get(0));
+        verify(timelineService, never()).fanOut(Mockito.any(TweetEntity.class));
+        verify(recentTweetBuffer, never()).append(Mockito.any(TweetEntity.class));
+        assertEquals(1, meterRegistry.get("tweet.consumer.duplicates").tag("detected", "mongo").counter().count());
+    }
+
+    @Test
+    void testConsumeBatch() {
+        List<TweetEntity> tweetEntityList = TestUtil.sampleTweetEntityList();
+        when(tweetRepository.insertAllIfAbsent(tweetEntityList)).thenReturn(bulkWriteResult(0, 1));
+        tweetConsumer.consumeBatch(tweetEntityList);
+        verify(tweetRepository, never()).insertIfAbsent(Mockito.any(TweetEntity.class));
+        verify(timelineService, times(2)).fanOut(Mockito.any(TweetEntity.class));
+        verify(recentTweetBuffer, times(2)).append(Mockito.any(TweetEntity.class));
+    }
+
+    @Test
+    void testConsumeBatchSkipsDuplicates() {
+        List<TweetEntity> tweetEntityList = TestUtil.sampleTweetEntityList();
+        when(tweetRepository.insertIfAbsent(tweetEntityList.get(0))).thenReturn(true);
+        tweetConsumer.consume(tweetEntityList.get(0));
+        when(tweetRepository.insertAllIfAbsent(Collections.singletonList(tweetEntityList.get(1))))
+                .thenReturn(bulkWriteResult());
+        tweetConsumer.consumeBatch(Arrays.asList(tweetEntityList.get(0), tweetEntityList.get(1), tweetEntityList.get(1)));
+        verify(timelineService, times(1)).fanOut(Mockito.any(TweetEntity.class));
+        assertEquals(1, meterRegistry.get("tweet.consumer.duplicates").tag("detected", "mongo").counter().count());
+
+        tweetConsumer.consumeBatch(tweetEntityList);
+        verify(tweetRepository, times(1)).insertAllIfAbsent(Mockito.anyList());
+    }
+
+    @Test
+    void testConsumeBatchRetriesFailedTweets() {
+        List<TweetEntity> tweetEntityList = TestUtil.sampleTweetEntityList();
+        when(tweetRepository.insertAllIfAbsent(tweetEntityList)).thenThrow(bulkOperationException(1));
+        when(tweetRepository.insertIfAbsent(tweetEntityList.get(1))).thenReturn(true);
+        tweetConsumer.consumeBatch(tweetEntityList);
+        verify(tweetRepository, times(1)).insertIfAbsent(tweetEntityList.get(1));
+        verify(timelineService, times(2)).fanOut(Mockito.any(TweetEntity.class));
+    }
+
+    @Test
+    void testConsumeBatchRetryFailure() {
+        List<TweetEntity> tweetEntityList = TestUtil.sampleTweetEntityList();
+        when(tweetRepository.insertAllIfAbsent(tweetEntityList)).thenThrow(bulkOperationException(1));
+        when(tweetRepository.insertIfAbsent(tweetEntityList.get(1))).thenThrow(NullPointerException.class);
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+                () -> tweetConsumer.consumeBatch(tweetEntityList));
+        assertEquals(1, exception.getIndex());
+        verify(timelineService, times(1)).fanOut(tweetEntityList.get(0));
+        verify(recentTweetBuffer, never()).append(tweetEntityList.get(1));
+    }
+
+    @Test
+    void testConsumeFanOutFailure() {
+        when(tweetRepository.insertIfAbsent(Mockito.any(TweetEntity.class))).thenReturn(true);
+        when(timelineService.fanOut(Mockito.any(TweetEntity.class))).thenThrow(NullPointerException.class);
+        tweetConsumer.consume(TestUtil.sampleTweetEntityList().get(0));
+        verify(recentTweetBuffer, times(1)).append(Mockito.any(TweetEntity.class));
+    }
+
+    private static BulkWriteResult bulkWriteResult(int... upsertedIndexes) {
+        List<BulkWriteUpsert> upserts = new ArrayList<>();
+        for (int upsertedIndex : upsertedIndexes) {
+            upserts.add(new BulkWriteUpsert(upsertedIndex, new BsonInt64(upsertedIndex)));
+        }
+        return BulkWriteResult.acknowledged(0, 0, 0, 0, upserts, Collections.emptyList());
+    }
+
+    private static BulkOperationException bulkOperationException(int failedIndex) {
+        return new BulkOperationException("Bulk write failed", new MongoBulkWriteException(bulkWriteResult(0),
+                Collections.singletonList(new BulkWriteError(11000, "duplicate key", new BsonDocument(), failedIndex)),
+                null, new ServerAddress()));
     }
 
 }
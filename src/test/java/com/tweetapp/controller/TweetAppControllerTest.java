@@ -1,5 +1,6 @@
 package com.tweetapp.controller;
 
+import com.tweetapp.model.TrendResponse;
 import com.tweetapp.model.Tweet;
 import com.tweetapp.model.TweetResponse;
 import com.tweetapp.model.User;
@@ -81,7 +82,7 @@ class TweetAppControllerTest {
 
     @Test
     void testGetAllTweets() throws Exception {
-        when(tweetService.getAllTweets(Mockito.anyString())).thenReturn(ResponseEntity.ok(TweetResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
+        when(tweetService.getAllTweets(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(ResponseEntity.ok(TweetResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
         RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/v1.0/tweets/all").header("Authorization", "AuthorizationAuthorizationAuthorization");
         mockMvc.perform(requestBuilder).andExpect(status().isOk());
     }
@@ -93,9 +94,33 @@ class TweetAppControllerTest {
         mockMvc.perform(requestBuilder).andExpect(status().isOk());
     }
 
+    @Test
+    void testSuggestUsers() throws Exception {
+        when(userService.suggestUsers(Mockito.anyString(), Mockito.eq("test"), Mockito.eq(5))).thenReturn(ResponseEntity.ok(UserResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/v1.0/tweets/user/suggest").param("prefix", "test").param("limit", "5")
+                .header("Authorization", "AuthorizationAuthorizationAuthorization");
+        mockMvc.perform(requestBuilder).andExpect(status().isOk());
+    }
+
+    @Test
+    void testSearchTweets() throws Exception {
+        when(tweetService.searchTweets(Mockito.anyString(), Mockito.eq("kafka mongo"), Mockito.any(), Mockito.any())).thenReturn(ResponseEntity.ok(TweetResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/v1.0/tweets/search").param("q", "kafka mongo")
+                .header("Authorization", "AuthorizationAuthorizationAuthorization");
+        mockMvc.perform(requestBuilder).andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetTrends() throws Exception {
+        when(tweetService.getTrends(Mockito.anyString(), Mockito.eq("1h"), Mockito.any())).thenReturn(ResponseEntity.ok(TrendResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
+        RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/v1.0/tweets/trends")
+                .header("Authorization", "AuthorizationAuthorizationAuthorization");
+        mockMvc.perform(requestBuilder).andExpect(status().isOk());
+    }
+
     @Test
     void testGetAllTweetsOfUser() throws Exception {
-        when(tweetService.getAllTweetsOfUser(Mockito.anyString(), Mockito.anyString())).thenReturn(ResponseEntity.ok(TweetResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
+        when(tweetService.getAllTweetsOfUser(Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(ResponseEntity.ok(TweetResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
         RequestBuilder requestBuilder = MockMvcRequestBuilders.get("/api/v1.0/tweets/testuser")
                 .header("Authorization", "AuthorizationAuthorizationAuthorization");
         mockMvc.perform(requestBuilder).andExpect(status().isOk());
@@ -110,7 +135,7 @@ class TweetAppControllerTest {
 
     @Test
     void testUpdateTweet() throws Exception {
-        when(tweetService.updateTweet(Mockito.anyString(), Mockito.anyString(), Mockito.anyInt(), Mockito.any(Tweet.class))).thenReturn(ResponseEntity.ok(TweetResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
+        when(tweetService.updateTweet(Mockito.anyString(), Mockito.anyString(), Mockito.anyLong(), Mockito.any(Tweet.class))).thenReturn(ResponseEntity.ok(TweetResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
         RequestBuilder requestBuilder = MockMvcRequestBuilders.put("/api/v1.0/tweets/testuser/update/12")
                 .content("{\"userId\":12,\"tweetId\":32,\"tweetDesc\":\"Testing\"}").contentType(MediaType.APPLICATION_JSON)
                 .header("Authorization", "AuthorizationAuthorizationAuthorization");
@@ -119,7 +144,7 @@ class TweetAppControllerTest {
 
     @Test
     void testDeleteTweet() throws Exception {
-        when(tweetService.deleteTweet(Mockito.anyString(), Mockito.anyString(), Mockito.anyInt())).thenReturn(ResponseEntity.ok(TweetResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
+        when(tweetService.deleteTweet(Mockito.anyString(), Mockito.anyString(), Mockito.anyLong())).thenReturn(ResponseEntity.ok(TweetResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
         RequestBuilder requestBuilder = MockMvcRequestBuilders.delete("/api/v1.0/tweets/testuser/delete/12")
                 .header("Authorization", "AuthorizationAuthorizationAuthorization");
         mockMvc.perform(requestBuilder).andExpect(status().isOk());
@@ -127,7 +152,7 @@ class TweetAppControllerTest {
 
     @Test
     void testLikeTweet() throws Exception {
-        when(tweetService.likeTweet(Mockito.anyString(), Mockito.anyString(), Mockito.anyInt())).thenReturn(ResponseEntity.ok(TweetResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
+        when(tweetService.likeTweet(Mockito.anyString(), Mockito.anyString(), Mockito.anyLong())).thenReturn(ResponseEntity.ok(TweetResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
         RequestBuilder requestBuilder = MockMvcRequestBuilders.put("/api/v1.0/tweets/testuser/like/12").header("Authorization", "AuthorizationAuthorizationAuthorization");
         mockMvc.perform(requestBuilder).andExpect(status().isOk());
     }
@@ -141,7 +166,7 @@ class TweetAppControllerTest {
 
     @Test
     void testReplyToTweet() throws Exception {
-        when(tweetService.replyToTweet(Mockito.anyString(), Mockito.anyString(), Mockito.anyInt(), Mockito.any(Tweet.class))).thenReturn(ResponseEntity.ok(TweetResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
+        when(tweetService.replyToTweet(Mockito.anyString(), Mockito.anyString(), Mockito.anyLong(), Mockito.any(Tweet.class))).thenReturn(ResponseEntity.ok(TweetResponse.builder().messageCode(HttpStatus.OK).message("Success").build()));
         RequestBuilder requestBuilder = MockMvcRequestBuilders.post("/api/v1.0/tweets/testuser/reply/12").content("{\"tweetDesc\":\"Testing\"}").contentType(MediaType.APPLICATION_JSON).header("Authorization", "AuthorizationAuthorizationAuthorization");
         mockMvc.perform(requestBuilder).andExpect(status().isOk());
     }
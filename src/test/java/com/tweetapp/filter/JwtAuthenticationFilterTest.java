@@ -0,0 +1,64 @@
+package com.tweetapp.filter;
+
+import com.tweetapp.service.JwtUtil;
+import com.tweetapp.utils.ServiceConstants;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @InjectMocks
+    JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Mock
+    JwtUtil jwtutil;
+
+    @Test
+    void testDoFilterStoresClaims() throws Exception {
+        Claims claims = Jwts.claims().setSubject("Aman");
+        when(jwtutil.verifyToken("tokentokentoken")).thenReturn(claims);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer tokentokentoken");
+        MockFilterChain filterChain = new MockFilterChain();
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+        assertSame(claims, request.getAttribute(ServiceConstants.JWT_CLAIMS_ATTRIBUTE));
+        assertNotNull(filterChain.getRequest());
+    }
+
+    @Test
+    void testDoFilterInvalidToken() throws Exception {
+        when(jwtutil.verifyToken(Mockito.anyString())).thenThrow(new MalformedJwtException("bad token"));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer tokentokentoken");
+        MockFilterChain filterChain = new MockFilterChain();
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+        assertNull(request.getAttribute(ServiceConstants.JWT_CLAIMS_ATTRIBUTE));
+        assertNotNull(filterChain.getRequest());
+    }
+
+    @Test
+    void testDoFilterWithoutToken() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockFilterChain filterChain = new MockFilterChain();
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+        verify(jwtutil, never()).verifyToken(Mockito.anyString());
+        assertNotNull(filterChain.getRequest());
+    }
+}
@@ -0,0 +1,49 @@
+package com.tweetapp.producer;
+
+import com.tweetapp.entity.TweetChange;
+import com.tweetapp.utils.ServiceConstants;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TweetChangeProducerTest {
+
+    @InjectMocks
+    TweetChangeProducer tweetChangeProducer;
+
+    @Mock
+    KafkaTemplate<String, TweetChange> kafkaTemplate;
+
+    @Test
+    void testSendChange() {
+        TweetChange tweetChange = TweetChange.deleted(31L, 20L, "gm");
+        when(kafkaTemplate.send(ServiceConstants.CHANGE_TOPIC_NAME, "31", tweetChange)).thenReturn(new SettableListenableFuture<>());
+        tweetChangeProducer.sendChange(tweetChange);
+        assertEquals(tweetChangeProducer.getOrigin(), tweetChange.getOrigin());
+        verify(kafkaTemplate, times(1)).send(ServiceConstants.CHANGE_TOPIC_NAME, "31", tweetChange);
+    }
+
+    @Test
+    void testSendChangeFailureOnlyLogged() {
+        SettableListenableFuture<SendResult<String, TweetChange>> future = new SettableListenableFuture<>();
+        when(kafkaTemplate.send(Mockito.any(), Mockito.any(), Mockito.any(TweetChange.class))).thenReturn(future);
+        tweetChangeProducer.sendChange(TweetChange.deleted(31L, 20L, "gm"));
+        future.setException(new TimeoutException("Expiring 1 record(s)"));
+
+        when(kafkaTemplate.send(Mockito.any(), Mockito.any(), Mockito.any(TweetChange.class)))
+                .thenThrow(new TimeoutException("Topic not present in metadata"));
+        tweetChangeProducer.sendChange(TweetChange.deleted(32L, 20L, "gm"));
+        verify(kafkaTemplate, times(2)).send(Mockito.any(), Mockito.any(), Mockito.any(TweetChange.class));
+    }
+}
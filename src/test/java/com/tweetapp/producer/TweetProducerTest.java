@@ -2,16 +2,25 @@ package com.tweetapp.producer;
 
 import com.tweetapp.entity.TweetEntity;
 import com.tweetapp.util.TestUtil;
+import com.tweetapp.utils.ServiceConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
 
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class TweetProducerTest {
@@ -22,10 +31,28 @@ class TweetProducerTest {
     @Mock
     KafkaTemplate<String, TweetEntity> kafkaTemplate;
 
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @Test
     void testSendMessage() {
+        TweetEntity tweetEntity = TestUtil.sampleTweetEntityList().get(0);
+        SettableListenableFuture<SendResult<String, TweetEntity>> future = new SettableListenableFuture<>();
+        when(kafkaTemplate.send(ServiceConstants.TOPIC_NAME, "7", tweetEntity)).thenReturn(future);
+        ListenableFuture<SendResult<String, TweetEntity>> sendResult = tweetProducer.sendMessage(tweetEntity);
+        assertSame(future, sendResult);
+        future.set(new SendResult<>(null, null));
+        verify(kafkaTemplate, times(1)).send(Mockito.any(), Mockito.any(), Mockito.any(TweetEntity.class));
+        assertEquals(1, meterRegistry.get("tweet.producer.send").tag("result", "success").timer().count());
+    }
+
+    @Test
+    void testSendMessageFailure() {
+        SettableListenableFuture<SendResult<String, TweetEntity>> future = new SettableListenableFuture<>();
+        when(kafkaTemplate.send(Mockito.any(), Mockito.any(), Mockito.any(TweetEntity.class))).thenReturn(future);
         tweetProducer.sendMessage(TestUtil.sampleTweetEntityList().get(0));
-        verify(kafkaTemplate, times(1)).send(Mockito.any(), Mockito.any(TweetEntity.class));
+        future.setException(new TimeoutException("Expiring 1 record(s)"));
+        assertEquals(1, meterRegistry.get("tweet.producer.send").tag("result", "failure").timer().count());
     }
 
 }
@@ -0,0 +1,187 @@
+package com.tweetapp.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.tweetapp.config.MongoIndexInitializer;
+import com.tweetapp.entity.FollowEntity;
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.entity.TweetLikeEntity;
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.utils.TweetPageCursor;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs every query method of the blocking repositories against a real Mongo, explains the
+ * command each one sent and checks the winning plan reads an index instead of scanning the
+ * collection. Needs -Dtest.mongo.uri, e.g. mongodb://127.0.0.1:27017, and is skipped otherwise
+ */
+@EnabledIfSystemProperty(named = "test.mongo.uri", matches = ".+")
+class RepositoryIndexUsageTest {
+
+    private static final String DATABASE = "tweet-app-index-test";
+    private static final List<String> QUERY_COMMANDS = Arrays.asList("find", "aggregate");
+
+    private static AnnotationConfigApplicationContext context;
+    private static MongoTemplate mongoTemplate;
+    private static CommandCapture commandCapture;
+
+    @BeforeAll
+    static void setUp() {
+        context = new AnnotationConfigApplicationContext(IndexUsageConfiguration.class);
+        mongoTemplate = context.getBean(MongoTemplate.class);
+        commandCapture = context.getBean(CommandCapture.class);
+        mongoTemplate.getDb().drop();
+        assertTrue(context.getBean(MongoIndexInitializer.class).initIndexes().isEmpty());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<TweetEntity> tweets = new ArrayList<>();
+        List<TweetLikeEntity> likes = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            mongoTemplate.insert(UserEntity.builder().userId(id).loginId("user" + id).email("user" + id + "@tweetapp.com").build());
+            tweets.add(TweetEntity.builder().tweetId(id).userId(id % 10).createdDate(now.minusMinutes(id))
+                    .parentTweetId(id > 10 ? id % 10 + 1 : null).tweetDesc("tweet " + id).likeCount(0).build());
+            likes.add(TweetLikeEntity.builder().tweetLikeId(id).userId(id % 7).tweetId(id).build());
+        }
+        mongoTemplate.insert(tweets, TweetEntity.class);
+        mongoTemplate.insert(likes, TweetLikeEntity.class);
+        List<FollowEntity> follows = new ArrayList<>();
+        for (long followerId = 2; followerId <= 100; followerId++) {
+            follows.add(FollowEntity.builder().followId(FollowEntity.followIdOf(followerId, 1L))
+                    .followerId(followerId).followeeId(1L).createdDate(now).build());
+        }
+        mongoTemplate.insert(follows, FollowEntity.class);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mongoTemplate.getDb().drop();
+        context.close();
+    }
+
+    @Test
+    void testUserRepositoryUsesIndexes() {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        assertUsesIndex(() -> userRepository.findByLoginId("user7"));
+        assertUsesIndex(() -> userRepository.findByEmail("user7@tweetapp.com"));
+        assertUsesIndex(userRepository::findFirstByOrderByUserIdAsc);
+        assertUsesIndex(userRepository::findFirstByOrderByUserIdDesc);
+        assertUsesIndex(() -> userRepository.findLoginIds(10L, 20L));
+    }
+
+    @Test
+    void testTweetRepositoryUsesIndexes() {
+        TweetRepository tweetRepository = context.getBean(TweetRepository.class);
+        assertUsesIndex(() -> tweetRepository.findByUserId(7L));
+        assertUsesIndex(() -> tweetRepository.findPage(7L, null, 10));
+        assertUsesIndex(() -> tweetRepository.findPage(null, new TweetPageCursor(LocalDateTime.now().minusMinutes(50), 50L), 10));
+        assertUsesIndex(() -> tweetRepository.findRecentByUserIds(Arrays.asList(3L, 7L), 10));
+    }
+
+    @Test
+    void testTweetLikeRepositoryUsesIndexes() {
+        TweetLikeRepository tweetLikeRepository = context.getBean(TweetLikeRepository.class);
+        assertUsesIndex(() -> tweetLikeRepository.findByUserIdAndTweetId(3L, 10L));
+        assertUsesIndex(() -> tweetLikeRepository.findByTweetId(10L));
+        assertUsesIndex(() -> tweetLikeRepository.aggregateLikeCounts(Arrays.asList(10L, 20L, 30L)));
+    }
+
+    @Test
+    void testFollowRepositoryUsesIndexes() {
+        FollowRepository followRepository = context.getBean(FollowRepository.class);
+        assertUsesIndex(() -> followRepository.findByFolloweeId(1L, PageRequest.of(0, 10)));
+        assertUsesIndex(() -> followRepository.findByFollowerId(2L));
+    }
+
+    /** explains the last query the call sent, stripped of the fields the driver adds */
+    private static void assertUsesIndex(Runnable repositoryCall) {
+        commandCapture.commands.clear();
+        repositoryCall.run();
+        assertFalse(commandCapture.commands.isEmpty(), "no query was sent");
+        BsonDocument command = commandCapture.commands.get(commandCapture.commands.size() - 1);
+        BsonDocument explainedCommand = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!key.startsWith("$") && !key.equals("lsid") && !key.equals("txnNumber")) {
+                explainedCommand.put(key, value);
+            }
+        });
+        String plan = mongoTemplate.getDb()
+                .runCommand(new Document("explain", explainedCommand).append("verbosity", "queryPlanner"))
+                .toJson();
+        assertTrue(plan.contains("IXSCAN") || plan.contains("IDHACK"), "no index used by " + explainedCommand.toJson());
+        assertFalse(plan.contains("COLLSCAN"), "collection scanned by " + explainedCommand.toJson());
+    }
+
+    static class CommandCapture implements CommandListener {
+        private final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (QUERY_COMMANDS.contains(event.getCommandName())) {
+                commands.add(event.getCommand().clone());
+            }
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+        }
+
+        @Override
+        public void commandFailed(CommandFailedEvent event) {
+        }
+    }
+
+    /** a TestConfiguration, so the component scan of a @SpringBootTest leaves it out */
+    @TestConfiguration
+    @EnableMongoRepositories(basePackageClasses = TweetRepository.class,
+            excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = ".*Reactive.*"))
+    @Import(MongoIndexInitializer.class)
+    static class IndexUsageConfiguration {
+
+        @Bean
+        public CommandCapture commandCapture() {
+            return new CommandCapture();
+        }
+
+        @Bean(destroyMethod = "close")
+        public MongoClient mongoClient(CommandCapture commandCapture) {
+            return MongoClients.create(MongoClientSettings.builder()
+                    .applyConnectionString(new ConnectionString(System.getProperty("test.mongo.uri")))
+                    .addCommandListener(commandCapture)
+                    .build());
+        }
+
+        @Bean
+        public MongoTemplate mongoTemplate(MongoClient mongoClient) {
+            return new MongoTemplate(mongoClient, DATABASE);
+        }
+    }
+}
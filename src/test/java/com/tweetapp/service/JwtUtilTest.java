@@ -0,0 +1,55 @@
+package com.tweetapp.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTest {
+
+    JwtUtil jwtUtil = new JwtUtil();
+
+    AtomicLong nanoTime = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtUtil, "ticker", (Ticker) nanoTime::get);
+        jwtUtil.initCache();
+    }
+
+    @Test
+    void testVerifyTokenCached() {
+        String token = jwtUtil.generateToken("Aman");
+        Claims claims = jwtUtil.verifyToken(token);
+        assertEquals("Aman", claims.getSubject());
+        assertSame(claims, jwtUtil.verifyToken(token));
+        assertTrue(jwtUtil.validateToken(token));
+    }
+
+    @Test
+    void testVerifyTokenEvictedAtExpiry() {
+        String token = jwtUtil.generateToken("Aman");
+        Claims claims = jwtUtil.verifyToken(token);
+        nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(31));
+        assertNotSame(claims, jwtUtil.verifyToken(token));
+    }
+
+    @Test
+    void testVerifyTokenWrongSignature() {
+        String token = jwtUtil.generateToken("Aman");
+        String tampered = token.substring(0, token.lastIndexOf('.') + 1) + "c2lnbmF0dXJl";
+        assertThrows(SignatureException.class, () -> jwtUtil.verifyToken(tampered));
+        assertThrows(SignatureException.class, () -> jwtUtil.verifyToken(tampered));
+    }
+}
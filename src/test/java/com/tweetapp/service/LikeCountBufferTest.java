@@ -0,0 +1,204 @@
+package com.tweetapp.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.tweetapp.entity.TweetChange;
+import com.tweetapp.producer.TweetChangeProducer;
+import com.tweetapp.repository.TweetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LikeCountBufferTest {
+
+    @InjectMocks
+    LikeCountBuffer likeCountBuffer;
+
+    @Mock
+    TweetRepository tweetRepository;
+
+    @Mock
+    RecentTweetBuffer recentTweetBuffer;
+
+    @Mock
+    TweetChangeProducer tweetChangeProducer;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        likeCountBuffer.initBuffer();
+    }
+
+    @Test
+    void testFlushWritesDeltasInOneBulkWrite() {
+        List<Map<Long, Integer>> writes = recordWrites();
+        likeCountBuffer.increment(31L, 1);
+        likeCountBuffer.increment(31L, 1);
+        likeCountBuffer.increment(31L, -1);
+        likeCountBuffer.increment(32L, 1);
+        likeCountBuffer.increment(33L, 1);
+        likeCountBuffer.increment(33L, -1);
+        assertEquals(1, likeCountBuffer.pendingDelta(31L));
+        assertEquals(0, likeCountBuffer.pendingDelta(33L));
+
+        assertEquals(2, likeCountBuffer.flush());
+        assertEquals(Collections.singletonList(deltas(31L, 1, 32L, 1)), writes);
+        assertEquals(0, likeCountBuffer.pendingDelta(31L));
+        verify(recentTweetBuffer, times(1)).incrementLikeCount(31L, 1);
+        verify(recentTweetBuffer, times(1)).incrementLikeCount(32L, 1);
+        verify(tweetChangeProducer, times(1)).sendChange(Mockito.argThat(tweetChange ->
+                tweetChange.getType() == TweetChange.Type.LIKED && deltas(31L, 1, 32L, 1).equals(tweetChange.getLikeDeltas())));
+        assertEquals(0, likeCountBuffer.flush());
+        assertEquals(1, writes.size());
+    }
+
+    @Test
+    void testConcurrentLikesWhileFlushingAllWritten() throws Exception {
+        AtomicLong written = new AtomicLong();
+        when(tweetRepository.incrementLikeCounts(Mockito.anyMap())).thenAnswer(invocation -> {
+            Map<Long, Integer> deltas = invocation.getArgument(0);
+            deltas.values().forEach(written::addAndGet);
+            return BulkWriteResult.acknowledged(0, 0, 0, 0, Collections.emptyList(), Collections.emptyList());
+        });
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            long tweetId = i % 2;
+            futures.add(executorService.submit(() -> {
+                for (int j = 0; j < 20_000; j++) {
+                    likeCountBuffer.increment(tweetId, 1);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            while (!future.isDone()) {
+                likeCountBuffer.flush();
+            }
+            future.get();
+        }
+        executorService.shutdown();
+        likeCountBuffer.flush();
+        assertEquals(160_000, written.get());
+    }
+
+    @Test
+    void testDeltaCountedWhileWritten() {
+        List<Integer> pendingWhileWritten = new ArrayList<>();
+        when(tweetRepository.incrementLikeCounts(Mockito.anyMap())).thenAnswer(invocation -> {
+            pendingWhileWritten.add(likeCountBuffer.pendingDelta(31L));
+            likeCountBuffer.increment(31L, 1);
+            pendingWhileWritten.add(likeCountBuffer.pendingDelta(31L));
+            return BulkWriteResult.acknowledged(0, 0, 0, 0, Collections.emptyList(), Collections.emptyList());
+        });
+        doAnswer(invocation -> pendingWhileWritten.add(likeCountBuffer.pendingDelta(31L)))
+                .when(recentTweetBuffer).incrementLikeCount(31L, 2);
+        likeCountBuffer.increment(31L, 1);
+        likeCountBuffer.increment(31L, 1);
+
+        assertEquals(1, likeCountBuffer.flush());
+        // still counted until it reached RecentTweetBuffer
+        assertEquals(Arrays.asList(2, 3, 3), pendingWhileWritten);
+        assertEquals(1, likeCountBuffer.pendingDelta(31L));
+    }
+
+    @Test
+    void testFailedFlushKeptForNextFlush() {
+        when(tweetRepository.incrementLikeCounts(Mockito.anyMap()))
+                .thenThrow(new IllegalStateException("Timed out"))
+                .thenReturn(BulkWriteResult.acknowledged(0, 0, 0, 0, Collections.emptyList(), Collections.emptyList()));
+        likeCountBuffer.increment(31L, 1);
+        likeCountBuffer.increment(31L, 1);
+        assertEquals(0, likeCountBuffer.flush());
+        assertEquals(2, likeCountBuffer.pendingDelta(31L));
+        verify(recentTweetBuffer, never()).incrementLikeCount(Mockito.anyLong(), Mockito.anyInt());
+        verify(tweetChangeProducer, never()).sendChange(Mockito.any(TweetChange.class));
+
+        likeCountBuffer.increment(31L, 1);
+        assertEquals(1, likeCountBuffer.flush());
+        verify(tweetRepository, times(1)).incrementLikeCounts(deltas(31L, 3));
+        verify(recentTweetBuffer, times(1)).incrementLikeCount(31L, 3);
+    }
+
+    @Test
+    void testPartlyFailedFlushRetriesFailedTweets() {
+        when(tweetRepository.incrementLikeCounts(Mockito.anyMap())).thenAnswer(invocation -> {
+            // the update of 32 times out, wherever it is in the bulk write
+            int failedIndex = new ArrayList<Long>(invocation.<Map<Long, Integer>>getArgument(0).keySet()).indexOf(32L);
+            throw new BulkOperationException("Bulk write failed", new MongoBulkWriteException(
+                    BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList(), Collections.emptyList()),
+                    Collections.singletonList(new BulkWriteError(50, "exceeded time limit", new BsonDocument(), failedIndex)),
+                    null, new ServerAddress()));
+        }).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList(), Collections.emptyList()));
+        likeCountBuffer.increment(31L, 1);
+        likeCountBuffer.increment(32L, -1);
+        assertEquals(1, likeCountBuffer.flush());
+        assertEquals(0, likeCountBuffer.pendingDelta(31L));
+        assertEquals(-1, likeCountBuffer.pendingDelta(32L));
+        verify(recentTweetBuffer, times(1)).incrementLikeCount(31L, 1);
+
+        assertEquals(1, likeCountBuffer.flush());
+        verify(tweetRepository, times(1)).incrementLikeCounts(deltas(32L, -1));
+        verify(recentTweetBuffer, times(1)).incrementLikeCount(32L, -1);
+    }
+
+    @Test
+    void testUnusedCountersDroppedAndFlushedOnShutdown() {
+        List<Map<Long, Integer>> writes = recordWrites();
+        likeCountBuffer.increment(31L, 1);
+        assertEquals(1, meterRegistry.get("tweet.like.count.pending").gauge().value());
+        likeCountBuffer.flush();
+        likeCountBuffer.flush();
+        assertEquals(0, meterRegistry.get("tweet.like.count.pending").gauge().value());
+
+        likeCountBuffer.increment(31L, 1);
+        likeCountBuffer.flushOnShutdown();
+        assertEquals(2, writes.size());
+        assertEquals(deltas(31L, 1), writes.get(1));
+    }
+
+    private List<Map<Long, Integer>> recordWrites() {
+        List<Map<Long, Integer>> writes = new ArrayList<>();
+        when(tweetRepository.incrementLikeCounts(Mockito.anyMap())).thenAnswer(invocation -> {
+            writes.add(new HashMap<>(invocation.getArgument(0)));
+            return BulkWriteResult.acknowledged(0, 0, 0, 0, Collections.emptyList(), Collections.emptyList());
+        });
+        return writes;
+    }
+
+    private static Map<Long, Integer> deltas(Object... tweetIdsAndDeltas) {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        for (int i = 0; i < tweetIdsAndDeltas.length; i += 2) {
+            deltas.put((Long) tweetIdsAndDeltas[i], (Integer) tweetIdsAndDeltas[i + 1]);
+        }
+        return deltas;
+    }
+}
@@ -0,0 +1,152 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.entity.TweetLikeCount;
+import com.tweetapp.repository.TweetLikeRepository;
+import com.tweetapp.util.TestUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LikeCountReconcilerTest {
+
+    @InjectMocks
+    LikeCountReconciler likeCountReconciler;
+
+    @Mock
+    MongoOperations mongoOperations;
+
+    @Mock
+    TweetLikeRepository tweetLikeRepository;
+
+    @Mock
+    BulkOperations bulkOperations;
+
+    @Mock
+    LikeCountBuffer likeCountBuffer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(likeCountReconciler, "settle", Duration.ZERO);
+    }
+
+    @Test
+    void testReconcileLikeCounts() {
+        List<TweetEntity> tweetEntityList = TestUtil.sampleTweetEntityList();
+        tweetEntityList.get(0).setLikeCount(2);
+        tweetEntityList.get(1).setLikeCount(0);
+        when(mongoOperations.stream(Mockito.any(Query.class), Mockito.eq(TweetEntity.class)))
+                .thenReturn(closeableIterator(tweetEntityList));
+        when(tweetLikeRepository.aggregateLikeCounts(Mockito.anyCollection()))
+                .thenReturn(Collections.singletonList(new TweetLikeCount(31L, 3)));
+        when(mongoOperations.find(Mockito.any(Query.class), Mockito.eq(TweetEntity.class)))
+                .thenReturn(Collections.singletonList(likeCount(31L, 2)));
+        when(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, TweetEntity.class)).thenReturn(bulkOperations);
+        assertEquals(1, likeCountReconciler.reconcileLikeCounts());
+        verify(bulkOperations, times(1)).updateOne(Mockito.any(Query.class), Mockito.any(Update.class));
+        verify(bulkOperations, times(1)).execute();
+    }
+
+    @Test
+    void testReconcileLikeCountsNoDrift() {
+        List<TweetEntity> tweetEntityList = TestUtil.sampleTweetEntityList();
+        tweetEntityList.get(0).setLikeCount(3);
+        tweetEntityList.get(1).setLikeCount(0);
+        when(mongoOperations.stream(Mockito.any(Query.class), Mockito.eq(TweetEntity.class)))
+                .thenReturn(closeableIterator(tweetEntityList));
+        when(tweetLikeRepository.aggregateLikeCounts(Mockito.anyCollection()))
+                .thenReturn(Collections.singletonList(new TweetLikeCount(31L, 3)));
+        assertEquals(0, likeCountReconciler.reconcileLikeCounts());
+        verify(mongoOperations, never()).bulkOps(BulkOperations.BulkMode.UNORDERED, TweetEntity.class);
+    }
+
+    @Test
+    void testReconcileLikeCountsSkipsUnflushedLikes() {
+        List<TweetEntity> tweetEntityList = TestUtil.sampleTweetEntityList();
+        tweetEntityList.get(0).setLikeCount(2);
+        tweetEntityList.get(1).setLikeCount(0);
+        when(mongoOperations.stream(Mockito.any(Query.class), Mockito.eq(TweetEntity.class)))
+                .thenReturn(closeableIterator(tweetEntityList));
+        when(tweetLikeRepository.aggregateLikeCounts(Mockito.anyCollection()))
+                .thenReturn(Collections.singletonList(new TweetLikeCount(31L, 3)));
+        when(likeCountBuffer.pendingDelta(31L)).thenReturn(1);
+        assertEquals(0, likeCountReconciler.reconcileLikeCounts());
+        verify(mongoOperations, never()).bulkOps(BulkOperations.BulkMode.UNORDERED, TweetEntity.class);
+    }
+
+    @Test
+    void testReconcileLikeCountsSkipsCounterFlushedMeanwhile() {
+        // the like counted was still pending on another instance and got flushed while settling
+        List<TweetEntity> tweetEntityList = TestUtil.sampleTweetEntityList();
+        tweetEntityList.get(0).setLikeCount(2);
+        tweetEntityList.get(1).setLikeCount(0);
+        when(mongoOperations.stream(Mockito.any(Query.class), Mockito.eq(TweetEntity.class)))
+                .thenReturn(closeableIterator(tweetEntityList));
+        when(tweetLikeRepository.aggregateLikeCounts(Mockito.anyCollection()))
+                .thenReturn(Collections.singletonList(new TweetLikeCount(31L, 3)));
+        when(mongoOperations.find(Mockito.any(Query.class), Mockito.eq(TweetEntity.class)))
+                .thenReturn(Collections.singletonList(likeCount(31L, 3)));
+        when(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, TweetEntity.class)).thenReturn(bulkOperations);
+        assertEquals(0, likeCountReconciler.reconcileLikeCounts());
+        verify(bulkOperations, never()).execute();
+    }
+
+    @Test
+    void testReconcileLikeCountsSkipsLikedMeanwhile() {
+        List<TweetEntity> tweetEntityList = TestUtil.sampleTweetEntityList();
+        tweetEntityList.get(0).setLikeCount(2);
+        tweetEntityList.get(1).setLikeCount(0);
+        when(mongoOperations.stream(Mockito.any(Query.class), Mockito.eq(TweetEntity.class)))
+                .thenReturn(closeableIterator(tweetEntityList));
+        when(tweetLikeRepository.aggregateLikeCounts(Mockito.anyCollection()))
+                .thenReturn(Collections.singletonList(new TweetLikeCount(31L, 3)))
+                .thenReturn(Collections.singletonList(new TweetLikeCount(31L, 4)));
+        when(mongoOperations.find(Mockito.any(Query.class), Mockito.eq(TweetEntity.class)))
+                .thenReturn(Collections.singletonList(likeCount(31L, 2)));
+        when(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, TweetEntity.class)).thenReturn(bulkOperations);
+        assertEquals(0, likeCountReconciler.reconcileLikeCounts());
+        verify(bulkOperations, never()).execute();
+    }
+
+    private static TweetEntity likeCount(Long tweetId, Integer likeCount) {
+        return TweetEntity.builder().tweetId(tweetId).likeCount(likeCount).build();
+    }
+
+    private static <T> CloseableIterator<T> closeableIterator(List<T> list) {
+        Iterator<T> iterator = list.iterator();
+        return new CloseableIterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,100 @@
+package com.tweetapp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+class PasswordHasherTest {
+
+    @InjectMocks
+    PasswordHasher passwordHasher;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(passwordHasher, "bcryptCost", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHasher.shutdownHasher();
+    }
+
+    @Test
+    void testHashAndMatch() {
+        passwordHasher.initHasher();
+        String hash = passwordHasher.hash("secret");
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertNotEquals(hash, passwordHasher.hash("secret"));
+        assertTrue(passwordHasher.matches("secret", hash));
+        assertFalse(passwordHasher.matches("Secret", hash));
+        assertFalse(passwordHasher.matches(null, hash));
+        assertFalse(passwordHasher.needsUpgrade(hash));
+    }
+
+    @Test
+    void testPasswordSavedBeforeHashing() {
+        passwordHasher.initHasher();
+        assertTrue(passwordHasher.matches("test", "test"));
+        assertFalse(passwordHasher.matches("test1", "test"));
+        assertTrue(passwordHasher.needsUpgrade("test"));
+        ReflectionTestUtils.setField(passwordHasher, "bcryptCost", 5);
+        passwordHasher.initHasher();
+        assertTrue(passwordHasher.needsUpgrade(new BCryptPasswordEncoder(4).encode("test")));
+        assertFalse(passwordHasher.needsUpgrade(null));
+    }
+
+    @Test
+    void testFullQueueRejected() {
+        ReflectionTestUtils.setField(passwordHasher, "bcryptCost", 10);
+        ReflectionTestUtils.setField(passwordHasher, "hashThreads", 1);
+        ReflectionTestUtils.setField(passwordHasher, "queueSize", 2);
+        passwordHasher.initHasher();
+        List<CompletableFuture<String>> hashes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            hashes.add(passwordHasher.hashAsync("secret"));
+        }
+        assertThrows(RejectedExecutionException.class, () -> passwordHasher.hashAsync("secret"));
+        assertThrows(RejectedExecutionException.class, () -> passwordHasher.hash("secret"));
+        assertEquals(2, meterRegistry.get("user.password.hash.rejected").counter().count());
+        hashes.forEach(CompletableFuture::join);
+        assertEquals(0, meterRegistry.get("user.password.hash.queued").gauge().value());
+        assertTrue(passwordHasher.matches("secret", passwordHasher.hash("secret")));
+    }
+
+    @Test
+    void testHashNotDoneInTimeGivenUp() {
+        ReflectionTestUtils.setField(passwordHasher, "bcryptCost", 12);
+        ReflectionTestUtils.setField(passwordHasher, "hashThreads", 1);
+        ReflectionTestUtils.setField(passwordHasher, "timeout", Duration.ofMillis(20));
+        passwordHasher.initHasher();
+        assertThrows(RejectedExecutionException.class, () -> passwordHasher.hash("secret"));
+        CompletionException e = assertThrows(CompletionException.class, passwordHasher.hashAsync("secret")::join);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertEquals(2, meterRegistry.get("user.password.hash.rejected").counter().count());
+    }
+}
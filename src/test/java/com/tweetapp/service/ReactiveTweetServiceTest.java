@@ -0,0 +1,196 @@
+package com.tweetapp.service;
+
+import com.tweetapp.consumer.ConsumerLagMonitor;
+import com.tweetapp.entity.TweetChange;
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.entity.TweetLikeEntity;
+import com.tweetapp.model.TweetResponse;
+import com.tweetapp.producer.TweetChangeProducer;
+import com.tweetapp.producer.TweetProducer;
+import com.tweetapp.repository.ReactiveTweetLikeRepository;
+import com.tweetapp.repository.ReactiveTweetRepository;
+import com.tweetapp.repository.ReactiveUserRepository;
+import com.tweetapp.util.TestUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveTweetServiceTest {
+
+    @InjectMocks
+    ReactiveTweetServiceImpl tweetService;
+
+    @Mock
+    ReactiveTweetRepository tweetRepository;
+
+    @Mock
+    ReactiveUserRepository userRepository;
+
+    @Mock
+    ReactiveTweetLikeRepository tweetLikeRepository;
+
+    @Mock
+    SequenceService sequenceService;
+
+    @Mock
+    TweetProducer tweetProducer;
+
+    @Mock
+    ReactiveUserService userService;
+
+    @Mock
+    ConsumerLagMonitor consumerLagMonitor;
+
+    @Mock
+    TweetSearchIndex tweetSearchIndex;
+
+    @Mock
+    LikeCountBuffer likeCountBuffer;
+
+    @Mock
+    TweetChangeProducer tweetChangeProducer;
+
+    @Test
+    void testGetAllTweets() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetRepository.findPage(Mockito.any(), Mockito.any(), Mockito.anyInt()))
+                .thenReturn(Flux.fromIterable(TestUtil.sampleTweetEntityList()));
+        when(tweetLikeRepository.aggregateLikeCounts(Mockito.anyCollection()))
+                .thenReturn(Flux.fromIterable(TestUtil.sampleTweetLikeCountList()));
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token", null, null).block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3, response.getBody().getTweetList().get(0).getLikeCount());
+    }
+
+    @Test
+    void testGetAllTweetsEmptyTweet() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetRepository.findPage(Mockito.any(), Mockito.any(), Mockito.anyInt())).thenReturn(Flux.empty());
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token", null, null).block();
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testGetAllTweetsException() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetRepository.findPage(Mockito.any(), Mockito.any(), Mockito.anyInt())).thenReturn(Flux.error(new NullPointerException()));
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token", null, null).block();
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+
+    @Test
+    void testGetAllTweetsOfUserNotFound() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userRepository.findByLoginId(Mockito.anyString())).thenReturn(Mono.empty());
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweetsOfUser("token", "Akash", null, null).block();
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+
+    @Test
+    void testPostNewTweet() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userRepository.findByLoginId(Mockito.anyString())).thenReturn(Mono.just(TestUtil.sampleUserEntity()));
+        when(sequenceService.getNextSequence(Mockito.anyString())).thenReturn(408L);
+        when(tweetProducer.sendMessage(Mockito.any(TweetEntity.class))).thenReturn(new SettableListenableFuture<>());
+        ResponseEntity<TweetResponse> response = tweetService.postNewTweet("token", "Akash", TestUtil.sampleTweet()).block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(tweetProducer, times(1)).sendMessage(Mockito.any(TweetEntity.class));
+    }
+
+    @Test
+    void testPostNewTweetBackpressured() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(consumerLagMonitor.isBackpressured()).thenReturn(true);
+        when(consumerLagMonitor.getRetryAfter()).thenReturn(Duration.ofSeconds(5));
+        ResponseEntity<TweetResponse> response = tweetService.postNewTweet("token", "Akash", TestUtil.sampleTweet()).block();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("5", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(tweetProducer, never()).sendMessage(Mockito.any(TweetEntity.class));
+    }
+
+    @Test
+    void testUpdateTweetEmptyTweet() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userRepository.findByLoginId(Mockito.anyString())).thenReturn(Mono.just(TestUtil.sampleUserEntity()));
+        when(tweetRepository.findById(Mockito.anyLong())).thenReturn(Mono.empty());
+        ResponseEntity<TweetResponse> response = tweetService.updateTweet("token", "Aman", 7L, TestUtil.sampleTweet()).block();
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testUpdateTweetReindexed() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userRepository.findByLoginId(Mockito.anyString())).thenReturn(Mono.just(TestUtil.sampleUserEntity()));
+        when(tweetRepository.findById(7L)).thenReturn(Mono.just(TestUtil.sampleTweetEntityList().get(0)));
+        when(tweetRepository.updateTweetDesc(7L, "Visiting Betul ;-)")).thenReturn(Mono.empty());
+        ResponseEntity<TweetResponse> response = tweetService.updateTweet("token", "Aman", 7L, TestUtil.sampleTweet()).block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(tweetSearchIndex).update(7L, "My first tweet", "Visiting Betul ;-)");
+        verify(tweetChangeProducer).sendChange(Mockito.argThat(tweetChange -> tweetChange.getType() == TweetChange.Type.UPDATED
+                && "My first tweet".equals(tweetChange.getOldTweetDesc())));
+    }
+
+    @Test
+    void testDeleteTweetRemovedFromSearch() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userRepository.findByLoginId(Mockito.anyString())).thenReturn(Mono.just(TestUtil.sampleUserEntity()));
+        when(tweetRepository.findById(12L)).thenReturn(Mono.just(TestUtil.sampleTweetEntityList().get(0)));
+        when(tweetRepository.deleteById(12L)).thenReturn(Mono.empty());
+        ResponseEntity<TweetResponse> response = tweetService.deleteTweet("token", "Aman", 12L).block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(tweetSearchIndex).remove(12L, "My first tweet");
+        verify(tweetChangeProducer).sendChange(Mockito.argThat(tweetChange -> tweetChange.getType() == TweetChange.Type.DELETED
+                && "My first tweet".equals(tweetChange.getOldTweetDesc())));
+    }
+
+    @Test
+    void testLikeTweet() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userRepository.findByLoginId(Mockito.anyString())).thenReturn(Mono.just(TestUtil.sampleUserEntity()));
+        when(tweetRepository.findById(Mockito.anyLong())).thenReturn(Mono.just(TestUtil.sampleTweetEntityList().get(0)));
+        when(tweetLikeRepository.findByUserIdAndTweetId(Mockito.anyLong(), Mockito.anyLong())).thenReturn(Mono.empty());
+        when(sequenceService.getNextSequence(Mockito.anyString())).thenReturn(5L);
+        when(tweetLikeRepository.save(Mockito.any(TweetLikeEntity.class)))
+                .thenReturn(Mono.just(TestUtil.sampleTweetLikeEntityList().get(0)));
+        ResponseEntity<TweetResponse> response = tweetService.likeTweet("token", "Aman", 7L).block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(likeCountBuffer, times(1)).increment(7L, 1);
+    }
+
+    @Test
+    void testUnlikeTweet() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userRepository.findByLoginId(Mockito.anyString())).thenReturn(Mono.just(TestUtil.sampleUserEntity()));
+        when(tweetRepository.findById(Mockito.anyLong())).thenReturn(Mono.just(TestUtil.sampleTweetEntityList().get(0)));
+        when(tweetLikeRepository.findByUserIdAndTweetId(Mockito.anyLong(), Mockito.anyLong()))
+                .thenReturn(Mono.just(TestUtil.sampleTweetLikeEntityList().get(0)));
+        when(tweetLikeRepository.deleteByTweetLikeId(Mockito.anyLong())).thenReturn(Mono.just(1L));
+        ResponseEntity<TweetResponse> response = tweetService.likeTweet("token", "Aman", 7L).block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(tweetLikeRepository, never()).save(Mockito.any(TweetLikeEntity.class));
+        verify(likeCountBuffer, times(1)).increment(7L, -1);
+    }
+
+    @Test
+    void testReplyToTweetNotFound() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetRepository.findById(Mockito.anyLong())).thenReturn(Mono.empty());
+        ResponseEntity<TweetResponse> response = tweetService.replyToTweet("token", "Akash", 1L, TestUtil.sampleTweet()).block();
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+}
@@ -0,0 +1,177 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.model.User;
+import com.tweetapp.model.UserResponse;
+import com.tweetapp.repository.ReactiveUserRepository;
+import com.tweetapp.util.TestUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveUserServiceTest {
+
+    @InjectMocks
+    ReactiveUserServiceImpl userService;
+
+    @Mock
+    ReactiveUserRepository userRepository;
+
+    @Mock
+    SequenceService sequenceService;
+
+    @Mock
+    JwtUtil jwtutil;
+
+    @Mock
+    UserPrefixIndex userPrefixIndex;
+
+    @Mock
+    PasswordHasher passwordHasher;
+
+    @Test
+    void testRegisterUserPasswordConflict() {
+        User user = TestUtil.sampleUser();
+        user.setConfirmPassword("test1");
+        ResponseEntity<UserResponse> response = userService.registerUser(user).block();
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    void testRegisterUserEmailConflict() {
+        when(userRepository.findByLoginId(Mockito.anyString())).thenReturn(Mono.empty());
+        when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Mono.just(TestUtil.sampleUserEntity()));
+        ResponseEntity<UserResponse> response = userService.registerUser(TestUtil.sampleUser()).block();
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    void testRegisterUser() {
+        when(userRepository.findByLoginId(Mockito.anyString())).thenReturn(Mono.empty());
+        when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Mono.empty());
+        when(sequenceService.getNextSequence(Mockito.anyString())).thenReturn(123L);
+        when(passwordHasher.hashAsync("test")).thenReturn(CompletableFuture.completedFuture("$2a$10$hash"));
+        when(userRepository.save(Mockito.any(UserEntity.class))).thenReturn(Mono.just(TestUtil.sampleUserEntity()));
+        ResponseEntity<UserResponse> response = userService.registerUser(TestUtil.sampleUser()).block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(userRepository).save(Mockito.argThat(userEntity -> "$2a$10$hash".equals(userEntity.getPassword())));
+        verify(userPrefixIndex).add(Mockito.any(UserEntity.class));
+    }
+
+    @Test
+    void testLogin() {
+        when(userRepository.findByLoginId("aman")).thenReturn(Mono.just(TestUtil.sampleUserEntity()));
+        when(passwordHasher.matchesAsync("dontTellAnyone", "dontTellAnyone")).thenReturn(CompletableFuture.completedFuture(true));
+        ResponseEntity<UserResponse> response = userService.login("aman", TestUtil.sampleUserEntity().getPassword()).block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void testLoginUpgradesPassword() {
+        UserEntity userEntity = TestUtil.sampleUserEntity();
+        when(userRepository.findByLoginId("aman")).thenReturn(Mono.just(userEntity));
+        when(passwordHasher.matchesAsync("dontTellAnyone", "dontTellAnyone")).thenReturn(CompletableFuture.completedFuture(true));
+        when(passwordHasher.needsUpgrade("dontTellAnyone")).thenReturn(true);
+        when(passwordHasher.hashAsync("dontTellAnyone")).thenReturn(CompletableFuture.completedFuture("$2a$10$hash"));
+        when(userRepository.updatePassword(userEntity.getUserId(), "$2a$10$hash")).thenReturn(Mono.empty());
+        ResponseEntity<UserResponse> response = userService.login("aman", "dontTellAnyone").block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("$2a$10$hash", userEntity.getPassword());
+        verify(userRepository).updatePassword(userEntity.getUserId(), "$2a$10$hash");
+        verify(userRepository, never()).save(Mockito.any(UserEntity.class));
+    }
+
+    @Test
+    void testLoginHasherBusy() {
+        when(userRepository.findByLoginId("aman")).thenReturn(Mono.just(TestUtil.sampleUserEntity()));
+        when(passwordHasher.matchesAsync("dontTellAnyone", "dontTellAnyone")).thenThrow(new RejectedExecutionException("Queue full"));
+        when(passwordHasher.getRetryAfter()).thenReturn(Duration.ofSeconds(1));
+        ResponseEntity<UserResponse> response = userService.login("aman", "dontTellAnyone").block();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
+    @Test
+    void testLoginWrongPassword() {
+        when(userRepository.findByLoginId("aman")).thenReturn(Mono.just(TestUtil.sampleUserEntity()));
+        when(passwordHasher.matchesAsync("wrong-password", "dontTellAnyone")).thenReturn(CompletableFuture.completedFuture(false));
+        ResponseEntity<UserResponse> response = userService.login("aman", "wrong-password").block();
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    void testLoginException() {
+        when(userRepository.findByLoginId(Mockito.anyString())).thenReturn(Mono.error(new NullPointerException()));
+        ResponseEntity<UserResponse> response = userService.login("akash", "wrong-password").block();
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+
+    @Test
+    void testResetPassword() {
+        when(userRepository.findByLoginId(Mockito.anyString())).thenReturn(Mono.just(TestUtil.sampleUserEntity()));
+        when(passwordHasher.hashAsync("test")).thenReturn(CompletableFuture.completedFuture("$2a$10$hash"));
+        when(userRepository.updatePassword(TestUtil.sampleUserEntity().getUserId(), "$2a$10$hash")).thenReturn(Mono.empty());
+        ResponseEntity<UserResponse> response = userService.resetPassword("Aman", User.builder()
+                .email(TestUtil.sampleUserEntity().getEmail())
+                .password("test")
+                .confirmPassword("test")
+                .contactNumber(TestUtil.sampleUserEntity().getContactNumber())
+                .build()).block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(userRepository, never()).save(Mockito.any(UserEntity.class));
+    }
+
+    @Test
+    void testResetPasswordEmailNotMatched() {
+        when(userRepository.findByLoginId(Mockito.anyString())).thenReturn(Mono.just(TestUtil.sampleUserEntity()));
+        ResponseEntity<UserResponse> response = userService.resetPassword("Aman", User.builder()
+                .email("wrong@mail.com")
+                .password("test")
+                .confirmPassword("test")
+                .contactNumber(TestUtil.sampleUserEntity().getContactNumber())
+                .build()).block();
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    void testGetAllUsersNotFound() {
+        when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userRepository.findAll()).thenReturn(Flux.empty());
+        ResponseEntity<UserResponse> response = userService.getAllUsers("tokentokentokentoken").block();
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testSearchByUserName() {
+        when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userRepository.findByLoginIdLike(Mockito.anyString())).thenReturn(Flux.just(TestUtil.sampleUserEntity()));
+        ResponseEntity<UserResponse> response = userService.searchByUserName("tokentokentokentoken", "A").block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void testSearchByUserNameIgnoresPrefixIndex() {
+        when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userRepository.findByLoginIdLike("am")).thenReturn(Flux.just(TestUtil.sampleUserEntity()));
+        ResponseEntity<UserResponse> response = userService.searchByUserName("tokentokentokentoken", "am").block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verifyNoInteractions(userPrefixIndex);
+    }
+}
@@ -0,0 +1,150 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.repository.TweetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecentTweetBufferTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2021, 6, 1, 12, 0);
+
+    @InjectMocks
+    RecentTweetBuffer recentTweetBuffer;
+
+    @Mock
+    TweetRepository tweetRepository;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(recentTweetBuffer, "capacity", 4);
+        recentTweetBuffer.initBuffer();
+    }
+
+    @Test
+    void testNotServedBeforeRebuild() {
+        recentTweetBuffer.append(tweet(1L, 1));
+        assertFalse(recentTweetBuffer.newest(1).isPresent());
+    }
+
+    @Test
+    void testRebuildAndAppendKeepFeedOrder() {
+        when(tweetRepository.findPage(null, null, 4)).thenReturn(Arrays.asList(tweet(2L, 2), tweet(1L, 1)));
+        recentTweetBuffer.rebuild();
+        recentTweetBuffer.append(tweet(4L, 4));
+        recentTweetBuffer.append(tweet(3L, 3));
+        recentTweetBuffer.append(tweet(4L, 4));
+        assertEquals(Arrays.asList(4L, 3L, 2L, 1L), tweetIds(recentTweetBuffer.newest(10).get()));
+        TweetEntity newest = recentTweetBuffer.newest(1).get().get(0);
+        assertEquals(NOW.plusSeconds(4), newest.getCreatedDate());
+        assertEquals(7L, newest.getUserId());
+        assertNull(newest.getParentTweetId());
+        assertEquals(0, newest.getLikeCount());
+    }
+
+    @Test
+    void testEvictionStopsServingShortPages() {
+        when(tweetRepository.findPage(null, null, 4)).thenReturn(Collections.emptyList());
+        recentTweetBuffer.rebuild();
+        assertTrue(recentTweetBuffer.newest(3).get().isEmpty());
+        for (long tweetId = 1; tweetId <= 5; tweetId++) {
+            recentTweetBuffer.append(tweet(tweetId, (int) tweetId));
+        }
+        recentTweetBuffer.append(tweet(0L, 0));
+        assertEquals(4, recentTweetBuffer.size());
+        assertEquals(Arrays.asList(5L, 4L, 3L), tweetIds(recentTweetBuffer.newest(3).get()));
+        recentTweetBuffer.remove(4L);
+        assertEquals(Arrays.asList(5L, 3L, 2L), tweetIds(recentTweetBuffer.newest(3).get()));
+        assertFalse(recentTweetBuffer.newest(4).isPresent());
+    }
+
+    @Test
+    void testLikeCountAndDescriptionUpdates() {
+        when(tweetRepository.findPage(null, null, 4)).thenReturn(Collections.singletonList(tweet(1L, 1)));
+        recentTweetBuffer.rebuild();
+        recentTweetBuffer.incrementLikeCount(1L, 1);
+        recentTweetBuffer.incrementLikeCount(1L, 1);
+        recentTweetBuffer.incrementLikeCount(9L, 1);
+        recentTweetBuffer.updateTweetDesc(1L, "edited");
+        TweetEntity tweetEntity = recentTweetBuffer.newest(1).get().get(0);
+        assertEquals(2, tweetEntity.getLikeCount());
+        assertEquals("edited", tweetEntity.getTweetDesc());
+    }
+
+    @Test
+    void testLikesFlushedElsewhereAfterRebuildApplied() {
+        when(tweetRepository.findPage(null, null, 4)).thenReturn(Collections.singletonList(tweet(1L, 1)));
+        long beforeRebuild = System.currentTimeMillis() - 1;
+        recentTweetBuffer.rebuild();
+        // already in the like count read from Mongo
+        recentTweetBuffer.incrementLikeCounts(Collections.singletonMap(1L, 5), beforeRebuild);
+        recentTweetBuffer.incrementLikeCounts(Collections.singletonMap(1L, 2), System.currentTimeMillis());
+        assertEquals(2, recentTweetBuffer.newest(1).get().get(0).getLikeCount());
+    }
+
+    @Test
+    void testDescriptionsArePooled() {
+        when(tweetRepository.findPage(null, null, 4)).thenReturn(Collections.emptyList());
+        recentTweetBuffer.rebuild();
+        long emptyFootprint = recentTweetBuffer.footprintBytes();
+        recentTweetBuffer.append(tweet(1L, 1));
+        long pooledFootprint = recentTweetBuffer.footprintBytes();
+        TweetEntity copy = tweet(2L, 2);
+        copy.setTweetDesc(new String(copy.getTweetDesc()));
+        recentTweetBuffer.append(copy);
+        List<TweetEntity> tweetEntityList = recentTweetBuffer.newest(2).get();
+        assertSame(tweetEntityList.get(0).getTweetDesc(), tweetEntityList.get(1).getTweetDesc());
+        assertEquals(pooledFootprint, recentTweetBuffer.footprintBytes());
+        recentTweetBuffer.remove(1L);
+        recentTweetBuffer.remove(2L);
+        assertEquals(emptyFootprint, recentTweetBuffer.footprintBytes());
+        assertEquals(0.0, meterRegistry.get("tweet.recent.buffer.size").gauge().value());
+    }
+
+    @Test
+    void testRebuildFailureKeepsBufferUnused() {
+        when(tweetRepository.findPage(Mockito.any(), Mockito.any(), Mockito.anyInt())).thenThrow(NullPointerException.class);
+        recentTweetBuffer.rebuild();
+        assertFalse(recentTweetBuffer.newest(1).isPresent());
+    }
+
+    private static TweetEntity tweet(Long tweetId, int second) {
+        return TweetEntity.builder()
+                .tweetId(tweetId)
+                .userId(7L)
+                .tweetDesc("gm")
+                .createdDate(NOW.plusSeconds(second))
+                .likeCount(0)
+                .build();
+    }
+
+    private static List<Long> tweetIds(List<TweetEntity> tweetEntityList) {
+        return tweetEntityList.stream().map(TweetEntity::getTweetId).collect(Collectors.toList());
+    }
+}
@@ -1,19 +1,33 @@
 package com.tweetapp.service;
 
+import com.tweetapp.config.SequenceProperties;
 import com.tweetapp.entity.IdSequence;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class SequenceServiceTest {
@@ -24,13 +38,63 @@ class SequenceServiceTest {
     @Mock
     MongoOperations mongoOperations;
 
+    @Spy
+    SequenceProperties sequenceProperties = new SequenceProperties();
+
     @Test
     void testGetNextSequence() {
         IdSequence idSequence = Mockito.mock(IdSequence.class);
         when(mongoOperations.findAndModify(Mockito.any(Query.class), Mockito.any(Update.class), Mockito.any(FindAndModifyOptions.class), Mockito.any())).thenReturn(idSequence);
-        when(idSequence.getSequence()).thenReturn(1);
-        Integer response = sequenceService.getNextSequence("src/test");
-        assertEquals(1, response);
+        when(idSequence.getSequence()).thenReturn(1000L);
+        Long response = sequenceService.getNextSequence("src/test");
+        assertEquals(1L, response);
+    }
+
+    @Test
+    void testGetNextSequenceServedFromBlock() {
+        when(mongoOperations.findAndModify(Mockito.any(Query.class), Mockito.any(Update.class), Mockito.any(FindAndModifyOptions.class), Mockito.eq(IdSequence.class)))
+                .thenReturn(new IdSequence("tweet", 1000L));
+        for (long expected = 1; expected <= 1000; expected++) {
+            assertEquals(expected, sequenceService.getNextSequence("tweet"));
+        }
+        verify(mongoOperations, times(1)).findAndModify(Mockito.any(Query.class), Mockito.any(Update.class), Mockito.any(FindAndModifyOptions.class), Mockito.eq(IdSequence.class));
+    }
+
+    @Test
+    void testGetNextSequenceReservesNextBlock() {
+        sequenceProperties.getBlockSize().put("user", 2);
+        when(mongoOperations.findAndModify(Mockito.any(Query.class), Mockito.any(Update.class), Mockito.any(FindAndModifyOptions.class), Mockito.eq(IdSequence.class)))
+                .thenReturn(new IdSequence("user", 12L), new IdSequence("user", 16L));
+        assertEquals(11L, sequenceService.getNextSequence("user"));
+        assertEquals(12L, sequenceService.getNextSequence("user"));
+        assertEquals(15L, sequenceService.getNextSequence("user"));
+        verify(mongoOperations, times(2)).findAndModify(Mockito.any(Query.class), Mockito.any(Update.class), Mockito.any(FindAndModifyOptions.class), Mockito.eq(IdSequence.class));
+    }
+
+    @Test
+    void testGetNextSequenceUniqueAcrossInstances() throws Exception {
+        sequenceProperties.setDefaultBlockSize(50);
+        AtomicLong storedSequence = new AtomicLong();
+        when(mongoOperations.findAndModify(Mockito.any(Query.class), Mockito.any(Update.class), Mockito.any(FindAndModifyOptions.class), Mockito.eq(IdSequence.class)))
+                .thenAnswer(invocation -> new IdSequence("tweet", storedSequence.addAndGet(50)));
+        SequenceServiceImpl otherInstance = new SequenceServiceImpl();
+        ReflectionTestUtils.setField(otherInstance, "mongoOperations", mongoOperations);
+        ReflectionTestUtils.setField(otherInstance, "sequenceProperties", sequenceProperties);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            SequenceService instance = i % 2 == 0 ? sequenceService : otherInstance;
+            futures.add(executor.submit(() -> instance.getNextSequence("tweet")));
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Future<Long> future : futures) {
+            ids.add(future.get());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(4000, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id > 0 && id <= storedSequence.get()));
     }
 
 }
@@ -0,0 +1,103 @@
+package com.tweetapp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tweetapp.model.Tweet;
+import com.tweetapp.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeSequenceServiceTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    SnowflakeSequenceServiceImpl sequenceService = new SnowflakeSequenceServiceImpl();
+
+    @Test
+    void testGetNextSequenceUniqueAcrossThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                long[] ids = new long[IDS_PER_THREAD];
+                for (int j = 0; j < IDS_PER_THREAD; j++) {
+                    ids[j] = sequenceService.getNextSequence("tweet");
+                }
+                return ids;
+            }));
+        }
+        Set<Long> allIds = new HashSet<>();
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get();
+            for (int j = 0; j < ids.length; j++) {
+                assertTrue(j == 0 || ids[j] > ids[j - 1], "ids of one thread must increase");
+                allIds.add(ids[j]);
+            }
+        }
+        executor.shutdown();
+        assertEquals(THREADS * IDS_PER_THREAD, allIds.size());
+    }
+
+    @Test
+    void testGetNextSequenceLayout() {
+        ReflectionTestUtils.setField(sequenceService, "nodeId", 37L);
+        ReflectionTestUtils.setField(sequenceService, "clock",
+                Clock.fixed(Instant.ofEpochMilli(SnowflakeSequenceServiceImpl.EPOCH + 1234), ZoneOffset.UTC));
+        long first = sequenceService.getNextSequence("tweet");
+        long second = sequenceService.getNextSequence("user");
+        assertEquals(1234, first >>> 22);
+        assertEquals(37, (first >>> 12) & SnowflakeSequenceServiceImpl.MAX_NODE_ID);
+        assertEquals(0, first & SnowflakeSequenceServiceImpl.COUNTER_MASK);
+        assertEquals(first + 1, second);
+    }
+
+    @Test
+    void testGetNextSequenceClockMovedBack() {
+        ReflectionTestUtils.setField(sequenceService, "clock",
+                Clock.fixed(Instant.ofEpochMilli(SnowflakeSequenceServiceImpl.EPOCH + 100_000), ZoneOffset.UTC));
+        long beforeStep = sequenceService.getNextSequence("tweet");
+        ReflectionTestUtils.setField(sequenceService, "clock",
+                Clock.fixed(Instant.ofEpochMilli(SnowflakeSequenceServiceImpl.EPOCH + 99_000), ZoneOffset.UTC));
+        assertTrue(sequenceService.getNextSequence("tweet") > beforeStep);
+        ReflectionTestUtils.setField(sequenceService, "clock",
+                Clock.fixed(Instant.ofEpochMilli(SnowflakeSequenceServiceImpl.EPOCH + 10_000), ZoneOffset.UTC));
+        assertThrows(IllegalStateException.class, () -> sequenceService.getNextSequence("tweet"));
+    }
+
+    @Test
+    void testIdsWrittenAsJsonStrings() throws Exception {
+        long id = sequenceService.getNextSequence("tweet");
+        assertTrue(id > 1L << 53);
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        Tweet tweet = Tweet.builder().tweetId(id).userId(id + 1).parentTweetId(id - 1).build();
+
+        JsonNode tweetJson = objectMapper.valueToTree(tweet);
+        assertEquals(String.valueOf(id), tweetJson.get("tweetId").textValue());
+        assertEquals(String.valueOf(id + 1), tweetJson.get("userId").textValue());
+        assertEquals(String.valueOf(id - 1), tweetJson.get("parentTweetId").textValue());
+        assertEquals(String.valueOf(id), objectMapper.valueToTree(User.builder().userId(id).build()).get("userId").textValue());
+        assertEquals(id, objectMapper.treeToValue(tweetJson, Tweet.class).getTweetId());
+    }
+
+    @Test
+    void testInvalidNodeId() {
+        ReflectionTestUtils.setField(sequenceService, "nodeId", 1024L);
+        assertThrows(IllegalStateException.class, sequenceService::validateNodeId);
+    }
+}
@@ -0,0 +1,148 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.FollowEntity;
+import com.tweetapp.entity.TimelineEntity;
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.repository.FollowRepository;
+import com.tweetapp.repository.TimelineRepository;
+import com.tweetapp.repository.TweetRepository;
+import com.tweetapp.repository.UserRepository;
+import com.tweetapp.util.TestUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimelineServiceTest {
+
+    @InjectMocks
+    TimelineService timelineService;
+
+    @Mock
+    FollowRepository followRepository;
+
+    @Mock
+    TimelineRepository timelineRepository;
+
+    @Mock
+    UserRepository userRepository;
+
+    @Mock
+    TweetRepository tweetRepository;
+
+    @Mock
+    UserCache userCache;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testFanOut() {
+        ReflectionTestUtils.setField(timelineService, "fanOutBatchSize", 2);
+        when(userCache.findById(7L)).thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        when(followRepository.findByFolloweeId(Mockito.eq(7L), Mockito.any(Pageable.class)))
+                .thenReturn(Arrays.asList(follow(1L, 7L), follow(2L, 7L)));
+        int written = timelineService.fanOut(TestUtil.sampleTweetEntityList().get(0));
+        assertEquals(3, written);
+        verify(timelineRepository, times(1)).pushTweet(Arrays.asList(7L, 1L), 31L, 800);
+        verify(timelineRepository, times(1)).pushTweet(Collections.singletonList(2L), 31L, 800);
+        assertEquals(3.0, meterRegistry.get("timeline.fanout.writes").counter().count());
+    }
+
+    @Test
+    void testFanOutCelebrity() {
+        UserEntity celebrity = TestUtil.sampleUserEntity();
+        celebrity.setFollowerCount(10001);
+        when(userCache.findById(7L)).thenReturn(Optional.of(celebrity));
+        int written = timelineService.fanOut(TestUtil.sampleTweetEntityList().get(0));
+        assertEquals(1, written);
+        verify(followRepository, never()).findByFolloweeId(Mockito.anyLong(), Mockito.any(Pageable.class));
+        verify(timelineRepository, times(1)).pushTweet(Collections.singletonList(7L), 31L, 800);
+        verify(userRepository, never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    void testHomeTimelineMergesCelebrityTweets() {
+        LocalDateTime now = LocalDateTime.now();
+        when(timelineRepository.findById(1L)).thenReturn(Optional.of(new TimelineEntity(1L, Arrays.asList(31L, 30L))));
+        when(tweetRepository.findAllById(Arrays.asList(31L, 30L)))
+                .thenReturn(Arrays.asList(tweet(31L, 2L, now.minusMinutes(1)), tweet(30L, 2L, now.minusMinutes(3))));
+        when(followRepository.findByFollowerId(1L)).thenReturn(Arrays.asList(follow(1L, 2L), follow(1L, 9L)));
+        UserEntity celebrity = TestUtil.sampleUserEntity();
+        celebrity.setUserId(9L);
+        when(userRepository.findByUserIdInAndFollowerCountGreaterThan(Arrays.asList(2L, 9L), 10000))
+                .thenReturn(Collections.singletonList(celebrity));
+        when(tweetRepository.findRecentByUserIds(Collections.singletonList(9L), 3))
+                .thenReturn(Arrays.asList(tweet(40L, 9L, now), tweet(35L, 9L, now.minusMinutes(2))));
+        List<Long> tweetIds = timelineService.homeTimeline(1L, 3).stream()
+                .map(TweetEntity::getTweetId).collect(Collectors.toList());
+        assertEquals(Arrays.asList(40L, 31L, 35L), tweetIds);
+    }
+
+    @Test
+    void testHomeTimelineWithoutFollows() {
+        when(timelineRepository.findById(1L)).thenReturn(Optional.empty());
+        when(followRepository.findByFollowerId(1L)).thenReturn(Collections.emptyList());
+        assertEquals(0, timelineService.homeTimeline(1L, 10).size());
+        verify(tweetRepository, never()).findAllById(Mockito.anyIterable());
+        verify(userRepository, never()).findByUserIdInAndFollowerCountGreaterThan(Mockito.anyCollection(), Mockito.anyInt());
+    }
+
+    @Test
+    void testHomeTimelineReadsOnlyLimit() {
+        List<Long> pushed = LongStream.rangeClosed(1, 800).boxed().collect(Collectors.toList());
+        when(timelineRepository.findById(1L)).thenReturn(Optional.of(new TimelineEntity(1L, pushed)));
+        when(tweetRepository.findAllById(pushed.subList(0, 5))).thenReturn(pushed.subList(0, 5).stream()
+                .map(tweetId -> tweet(tweetId, 1L, LocalDateTime.now())).collect(Collectors.toList()));
+        when(followRepository.findByFollowerId(1L)).thenReturn(Collections.emptyList());
+        assertEquals(5, timelineService.homeTimeline(1L, 5).size());
+        verify(tweetRepository, times(1)).findAllById(Mockito.anyIterable());
+    }
+
+    @Test
+    void testHomeTimelineDropsUnfollowedAuthors() {
+        LocalDateTime now = LocalDateTime.now();
+        when(timelineRepository.findById(1L)).thenReturn(Optional.of(new TimelineEntity(1L, Arrays.asList(34L, 33L, 32L, 31L, 30L))));
+        when(tweetRepository.findAllById(Arrays.asList(34L, 33L)))
+                .thenReturn(Arrays.asList(tweet(34L, 5L, now), tweet(33L, 2L, now.minusMinutes(1))));
+        when(tweetRepository.findAllById(Arrays.asList(32L, 31L)))
+                .thenReturn(Arrays.asList(tweet(32L, 5L, now.minusMinutes(2)), tweet(31L, 1L, now.minusMinutes(3))));
+        when(followRepository.findByFollowerId(1L)).thenReturn(Collections.singletonList(follow(1L, 2L)));
+        List<Long> tweetIds = timelineService.homeTimeline(1L, 2).stream()
+                .map(TweetEntity::getTweetId).collect(Collectors.toList());
+        assertEquals(Arrays.asList(33L, 31L), tweetIds);
+        verify(tweetRepository, never()).findAllById(Collections.singletonList(30L));
+    }
+
+    private static FollowEntity follow(Long followerId, Long followeeId) {
+        return FollowEntity.builder()
+                .followId(FollowEntity.followIdOf(followerId, followeeId))
+                .followerId(followerId)
+                .followeeId(followeeId)
+                .build();
+    }
+
+    private static TweetEntity tweet(Long tweetId, Long userId, LocalDateTime createdDate) {
+        return TweetEntity.builder().tweetId(tweetId).userId(userId).createdDate(createdDate).tweetDesc("tweet").build();
+    }
+}
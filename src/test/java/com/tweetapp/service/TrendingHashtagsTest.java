@@ -0,0 +1,180 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.model.Trend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrendingHashtagsTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Duration HOUR = Duration.ofHours(1);
+    private static final Duration SIX_HOURS = Duration.ofHours(6);
+
+    @Test
+    void testExtractHashtags() {
+        assertEquals(Arrays.asList("java", "spring", "café"),
+                new ArrayList<>(TrendingHashtags.extractHashtags("Loving #Java and #spring-boot, #JAVA again #1 mail@x#tag #café")));
+        assertTrue(TrendingHashtags.extractHashtags(null).isEmpty());
+        assertTrue(TrendingHashtags.extractHashtags("no tags # here").isEmpty());
+    }
+
+    @Test
+    void testTrendsRankedPerWindow() {
+        TrendingHashtags trendingHashtags = trendingHashtags(2048);
+        for (int i = 0; i < 3; i++) {
+            trendingHashtags.add(tweet("#Kafka lag again #kafka", NOW));
+        }
+        trendingHashtags.add(tweet("#mongo #kafka", NOW.minus(Duration.ofMinutes(10))));
+        trendingHashtags.add(tweet("#mongo", NOW.plus(Duration.ofMinutes(10))));
+        trendingHashtags.add(tweet("#java", NOW.minus(Duration.ofHours(2))));
+        trendingHashtags.add(tweet("#old", NOW.minus(Duration.ofHours(7))));
+        trendingHashtags.add(tweet("no hashtag", NOW));
+
+        assertEquals(Arrays.asList("kafka=4", "mongo=2"), trends(trendingHashtags, HOUR, 10));
+        assertEquals(Arrays.asList("kafka=4", "mongo=2", "java=1"), trends(trendingHashtags, SIX_HOURS, 10));
+        assertEquals(Collections.singletonList("kafka=4"), trends(trendingHashtags, SIX_HOURS, 1));
+        assertThrows(IllegalArgumentException.class, () -> trendingHashtags.trends(Duration.ofHours(2), 10));
+    }
+
+    @Test
+    void testCreatedDateInDefaultZone() {
+        TimeZone defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try {
+            TrendingHashtags trendingHashtags = new TrendingHashtags();
+            ReflectionTestUtils.setField(trendingHashtags, "meterRegistry", new SimpleMeterRegistry());
+            ReflectionTestUtils.setField(trendingHashtags, "windows", new Duration[]{HOUR, SIX_HOURS});
+            trendingHashtags.initTrends();
+            trendingHashtags.add(TweetEntity.builder().tweetId(1L).tweetDesc("#kafka").createdDate(LocalDateTime.now()).build());
+            assertEquals(Collections.singletonList("kafka=1"), trends(trendingHashtags, HOUR, 10));
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    void testOldBucketsExpire() {
+        TrendingHashtags trendingHashtags = trendingHashtags(2048);
+        trendingHashtags.add(tweet("#kafka", NOW));
+        setClock(trendingHashtags, NOW.plus(Duration.ofMinutes(30)));
+        trendingHashtags.add(tweet("#mongo", NOW.plus(Duration.ofMinutes(30))));
+        setClock(trendingHashtags, NOW.plus(Duration.ofMinutes(65)));
+        assertEquals(Collections.singletonList("mongo=1"), trends(trendingHashtags, HOUR, 10));
+        assertEquals(Arrays.asList("kafka=1", "mongo=1"), trends(trendingHashtags, SIX_HOURS, 10));
+
+        setClock(trendingHashtags, NOW.plus(Duration.ofDays(2)));
+        assertTrue(trends(trendingHashtags, SIX_HOURS, 10).isEmpty());
+        trendingHashtags.add(tweet("#kafka", NOW.plus(Duration.ofDays(2))));
+        assertEquals(Collections.singletonList("kafka=1"), trends(trendingHashtags, HOUR, 10));
+    }
+
+    @Test
+    void testWindowNotMultipleOfBucket() {
+        TrendingHashtags trendingHashtags = new TrendingHashtags();
+        ReflectionTestUtils.setField(trendingHashtags, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(trendingHashtags, "windows", new Duration[]{Duration.ofMinutes(7)});
+        assertThrows(IllegalStateException.class, trendingHashtags::initTrends);
+    }
+
+    /**
+     * Counts a Zipf distributed stream of 20,000 distinct hashtags exactly and with sketches
+     * of two widths: the wider sketch finds the real top 10 with counts a few percent too
+     * high at most, the narrow one is less accurate, and neither grows with the hashtags seen
+     */
+    @Test
+    void testAccuracyAgainstExactCountsOnZipfStream() {
+        int vocabulary = 20_000;
+        int tweets = 200_000;
+        double[] cumulative = new double[vocabulary];
+        double total = 0;
+        for (int i = 0; i < vocabulary; i++) {
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+        Random random = new Random(7);
+        List<String> stream = new ArrayList<>(tweets);
+        Map<String, Long> exactCounts = new HashMap<>();
+        for (int i = 0; i < tweets; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            String hashtag = "tag" + (index < 0 ? -index - 1 : index);
+            stream.add(hashtag);
+            exactCounts.merge(hashtag, 1L, Long::sum);
+        }
+        List<String> exactTop = exactCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(10).map(Map.Entry::getKey).collect(Collectors.toList());
+
+        TrendingHashtags narrow = trendingHashtags(128);
+        TrendingHashtags wide = trendingHashtags(2048);
+        long narrowFootprint = narrow.footprintBytes();
+        long wideFootprint = wide.footprintBytes();
+        for (String hashtag : stream) {
+            narrow.add(tweet("#" + hashtag, NOW));
+            wide.add(tweet("#" + hashtag, NOW));
+        }
+
+        List<Trend> wideTop = wide.trends(HOUR, 10);
+        long found = wideTop.stream().filter(trend -> exactTop.contains(trend.getHashtag())).count();
+        assertTrue(found >= 9, "found " + found + " of the top 10");
+        for (Trend trend : wideTop) {
+            long exact = exactCounts.get(trend.getHashtag());
+            assertTrue(trend.getTweetCount() >= exact);
+            assertTrue(trend.getTweetCount() - exact <= exact * 0.05, trend.getHashtag() + " counted " + trend.getTweetCount() + " of " + exact);
+        }
+        assertTrue(meanRelativeError(narrow.trends(HOUR, 10), exactCounts) > meanRelativeError(wideTop, exactCounts));
+        assertTrue(narrowFootprint < wideFootprint);
+        // only the hashtags on the heaps of the two windows are added, however many were seen
+        assertTrue(wide.footprintBytes() - wideFootprint <= 2 * 50 * 200);
+        assertTrue(narrow.footprintBytes() - narrowFootprint <= 2 * 50 * 200);
+    }
+
+    private static double meanRelativeError(List<Trend> trendList, Map<String, Long> exactCounts) {
+        return trendList.stream()
+                .mapToDouble(trend -> (trend.getTweetCount() - exactCounts.get(trend.getHashtag())) / (double) exactCounts.get(trend.getHashtag()))
+                .average().orElse(0);
+    }
+
+    private static TrendingHashtags trendingHashtags(int width) {
+        TrendingHashtags trendingHashtags = new TrendingHashtags();
+        ReflectionTestUtils.setField(trendingHashtags, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(trendingHashtags, "windows", new Duration[]{HOUR, SIX_HOURS});
+        ReflectionTestUtils.setField(trendingHashtags, "width", width);
+        setClock(trendingHashtags, NOW);
+        trendingHashtags.initTrends();
+        return trendingHashtags;
+    }
+
+    private static void setClock(TrendingHashtags trendingHashtags, Instant now) {
+        ReflectionTestUtils.setField(trendingHashtags, "clock", Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static List<String> trends(TrendingHashtags trendingHashtags, Duration window, int limit) {
+        return trendingHashtags.trends(window, limit).stream()
+                .map(trend -> trend.getHashtag() + "=" + trend.getTweetCount()).collect(Collectors.toList());
+    }
+
+    private static TweetEntity tweet(String tweetDesc, Instant createdAt) {
+        return TweetEntity.builder().tweetId(1L).tweetDesc(tweetDesc).createdDate(LocalDateTime.ofInstant(createdAt, ZoneOffset.UTC)).build();
+    }
+}
@@ -0,0 +1,205 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.repository.TweetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TweetSearchIndexTest {
+
+    @InjectMocks
+    TweetSearchIndex tweetSearchIndex;
+
+    @Mock
+    TweetRepository tweetRepository;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        tweetSearchIndex.initIndex();
+    }
+
+    @Test
+    void testTokenize() {
+        assertEquals(Arrays.asList("spring", "boot", "is", "great", "java_11", "café"),
+                new ArrayList<>(TweetSearchIndex.tokenize("Spring-Boot is GREAT!! #spring @java_11 café")));
+        assertTrue(TweetSearchIndex.tokenize(null).isEmpty());
+        assertTrue(TweetSearchIndex.tokenize(" ?! ").isEmpty());
+    }
+
+    @Test
+    void testNotServedBeforeRebuild() {
+        tweetSearchIndex.add(tweet(1L, "hello world"));
+        assertFalse(tweetSearchIndex.search("hello", 10, null).isPresent());
+    }
+
+    @Test
+    void testConjunctiveSearchNewestFirst() {
+        rebuildWith(tweet(1L, "Kafka streams and Mongo"), tweet(2L, "mongo indexes"), tweet(3L, "Kafka lag"));
+        tweetSearchIndex.add(tweet(4L, "Mongo and Kafka, again"));
+        tweetSearchIndex.add(tweet(5L, "nothing to see"));
+        assertEquals(Arrays.asList(4L, 1L), tweetIds("kafka MONGO"));
+        assertEquals(Arrays.asList(4L, 3L, 1L), tweetIds("kafka"));
+        assertEquals(Arrays.asList(4L, 3L, 1L), tweetIds("kafka kafka"));
+        assertTrue(tweetIds("kafka redis").isEmpty());
+        assertTrue(tweetIds("!!").isEmpty());
+        assertEquals(5, tweetSearchIndex.size());
+        assertTrue(tweetSearchIndex.footprintBytes() > 0);
+    }
+
+    @Test
+    void testTweetReplayedAfterRebuildIndexedOnce() {
+        rebuildWith(tweet(1L, "Kafka streams"), tweet(3L, "Kafka lag"));
+        tweetSearchIndex.add(tweet(3L, "Kafka lag"));
+        tweetSearchIndex.add(tweet(2L, "Kafka consumer"));
+        tweetSearchIndex.add(tweet(4L, "Kafka again"));
+        assertEquals(Arrays.asList(4L, 2L, 3L, 1L), tweetIds("kafka"));
+        assertEquals(4, tweetSearchIndex.size());
+    }
+
+    @Test
+    void testConjunctiveSearchPastLastPosting() {
+        rebuildWith(tweet(1L, "alpha"), tweet(2L, "alpha"), tweet(3L, "alpha"), tweet(4L, "beta"), tweet(5L, "beta"));
+        assertTrue(tweetIds("alpha beta").isEmpty());
+    }
+
+    @Test
+    void testPaging() {
+        List<TweetEntity> tweetEntityList = new ArrayList<>();
+        for (long tweetId = 1; tweetId <= 7; tweetId++) {
+            tweetEntityList.add(tweet(tweetId, tweetId % 2 == 0 ? "even tweet" : "odd tweet"));
+        }
+        rebuildWith(tweetEntityList.toArray(new TweetEntity[0]));
+        TweetSearchIndex.SearchPage firstPage = tweetSearchIndex.search("tweet", 3, null).get();
+        assertEquals(Arrays.asList(7L, 6L, 5L), firstPage.getTweetIds());
+        TweetSearchIndex.SearchPage secondPage = tweetSearchIndex.search("tweet", 3, firstPage.getNextCursor()).get();
+        assertEquals(Arrays.asList(4L, 3L, 2L), secondPage.getTweetIds());
+        TweetSearchIndex.SearchPage lastPage = tweetSearchIndex.search("tweet", 3, secondPage.getNextCursor()).get();
+        assertEquals(Collections.singletonList(1L), lastPage.getTweetIds());
+        assertNull(lastPage.getNextCursor());
+        assertEquals(Arrays.asList(3L, 1L), tweetSearchIndex.search("odd tweet", 3, firstPage.getNextCursor()).get().getTweetIds());
+        assertThrows(IllegalArgumentException.class, () -> tweetSearchIndex.search("tweet", 3, "not-a-cursor"));
+    }
+
+    @Test
+    void testUpdateKeepsRankAndDeleteTombstones() {
+        rebuildWith(tweet(1L, "old words here"), tweet(2L, "words"), tweet(3L, "more words"));
+        tweetSearchIndex.update(1L, "old words here", "new words here");
+        assertTrue(tweetIds("old").isEmpty());
+        assertEquals(Collections.singletonList(1L), tweetIds("new"));
+        assertEquals(Arrays.asList(3L, 2L, 1L), tweetIds("words"));
+
+        tweetSearchIndex.remove(2L, "words");
+        assertEquals(Arrays.asList(3L, 1L), tweetIds("words"));
+        assertEquals(2, tweetSearchIndex.size());
+        tweetSearchIndex.remove(2L, "words");
+        assertEquals(2, tweetSearchIndex.size());
+    }
+
+    @Test
+    void testCompactionRenumbersAndExpiresCursors() {
+        List<TweetEntity> tweetEntityList = new ArrayList<>();
+        for (long tweetId = 1; tweetId <= 3000; tweetId++) {
+            tweetEntityList.add(tweet(tweetId, "tweet " + (tweetId % 2 == 0 ? "even" : "odd")));
+        }
+        rebuildWith(tweetEntityList.toArray(new TweetEntity[0]));
+        String cursor = tweetSearchIndex.search("even", 10, null).get().getNextCursor();
+        long footprint = tweetSearchIndex.footprintBytes();
+        for (long tweetId = 1; tweetId <= 3000; tweetId += 2) {
+            tweetSearchIndex.remove(tweetId, "tweet odd");
+        }
+        assertEquals(1500, tweetSearchIndex.size());
+        assertTrue(tweetSearchIndex.footprintBytes() < footprint);
+        assertTrue(tweetIds("odd").isEmpty());
+        assertEquals(Arrays.asList(3000L, 2998L), tweetSearchIndex.search("tweet even", 2, null).get().getTweetIds());
+        assertThrows(IllegalArgumentException.class, () -> tweetSearchIndex.search("even", 10, cursor));
+    }
+
+    @Test
+    void testChangesDuringRebuildReplayed() {
+        tweetSearchIndex.add(tweet(2L, "second tweet"));
+        tweetSearchIndex.add(tweet(3L, "third tweet"));
+        tweetSearchIndex.update(1L, "first tweet", "first edited tweet");
+        tweetSearchIndex.remove(4L, "fourth tweet");
+        rebuildWith(tweet(1L, "first tweet"), tweet(2L, "second tweet"), tweet(4L, "fourth tweet"));
+        assertEquals(Arrays.asList(3L, 2L, 1L), tweetIds("tweet"));
+        assertEquals(Collections.singletonList(1L), tweetIds("edited"));
+        assertEquals(3, tweetSearchIndex.size());
+    }
+
+    @Test
+    void testRebuildFailureNotReady() {
+        when(tweetRepository.streamAllByOrderByTweetIdAsc()).thenThrow(new IllegalStateException("Timed out"));
+        tweetSearchIndex.rebuild();
+        assertFalse(tweetSearchIndex.search("tweet", 10, null).isPresent());
+    }
+
+    @Test
+    void testRebuildFailureRetriedAfterBackoff() {
+        ReflectionTestUtils.setField(tweetSearchIndex, "retryInitialInterval", Duration.ofHours(1));
+        when(tweetRepository.streamAllByOrderByTweetIdAsc()).thenThrow(new IllegalStateException("Timed out"))
+                .thenReturn(Stream.of(tweet(1L, "first tweet")));
+        tweetSearchIndex.rebuild();
+        tweetSearchIndex.add(tweet(2L, "second tweet"));
+        tweetSearchIndex.retryRebuild();
+        verify(tweetRepository, times(1)).streamAllByOrderByTweetIdAsc();
+
+        ReflectionTestUtils.setField(tweetSearchIndex, "retryAt", System.currentTimeMillis());
+        tweetSearchIndex.retryRebuild();
+        assertEquals(Arrays.asList(2L, 1L), tweetIds("tweet"));
+        tweetSearchIndex.retryRebuild();
+        verify(tweetRepository, times(2)).streamAllByOrderByTweetIdAsc();
+    }
+
+    @Test
+    void testTooManyChangesDuringRebuildRebuiltAgain() {
+        ReflectionTestUtils.setField(tweetSearchIndex, "maxPending", 2);
+        List<TweetEntity> changed = Arrays.asList(tweet(2L, "second tweet"), tweet(3L, "third tweet"), tweet(4L, "fourth tweet"));
+        when(tweetRepository.streamAllByOrderByTweetIdAsc())
+                .thenReturn(Stream.of(tweet(1L, "first tweet")).peek(first -> changed.forEach(tweetSearchIndex::add)))
+                .thenReturn(Stream.concat(Stream.of(tweet(1L, "first tweet")), changed.stream()));
+        tweetSearchIndex.rebuild();
+        assertFalse(tweetSearchIndex.search("tweet", 10, null).isPresent());
+
+        tweetSearchIndex.retryRebuild();
+        assertEquals(Arrays.asList(4L, 3L, 2L, 1L), tweetIds("tweet"));
+    }
+
+    private void rebuildWith(TweetEntity... tweetEntities) {
+        when(tweetRepository.streamAllByOrderByTweetIdAsc()).thenReturn(Stream.of(tweetEntities));
+        tweetSearchIndex.rebuild();
+    }
+
+    private List<Long> tweetIds(String query) {
+        return tweetSearchIndex.search(query, 100, null).get().getTweetIds();
+    }
+
+    private static TweetEntity tweet(Long tweetId, String tweetDesc) {
+        return TweetEntity.builder().tweetId(tweetId).tweetDesc(tweetDesc).build();
+    }
+}
@@ -1,25 +1,59 @@
 package com.tweetapp.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tweetapp.consumer.ConsumerLagMonitor;
+import com.tweetapp.entity.TweetChange;
+import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.entity.TweetLikeEntity;
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.model.Trend;
+import com.tweetapp.model.TrendResponse;
+import com.tweetapp.model.Tweet;
 import com.tweetapp.model.TweetResponse;
+import com.tweetapp.producer.TweetChangeProducer;
 import com.tweetapp.producer.TweetProducer;
 import com.tweetapp.repository.TweetLikeRepository;
 import com.tweetapp.repository.TweetRepository;
-import com.tweetapp.repository.UserRepository;
 import com.tweetapp.util.TestUtil;
+import com.tweetapp.utils.TweetPageCursor;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class TweetServiceTest {
@@ -31,7 +65,7 @@ class TweetServiceTest {
     TweetRepository tweetRepository;
 
     @Mock
-    UserRepository userRepository;
+    UserCache userCache;
 
     @Mock
     TweetLikeRepository tweetLikeRepository;
@@ -45,128 +79,284 @@ class TweetServiceTest {
     @Mock
     UserService userService;
 
+    @Mock
+    TimelineService timelineService;
+
+    @Mock
+    RecentTweetBuffer recentTweetBuffer;
+
+    @Mock
+    ConsumerLagMonitor consumerLagMonitor;
+
+    @Mock
+    TweetThreadCache tweetThreadCache;
+
+    @Mock
+    TweetSearchIndex tweetSearchIndex;
+
+    @Mock
+    TrendingHashtags trendingHashtags;
+
+    @Mock
+    LikeCountBuffer likeCountBuffer;
+
+    @Mock
+    TweetChangeProducer tweetChangeProducer;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
     @Test
     void testGetAllTweets() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(tweetRepository.findAll()).thenReturn(TestUtil.sampleTweetEntityList());
-        when(tweetLikeRepository.findByTweetId(Mockito.anyInt())).thenReturn(TestUtil.sampleTweetLikeEntityList());
-        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token");
+        when(tweetRepository.findPage(Mockito.any(), Mockito.any(), Mockito.anyInt())).thenReturn(TestUtil.sampleTweetEntityList());
+        when(tweetLikeRepository.aggregateLikeCounts(Mockito.anyCollection())).thenReturn(TestUtil.sampleTweetLikeCountList());
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token", null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
+    @Test
+    void testGetAllTweetsFirstPageFromRecentBuffer() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        List<TweetEntity> tweetEntityList = TestUtil.sampleTweetEntityList();
+        tweetEntityList.forEach(tweetEntity -> tweetEntity.setLikeCount(2));
+        when(recentTweetBuffer.newest(2)).thenReturn(Optional.of(tweetEntityList));
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token", 1, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(31, response.getBody().getTweetList().get(0).getTweetId());
+        assertEquals(31, TweetPageCursor.decode(response.getBody().getNextCursor()).getTweetId());
+        verify(tweetRepository, never()).findPage(Mockito.any(), Mockito.any(), Mockito.anyInt());
+        verify(tweetLikeRepository, never()).aggregateLikeCounts(Mockito.anyCollection());
+    }
+
+    @Test
+    void testGetAllTweetsLikeCountSingleAggregation() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetRepository.findPage(Mockito.any(), Mockito.any(), Mockito.anyInt())).thenReturn(TestUtil.sampleTweetEntityList());
+        when(tweetLikeRepository.aggregateLikeCounts(Mockito.anyCollection())).thenReturn(TestUtil.sampleTweetLikeCountList());
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token", null, null);
+        assertEquals(3, response.getBody().getTweetList().get(0).getLikeCount());
+        assertEquals(0, response.getBody().getTweetList().get(1).getLikeCount());
+        verify(tweetLikeRepository, times(1)).aggregateLikeCounts(Mockito.anyCollection());
+        verify(tweetLikeRepository, never()).findByTweetId(Mockito.anyLong());
+    }
+
+    @Test
+    void testGetAllTweetsStoredLikeCount() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        List<TweetEntity> tweetEntityList = TestUtil.sampleTweetEntityList();
+        tweetEntityList.forEach(tweetEntity -> tweetEntity.setLikeCount(5));
+        when(tweetRepository.findPage(Mockito.any(), Mockito.any(), Mockito.anyInt())).thenReturn(tweetEntityList);
+        when(likeCountBuffer.pendingDelta(31L)).thenReturn(2);
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token", null, null);
+        assertEquals(7, response.getBody().getTweetList().get(0).getLikeCount());
+        assertEquals(5, response.getBody().getTweetList().get(1).getLikeCount());
+        verify(tweetLikeRepository, never()).aggregateLikeCounts(Mockito.anyCollection());
+    }
+
+    @Test
+    void testGetAllTweetsNextCursor() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetRepository.findPage(Mockito.any(), Mockito.any(), Mockito.eq(2)))
+                .thenReturn(TestUtil.sampleTweetEntityList());
+        when(tweetLikeRepository.aggregateLikeCounts(Mockito.anyCollection())).thenReturn(TestUtil.sampleTweetLikeCountList());
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token", 1, null);
+        assertEquals(1, response.getBody().getTweetList().size());
+        TweetPageCursor cursor = TweetPageCursor.decode(response.getBody().getNextCursor());
+        assertEquals(31, cursor.getTweetId());
+
+        when(tweetRepository.findPage(Mockito.isNull(), Mockito.any(TweetPageCursor.class), Mockito.eq(2)))
+                .thenReturn(TestUtil.sampleTweetEntityList().subList(1, 2));
+        response = tweetService.getAllTweets("token", 1, response.getBody().getNextCursor());
+        assertEquals(32, response.getBody().getTweetList().get(0).getTweetId());
+        assertNull(response.getBody().getNextCursor());
+    }
+
+    @Test
+    void testGetAllTweetsInvalidCursor() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token", 10, "not-a-cursor");
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
     @Test
     void testGetAllTweetsEmptyTweet() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(tweetRepository.findAll()).thenReturn(Collections.emptyList());
-        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token");
+        when(tweetRepository.findPage(Mockito.any(), Mockito.any(), Mockito.anyInt())).thenReturn(Collections.emptyList());
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token", null, null);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void testGetAllTweetsException() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(tweetRepository.findAll()).thenThrow(NullPointerException.class);
-        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token");
+        when(tweetRepository.findPage(Mockito.any(), Mockito.any(), Mockito.anyInt())).thenThrow(NullPointerException.class);
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweets("token", null, null);
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
+    @Test
+    void testStreamAllTweets() throws IOException {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetRepository.streamAllBy()).thenReturn(TestUtil.sampleTweetEntityList().stream());
+        ResponseEntity<StreamingResponseBody> response = tweetService.streamAllTweets("token");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(32, objectMapper.readValue(lines[1], Tweet.class).getTweetId());
+    }
+
+    @Test
+    void testStreamAllTweetsInvalidToken() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(false);
+        ResponseEntity<StreamingResponseBody> response = tweetService.streamAllTweets("token");
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        verify(tweetRepository, never()).streamAllBy();
+    }
+
     @Test
     void testGetAllTweetsOfUser() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
-        when(tweetRepository.findByUserId(Mockito.anyInt()))
+        when(tweetRepository.findPage(Mockito.anyLong(), Mockito.any(), Mockito.anyInt()))
                 .thenReturn(TestUtil.sampleTweetEntityList());
-        when(tweetLikeRepository.findByTweetId(Mockito.anyInt()))
-                .thenReturn(TestUtil.sampleTweetLikeEntityList());
-        ResponseEntity<TweetResponse> response = tweetService.getAllTweetsOfUser("token", "Akash");
+        when(tweetLikeRepository.aggregateLikeCounts(Mockito.anyCollection()))
+                .thenReturn(TestUtil.sampleTweetLikeCountList());
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweetsOfUser("token", "Akash", null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
     void testGetAllTweetsOfUserNotFound() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.empty());
-        ResponseEntity<TweetResponse> response = tweetService.getAllTweetsOfUser("token", "Akash");
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweetsOfUser("token", "Akash", null, null);
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
     @Test
     void testGetAllTweetsOfUserEmptyTweetList() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
-        when(tweetRepository.findByUserId(Mockito.anyInt()))
+        when(tweetRepository.findPage(Mockito.anyLong(), Mockito.any(), Mockito.anyInt()))
                 .thenReturn(Collections.emptyList());
-        ResponseEntity<TweetResponse> response = tweetService.getAllTweetsOfUser("token", "Akash");
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweetsOfUser("token", "Akash", null, null);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void testGetAllTweetsOfUserException() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenThrow(NullPointerException.class);
-        ResponseEntity<TweetResponse> response = tweetService.getAllTweetsOfUser("token", "Akash");
+        ResponseEntity<TweetResponse> response = tweetService.getAllTweetsOfUser("token", "Akash", null, null);
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
     @Test
     void testUpdateTweet() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
-        when(tweetRepository.findById(Mockito.anyInt()))
+        when(tweetRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(TestUtil.sampleTweetEntityList().get(0)));
-        ResponseEntity<TweetResponse> response = tweetService.updateTweet("token", "Aman", 7, TestUtil.sampleTweet());
+        ResponseEntity<TweetResponse> response = tweetService.updateTweet("token", "Aman", 7L, TestUtil.sampleTweet());
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(tweetSearchIndex, times(1)).update(7L, "My first tweet", "Visiting Betul ;-)");
+        verify(tweetChangeProducer, times(1)).sendChange(Mockito.argThat(tweetChange ->
+                tweetChange.getType() == TweetChange.Type.UPDATED && "Visiting Betul ;-)".equals(tweetChange.getTweetDesc())));
     }
 
     @Test
     void testUpdateTweetEmptyTweetList() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
-        when(tweetRepository.findById(Mockito.anyInt()))
+        when(tweetRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.empty());
-        ResponseEntity<TweetResponse> response = tweetService.updateTweet("token", "Aman", 7, TestUtil.sampleTweet());
+        ResponseEntity<TweetResponse> response = tweetService.updateTweet("token", "Aman", 7L, TestUtil.sampleTweet());
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void testUpdateTweetUserNotFound() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.empty());
-        ResponseEntity<TweetResponse> response = tweetService.updateTweet("token", "Aman", 7, TestUtil.sampleTweet());
+        ResponseEntity<TweetResponse> response = tweetService.updateTweet("token", "Aman", 7L, TestUtil.sampleTweet());
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
     @Test
     void testUpdateTweetException() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenThrow(NullPointerException.class);
-        ResponseEntity<TweetResponse> response = tweetService.updateTweet("token", "Akash", 7, TestUtil.sampleTweet());
+        ResponseEntity<TweetResponse> response = tweetService.updateTweet("token", "Akash", 7L, TestUtil.sampleTweet());
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
     @Test
     void testPostNewTweet() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
+                .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        when(sequenceService.getNextSequence(Mockito.anyString()))
+                .thenReturn(408L);
+        ResponseEntity<TweetResponse> response = tweetService.postNewTweet("token", "Akash", TestUtil.sampleTweet());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void testPostNewTweetBackpressured() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(consumerLagMonitor.isBackpressured()).thenReturn(true);
+        when(consumerLagMonitor.getRetryAfter()).thenReturn(Duration.ofSeconds(5));
+        ResponseEntity<TweetResponse> response = tweetService.postNewTweet("token", "Akash", TestUtil.sampleTweet());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("5", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(tweetProducer, never()).sendMessage(Mockito.any(TweetEntity.class));
+    }
+
+    @Test
+    void testPostNewTweetAwaitAck() {
+        ReflectionTestUtils.setField(tweetService, "awaitProducerAck", true);
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
         when(sequenceService.getNextSequence(Mockito.anyString()))
-                .thenReturn(408);
+                .thenReturn(408L);
+        SettableListenableFuture<SendResult<String, TweetEntity>> future = new SettableListenableFuture<>();
+        future.set(new SendResult<>(null, null));
+        when(tweetProducer.sendMessage(Mockito.any(TweetEntity.class))).thenReturn(future);
         ResponseEntity<TweetResponse> response = tweetService.postNewTweet("token", "Akash", TestUtil.sampleTweet());
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
+    @Test
+    void testPostNewTweetAwaitAckFailure() {
+        ReflectionTestUtils.setField(tweetService, "awaitProducerAck", true);
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userCache.findByLoginId(Mockito.anyString()))
+                .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        when(sequenceService.getNextSequence(Mockito.anyString()))
+                .thenReturn(408L);
+        SettableListenableFuture<SendResult<String, TweetEntity>> future = new SettableListenableFuture<>();
+        future.setException(new IllegalStateException("broker down"));
+        when(tweetProducer.sendMessage(Mockito.any(TweetEntity.class))).thenReturn(future);
+        ResponseEntity<TweetResponse> response = tweetService.postNewTweet("token", "Akash", TestUtil.sampleTweet());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+
     @Test
     void testPostNewTweetUserNotFound() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.empty());
         ResponseEntity<TweetResponse> response = tweetService.postNewTweet("token", "Akash", TestUtil.sampleTweet());
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
@@ -175,7 +365,7 @@ class TweetServiceTest {
     @Test
     void testPostNewTweetException() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenThrow(NullPointerException.class);
         ResponseEntity<TweetResponse> response = tweetService.postNewTweet("token", "Akash", TestUtil.sampleTweet());
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
@@ -184,126 +374,344 @@ class TweetServiceTest {
     @Test
     void testDeleteTweet() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
-        when(tweetRepository.findById(Mockito.anyInt()))
+        when(tweetRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(TestUtil.sampleTweetEntityList().get(0)));
-        ResponseEntity<TweetResponse> response = tweetService.deleteTweet("token", "Akash", 12);
+        ResponseEntity<TweetResponse> response = tweetService.deleteTweet("token", "Akash", 12L);
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(recentTweetBuffer, times(1)).remove(12L);
+        verify(tweetSearchIndex, times(1)).remove(12L, "My first tweet");
+        verify(tweetThreadCache, times(1)).invalidate(12L);
+        verify(tweetThreadCache, times(1)).invalidate(20L);
+        verify(tweetChangeProducer, times(1)).sendChange(Mockito.argThat(tweetChange ->
+                tweetChange.getType() == TweetChange.Type.DELETED && tweetChange.getTweetId() == 12L));
     }
 
     @Test
     void testDeleteTweetEmptyTweet() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
-        when(tweetRepository.findById(Mockito.anyInt()))
+        when(tweetRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.empty());
-        ResponseEntity<TweetResponse> response = tweetService.deleteTweet("token", "Akash", 12);
+        ResponseEntity<TweetResponse> response = tweetService.deleteTweet("token", "Akash", 12L);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void testDeleteTweetUserNotFound() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.empty());
-        ResponseEntity<TweetResponse> response = tweetService.deleteTweet("token", "Akash", 12);
+        ResponseEntity<TweetResponse> response = tweetService.deleteTweet("token", "Akash", 12L);
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
     @Test
     void testDeleteTweetException() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenThrow(NullPointerException.class);
-        ResponseEntity<TweetResponse> response = tweetService.deleteTweet("token", "Akash", 12);
+        ResponseEntity<TweetResponse> response = tweetService.deleteTweet("token", "Akash", 12L);
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
     @Test
     void testLikeTweet() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
+                .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        when(tweetRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(TestUtil.sampleTweetEntityList().get(0)));
+        when(tweetLikeRepository.findByUserIdAndTweetId(Mockito.anyLong(), Mockito.anyLong()))
+                .thenReturn(Optional.of(TestUtil.sampleTweetLikeEntityList().get(0)));
+        when(tweetLikeRepository.deleteByTweetLikeId(Mockito.anyLong())).thenReturn(1L);
+        ResponseEntity<TweetResponse> response = tweetService.likeTweet("token", "Aman", 7L);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(likeCountBuffer, times(1)).increment(7L, -1);
+    }
+
+    @Test
+    void testUnlikeTweetAlreadyRemoved() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
-        when(tweetRepository.findById(Mockito.anyInt()))
+        when(tweetRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(TestUtil.sampleTweetEntityList().get(0)));
-        when(tweetLikeRepository.findByUserIdAndTweetId(Mockito.anyInt(), Mockito.anyInt()))
+        when(tweetLikeRepository.findByUserIdAndTweetId(Mockito.anyLong(), Mockito.anyLong()))
                 .thenReturn(Optional.of(TestUtil.sampleTweetLikeEntityList().get(0)));
-        ResponseEntity<TweetResponse> response = tweetService.likeTweet("token", "Aman", 7);
+        when(tweetLikeRepository.deleteByTweetLikeId(Mockito.anyLong())).thenReturn(0L);
+        ResponseEntity<TweetResponse> response = tweetService.likeTweet("token", "Aman", 7L);
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(likeCountBuffer, never()).increment(Mockito.anyLong(), Mockito.anyInt());
     }
 
     @Test
     void testLikeTweet2() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
-        when(tweetRepository.findById(Mockito.anyInt()))
+        when(tweetRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(TestUtil.sampleTweetEntityList().get(0)));
-        when(tweetLikeRepository.findByUserIdAndTweetId(Mockito.anyInt(), Mockito.anyInt()))
+        when(tweetLikeRepository.findByUserIdAndTweetId(Mockito.anyLong(), Mockito.anyLong()))
                 .thenReturn(Optional.empty());
-        ResponseEntity<TweetResponse> response = tweetService.likeTweet("token", "Aman", 7);
+        ResponseEntity<TweetResponse> response = tweetService.likeTweet("token", "Aman", 7L);
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(likeCountBuffer, times(1)).increment(7L, 1);
+    }
+
+    @Test
+    void testLikeTweetConcurrentTogglesKeepCountExact() throws InterruptedException {
+        Map<Long, TweetLikeEntity> likeStore = new ConcurrentHashMap<>();
+        AtomicInteger likeCount = new AtomicInteger();
+        AtomicLong sequence = new AtomicLong();
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userCache.findByLoginId(Mockito.anyString())).thenAnswer(invocation -> {
+            UserEntity userEntity = TestUtil.sampleUserEntity();
+            userEntity.setUserId((long) Math.abs(invocation.getArgument(0).hashCode()) % 5);
+            return Optional.of(userEntity);
+        });
+        when(tweetRepository.findById(Mockito.anyLong()))
+                .thenReturn(Optional.of(TestUtil.sampleTweetEntityList().get(0)));
+        when(sequenceService.getNextSequence(Mockito.anyString())).thenAnswer(invocation -> sequence.incrementAndGet());
+        when(tweetLikeRepository.findByUserIdAndTweetId(Mockito.anyLong(), Mockito.anyLong())).thenAnswer(invocation ->
+                likeStore.values().stream().filter(like -> like.getUserId().equals(invocation.getArgument(0))).findFirst());
+        when(tweetLikeRepository.save(Mockito.any(TweetLikeEntity.class))).thenAnswer(invocation -> {
+            TweetLikeEntity like = invocation.getArgument(0);
+            likeStore.put(like.getTweetLikeId(), like);
+            return like;
+        });
+        when(tweetLikeRepository.deleteByTweetLikeId(Mockito.anyLong()))
+                .thenAnswer(invocation -> likeStore.remove(invocation.getArgument(0)) != null ? 1L : 0L);
+        doAnswer(invocation -> likeCount.addAndGet(invocation.getArgument(1)))
+                .when(likeCountBuffer).increment(Mockito.anyLong(), Mockito.anyInt());
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 2000; i++) {
+            String userName = "user" + (i % 5);
+            executorService.submit(() -> tweetService.likeTweet("token", userName, 31L));
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(30, TimeUnit.SECONDS);
+        assertEquals(likeStore.size(), likeCount.get());
     }
 
     @Test
     void testLikeTweetEmptyTweetList() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
-        when(tweetRepository.findById(Mockito.anyInt()))
+        when(tweetRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.empty());
-        ResponseEntity<TweetResponse> response = tweetService.likeTweet("token", "Aman", 7);
+        ResponseEntity<TweetResponse> response = tweetService.likeTweet("token", "Aman", 7L);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void testLikeTweetUserNotExist() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.empty());
-        ResponseEntity<TweetResponse> response = tweetService.likeTweet("token", "Aman", 7);
+        ResponseEntity<TweetResponse> response = tweetService.likeTweet("token", "Aman", 7L);
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
     @Test
     void testLikeTweetException() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenThrow(NullPointerException.class);
-        ResponseEntity<TweetResponse> response = tweetService.likeTweet("token", "Aman", 7);
+        ResponseEntity<TweetResponse> response = tweetService.likeTweet("token", "Aman", 7L);
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
     @Test
     void testReplyToTweet() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(tweetRepository.findById(Mockito.anyInt()))
+        when(tweetRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.of(TestUtil.sampleTweetEntityList().get(0)));
-        when(userRepository.findByLoginId(Mockito.anyString()))
+        when(userCache.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
         when(sequenceService.getNextSequence(Mockito.anyString()))
-                .thenReturn(708);
-        ResponseEntity<TweetResponse> response = tweetService.replyToTweet("token", "Akash", 1, TestUtil.sampleTweet());
+                .thenReturn(708L);
+        ResponseEntity<TweetResponse> response = tweetService.replyToTweet("token", "Akash", 1L, TestUtil.sampleTweet());
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
     void testReplyToTweetNotFound() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(tweetRepository.findById(Mockito.anyInt()))
+        when(tweetRepository.findById(Mockito.anyLong()))
                 .thenReturn(Optional.empty());
-        ResponseEntity<TweetResponse> response = tweetService.replyToTweet("token", "Akash", 1, TestUtil.sampleTweet());
+        ResponseEntity<TweetResponse> response = tweetService.replyToTweet("token", "Akash", 1L, TestUtil.sampleTweet());
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void testReplyToTweetException() {
         when(userService.validateToken(Mockito.anyString())).thenReturn(true);
-        when(tweetRepository.findById(Mockito.anyInt()))
+        when(tweetRepository.findById(Mockito.anyLong()))
                 .thenThrow(NullPointerException.class);
-        ResponseEntity<TweetResponse> response = tweetService.replyToTweet("token", "Akash", 1, TestUtil.sampleTweet());
+        ResponseEntity<TweetResponse> response = tweetService.replyToTweet("token", "Akash", 1L, TestUtil.sampleTweet());
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
+
+    @Test
+    void testGetHomeTimeline() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userCache.findByLoginId(Mockito.anyString())).thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        when(timelineService.homeTimeline(1L, 50)).thenReturn(TestUtil.sampleTweetEntityList());
+        when(tweetLikeRepository.aggregateLikeCounts(Mockito.anyCollection())).thenReturn(TestUtil.sampleTweetLikeCountList());
+        ResponseEntity<TweetResponse> response = tweetService.getHomeTimeline("token", "Aman", null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().getTweetList().size());
+    }
+
+    @Test
+    void testGetThread() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetThreadCache.findThread(1L)).thenReturn(sampleThread());
+        when(tweetThreadCache.getMaxDepth()).thenReturn(10);
+        ResponseEntity<TweetResponse> response = tweetService.getThread("token", 1L, 2, 1, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Tweet root = response.getBody().getTweetList().get(0);
+        assertEquals(1L, root.getTweetId());
+        assertEquals(2, root.getReplyCount());
+        assertEquals(1, root.getReplies().size());
+        Tweet reply = root.getReplies().get(0);
+        assertEquals(2L, reply.getTweetId());
+        assertEquals(2, reply.getReplyCount());
+        assertEquals(Collections.singletonList(4L), tweetIds(reply.getReplies()));
+        assertNull(reply.getReplies().get(0).getReplies());
+        assertEquals(1, reply.getReplies().get(0).getReplyCount());
+
+        response = tweetService.getThread("token", 1L, 2, 1, response.getBody().getNextCursor());
+        root = response.getBody().getTweetList().get(0);
+        assertEquals(Collections.singletonList(3L), tweetIds(root.getReplies()));
+        assertNull(response.getBody().getNextCursor());
+    }
+
+    @Test
+    void testGetThreadDefaultDepth() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetThreadCache.findThread(1L)).thenReturn(sampleThread());
+        when(tweetThreadCache.getMaxDepth()).thenReturn(10);
+        ResponseEntity<TweetResponse> response = tweetService.getThread("token", 1L, null, null, null);
+        Tweet root = response.getBody().getTweetList().get(0);
+        assertEquals(Arrays.asList(2L, 3L), tweetIds(root.getReplies()));
+        assertEquals(Arrays.asList(4L, 5L), tweetIds(root.getReplies().get(0).getReplies()));
+        assertEquals(Collections.singletonList(6L), tweetIds(root.getReplies().get(0).getReplies().get(0).getReplies()));
+    }
+
+    @Test
+    void testGetThreadNotFound() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetThreadCache.findThread(1L)).thenReturn(Collections.emptyList());
+        ResponseEntity<TweetResponse> response = tweetService.getThread("token", 1L, null, null, null);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testGetThreadInvalidCursor() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        ResponseEntity<TweetResponse> response = tweetService.getThread("token", 1L, null, null, "%%");
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(tweetThreadCache, never()).findThread(Mockito.anyLong());
+    }
+
+    @Test
+    void testSearchTweets() {
+        List<TweetEntity> tweetEntityList = TestUtil.sampleTweetEntityList();
+        tweetEntityList.get(0).setLikeCount(2);
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetSearchIndex.search("first tweet", 200, null))
+                .thenReturn(Optional.of(new TweetSearchIndex.SearchPage(Arrays.asList(32L, 31L, 99L), "next")));
+        when(tweetRepository.findAllById(Arrays.asList(32L, 31L, 99L))).thenReturn(tweetEntityList);
+        when(tweetLikeRepository.aggregateLikeCounts(Collections.singletonList(32L))).thenReturn(Collections.emptyList());
+        ResponseEntity<TweetResponse> response = tweetService.searchTweets("token", "first tweet", 1000, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Arrays.asList(32L, 31L), tweetIds(response.getBody().getTweetList()));
+        assertEquals(2, response.getBody().getTweetList().get(1).getLikeCount());
+        assertEquals("next", response.getBody().getNextCursor());
+    }
+
+    @Test
+    void testSearchTweetsNoMatch() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetSearchIndex.search("nothing", 50, null))
+                .thenReturn(Optional.of(new TweetSearchIndex.SearchPage(Collections.emptyList(), null)));
+        ResponseEntity<TweetResponse> response = tweetService.searchTweets("token", "nothing", null, null);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testSearchTweetsIndexNotReady() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetSearchIndex.search("tweet", 50, null)).thenReturn(Optional.empty());
+        ResponseEntity<TweetResponse> response = tweetService.searchTweets("token", "tweet", null, null);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
+    @Test
+    void testGetTrends() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(trendingHashtags.trends(Duration.ofHours(1), 10))
+                .thenReturn(Collections.singletonList(Trend.builder().hashtag("java").tweetCount(3L).build()));
+        ResponseEntity<TrendResponse> response = tweetService.getTrends("token", "1h", null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("java", response.getBody().getTrendList().get(0).getHashtag());
+        assertEquals("1h", response.getBody().getWindow());
+    }
+
+    @Test
+    void testGetTrendsUnknownWindow() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(trendingHashtags.trends(Duration.ofHours(2), 5)).thenThrow(new IllegalArgumentException("No trends"));
+        assertEquals(HttpStatus.BAD_REQUEST, tweetService.getTrends("token", "2h", 5).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, tweetService.getTrends("token", "an hour", 5).getStatusCode());
+    }
+
+    @Test
+    void testSearchTweetsInvalidCursor() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(tweetSearchIndex.search("tweet", 50, "%%")).thenThrow(new IllegalArgumentException("Invalid cursor %%"));
+        ResponseEntity<TweetResponse> response = tweetService.searchTweets("token", "tweet", null, "%%");
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(tweetRepository, never()).findAllById(Mockito.any());
+    }
+
+    @Test
+    void testGetHomeTimelineEmpty() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userCache.findByLoginId(Mockito.anyString())).thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        when(timelineService.homeTimeline(1L, 200)).thenReturn(Collections.emptyList());
+        ResponseEntity<TweetResponse> response = tweetService.getHomeTimeline("token", "Aman", 1000);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testGetHomeTimelineUserNotFound() {
+        when(userService.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userCache.findByLoginId(Mockito.anyString())).thenReturn(Optional.empty());
+        ResponseEntity<TweetResponse> response = tweetService.getHomeTimeline("token", "Aman", null);
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        verify(timelineService, never()).homeTimeline(Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    /** 1 <- 2, 3; 2 <- 4, 5; 4 <- 6, returned unordered like the $graphLookup */
+    private static List<TweetEntity> sampleThread() {
+        LocalDateTime now = LocalDateTime.now();
+        return Arrays.asList(
+                TweetEntity.builder().tweetId(1L).userId(7L).createdDate(now).likeCount(0).build(),
+                TweetEntity.builder().tweetId(5L).parentTweetId(2L).createdDate(now.plusSeconds(4)).likeCount(0).build(),
+                TweetEntity.builder().tweetId(3L).parentTweetId(1L).createdDate(now.plusSeconds(2)).likeCount(0).build(),
+                TweetEntity.builder().tweetId(6L).parentTweetId(4L).createdDate(now.plusSeconds(5)).likeCount(0).build(),
+                TweetEntity.builder().tweetId(2L).parentTweetId(1L).createdDate(now.plusSeconds(1)).likeCount(0).build(),
+                TweetEntity.builder().tweetId(4L).parentTweetId(2L).createdDate(now.plusSeconds(3)).likeCount(0).build());
+    }
+
+    private static List<Long> tweetIds(List<Tweet> tweetList) {
+        return tweetList.stream().map(Tweet::getTweetId).collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,81 @@
+package com.tweetapp.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.tweetapp.repository.TweetRepository;
+import com.tweetapp.util.TestUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TweetThreadCacheTest {
+
+    @InjectMocks
+    TweetThreadCache tweetThreadCache;
+
+    @Mock
+    TweetRepository tweetRepository;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    AtomicLong nanoTime = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tweetThreadCache, "ticker", (Ticker) nanoTime::get);
+        tweetThreadCache.initCache();
+    }
+
+    @Test
+    void testFindThreadCached() {
+        when(tweetRepository.findThread(31L, 10)).thenReturn(TestUtil.sampleTweetEntityList());
+        assertEquals(2, tweetThreadCache.findThread(31L).size());
+        assertEquals(2, tweetThreadCache.findThread(31L).size());
+        verify(tweetRepository, times(1)).findThread(31L, 10);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "tweetThreads").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testFindThreadExpires() {
+        when(tweetRepository.findThread(31L, 10)).thenReturn(TestUtil.sampleTweetEntityList());
+        tweetThreadCache.findThread(31L);
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        tweetThreadCache.findThread(31L);
+        verify(tweetRepository, times(2)).findThread(31L, 10);
+    }
+
+    @Test
+    void testFindThreadUnknownNotCached() {
+        when(tweetRepository.findThread(99L, 10)).thenReturn(Collections.emptyList());
+        assertTrue(tweetThreadCache.findThread(99L).isEmpty());
+        assertTrue(tweetThreadCache.findThread(99L).isEmpty());
+        verify(tweetRepository, times(2)).findThread(99L, 10);
+    }
+
+    @Test
+    void testInvalidate() {
+        when(tweetRepository.findThread(31L, 10)).thenReturn(TestUtil.sampleTweetEntityList());
+        tweetThreadCache.findThread(31L);
+        tweetThreadCache.invalidate(31L);
+        tweetThreadCache.invalidate(null);
+        tweetThreadCache.findThread(31L);
+        verify(tweetRepository, times(2)).findThread(31L, 10);
+    }
+}
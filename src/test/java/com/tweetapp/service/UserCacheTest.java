@@ -0,0 +1,88 @@
+package com.tweetapp.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.repository.UserRepository;
+import com.tweetapp.util.TestUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCacheTest {
+
+    @InjectMocks
+    UserCache userCache;
+
+    @Mock
+    UserRepository userRepository;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    AtomicLong nanoTime = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userCache, "ticker", (Ticker) nanoTime::get);
+        userCache.initCaches();
+    }
+
+    @Test
+    void testFindByLoginIdCached() {
+        when(userRepository.findByLoginId("TestUser007")).thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        assertTrue(userCache.findByLoginId("TestUser007").isPresent());
+        assertTrue(userCache.findByLoginId("TestUser007").isPresent());
+        verify(userRepository, times(1)).findByLoginId("TestUser007");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "usersByLoginId").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "usersByLoginId").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testFindByLoginIdNegativeResultExpiresEarly() {
+        when(userRepository.findByLoginId("ghost")).thenReturn(Optional.empty());
+        assertFalse(userCache.findByLoginId("ghost").isPresent());
+        assertFalse(userCache.findByLoginId("ghost").isPresent());
+        verify(userRepository, times(1)).findByLoginId("ghost");
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        assertFalse(userCache.findByLoginId("ghost").isPresent());
+        verify(userRepository, times(2)).findByLoginId("ghost");
+    }
+
+    @Test
+    void testFindByIdCached() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        userCache.findById(1L);
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        assertTrue(userCache.findById(1L).isPresent());
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testInvalidate() {
+        UserEntity userEntity = TestUtil.sampleUserEntity();
+        when(userRepository.findByLoginId("TestUser007")).thenReturn(Optional.empty(), Optional.of(userEntity));
+        assertFalse(userCache.findByLoginId("TestUser007").isPresent());
+        userCache.invalidate(userEntity);
+        assertTrue(userCache.findByLoginId("TestUser007").isPresent());
+        verify(userRepository, times(2)).findByLoginId("TestUser007");
+    }
+}
@@ -0,0 +1,183 @@
+package com.tweetapp.service;
+
+import com.tweetapp.entity.UserEntity;
+import com.tweetapp.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserPrefixIndexTest {
+
+    @InjectMocks
+    UserPrefixIndex userPrefixIndex;
+
+    @Mock
+    UserRepository userRepository;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userPrefixIndex, "mergeThreshold", 2);
+        ReflectionTestUtils.setField(userPrefixIndex, "rebuildThreads", 3);
+        userPrefixIndex.initIndex();
+    }
+
+    @Test
+    void testNotServedBeforeRebuild() {
+        userPrefixIndex.add(user(1L, "aman"));
+        assertFalse(userPrefixIndex.findByPrefix("a", 10).isPresent());
+        assertFalse(userPrefixIndex.isReady());
+    }
+
+    @Test
+    void testRebuildReadsRangesInParallel() {
+        rebuildWith(user(10L, "Zara"), user(11L, "aman"), user(12L, "Amit"), user(13L, "bob"),
+                user(14L, "am"), user(15L, "AMAN"), user(16L, "amanda"));
+        verify(userRepository).findLoginIds(10L, 13L);
+        verify(userRepository).findLoginIds(13L, 16L);
+        verify(userRepository).findLoginIds(16L, 17L);
+        assertTrue(userPrefixIndex.isReady());
+        assertEquals(7, userPrefixIndex.size());
+        assertEquals(Arrays.asList("am", "AMAN", "aman", "amanda", "Amit"), loginIds(userPrefixIndex.findByPrefix("Am", 10)));
+        assertEquals(Arrays.asList(14L, 15L), userPrefixIndex.findByPrefix("AM", 2).get().stream()
+                .map(UserEntity::getUserId).collect(Collectors.toList()));
+        assertEquals(Collections.singletonList("Zara"), loginIds(userPrefixIndex.findByPrefix("z", 10)));
+        assertTrue(userPrefixIndex.findByPrefix("c", 10).get().isEmpty());
+        assertTrue(userPrefixIndex.footprintBytes() > 0);
+        assertEquals(7, meterRegistry.get("user.prefix.index.size").gauge().value());
+    }
+
+    @Test
+    void testAddMergesOnceThresholdReached() {
+        rebuildWith(user(1L, "carl"), user(2L, "dave"));
+        long footprint = userPrefixIndex.footprintBytes();
+        userPrefixIndex.add(user(3L, "Cat"));
+        userPrefixIndex.add(user(3L, "Cat"));
+        userPrefixIndex.add(user(1L, "carl"));
+        assertEquals(3, userPrefixIndex.size());
+        assertEquals(footprint, userPrefixIndex.footprintBytes());
+        assertEquals(Arrays.asList("carl", "Cat"), loginIds(userPrefixIndex.findByPrefix("ca", 10)));
+
+        userPrefixIndex.add(user(4L, "ben"));
+        assertEquals(4, userPrefixIndex.size());
+        assertTrue(userPrefixIndex.footprintBytes() > footprint);
+        assertEquals(Arrays.asList("ben", "carl", "Cat", "dave"), loginIds(userPrefixIndex.findByPrefix("", 10)));
+    }
+
+    @Test
+    void testRegisteredDuringRebuildKept() {
+        userPrefixIndex.add(user(5L, "erin"));
+        userPrefixIndex.add(user(6L, "eve"));
+        userPrefixIndex.add(user(7L, "ezra"));
+        rebuildWith(user(5L, "erin"), user(8L, "ed"));
+        assertEquals(Arrays.asList("ed", "erin", "eve", "ezra"), loginIds(userPrefixIndex.findByPrefix("E", 10)));
+        assertEquals(4, userPrefixIndex.size());
+    }
+
+    @Test
+    void testRebuildFailureNotReady() {
+        when(userRepository.findFirstByOrderByUserIdAsc()).thenThrow(new IllegalStateException("Timed out"));
+        userPrefixIndex.rebuild();
+        assertFalse(userPrefixIndex.isReady());
+        assertFalse(userPrefixIndex.findByPrefix("a", 10).isPresent());
+        assertTrue((long) ReflectionTestUtils.getField(userPrefixIndex, "retryAt") > 0);
+    }
+
+    @Test
+    void testRebuildRetriedAfterFailure() {
+        ReflectionTestUtils.setField(userPrefixIndex, "retryInitialInterval", Duration.ZERO);
+        when(userRepository.findFirstByOrderByUserIdAsc()).thenThrow(new IllegalStateException("Timed out"));
+        userPrefixIndex.rebuild();
+        assertFalse(userPrefixIndex.isReady());
+
+        reset(userRepository);
+        rebuildWith(user(1L, "fay"));
+        userPrefixIndex.retryRebuild();
+        assertTrue(userPrefixIndex.isReady());
+        assertEquals(0L, ReflectionTestUtils.getField(userPrefixIndex, "retryAt"));
+        assertEquals(Collections.singletonList("fay"), loginIds(userPrefixIndex.findByPrefix("f", 10)));
+    }
+
+    @Test
+    void testRetryNotRunBeforeDue() {
+        userPrefixIndex.retryRebuild();
+        userPrefixIndex.refresh();
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testRefreshPicksUpUsersRegisteredElsewhere() {
+        rebuildWith(user(1L, "gus"));
+        rebuildWith(user(1L, "gus"), user(2L, "gia"));
+        userPrefixIndex.refresh();
+        assertEquals(Arrays.asList("gia", "gus"), loginIds(userPrefixIndex.findByPrefix("g", 10)));
+    }
+
+    @Test
+    void testRegisteredDuringRefreshKept() {
+        rebuildWith(user(1L, "hal"));
+        when(userRepository.findLoginIds(anyLong(), anyLong())).thenAnswer(invocation -> {
+            userPrefixIndex.add(user(2L, "hana"));
+            userPrefixIndex.add(user(3L, "hugo"));
+            return new ArrayList<>(Collections.singletonList(user(1L, "hal")));
+        });
+        userPrefixIndex.refresh();
+        assertEquals(Arrays.asList("hal", "hana", "hugo"), loginIds(userPrefixIndex.findByPrefix("h", 10)));
+    }
+
+    @Test
+    void testRefreshFailureKeepsServing() {
+        rebuildWith(user(1L, "ivy"));
+        when(userRepository.findFirstByOrderByUserIdAsc()).thenThrow(new IllegalStateException("Timed out"));
+        userPrefixIndex.refresh();
+        assertTrue(userPrefixIndex.isReady());
+        assertEquals(Collections.singletonList("ivy"), loginIds(userPrefixIndex.findByPrefix("i", 10)));
+    }
+
+    private void rebuildWith(UserEntity... userEntities) {
+        List<UserEntity> userEntityList = Arrays.asList(userEntities);
+        when(userRepository.findFirstByOrderByUserIdAsc()).thenReturn(userEntityList.stream()
+                .min((user1, user2) -> Long.compare(user1.getUserId(), user2.getUserId())));
+        when(userRepository.findFirstByOrderByUserIdDesc()).thenReturn(userEntityList.stream()
+                .max((user1, user2) -> Long.compare(user1.getUserId(), user2.getUserId())));
+        lenient().when(userRepository.findLoginIds(anyLong(), anyLong())).thenAnswer(invocation -> {
+            long from = invocation.getArgument(0);
+            long to = invocation.getArgument(1);
+            return new ArrayList<>(userEntityList.stream()
+                    .filter(userEntity -> userEntity.getUserId() >= from && userEntity.getUserId() < to)
+                    .collect(Collectors.toList()));
+        });
+        userPrefixIndex.rebuild();
+    }
+
+    private static List<String> loginIds(Optional<List<UserEntity>> userEntityList) {
+        return userEntityList.get().stream().map(UserEntity::getLoginId).collect(Collectors.toList());
+    }
+
+    private static UserEntity user(Long userId, String loginId) {
+        return UserEntity.builder().userId(userId).loginId(loginId).build();
+    }
+}
@@ -1,23 +1,37 @@
 package com.tweetapp.service;
 
+import com.tweetapp.entity.FollowEntity;
+import com.tweetapp.entity.UserEntity;
 import com.tweetapp.model.User;
 import com.tweetapp.model.UserResponse;
+import com.tweetapp.repository.FollowRepository;
 import com.tweetapp.repository.UserRepository;
 import com.tweetapp.util.TestUtil;
+import com.tweetapp.utils.ServiceConstants;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.Date;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
@@ -32,6 +46,14 @@ class UserServiceTest {
     SequenceService sequenceService;
     @Mock
     JwtUtil jwtutil;
+    @Mock
+    UserCache userCache;
+    @Mock
+    FollowRepository followRepository;
+    @Mock
+    UserPrefixIndex userPrefixIndex;
+    @Mock
+    PasswordHasher passwordHasher;
 
     @Test
     void testRegisterUserPasswordConflict() {
@@ -74,9 +96,27 @@ class UserServiceTest {
         when(userRepository.findByEmail(Mockito.anyString()))
                 .thenReturn(Optional.empty());
         when(sequenceService.getNextSequence(Mockito.anyString()))
-                .thenReturn(123);
+                .thenReturn(123L);
+        when(passwordHasher.hash("test")).thenReturn("$2a$10$hash");
         ResponseEntity<UserResponse> response = userService.registerUser(user);
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(userRepository, times(1)).save(Mockito.argThat(userEntity -> "$2a$10$hash".equals(userEntity.getPassword())));
+        verify(userCache, times(1)).invalidate(Mockito.any(UserEntity.class));
+        verify(userPrefixIndex, times(1)).add(Mockito.any(UserEntity.class));
+    }
+
+    @Test
+    void testRegisterUserHasherBusy() {
+        User user = TestUtil.sampleUser();
+        when(userRepository.findByLoginId(Mockito.anyString()))
+                .thenReturn(Optional.empty());
+        when(userRepository.findByEmail(Mockito.anyString()))
+                .thenReturn(Optional.empty());
+        when(passwordHasher.hash("test")).thenThrow(new RejectedExecutionException("Queue full"));
+        when(passwordHasher.getRetryAfter()).thenReturn(Duration.ofSeconds(1));
+        ResponseEntity<UserResponse> response = userService.registerUser(user);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        verify(userRepository, never()).save(Mockito.any(UserEntity.class));
     }
 
     @Test
@@ -94,8 +134,37 @@ class UserServiceTest {
     void testLogin() {
         when(userRepository.findByLoginId("aman"))
                 .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        when(passwordHasher.matches("dontTellAnyone", "dontTellAnyone")).thenReturn(true);
         ResponseEntity<UserResponse> response = userService.login("aman", TestUtil.sampleUserEntity().getPassword());
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(userRepository, never()).save(Mockito.any(UserEntity.class));
+    }
+
+    @Test
+    void testLoginUpgradesPassword() {
+        UserEntity userEntity = TestUtil.sampleUserEntity();
+        when(userRepository.findByLoginId("aman")).thenReturn(Optional.of(userEntity));
+        when(passwordHasher.matches("dontTellAnyone", "dontTellAnyone")).thenReturn(true);
+        when(passwordHasher.needsUpgrade("dontTellAnyone")).thenReturn(true);
+        when(passwordHasher.hash("dontTellAnyone")).thenReturn("$2a$10$hash");
+        ResponseEntity<UserResponse> response = userService.login("aman", "dontTellAnyone");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("$2a$10$hash", userEntity.getPassword());
+        verify(userRepository, times(1)).updatePassword(userEntity.getUserId(), "$2a$10$hash");
+        verify(userRepository, never()).save(Mockito.any(UserEntity.class));
+        verify(userCache, times(1)).invalidate(userEntity);
+    }
+
+    @Test
+    void testLoginHasherBusy() {
+        when(userRepository.findByLoginId("aman"))
+                .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        when(passwordHasher.matches("dontTellAnyone", "dontTellAnyone")).thenThrow(new RejectedExecutionException("Queue full"));
+        when(passwordHasher.getRetryAfter()).thenReturn(Duration.ofSeconds(1));
+        ResponseEntity<UserResponse> response = userService.login("aman", "dontTellAnyone");
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(ServiceConstants.PASSWORD_HASHER_BUSY, response.getBody().getMessage());
     }
 
     @Test
@@ -166,6 +235,7 @@ class UserServiceTest {
     void testResetPassword() {
         when(userRepository.findByLoginId(Mockito.anyString()))
                 .thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        when(passwordHasher.hash("test")).thenReturn("$2a$10$hash");
         ResponseEntity<UserResponse> response = userService.resetPassword("Aman", User.builder()
                 .loginId(TestUtil.sampleUserEntity().getLoginId())
                 .email(TestUtil.sampleUserEntity().getEmail())
@@ -176,6 +246,9 @@ class UserServiceTest {
                 .contactNumber(TestUtil.sampleUserEntity().getContactNumber())
                 .build());
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(userRepository, times(1)).updatePassword(TestUtil.sampleUserEntity().getUserId(), "$2a$10$hash");
+        verify(userRepository, never()).save(Mockito.any(UserEntity.class));
+        verify(userCache, times(1)).invalidate(Mockito.any(UserEntity.class));
     }
 
     @Test
@@ -280,6 +353,44 @@ class UserServiceTest {
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
+    @Test
+    void testSearchByUserNameIgnoresPrefixIndex() {
+        when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userRepository.findByLoginIdLike("am")).thenReturn(Collections.singletonList(TestUtil.sampleUserEntity()));
+        ResponseEntity<UserResponse> response = userService.searchByUserName("tokentokentokentoken", "am");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verifyNoInteractions(userPrefixIndex);
+    }
+
+    @Test
+    void testSuggestUsers() {
+        when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userPrefixIndex.findByPrefix("Am", 50)).thenReturn(Optional.of(Collections.singletonList(
+                UserEntity.builder().userId(2L).loginId("aman").build())));
+        ResponseEntity<UserResponse> response = userService.suggestUsers("tokentokentokentoken", "Am", 500);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("aman", response.getBody().getUserList().get(0).getLoginId());
+        assertEquals(2L, response.getBody().getUserList().get(0).getUserId());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testSuggestUsersDefaultLimitNoMatch() {
+        when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userPrefixIndex.findByPrefix("zz", 10)).thenReturn(Optional.of(Collections.emptyList()));
+        ResponseEntity<UserResponse> response = userService.suggestUsers("tokentokentokentoken", "zz", null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().getUserList().isEmpty());
+    }
+
+    @Test
+    void testSuggestUsersIndexNotReady() {
+        when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userPrefixIndex.findByPrefix("a", 10)).thenReturn(Optional.empty());
+        ResponseEntity<UserResponse> response = userService.suggestUsers("tokentokentokentoken", "a", null);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
     @Test
     void testSearchByUserNameException() {
         when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
@@ -288,4 +399,97 @@ class UserServiceTest {
         ResponseEntity<UserResponse> response = userService.searchByUserName("tokentokentokentoken", "A");
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
+
+    @Test
+    void testValidateTokenVerifiedByFilter() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer tokentokentoken");
+        request.setAttribute(ServiceConstants.JWT_CLAIMS_ATTRIBUTE,
+                Jwts.claims().setExpiration(new Date(System.currentTimeMillis() + 60_000)));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            assertTrue(userService.validateToken("Bearer tokentokentoken"));
+            verify(jwtutil, never()).validateToken(Mockito.anyString());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    void testValidateTokenOtherThanVerifiedByFilter() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer tokentokentoken");
+        request.setAttribute(ServiceConstants.JWT_CLAIMS_ATTRIBUTE,
+                Jwts.claims().setExpiration(new Date(System.currentTimeMillis() + 60_000)));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        when(jwtutil.validateToken("othertoken")).thenReturn(false);
+        try {
+            assertFalse(userService.validateToken("Bearer othertoken"));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    void testFollowUser() {
+        UserEntity followee = TestUtil.sampleUserEntity();
+        followee.setUserId(2L);
+        when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userCache.findByLoginId("Aman")).thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        when(userCache.findByLoginId("Akash")).thenReturn(Optional.of(followee));
+        when(followRepository.insertIfAbsent(Mockito.any(FollowEntity.class))).thenReturn(true);
+        ResponseEntity<UserResponse> response = userService.followUser("tokentokentokentoken", "Aman", "Akash");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(userRepository, times(1)).incrementFollowerCount(2L, 1);
+    }
+
+    @Test
+    void testFollowUserAlreadyFollowing() {
+        UserEntity followee = TestUtil.sampleUserEntity();
+        followee.setUserId(2L);
+        when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userCache.findByLoginId("Aman")).thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        when(userCache.findByLoginId("Akash")).thenReturn(Optional.of(followee));
+        when(followRepository.insertIfAbsent(Mockito.any(FollowEntity.class))).thenReturn(false);
+        ResponseEntity<UserResponse> response = userService.followUser("tokentokentokentoken", "Aman", "Akash");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(userRepository, never()).incrementFollowerCount(Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    @Test
+    void testFollowUserSelf() {
+        when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userCache.findByLoginId("Aman")).thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        ResponseEntity<UserResponse> response = userService.followUser("tokentokentokentoken", "Aman", "Aman");
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    void testFollowUserNotFound() {
+        when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userCache.findByLoginId(Mockito.anyString())).thenReturn(Optional.empty());
+        ResponseEntity<UserResponse> response = userService.followUser("tokentokentokentoken", "Aman", "Akash");
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testUnfollowUser() {
+        UserEntity followee = TestUtil.sampleUserEntity();
+        followee.setUserId(2L);
+        when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userCache.findByLoginId("Aman")).thenReturn(Optional.of(TestUtil.sampleUserEntity()));
+        when(userCache.findByLoginId("Akash")).thenReturn(Optional.of(followee));
+        when(followRepository.deleteByFollowId("1:2")).thenReturn(1L);
+        ResponseEntity<UserResponse> response = userService.unfollowUser("tokentokentokentoken", "Aman", "Akash");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(userRepository, times(1)).incrementFollowerCount(2L, -1);
+    }
+
+    @Test
+    void testUnfollowUserException() {
+        when(jwtutil.validateToken(Mockito.anyString())).thenReturn(true);
+        when(userCache.findByLoginId(Mockito.anyString())).thenThrow(NullPointerException.class);
+        ResponseEntity<UserResponse> response = userService.unfollowUser("tokentokentokentoken", "Aman", "Akash");
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
 }
@@ -1,6 +1,7 @@
 package com.tweetapp.util;
 
 import com.tweetapp.entity.TweetEntity;
+import com.tweetapp.entity.TweetLikeCount;
 import com.tweetapp.entity.TweetLikeEntity;
 import com.tweetapp.entity.UserEntity;
 import com.tweetapp.model.Tweet;
@@ -8,41 +9,46 @@ import com.tweetapp.model.User;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class TestUtil {
 
     public static List<TweetEntity> sampleTweetEntityList() {
         return Arrays.asList(TweetEntity.builder()
-                .tweetId(31)
+                .tweetId(31L)
                 .createdDate(LocalDateTime.now())
-                .parentTweetId(20)
+                .parentTweetId(20L)
                 .tweetDesc("My first tweet")
-                .userId(7)
+                .userId(7L)
                 .build(), TweetEntity.builder()
-                .tweetId(32)
+                .tweetId(32L)
                 .createdDate(LocalDateTime.now())
-                .parentTweetId(22)
+                .parentTweetId(22L)
                 .tweetDesc("My second tweet")
-                .userId(7)
+                .userId(7L)
                 .build());
     }
 
     public static List<TweetLikeEntity> sampleTweetLikeEntityList() {
         return Arrays.asList(TweetLikeEntity.builder()
-                .tweetId(21)
-                .tweetLikeId(1)
-                .userId(1)
+                .tweetId(21L)
+                .tweetLikeId(1L)
+                .userId(1L)
                 .build(), TweetLikeEntity.builder()
-                .tweetId(22)
-                .tweetLikeId(2)
-                .userId(1)
+                .tweetId(22L)
+                .tweetLikeId(2L)
+                .userId(1L)
                 .build());
     }
 
+    public static List<TweetLikeCount> sampleTweetLikeCountList() {
+        return Collections.singletonList(new TweetLikeCount(31L, 3));
+    }
+
     public static UserEntity sampleUserEntity() {
         UserEntity userEntity = new UserEntity();
-        userEntity.setUserId(1);
+        userEntity.setUserId(1L);
         userEntity.setPassword("dontTellAnyone");
         userEntity.setContactNumber(2030405060);
         userEntity.setFirstName("Akash");
@@ -54,12 +60,12 @@ public class TestUtil {
 
     public static Tweet sampleTweet() {
         return Tweet.builder()
-                .tweetId(41)
-                .parentTweetId(21)
+                .tweetId(41L)
+                .parentTweetId(21L)
                 .likeCount(10)
                 .tweetDesc("Visiting Betul ;-)")
                 .createdDate(LocalDateTime.now())
-                .userId(7)
+                .userId(7L)
                 .build();
     }
 
@@ -67,7 +73,7 @@ public class TestUtil {
         return User.builder()
                 .confirmPassword("test")
                 .password("test")
-                .userId(1)
+                .userId(1L)
                 .contactNumber(123567l)
                 .email("test@gmail.com")
                 .loginId("test")